@@ -60,6 +60,11 @@ public class LogChangeNotifier implements ChangesNotifier {
         for (AnnotatedBlock block : changes.getAdded()) {
             notifyChanges("added", item, block);
         }
+        for (Changes.Move move : changes.getMoved()) {
+            String suffix = (move.getKind() == Changes.Move.Kind.RENAMED ? "renamed from " : "moved from ")
+                    + move.getOldItem().getDescription() + ": " + move.getOldBlock().getName();
+            notifyChanges(suffix, item, move.getNewBlock(), move.getOldBlock().getWatchers());
+        }
     }
 
     @Override
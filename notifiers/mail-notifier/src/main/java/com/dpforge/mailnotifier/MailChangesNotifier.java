@@ -94,6 +94,16 @@ class MailChangesNotifier implements ChangesNotifier {
             body.clear();
         }
 
+        if (changes.hasMoved()) {
+            appendMoved(body, watchers, changes);
+
+            for (String watcher : watchers) {
+                mailList.add(watcher, body.build());
+            }
+            watchers.clear();
+            body.clear();
+        }
+
         if (changes.hasDeleted()) {
             body.text("The following source code block(s) has been ").bold("DELETED").text(":").br();
             for (AnnotatedBlock block : changes.getDeleted()) {
@@ -118,10 +128,15 @@ class MailChangesNotifier implements ChangesNotifier {
         final List<String> watchers = new ArrayList<>();
         final HtmlBuilder body = new HtmlBuilder();
 
-        body.text("The following source code block(s) has been ").bold("ADDED").text(":").br();
-        for (AnnotatedBlock block : changes.getAdded()) {
-            body.line(codeFormatter.getHtml(block));
-            extractMailWatchers(watchers, block.getWatchers());
+        if (changes.hasAdded()) {
+            body.text("The following source code block(s) has been ").bold("ADDED").text(":").br();
+            for (AnnotatedBlock block : changes.getAdded()) {
+                body.line(codeFormatter.getHtml(block));
+                extractMailWatchers(watchers, block.getWatchers());
+            }
+        }
+        if (changes.hasMoved()) {
+            appendMoved(body, watchers, changes);
         }
 
         sendEmail(watchers, "Some code was added in " + currentProject.getName(), body.build());
@@ -141,6 +156,25 @@ class MailChangesNotifier implements ChangesNotifier {
         sendEmail(watchers, "Some code was deleted in " + currentProject.getName(), body.build());
     }
 
+    private void appendMoved(final HtmlBuilder body, final List<String> watchers, final Changes changes) {
+        body.text("The following source code block(s) has been ").bold("MOVED").text(":").br();
+        for (Changes.Move move : changes.getMoved()) {
+            body.text(move.getKind() == Changes.Move.Kind.RENAMED ? "Renamed from " : "Moved from ")
+                    .italic(move.getOldBlock().getName())
+                    .text(" in ")
+                    .italic(move.getOldItem().getDescription())
+                    .br()
+                    .line("Was:")
+                    .line(codeFormatter.getHtml(move.getOldBlock()))
+                    .line("Now:")
+                    .line(codeFormatter.getHtml(move.getNewBlock()))
+                    .br();
+
+            extractMailWatchers(watchers, move.getOldBlock().getWatchers());
+            extractMailWatchers(watchers, move.getNewBlock().getWatchers());
+        }
+    }
+
     private void sendEmail(String watcher, String subject, String mailBody) {
         sendEmail(Collections.singletonList(watcher), subject, mailBody);
     }
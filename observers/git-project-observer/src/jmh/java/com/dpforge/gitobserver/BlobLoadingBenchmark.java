@@ -0,0 +1,96 @@
+package com.dpforge.gitobserver;
+
+import com.dpforge.tellon.core.parser.SourceCode;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.util.FileUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading of blobs as source code: line by line through a new object reader for every blob as it used to be
+ * versus {@link GitBlobLoader}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlobLoadingBenchmark {
+    private static final int BLOB_COUNT = 100;
+
+    @Param({"2", "32", "512"})
+    public int blobKilobytes;
+
+    private File directory;
+    private Repository repository;
+    private GitBlobLoader blobLoader;
+    private final List<ObjectId> blobIds = new ArrayList<>();
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("tellon-benchmark").toFile();
+        repository = new FileRepositoryBuilder().setGitDir(directory).build();
+        repository.create(true);
+        try (ObjectInserter inserter = repository.newObjectInserter()) {
+            for (int i = 0; i < BLOB_COUNT; i++) {
+                blobIds.add(inserter.insert(Constants.OBJ_BLOB, createSource(i, blobKilobytes * 1024)));
+            }
+            inserter.flush();
+        }
+        blobLoader = new GitBlobLoader(repository, StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        blobLoader.close();
+        repository.close();
+        FileUtils.delete(directory, FileUtils.RECURSIVE);
+    }
+
+    @Benchmark
+    public void lineByLine(Blackhole blackhole) throws IOException {
+        for (ObjectId blobId : blobIds) {
+            final List<String> lines = new ArrayList<>();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    repository.open(blobId).openStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lines.add(line);
+                }
+            }
+            blackhole.consume(SourceCode.createFromContent(lines));
+        }
+    }
+
+    @Benchmark
+    public void blobLoader(Blackhole blackhole) throws IOException {
+        for (ObjectId blobId : blobIds) {
+            blackhole.consume(blobLoader.load(blobId));
+        }
+    }
+
+    private static byte[] createSource(int index, int size) {
+        final StringBuilder builder = new StringBuilder("package com.test;\n\nclass Foo" + index + " {\n");
+        for (int i = 0; builder.length() < size; i++) {
+            builder.append("    /** Field number ").append(i).append(" */\n")
+                    .append("    private final String field").append(i).append(" = \"value ").append(index)
+                    .append("\";\n");
+        }
+        return builder.append("}\n").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
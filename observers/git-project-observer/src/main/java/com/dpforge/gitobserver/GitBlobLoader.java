@@ -0,0 +1,85 @@
+package com.dpforge.gitobserver;
+
+import com.dpforge.tellon.core.parser.SourceCode;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectLoader;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.ObjectStream;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.util.IO;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Loads blobs as source code decoded with the given charset.
+ * <p>
+ * Object reader is not thread-safe, so every worker thread gets its own one, created on first use and reused for
+ * all blobs it loads. Created readers are registered, so they are released by {@link #close()} even though
+ * the threads outlive the loader.
+ * <p>
+ * Small blobs are taken from the reader at once without copying, large ones are streamed into a buffer of their
+ * exact size.
+ */
+class GitBlobLoader implements Closeable {
+    private final Charset charset;
+    private final ThreadLocal<ObjectReader> readers;
+    private final Queue<ObjectReader> openedReaders = new ConcurrentLinkedQueue<>();
+
+    GitBlobLoader(Repository repository, Charset charset) {
+        this.charset = charset;
+        this.readers = ThreadLocal.withInitial(() -> {
+            final ObjectReader reader = repository.newObjectReader();
+            openedReaders.add(reader);
+            return reader;
+        });
+    }
+
+    Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * Object reader of the current thread
+     */
+    ObjectReader getReader() {
+        return readers.get();
+    }
+
+    /**
+     * Closes readers of all threads. The loader must not be used after it is closed.
+     */
+    @Override
+    public void close() {
+        for (ObjectReader reader = openedReaders.poll(); reader != null; reader = openedReaders.poll()) {
+            reader.close();
+        }
+    }
+
+    SourceCode load(AnyObjectId blobId) throws IOException {
+        return SourceCode.createFromBytes(loadBytes(blobId), charset);
+    }
+
+    /**
+     * Content of the blob. It may be shared with the object cache of the reader so must not be modified.
+     */
+    byte[] loadBytes(AnyObjectId blobId) throws IOException {
+        final ObjectLoader loader = getReader().open(blobId, Constants.OBJ_BLOB);
+        if (!loader.isLarge()) {
+            return loader.getCachedBytes();
+        }
+        final long size = loader.getSize();
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IOException(String.format("Blob %s is too large: %d bytes", blobId.name(), size));
+        }
+        final byte[] bytes = new byte[(int) size];
+        try (ObjectStream stream = loader.openStream()) {
+            IO.readFully(stream, bytes, 0, bytes.length);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,176 @@
+package com.dpforge.gitobserver;
+
+import com.dpforge.tellon.core.parser.ParseCacheStorage;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.notes.Note;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps parse cache entries in git notes, so every clone of the repository shares them.
+ * <p>
+ * The note of a commit is a manifest of annotated blocks of its source files: a line per file with blob id,
+ * Base64 encoded cache entry and path. Blocks are not listed field by field: the cache entry already holds type,
+ * name, identity, range and unresolved watchers of every block in the versioned format of
+ * {@link com.dpforge.tellon.core.parser.ParseCache}, and fingerprints are computed from the source code when blocks
+ * are restored, so the manifest is meant to be read by Tellon rather than by people or other tools. Manifests of
+ * both revisions are read once when the observer is initialized. Changed files are reported by the walker as it finds
+ * them, in the order of commits if a range is walked, so the last reported blob of a path is the one of the new
+ * revision. On {@link #flush()} the manifest of the new revision
+ * is built from the manifest of the old one, where entries of changed files are replaced with the ones read or
+ * written during the run, and added to the notes ref as a single commit unless it is the same as the existing one.
+ */
+class GitNotesCacheStorage implements ParseCacheStorage, GitProjectWalker.Listener {
+    private static final String HEADER = "tellon-manifest 1";
+
+    private final File gitDir;
+    private final String notesRef;
+    private final ObjectId newCommitId;
+    // blob ids of new revision files by their paths
+    private final Map<String, String> newBlobIds = new ConcurrentHashMap<>();
+    private final Set<String> changedPaths = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, byte[]> entries = new ConcurrentHashMap<>();
+    private final Map<String, ManifestEntry> previousManifest;
+    private final String actualManifest;
+
+    GitNotesCacheStorage(Repository repository,
+                         String notesRef,
+                         ObjectId oldCommitId,
+                         ObjectId newCommitId) throws IOException, GitAPIException {
+        this.gitDir = repository.getDirectory();
+        this.notesRef = notesRef;
+        this.newCommitId = newCommitId;
+
+        previousManifest = parseManifest(readNote(repository, oldCommitId));
+        actualManifest = readNote(repository, newCommitId);
+        for (ManifestEntry entry : previousManifest.values()) {
+            entries.put(entry.blobId, entry.data);
+        }
+        for (ManifestEntry entry : parseManifest(actualManifest).values()) {
+            entries.put(entry.blobId, entry.data);
+        }
+    }
+
+    @Override
+    public void onPathChanged(String path, ObjectId actualId) {
+        changedPaths.add(path);
+        if (actualId != null) {
+            newBlobIds.put(path, actualId.name());
+        } else {
+            newBlobIds.remove(path);
+        }
+    }
+
+    @Override
+    public byte[] read(String contentId) {
+        return entries.get(contentId);
+    }
+
+    @Override
+    public void write(String contentId, byte[] entry) {
+        entries.put(contentId, entry);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        final Map<String, ManifestEntry> manifest = new TreeMap<>();
+        for (ManifestEntry entry : previousManifest.values()) {
+            if (!changedPaths.contains(entry.path)) {
+                manifest.put(entry.path, entry);
+            }
+        }
+        for (Map.Entry<String, String> blobId : newBlobIds.entrySet()) {
+            final byte[] data = entries.get(blobId.getValue());
+            if (data != null) {
+                manifest.put(blobId.getKey(), new ManifestEntry(blobId.getValue(), data, blobId.getKey()));
+            }
+        }
+
+        final String text = formatManifest(manifest.values());
+        if (text.equals(actualManifest)) {
+            return;
+        }
+        try (Repository repository = new FileRepositoryBuilder().setGitDir(gitDir).build();
+             Git git = new Git(repository);
+             RevWalk walk = new RevWalk(repository)) {
+            git.notesAdd()
+                    .setNotesRef(notesRef)
+                    .setObjectId(walk.parseCommit(newCommitId))
+                    .setMessage(text)
+                    .call();
+        } catch (GitAPIException e) {
+            throw new IOException("Fail to write manifest to " + notesRef, e);
+        }
+    }
+
+    private String readNote(Repository repository, ObjectId commitId) throws IOException, GitAPIException {
+        try (Git git = new Git(repository); RevWalk walk = new RevWalk(repository)) {
+            final RevCommit commit = walk.parseCommit(commitId);
+            final Note note = git.notesShow().setNotesRef(notesRef).setObjectId(commit).call();
+            if (note == null) {
+                return null;
+            }
+            return new String(repository.open(note.getData()).getBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Map<String, ManifestEntry> parseManifest(String text) {
+        final Map<String, ManifestEntry> manifest = new HashMap<>();
+        if (text == null) {
+            return manifest;
+        }
+        final String[] lines = text.split("\n");
+        if (lines.length == 0 || !HEADER.equals(lines[0])) {
+            // unknown format, the manifest will be rebuilt
+            return manifest;
+        }
+        for (int i = 1; i < lines.length; i++) {
+            final String[] parts = lines[i].split(" ", 3);
+            if (parts.length != 3) {
+                continue;
+            }
+            try {
+                manifest.put(parts[2], new ManifestEntry(parts[0], Base64.getDecoder().decode(parts[1]), parts[2]));
+            } catch (IllegalArgumentException ignored) {
+                // broken line, the file will be parsed again
+            }
+        }
+        return manifest;
+    }
+
+    private static String formatManifest(Collection<ManifestEntry> entries) {
+        final StringBuilder builder = new StringBuilder(HEADER).append('\n');
+        for (ManifestEntry entry : entries) {
+            builder.append(entry.blobId)
+                    .append(' ')
+                    .append(Base64.getEncoder().encodeToString(entry.data))
+                    .append(' ')
+                    .append(entry.path)
+                    .append('\n');
+        }
+        return builder.toString();
+    }
+
+    private static class ManifestEntry {
+        final String blobId;
+        final byte[] data;
+        final String path;
+
+        ManifestEntry(String blobId, byte[] data, String path) {
+            this.blobId = blobId;
+            this.data = data;
+            this.path = path;
+        }
+    }
+}
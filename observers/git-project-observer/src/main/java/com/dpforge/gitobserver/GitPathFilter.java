@@ -0,0 +1,102 @@
+package com.dpforge.gitobserver;
+
+import org.eclipse.jgit.ignore.FastIgnoreRule;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Accepts java files which match any of the include patterns, if there are some, and none of the exclude ones.
+ * <p>
+ * Patterns follow the syntax of .gitignore and are compiled once, so the filter can be shared by walkers of any
+ * thread. A directory matching an exclude pattern is not walked at all, and the suffix of a file is checked on raw
+ * path bytes before the path is decoded for the patterns.
+ */
+class GitPathFilter extends TreeFilter {
+    private static final byte[] JAVA_SUFFIX = {'.', 'j', 'a', 'v', 'a'};
+
+    private final List<FastIgnoreRule> includes;
+    private final List<FastIgnoreRule> excludes;
+
+    /**
+     * @throws IllegalArgumentException if some pattern is negated
+     */
+    GitPathFilter(List<String> includes, List<String> excludes) {
+        this.includes = compile(includes);
+        this.excludes = compile(excludes);
+    }
+
+    @Override
+    public boolean include(TreeWalk walker) {
+        if (walker.isSubtree()) {
+            return excludes.isEmpty() || !matches(excludes, walker.getPathString(), true);
+        }
+        if (!hasJavaSuffix(walker.getRawPath(), walker.getPathLength())) {
+            return false;
+        }
+        if (includes.isEmpty() && excludes.isEmpty()) {
+            return true;
+        }
+        final String path = walker.getPathString();
+        return (includes.isEmpty() || matches(includes, path, false)) && !matches(excludes, path, false);
+    }
+
+    @Override
+    public boolean shouldBeRecursive() {
+        return true;
+    }
+
+    @Override
+    public TreeFilter clone() {
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "JAVA_FILES(includes=" + includes + ", excludes=" + excludes + ")";
+    }
+
+    private static List<FastIgnoreRule> compile(List<String> patterns) {
+        if (patterns.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final List<FastIgnoreRule> rules = new ArrayList<>(patterns.size());
+        for (String pattern : patterns) {
+            final FastIgnoreRule rule = new FastIgnoreRule(pattern);
+            if (rule.getNegation()) {
+                throw new IllegalArgumentException("Negated path pattern is not supported: " + pattern);
+            }
+            if (!rule.isEmpty()) {
+                rules.add(rule);
+            }
+        }
+        return rules;
+    }
+
+    private static boolean matches(List<FastIgnoreRule> rules, String path, boolean directory) {
+        for (FastIgnoreRule rule : rules) {
+            if (rule.isMatch(path, directory)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasJavaSuffix(byte[] path, int length) {
+        if (length < JAVA_SUFFIX.length) {
+            return false;
+        }
+        final int offset = length - JAVA_SUFFIX.length;
+        for (int i = 0; i < JAVA_SUFFIX.length; i++) {
+            final byte b = path[offset + i];
+            // the suffix is matched ignoring case of ASCII letters
+            if (b != JAVA_SUFFIX[i] && (b < 'A' || b > 'Z' || b + ('a' - 'A') != JAVA_SUFFIX[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
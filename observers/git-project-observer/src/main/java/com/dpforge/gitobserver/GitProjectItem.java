@@ -0,0 +1,114 @@
+package com.dpforge.gitobserver;
+
+import com.dpforge.tellon.core.observer.LineChange;
+import com.dpforge.tellon.core.observer.ProjectItem;
+import com.dpforge.tellon.core.observer.Revision;
+import com.dpforge.tellon.core.parser.SourceCode;
+import org.eclipse.jgit.diff.DiffAlgorithm;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * File which differs between two revisions. Only ids of its blobs are kept, content is loaded on demand and is
+ * not retained by the item.
+ */
+class GitProjectItem implements ProjectItem {
+    private static final DiffAlgorithm DIFF_ALGORITHM =
+            DiffAlgorithm.getAlgorithm(DiffAlgorithm.SupportedAlgorithm.HISTOGRAM);
+
+    private final String path;
+    private final ObjectId previousId;
+    private final ObjectId actualId;
+    private final Revision previousRevision;
+    private final Revision actualRevision;
+    private final GitBlobLoader blobLoader;
+
+    /**
+     * @param previousId blob id in the previous revision or {@code null} if the file is added
+     * @param actualId   blob id in the actual revision or {@code null} if the file is deleted
+     */
+    GitProjectItem(String path,
+                   ObjectId previousId,
+                   ObjectId actualId,
+                   Revision previousRevision,
+                   Revision actualRevision,
+                   GitBlobLoader blobLoader) {
+        this.path = path;
+        this.previousId = previousId;
+        this.actualId = actualId;
+        this.previousRevision = previousRevision;
+        this.actualRevision = actualRevision;
+        this.blobLoader = blobLoader;
+    }
+
+    @Override
+    public String getDescription() {
+        return path;
+    }
+
+    @Override
+    public boolean hasActual() {
+        return actualId != null;
+    }
+
+    @Override
+    public SourceCode getActual() throws IOException {
+        return SourceCode.createFromBytes(blobLoader.loadBytes(actualId), blobLoader.getCharset());
+    }
+
+    @Override
+    public String getActualContentId() throws IOException {
+        return actualId.name();
+    }
+
+    @Override
+    public Revision getActualRevision() throws IOException {
+        return actualRevision;
+    }
+
+    @Override
+    public boolean hasPrevious() {
+        return previousId != null;
+    }
+
+    @Override
+    public SourceCode getPrevious() throws IOException {
+        return SourceCode.createFromBytes(blobLoader.loadBytes(previousId), blobLoader.getCharset());
+    }
+
+    @Override
+    public String getPreviousContentId() throws IOException {
+        return previousId.name();
+    }
+
+    @Override
+    public Revision getPreviousRevision() throws IOException {
+        return previousRevision;
+    }
+
+    @Override
+    public List<LineChange> getChangedLines() throws IOException {
+        if (!hasPrevious() || !hasActual()) {
+            return null;
+        }
+        return getChangedLines(getPrevious(), getActual());
+    }
+
+    /**
+     * Diffs the lines exactly as they are given to the parser so line numbers of hunks match them
+     */
+    @Override
+    public List<LineChange> getChangedLines(SourceCode previous, SourceCode actual) {
+        final List<Edit> edits = DIFF_ALGORITHM.diff(SourceCodeSequence.COMPARATOR,
+                new SourceCodeSequence(previous.getLines()), new SourceCodeSequence(actual.getLines()));
+        final List<LineChange> changes = new ArrayList<>(edits.size());
+        for (Edit edit : edits) {
+            changes.add(new LineChange(edit.getBeginA(), edit.getEndA(), edit.getBeginB(), edit.getEndB()));
+        }
+        return changes;
+    }
+}
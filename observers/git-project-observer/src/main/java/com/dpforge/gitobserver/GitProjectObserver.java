@@ -1,21 +1,26 @@
 package com.dpforge.gitobserver;
 
 import com.dpforge.tellon.core.observer.*;
+import com.dpforge.tellon.core.parser.ParseCacheStorage;
 import com.dpforge.tellon.core.parser.SourceCode;
-import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
-import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffConfig;
+import org.eclipse.jgit.diff.RenameDetector;
 import org.eclipse.jgit.lib.*;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
-import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.eclipse.jgit.util.FS;
 
 import java.io.*;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Map;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class GitProjectObserver implements ProjectObserver {
 
@@ -26,44 +31,113 @@ public class GitProjectObserver implements ProjectObserver {
     private static final String ARG_NEW_REVISION = "newRev";
     private static final String ARG_OLD_REVISION = "oldRev";
     private static final String ARG_SOURCE_DIR = "srcDir";
+    private static final String ARG_NOTES_REF = "notesRef";
+    private static final String ARG_CHARSET = "charset";
+    private static final String ARG_RENAMES = "renames";
+    private static final String ARG_COPIES = "copies";
+    private static final String ARG_RENAME_SCORE = "renameScore";
+    private static final String ARG_RENAME_LIMIT = "renameLimit";
+    private static final String ARG_RANGE = "range";
+    private static final String ARG_FIRST_PARENT = "firstParent";
+    private static final String ARG_INCLUDE = "include";
+    private static final String ARG_EXCLUDE = "exclude";
+
+    private static final int DEFAULT_RENAME_SCORE = 60;
+    private static final long RANGE_CACHE_SIZE = 64 * 1024 * 1024;
 
     private File gitDir;
 
-    private File sourceDir;
+    private String sourcePath;
 
     private ProjectInfo projectInfo;
 
-    private List<ProjectItem> items;
+    private Repository repository;
 
     private GitRevision newRev;
 
     private GitRevision oldRev;
 
+    private String notesRef;
+
+    private Charset charset;
+
+    private boolean detectRenames;
+
+    private boolean detectCopies;
+
+    private int renameScore;
+
+    private Integer renameLimit;
+
+    private boolean range;
+
+    private boolean firstParent;
+
+    private TreeFilter pathFilter;
+
+    private GitBlobLoader blobLoader;
+
+    private GitNotesCacheStorage parseCacheStorage;
+
+    private MemoryCacheStorage rangeCacheStorage;
+
+    private final Map<String, SourceCodeProvider> sourceCodeProviders = new ConcurrentHashMap<>();
+
     @Override
     public void init(Map<String, String> args) throws ProjectObserverException {
         parseArguments(args);
 
         projectInfo = new ProjectInfo.Builder()
-                .name(gitDir.getParentFile().getName())
+                .name(getProjectName(gitDir))
                 .build();
 
+        Repository repository = null;
         try {
-            try (final Repository repository = new FileRepositoryBuilder()
+            repository = new FileRepositoryBuilder()
                     .setGitDir(gitDir)
-                    .build()) {
-
-                newRev.fillWith(repository);
-                oldRev.fillWith(repository);
-
-                if (newRev.isReady() && oldRev.isReady()) {
-                    items = buildProjectItems(repository, buildDiff(repository));
-                } else {
-                    items = Collections.emptyList();
+                    .build();
+
+            newRev.fillWith(repository);
+            oldRev.fillWith(repository);
+
+            if (newRev.isReady() && oldRev.isReady()) {
+                blobLoader = new GitBlobLoader(repository, charset);
+                sourceCodeProviders.put(newRev.info.getVersion(),
+                        new GitTreeSourceCodeProvider(blobLoader, newRev.treeId, sourcePath));
+                sourceCodeProviders.put(oldRev.info.getVersion(),
+                        new GitTreeSourceCodeProvider(blobLoader, oldRev.treeId, sourcePath));
+                if (notesRef != null) {
+                    parseCacheStorage = new GitNotesCacheStorage(repository, notesRef, oldRev.commitId,
+                            newRev.commitId);
+                } else if (range) {
+                    rangeCacheStorage = new MemoryCacheStorage(RANGE_CACHE_SIZE);
                 }
+                // blobs are loaded from the repository until the observer is closed
+                this.repository = repository;
             }
         } catch (IOException | GitAPIException e) {
             throw new ProjectObserverException(e);
+        } finally {
+            if (repository != null && this.repository != repository) {
+                repository.close();
+            }
+        }
+    }
+
+    /**
+     * Closes object readers of all worker threads and the repository
+     */
+    @Override
+    public void close() {
+        if (blobLoader != null) {
+            blobLoader.close();
+            blobLoader = null;
+        }
+        if (repository != null) {
+            repository.close();
+            repository = null;
         }
+        sourceCodeProviders.clear();
     }
 
     @Override
@@ -81,16 +155,185 @@ public class GitProjectObserver implements ProjectObserver {
         return projectInfo;
     }
 
+    /**
+     * Walker which compares trees of the revisions lazily while items are taken. In range mode trees of every commit
+     * of the range and its first parent are compared, from the oldest commit to the newest one.
+     */
     @Override
     public ProjectWalker createWalker() {
-        return new GitProjectWalker(items);
+        if (repository == null) {
+            return new ProjectWalker() {
+                @Override
+                public boolean hasNext() {
+                    return false;
+                }
+
+                @Override
+                public ProjectItem next() {
+                    throw new NoSuchElementException();
+                }
+            };
+        }
+        return range ? createRangeWalker() : createTreeWalker();
     }
 
+    private ProjectWalker createTreeWalker() {
+        final ObjectReader reader = repository.newObjectReader();
+        try {
+            return new GitProjectWalker(reader, oldRev.treeId, newRev.treeId, pathFilter, oldRev.info, newRev.info,
+                    blobLoader, parseCacheStorage, createRenameDetector(reader), detectCopies, true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Fail to walk trees of revisions", e);
+        }
+    }
+
+    private ProjectWalker createRangeWalker() {
+        final ObjectReader reader = repository.newObjectReader();
+        try {
+            return new GitRangeWalker(reader, findCommits(reader), this::createCommitWalker);
+        } catch (IOException e) {
+            reader.close();
+            throw new UncheckedIOException("Fail to walk commits of range", e);
+        }
+    }
+
+    /**
+     * Commits reachable from the new revision but not from the old one, oldest first. Merge commits are skipped
+     * unless only first parents are followed, since commits of merged branches are walked themselves.
+     */
+    private List<RevCommit> findCommits(final ObjectReader reader) throws IOException {
+        try (RevWalk walk = new RevWalk(reader)) {
+            final List<RevCommit> commits = new ArrayList<>();
+            if (firstParent) {
+                commits.addAll(findFirstParentChain(walk));
+            } else {
+                startRangeWalk(walk);
+                for (RevCommit commit : walk) {
+                    if (commit.getParentCount() < 2) {
+                        commits.add(commit);
+                    }
+                }
+            }
+            Collections.reverse(commits);
+            // bodies of commits out of the range are disposed by the walk but authors of first parents are needed
+            for (RevCommit commit : commits) {
+                walk.parseBody(commit);
+                if (commit.getParentCount() > 0) {
+                    walk.parseBody(commit.getParent(0));
+                }
+            }
+            return commits;
+        }
+    }
+
+    /**
+     * Commits of the range on the first-parent chain of the new revision, newest first
+     */
+    private List<RevCommit> findFirstParentChain(final RevWalk walk) throws IOException {
+        startRangeWalk(walk);
+        final Set<RevCommit> inRange = new HashSet<>();
+        for (RevCommit commit : walk) {
+            inRange.add(commit);
+        }
+        final List<RevCommit> chain = new ArrayList<>();
+        RevCommit commit = walk.parseCommit(newRev.commitId);
+        while (commit != null && inRange.contains(commit)) {
+            chain.add(commit);
+            commit = commit.getParentCount() > 0 ? commit.getParent(0) : null;
+        }
+        return chain;
+    }
+
+    private void startRangeWalk(final RevWalk walk) throws IOException {
+        walk.sort(RevSort.TOPO);
+        walk.markStart(walk.parseCommit(newRev.commitId));
+        walk.markUninteresting(walk.parseCommit(oldRev.commitId));
+    }
+
+    /**
+     * Splits the first-parent chain of the new revision into parts of at most the given number of commits. Every part
+     * is processed in range mode from the last commit of the previous part, so commits of branches merged within
+     * the part belong to it unless only first parents are followed.
+     */
+    @Override
+    public List<Map<String, String>> splitRange(final int maxRevisions) throws IOException {
+        if (maxRevisions < 1) {
+            throw new IllegalArgumentException("Part must contain at least one revision: " + maxRevisions);
+        }
+        if (repository == null) {
+            return Collections.emptyList();
+        }
+        final List<RevCommit> chain;
+        try (RevWalk walk = new RevWalk(repository)) {
+            chain = findFirstParentChain(walk);
+        }
+        Collections.reverse(chain);
+
+        final List<Map<String, String>> parts = new ArrayList<>();
+        ObjectId partStart = oldRev.commitId;
+        for (int i = 0; i < chain.size(); i += maxRevisions) {
+            final RevCommit partEnd = chain.get(Math.min(i + maxRevisions, chain.size()) - 1);
+            final Map<String, String> part = new HashMap<>();
+            part.put(ARG_OLD_REVISION, partStart.name());
+            part.put(ARG_NEW_REVISION, partEnd.name());
+            part.put(ARG_RANGE, Boolean.TRUE.toString());
+            parts.add(part);
+            partStart = partEnd;
+        }
+        return parts;
+    }
+
+    private ProjectWalker createCommitWalker(final ObjectReader reader, final RevCommit commit) throws IOException {
+        final RevCommit parent = commit.getParentCount() > 0 ? commit.getParent(0) : null;
+        final Revision previousRevision = parent != null ? addRevision(parent) : null;
+        final Revision actualRevision = addRevision(commit);
+        return new GitProjectWalker(reader, parent != null ? parent.getTree() : null, commit.getTree(), pathFilter,
+                previousRevision, actualRevision, blobLoader, parseCacheStorage, createRenameDetector(reader),
+                detectCopies, false);
+    }
+
+    /**
+     * Revision of the commit whose source code is provided from its tree
+     */
+    private Revision addRevision(final RevCommit commit) {
+        final Revision revision = GitRevision.createRevision(commit);
+        sourceCodeProviders.computeIfAbsent(revision.getVersion(),
+                version -> new GitTreeSourceCodeProvider(blobLoader, commit.getTree(), sourcePath));
+        return revision;
+    }
+
+    private RenameDetector createRenameDetector(final ObjectReader reader) {
+        if (!detectRenames) {
+            return null;
+        }
+        final RenameDetector detector = new RenameDetector(reader, repository.getConfig().get(DiffConfig.KEY));
+        detector.setRenameScore(renameScore);
+        if (renameLimit != null) {
+            detector.setRenameLimit(renameLimit);
+        }
+        return detector;
+    }
+
+    @Override
+    public ParseCacheStorage getParseCacheStorage() {
+        return parseCacheStorage != null ? parseCacheStorage : rangeCacheStorage;
+    }
+
+    /**
+     * Source code of the class as of the new revision
+     */
     @Override
     public SourceCode getSourceCode(final String qualifiedName) throws IOException {
-        final String path = qualifiedName.replace('.', File.separatorChar) + ".java";
-        final File file = new File(sourceDir, path);
-        return SourceCode.createFromContent(getStreamContent(new FileInputStream(file)));
+        if (sourceCodeProviders.isEmpty()) {
+            throw new FileNotFoundException("No revision to get source code of " + qualifiedName);
+        }
+        return sourceCodeProviders.get(newRev.info.getVersion()).getSourceCode(qualifiedName);
+    }
+
+    @Override
+    public SourceCodeProvider getSourceCodeProvider(final Revision revision) {
+        final SourceCodeProvider provider = sourceCodeProviders.get(revision.getVersion());
+        return provider != null ? provider : this;
     }
 
     private void parseArguments(final Map<String, String> args) throws ProjectObserverException {
@@ -99,8 +342,9 @@ public class GitProjectObserver implements ProjectObserver {
             throw new ProjectObserverException("Path to .git directory not provided");
         }
 
-        gitDir = new File(gitDirArg, ".git");
-        if (!gitDir.exists()) {
+        // either the root of a working tree or a bare repository, everything is read from its objects anyway
+        gitDir = RepositoryCache.FileKey.resolve(new File(gitDirArg), FS.DETECTED);
+        if (gitDir == null) {
             throw new ProjectObserverException(String.format("git directory '%s' not found", gitDirArg));
         }
 
@@ -109,10 +353,8 @@ public class GitProjectObserver implements ProjectObserver {
             throw new ProjectObserverException("Source directory not provided");
         }
 
-        sourceDir = new File(gitDirArg, sourceDirArg);
-        if (!sourceDir.exists()) {
-            throw new ProjectObserverException(String.format("Source directory '%s' not found", gitDirArg));
-        }
+        // source code is read from the trees of revisions, so the directory is not required to be checked out
+        sourcePath = normalizeSourcePath(sourceDirArg);
 
         String newRevisionArg = args.get(ARG_NEW_REVISION);
         if (newRevisionArg == null) {
@@ -126,100 +368,106 @@ public class GitProjectObserver implements ProjectObserver {
 
         newRev = new GitRevision(newRevisionArg);
         oldRev = new GitRevision(oldRevisionArg);
-    }
 
-    private List<DiffEntry> buildDiff(Repository repo) throws IOException, GitAPIException {
-        try (ObjectReader reader = repo.newObjectReader()) {
-            CanonicalTreeParser oldTreeIter = new CanonicalTreeParser();
-            oldTreeIter.reset(reader, oldRev.treeId);
-            CanonicalTreeParser newTreeIter = new CanonicalTreeParser();
-            newTreeIter.reset(reader, newRev.treeId);
-
-            try (Git git = new Git(repo)) {
-                return git.diff()
-                        .setNewTree(newTreeIter)
-                        .setOldTree(oldTreeIter)
-                        .call();
-            }
-        }
-    }
+        notesRef = args.get(ARG_NOTES_REF);
 
-    private List<ProjectItem> buildProjectItems(final Repository repository, List<DiffEntry> diff) {
-        final List<ProjectItem> items = new ArrayList<>(diff.size());
-        for (final DiffEntry entry : diff) {
-            final String diffEntryPath = getDiffEntryPath(entry);
-            if (shouldSkipPath(diffEntryPath)) {
-                continue;
-            }
+        final String charsetArg = args.get(ARG_CHARSET);
+        try {
+            charset = charsetArg != null ? Charset.forName(charsetArg) : StandardCharsets.UTF_8;
+        } catch (IllegalArgumentException e) {
+            throw new ProjectObserverException(String.format("Unsupported charset '%s'", charsetArg));
+        }
 
-            items.add(new ProjectItem() {
-                @Override
-                public String getDescription() {
-                    return diffEntryPath;
-                }
+        // added and deleted files are kept until the whole diff is walked, so renames are detected only on request
+        detectRenames = Boolean.parseBoolean(args.get(ARG_RENAMES));
+        // copies are found by the rename detector, so they are not detected without renames
+        detectCopies = detectRenames && Boolean.parseBoolean(args.get(ARG_COPIES));
 
-                @Override
-                public boolean hasActual() {
-                    return entry.getChangeType() != DiffEntry.ChangeType.DELETE;
-                }
+        final String renameScoreArg = args.get(ARG_RENAME_SCORE);
+        renameScore = renameScoreArg != null ? parseInt(ARG_RENAME_SCORE, renameScoreArg) : DEFAULT_RENAME_SCORE;
+        if (renameScore < 0 || renameScore > 100) {
+            throw new ProjectObserverException(String.format("Rename score must be from 0 to 100 but was %d",
+                    renameScore));
+        }
 
-                @Override
-                public SourceCode getActual() throws IOException {
-                    ObjectStream os = repository.open(entry.getNewId().toObjectId()).openStream();
-                    return SourceCode.createFromContent(getStreamContent(os));
-                }
+        final String renameLimitArg = args.get(ARG_RENAME_LIMIT);
+        renameLimit = renameLimitArg != null ? parseInt(ARG_RENAME_LIMIT, renameLimitArg) : null;
+        if (renameLimit != null && renameLimit < 0) {
+            throw new ProjectObserverException(String.format("Rename limit must not be negative but was %d",
+                    renameLimit));
+        }
 
-                @Override
-                public Revision getActualRevision() throws IOException {
-                    return newRev.info;
-                }
+        range = Boolean.parseBoolean(args.get(ARG_RANGE));
+        firstParent = Boolean.parseBoolean(args.get(ARG_FIRST_PARENT));
 
-                @Override
-                public boolean hasPrevious() {
-                    return entry.getChangeType() != DiffEntry.ChangeType.ADD;
-                }
+        pathFilter = createPathFilter(sourcePath, splitPatterns(args.get(ARG_INCLUDE)),
+                splitPatterns(args.get(ARG_EXCLUDE)));
+    }
 
-                @Override
-                public SourceCode getPrevious() throws IOException {
-                    ObjectStream os = repository.open(entry.getOldId().toObjectId()).openStream();
-                    return SourceCode.createFromContent(getStreamContent(os));
-                }
+    /**
+     * Filter of java files under the source directory which match the patterns
+     */
+    private static TreeFilter createPathFilter(final String sourcePath,
+                                               final List<String> includes,
+                                               final List<String> excludes) throws ProjectObserverException {
+        final TreeFilter filesFilter;
+        try {
+            filesFilter = new GitPathFilter(includes, excludes);
+        } catch (IllegalArgumentException e) {
+            throw new ProjectObserverException(e.getMessage());
+        }
+        // directories other than the source one are skipped without being compared
+        return sourcePath.isEmpty() ? filesFilter : AndTreeFilter.create(PathFilter.create(sourcePath), filesFilter);
+    }
 
-                @Override
-                public Revision getPreviousRevision() throws IOException {
-                    return oldRev.info;
-                }
-            });
+    private static List<String> splitPatterns(final String value) {
+        if (value == null) {
+            return Collections.emptyList();
         }
-        return items;
+        final List<String> patterns = new ArrayList<>();
+        for (String pattern : value.split(",")) {
+            if (!pattern.trim().isEmpty()) {
+                patterns.add(pattern.trim());
+            }
+        }
+        return patterns;
     }
 
-    private static boolean shouldSkipPath(final String path) {
-        return !path.toLowerCase().endsWith(".java");
+    private static int parseInt(final String name, final String value) throws ProjectObserverException {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new ProjectObserverException(String.format("Argument '%s' must be a number but was '%s'",
+                    name, value));
+        }
     }
 
-    private String getDiffEntryPath(DiffEntry entry) {
-        switch (entry.getChangeType()) {
-            case ADD:
-                return entry.getNewPath();
-            case MODIFY:
-            case DELETE:
-            case RENAME:
-            case COPY:
-            default:
-                return entry.getOldPath();
+    /**
+     * Name of the working tree or of the bare repository without .git extension
+     */
+    private static String getProjectName(final File gitDir) {
+        final File directory = gitDir.toPath().toAbsolutePath().normalize().toFile();
+        if (Constants.DOT_GIT.equals(directory.getName())) {
+            return directory.getParentFile().getName();
         }
+        final String name = directory.getName();
+        return name.endsWith(Constants.DOT_GIT_EXT)
+                ? name.substring(0, name.length() - Constants.DOT_GIT_EXT.length())
+                : name;
     }
 
-    private static List<String> getStreamContent(final InputStream is) throws IOException {
-        final List<String> content = new ArrayList<>();
-        try (final BufferedReader reader = new BufferedReader(new InputStreamReader(is))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                content.add(line);
-            }
+    private static String normalizeSourcePath(final String path) {
+        String result = path.replace('\\', '/');
+        while (result.startsWith("./")) {
+            result = result.substring(2);
+        }
+        while (result.startsWith("/")) {
+            result = result.substring(1);
         }
-        return content;
+        while (result.endsWith("/")) {
+            result = result.substring(0, result.length() - 1);
+        }
+        return ".".equals(result) ? "" : result;
     }
 
     private static class GitRevision {
@@ -237,13 +485,16 @@ public class GitProjectObserver implements ProjectObserver {
             commitId = repository.resolve(revision + "^{commit}");
 
             try (RevWalk walk = new RevWalk(repository)) {
-                final RevCommit newCommit = walk.parseCommit(commitId);
-                info = new Revision.Builder(commitId.name())
-                        .author(getCommitAuthor(newCommit))
-                        .build();
+                info = createRevision(walk.parseCommit(commitId));
             }
         }
 
+        static Revision createRevision(RevCommit commit) {
+            return new Revision.Builder(commit.name())
+                    .author(getCommitAuthor(commit))
+                    .build();
+        }
+
         boolean isReady() {
             return treeId != null || commitId != null || info != null;
         }
@@ -2,26 +2,241 @@ package com.dpforge.gitobserver;
 
 import com.dpforge.tellon.core.observer.ProjectItem;
 import com.dpforge.tellon.core.observer.ProjectWalker;
+import com.dpforge.tellon.core.observer.Revision;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.RenameDetector;
+import org.eclipse.jgit.lib.AbbreviatedObjectId;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
+/**
+ * Compares trees of two revisions while items are taken, so processing of the first files starts right away and
+ * memory does not depend on the number of changed files. Files are visited in the order of paths in the trees.
+ * <p>
+ * Only regular files accepted by the path filter are considered: a file turned into a symbolic link is reported as
+ * deleted and vice versa. The filter is applied while the trees are walked, so other files are never compared.
+ * <p>
+ * If renames are detected, modified files are still reported as they are found, while added and deleted ones are
+ * collected and paired up by the rename detector when the trees are compared. A renamed file becomes a single item
+ * with content of both revisions, the rest are reported as added or deleted. Copies can only be made of files which
+ * are changed, so if they are detected, modified files are collected as well. A copied file is reported as a
+ * modification of its source under the new path. Files renamed or copied without changes are not reported.
+ */
 class GitProjectWalker implements ProjectWalker {
+    private static final int PREVIOUS = 0;
+    private static final int ACTUAL = 1;
 
-    private final List<ProjectItem> items;
+    private final TreeWalk treeWalk;
+    private final Revision previousRevision;
+    private final Revision actualRevision;
+    private final GitBlobLoader blobLoader;
+    private final Listener listener;
+    private final RenameDetector renameDetector;
+    private final boolean detectCopies;
+    private final boolean closeReader;
 
-    private int index = -1;
+    private Iterator<DiffEntry> detectedEntries;
+    private ProjectItem nextItem;
+    private boolean finished;
 
-    public GitProjectWalker(List<ProjectItem> items) {
-        this.items = items;
+    /**
+     * @param reader         reader used by the walker only
+     * @param previousTreeId tree of the previous revision or {@code null} if every file is added
+     * @param pathFilter     filter of files to compare
+     * @param renameDetector configured detector or {@code null} if renames are not detected
+     * @param detectCopies   whether copies found by the detector are reported as copies or as added files
+     * @param closeReader    whether the reader is closed when the walk is finished
+     */
+    GitProjectWalker(ObjectReader reader,
+                     ObjectId previousTreeId,
+                     ObjectId actualTreeId,
+                     TreeFilter pathFilter,
+                     Revision previousRevision,
+                     Revision actualRevision,
+                     GitBlobLoader blobLoader,
+                     Listener listener,
+                     RenameDetector renameDetector,
+                     boolean detectCopies,
+                     boolean closeReader) throws IOException {
+        this.previousRevision = previousRevision;
+        this.actualRevision = actualRevision;
+        this.blobLoader = blobLoader;
+        this.listener = listener;
+        this.renameDetector = renameDetector;
+        this.detectCopies = detectCopies;
+        this.closeReader = closeReader;
+
+        treeWalk = new TreeWalk(reader);
+        try {
+            if (previousTreeId != null) {
+                treeWalk.addTree(previousTreeId);
+            } else {
+                treeWalk.addTree(new EmptyTreeIterator());
+            }
+            treeWalk.addTree(actualTreeId);
+        } catch (IOException e) {
+            if (closeReader) {
+                reader.close();
+            }
+            throw e;
+        }
+        treeWalk.setRecursive(true);
+        treeWalk.setFilter(AndTreeFilter.create(pathFilter, TreeFilter.ANY_DIFF));
     }
 
     @Override
     public boolean hasNext() {
-        return index + 1 < items.size();
+        if (nextItem == null && !finished) {
+            nextItem = findNext();
+        }
+        return nextItem != null;
     }
 
     @Override
     public ProjectItem next() {
-        return items.get(++index);
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final ProjectItem item = nextItem;
+        nextItem = null;
+        return item;
+    }
+
+    private ProjectItem findNext() {
+        try {
+            if (detectedEntries == null) {
+                while (treeWalk.next()) {
+                    final String path = treeWalk.getPathString();
+                    final ObjectId previousId = getFileId(PREVIOUS);
+                    final ObjectId actualId = getFileId(ACTUAL);
+                    if (previousId == null && actualId == null
+                            || previousId != null && previousId.equals(actualId)) {
+                        // neither revision has a regular file or only its mode is changed
+                        continue;
+                    }
+                    if (renameDetector != null && (detectCopies || previousId == null || actualId == null)) {
+                        renameDetector.add(new FileEntry(path, previousId, actualId));
+                        continue;
+                    }
+                    return createItem(path, path, previousId, actualId);
+                }
+                detectedEntries = renameDetector != null
+                        ? renameDetector.compute(treeWalk.getObjectReader(), NullProgressMonitor.INSTANCE).iterator()
+                        : Collections.<DiffEntry>emptyIterator();
+            }
+            while (detectedEntries.hasNext()) {
+                final ProjectItem item = createItem(detectedEntries.next());
+                if (item != null) {
+                    return item;
+                }
+            }
+        } catch (IOException e) {
+            finish();
+            throw new UncheckedIOException("Fail to compare trees", e);
+        }
+        finish();
+        return null;
+    }
+
+    private ProjectItem createItem(DiffEntry entry) {
+        final ObjectId previousId = toObjectId(entry.getOldId());
+        final ObjectId actualId = toObjectId(entry.getNewId());
+        switch (entry.getChangeType()) {
+            case ADD:
+                return createItem(null, entry.getNewPath(), null, actualId);
+            case MODIFY:
+                return createItem(entry.getNewPath(), entry.getNewPath(), previousId, actualId);
+            case DELETE:
+                return createItem(entry.getOldPath(), null, previousId, null);
+            case COPY:
+                if (!detectCopies) {
+                    return createItem(null, entry.getNewPath(), null, actualId);
+                }
+                return createItem(null, entry.getNewPath(), previousId, actualId);
+            case RENAME:
+            default:
+                return createItem(entry.getOldPath(), entry.getNewPath(), previousId, actualId);
+        }
+    }
+
+    /**
+     * @param removedPath path which is no longer in the actual revision or {@code null}
+     * @param actualPath  path in the actual revision or {@code null} if the file is deleted
+     * @return item or {@code null} if the file is renamed or copied without changes
+     */
+    private ProjectItem createItem(String removedPath, String actualPath, ObjectId previousId, ObjectId actualId) {
+        if (listener != null) {
+            if (removedPath != null && !removedPath.equals(actualPath)) {
+                listener.onPathChanged(removedPath, null);
+            }
+            if (actualPath != null) {
+                listener.onPathChanged(actualPath, actualId);
+            }
+        }
+        if (previousId != null && previousId.equals(actualId)) {
+            return null;
+        }
+        return new GitProjectItem(actualPath != null ? actualPath : removedPath, previousId, actualId,
+                previousRevision, actualRevision, blobLoader);
+    }
+
+    private static ObjectId toObjectId(AbbreviatedObjectId id) {
+        return id != null && id.isComplete() && !ObjectId.zeroId().equals(id.toObjectId()) ? id.toObjectId() : null;
+    }
+
+    private ObjectId getFileId(int tree) {
+        final int mode = treeWalk.getRawMode(tree);
+        if (FileMode.REGULAR_FILE.equals(mode) || FileMode.EXECUTABLE_FILE.equals(mode)) {
+            return treeWalk.getObjectId(tree);
+        }
+        return null;
+    }
+
+    private void finish() {
+        finished = true;
+        treeWalk.close();
+        if (closeReader) {
+            treeWalk.getObjectReader().close();
+        }
+    }
+
+    interface Listener {
+        /**
+         * Called for every path which is added, deleted or modified, before the item is returned
+         *
+         * @param actualId blob id in the actual revision or {@code null} if there is no file any more
+         */
+        void onPathChanged(String path, ObjectId actualId);
+    }
+
+    /**
+     * Changed file given to the rename detector
+     */
+    private static class FileEntry extends DiffEntry {
+        FileEntry(String path, ObjectId previousId, ObjectId actualId) {
+            if (previousId == null) {
+                changeType = ChangeType.ADD;
+            } else {
+                changeType = actualId == null ? ChangeType.DELETE : ChangeType.MODIFY;
+            }
+            oldPath = previousId == null ? DEV_NULL : path;
+            newPath = actualId == null ? DEV_NULL : path;
+            oldMode = previousId == null ? FileMode.MISSING : FileMode.REGULAR_FILE;
+            newMode = actualId == null ? FileMode.MISSING : FileMode.REGULAR_FILE;
+            oldId = AbbreviatedObjectId.fromObjectId(previousId != null ? previousId : ObjectId.zeroId());
+            newId = AbbreviatedObjectId.fromObjectId(actualId != null ? actualId : ObjectId.zeroId());
+        }
     }
 }
@@ -0,0 +1,80 @@
+package com.dpforge.gitobserver;
+
+import com.dpforge.tellon.core.observer.ProjectItem;
+import com.dpforge.tellon.core.observer.ProjectWalker;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.revwalk.RevCommit;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Walks changes of every commit of the range one after another, so each item belongs to the commit it is changed
+ * in. Trees of all commits are compared with the same object reader which is closed when the walk is finished.
+ */
+class GitRangeWalker implements ProjectWalker {
+    private final ObjectReader reader;
+    private final List<RevCommit> commits;
+    private final CommitWalkerFactory walkerFactory;
+
+    private int nextCommit;
+    private ProjectWalker commitWalker;
+    private boolean finished;
+
+    /**
+     * @param commits commits in the order they are walked, with headers of them and their parents parsed
+     */
+    GitRangeWalker(ObjectReader reader, List<RevCommit> commits, CommitWalkerFactory walkerFactory) {
+        this.reader = reader;
+        this.commits = commits;
+        this.walkerFactory = walkerFactory;
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            while (!finished && (commitWalker == null || !commitWalker.hasNext())) {
+                if (nextCommit == commits.size()) {
+                    finish();
+                    break;
+                }
+                commitWalker = createCommitWalker(commits.get(nextCommit++));
+            }
+        } catch (RuntimeException e) {
+            finish();
+            throw e;
+        }
+        return !finished;
+    }
+
+    @Override
+    public ProjectItem next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return commitWalker.next();
+    }
+
+    private ProjectWalker createCommitWalker(RevCommit commit) {
+        try {
+            return walkerFactory.create(reader, commit);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Fail to walk commit " + commit.name(), e);
+        }
+    }
+
+    private void finish() {
+        finished = true;
+        commitWalker = null;
+        reader.close();
+    }
+
+    interface CommitWalkerFactory {
+        /**
+         * Walker of changes the commit makes to its first parent. It must not close the reader.
+         */
+        ProjectWalker create(ObjectReader reader, RevCommit commit) throws IOException;
+    }
+}
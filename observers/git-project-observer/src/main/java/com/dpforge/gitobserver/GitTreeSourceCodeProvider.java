@@ -0,0 +1,54 @@
+package com.dpforge.gitobserver;
+
+import com.dpforge.tellon.core.observer.SourceCodeProvider;
+import com.dpforge.tellon.core.parser.SourceCode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.treewalk.TreeWalk;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+
+/**
+ * Provides source code of classes as they are in the tree of particular revision, so no working tree is needed.
+ * Blobs are loaded with the object reader of the calling thread, so providers are used by workers concurrently.
+ */
+class GitTreeSourceCodeProvider implements SourceCodeProvider {
+    private final GitBlobLoader blobLoader;
+    private final ObjectId treeId;
+    private final String sourcePath;
+
+    /**
+     * @param sourcePath path of source code directory relative to the repository root
+     */
+    GitTreeSourceCodeProvider(GitBlobLoader blobLoader, ObjectId treeId, String sourcePath) {
+        this.blobLoader = blobLoader;
+        this.treeId = treeId;
+        this.sourcePath = sourcePath;
+    }
+
+    @Override
+    public SourceCode getSourceCode(String qualifiedName) throws IOException {
+        final ObjectId blobId = findBlob(qualifiedName);
+        return blobLoader.load(blobId);
+    }
+
+    @Override
+    public String getContentId(String qualifiedName) throws IOException {
+        return findBlob(qualifiedName).name();
+    }
+
+    private ObjectId findBlob(String qualifiedName) throws IOException {
+        final String path = getPath(qualifiedName);
+        try (TreeWalk walk = TreeWalk.forPath(blobLoader.getReader(), path, treeId)) {
+            if (walk == null) {
+                throw new FileNotFoundException(String.format("'%s' not found in tree %s", path, treeId.name()));
+            }
+            return walk.getObjectId(0);
+        }
+    }
+
+    private String getPath(String qualifiedName) {
+        final String path = qualifiedName.replace('.', '/') + ".java";
+        return sourcePath.isEmpty() ? path : sourcePath + "/" + path;
+    }
+}
@@ -0,0 +1,43 @@
+package com.dpforge.gitobserver;
+
+import com.dpforge.tellon.core.parser.ParseCacheStorage;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps parse cache entries in memory for a single run, so a blob changed by several commits of a range is parsed
+ * only once. When total size of entries exceeds the limit, least recently used ones are dropped.
+ */
+class MemoryCacheStorage implements ParseCacheStorage {
+    private final long maxSize;
+    private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+
+    /**
+     * @param maxSize maximum total size of cache entries in bytes
+     */
+    MemoryCacheStorage(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public synchronized byte[] read(String contentId) {
+        return entries.get(contentId);
+    }
+
+    @Override
+    public synchronized void write(String contentId, byte[] entry) {
+        final byte[] previous = entries.put(contentId, entry);
+        if (previous != null) {
+            size -= previous.length;
+        }
+        size += entry.length;
+        final Iterator<Map.Entry<String, byte[]>> iterator = entries.entrySet().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            size -= iterator.next().getValue().length;
+            iterator.remove();
+        }
+    }
+}
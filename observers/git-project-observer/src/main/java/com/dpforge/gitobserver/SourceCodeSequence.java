@@ -0,0 +1,49 @@
+package com.dpforge.gitobserver;
+
+import com.dpforge.tellon.core.parser.SourceCodeLines;
+import org.eclipse.jgit.diff.Sequence;
+import org.eclipse.jgit.diff.SequenceComparator;
+
+/**
+ * Lines of source code as a sequence for JGit diff algorithms. Lines are compared as the parser sees them, so hunks
+ * match line numbers of the source code whatever line separators the blobs use, and nothing is decoded again.
+ */
+class SourceCodeSequence extends Sequence {
+    static final SequenceComparator<SourceCodeSequence> COMPARATOR = new SequenceComparator<SourceCodeSequence>() {
+        @Override
+        public boolean equals(SourceCodeSequence a, int ai, SourceCodeSequence b, int bi) {
+            final CharSequence first = a.lines.getLine(ai);
+            final CharSequence second = b.lines.getLine(bi);
+            if (first.length() != second.length()) {
+                return false;
+            }
+            for (int i = 0; i < first.length(); i++) {
+                if (first.charAt(i) != second.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hash(SourceCodeSequence seq, int ptr) {
+            final CharSequence line = seq.lines.getLine(ptr);
+            int hash = 0;
+            for (int i = 0; i < line.length(); i++) {
+                hash = 31 * hash + line.charAt(i);
+            }
+            return hash;
+        }
+    };
+
+    private final SourceCodeLines lines;
+
+    SourceCodeSequence(SourceCodeLines lines) {
+        this.lines = lines;
+    }
+
+    @Override
+    public int size() {
+        return lines.size();
+    }
+}
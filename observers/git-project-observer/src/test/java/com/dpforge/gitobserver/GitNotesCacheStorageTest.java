@@ -0,0 +1,169 @@
+package com.dpforge.gitobserver;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.notes.Note;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class GitNotesCacheStorageTest {
+    private static final String NOTES_REF = "refs/notes/tellon";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TestRepository repository;
+    private Repository repo;
+
+    @Before
+    public void setUp() throws Exception {
+        repository = new TestRepository(folder.newFolder("project"));
+        repo = repository.getGit().getRepository();
+    }
+
+    @After
+    public void tearDown() {
+        repository.close();
+    }
+
+    @Test
+    public void readsManifestOfOldRevision() throws Exception {
+        final RevCommit first = repository.write("src/A.java", "class A {}").commit("alice");
+        final RevCommit second = repository.write("src/A.java", "class A { int a; }").commit("bob");
+        final RevCommit third = repository.write("src/A.java", "class A { int a, b; }").commit("carol");
+
+        final GitNotesCacheStorage storage = createStorage(first, second);
+        assertNull(storage.read(blobId(second, "src/A.java")));
+        storage.onPathChanged("src/A.java", objectId(second, "src/A.java"));
+        storage.write(blobId(second, "src/A.java"), bytes("second"));
+        storage.flush();
+
+        final GitNotesCacheStorage next = createStorage(second, third);
+        assertArrayEquals(bytes("second"), next.read(blobId(second, "src/A.java")));
+        assertNull(next.read(blobId(third, "src/A.java")));
+    }
+
+    @Test
+    public void carriesOverUnchangedPaths() throws Exception {
+        final RevCommit first = repository
+                .write("src/A.java", "class A {}")
+                .write("src/B.java", "class B {}")
+                .commit("alice");
+        final RevCommit second = repository
+                .write("src/B.java", "class B { int b; }")
+                .write("src/C.java", "class C {}")
+                .commit("bob");
+        final RevCommit third = repository.write("src/C.java", "class C { int c; }").commit("carol");
+
+        final GitNotesCacheStorage storage = createStorage(first, first);
+        storage.onPathChanged("src/A.java", objectId(first, "src/A.java"));
+        storage.onPathChanged("src/B.java", objectId(first, "src/B.java"));
+        storage.write(blobId(first, "src/A.java"), bytes("A"));
+        storage.write(blobId(first, "src/B.java"), bytes("B"));
+        storage.flush();
+
+        final GitNotesCacheStorage next = createStorage(first, second);
+        next.onPathChanged("src/B.java", objectId(second, "src/B.java"));
+        next.onPathChanged("src/C.java", objectId(second, "src/C.java"));
+        next.write(blobId(second, "src/B.java"), bytes("B2"));
+        next.write(blobId(second, "src/C.java"), bytes("C"));
+        next.flush();
+
+        final String manifest = readNote(second);
+        assertEquals(4, manifest.split("\n").length);
+        final GitNotesCacheStorage last = createStorage(second, third);
+        assertArrayEquals(bytes("A"), last.read(blobId(second, "src/A.java")));
+        assertArrayEquals(bytes("B2"), last.read(blobId(second, "src/B.java")));
+        assertArrayEquals(bytes("C"), last.read(blobId(second, "src/C.java")));
+        // the entry of the replaced blob is not carried over
+        assertNull(last.read(blobId(first, "src/B.java")));
+    }
+
+    @Test
+    public void writesSingleNotesCommit() throws Exception {
+        final RevCommit first = repository.write("src/A.java", "class A {}").commit("alice");
+        final RevCommit second = repository
+                .write("src/A.java", "class A { int a; }")
+                .write("src/B.java", "class B {}")
+                .write("src/C.java", "class C {}")
+                .commit("bob");
+
+        final GitNotesCacheStorage storage = createStorage(first, second);
+        for (String path : new String[]{"src/A.java", "src/B.java", "src/C.java"}) {
+            storage.onPathChanged(path, objectId(second, path));
+            storage.write(blobId(second, path), bytes(path));
+        }
+        storage.flush();
+
+        assertEquals(1, countNotesCommits());
+    }
+
+    @Test
+    public void noCommitWhenManifestIsSame() throws Exception {
+        final RevCommit first = repository.write("src/A.java", "class A {}").commit("alice");
+        final RevCommit second = repository.write("src/A.java", "class A { int a; }").commit("bob");
+
+        final GitNotesCacheStorage storage = createStorage(first, second);
+        storage.onPathChanged("src/A.java", objectId(second, "src/A.java"));
+        storage.write(blobId(second, "src/A.java"), bytes("A"));
+        storage.flush();
+        final ObjectId notesId = repo.exactRef(NOTES_REF).getObjectId();
+
+        // the same run again, e.g. on another CI agent
+        final GitNotesCacheStorage again = createStorage(first, second);
+        again.onPathChanged("src/A.java", objectId(second, "src/A.java"));
+        again.write(blobId(second, "src/A.java"), again.read(blobId(second, "src/A.java")));
+        again.flush();
+
+        assertEquals(notesId, repo.exactRef(NOTES_REF).getObjectId());
+        assertEquals(1, countNotesCommits());
+    }
+
+    private GitNotesCacheStorage createStorage(RevCommit oldCommit, RevCommit newCommit) throws Exception {
+        return new GitNotesCacheStorage(repo, NOTES_REF, oldCommit, newCommit);
+    }
+
+    private ObjectId objectId(RevCommit commit, String path) throws Exception {
+        return repo.resolve(commit.name() + ":" + path);
+    }
+
+    private String blobId(RevCommit commit, String path) throws Exception {
+        return objectId(commit, path).name();
+    }
+
+    private String readNote(RevCommit commit) throws Exception {
+        final Note note = repository.getGit().notesShow().setNotesRef(NOTES_REF).setObjectId(commit).call();
+        return new String(repo.open(note.getData()).getBytes(), StandardCharsets.UTF_8);
+    }
+
+    private int countNotesCommits() throws Exception {
+        final Ref ref = repo.exactRef(NOTES_REF);
+        if (ref == null) {
+            return 0;
+        }
+        int count = 0;
+        try (RevWalk walk = new RevWalk(repo)) {
+            walk.markStart(walk.parseCommit(ref.getObjectId()));
+            while (walk.next() != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,107 @@
+package com.dpforge.gitobserver;
+
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+
+public class GitPathFilterTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TestRepository repository;
+
+    @Before
+    public void setUp() throws Exception {
+        repository = new TestRepository(folder.newFolder("project"));
+        repository
+                .write("src/com/App.java", "class App {}")
+                .write("src/com/Upper.JAVA", "class Upper {}")
+                .write("src/com/readme.txt", "readme")
+                .write("src/gen/Gen.java", "class Gen {}")
+                .write("src/gen/deep/Deep.java", "class Deep {}")
+                .write("other/Other.java", "class Other {}")
+                .commit("alice");
+    }
+
+    @After
+    public void tearDown() {
+        repository.close();
+    }
+
+    @Test
+    public void javaFiles() throws Exception {
+        assertEquals(asList("other/Other.java", "src/com/App.java", "src/com/Upper.JAVA", "src/gen/Gen.java",
+                "src/gen/deep/Deep.java"),
+                walk(new GitPathFilter(Collections.<String>emptyList(), Collections.<String>emptyList()),
+                        new ArrayList<>()));
+    }
+
+    @Test
+    public void excludedDirectoryIsNotWalked() throws Exception {
+        final List<String> visited = new ArrayList<>();
+        assertEquals(asList("other/Other.java", "src/com/App.java", "src/com/Upper.JAVA"),
+                walk(new GitPathFilter(Collections.<String>emptyList(), singletonList("gen/")), visited));
+        assertEquals(asList("other", "other/Other.java", "src", "src/com", "src/com/App.java", "src/com/Upper.JAVA",
+                "src/com/readme.txt", "src/gen"), visited);
+    }
+
+    @Test
+    public void includesAndExcludes() throws Exception {
+        assertEquals(asList("src/com/App.java", "src/com/Upper.JAVA", "src/gen/Gen.java"),
+                walk(new GitPathFilter(singletonList("src/**"), singletonList("deep/")), new ArrayList<>()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negatedPattern() {
+        new GitPathFilter(singletonList("!*.java"), Collections.<String>emptyList());
+    }
+
+    /**
+     * Paths of files accepted by the filter
+     *
+     * @param visited paths of all entries the filter is asked about, including directories
+     */
+    private List<String> walk(TreeFilter filter, List<String> visited) throws Exception {
+        final Repository repo = repository.getGit().getRepository();
+        final List<String> result = new ArrayList<>();
+        try (TreeWalk treeWalk = new TreeWalk(repo)) {
+            treeWalk.addTree(repo.resolve("HEAD^{tree}"));
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(AndTreeFilter.create(new TreeFilter() {
+                @Override
+                public boolean include(TreeWalk walker) {
+                    visited.add(walker.getPathString());
+                    return true;
+                }
+
+                @Override
+                public boolean shouldBeRecursive() {
+                    return false;
+                }
+
+                @Override
+                public TreeFilter clone() {
+                    return this;
+                }
+            }, filter));
+            while (treeWalk.next()) {
+                result.add(treeWalk.getPathString());
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,286 @@
+package com.dpforge.gitobserver;
+
+import com.dpforge.tellon.core.observer.ProjectItem;
+import com.dpforge.tellon.core.observer.ProjectObserverException;
+import com.dpforge.tellon.core.observer.ProjectWalker;
+import com.dpforge.tellon.core.observer.Revision;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+
+public class GitProjectObserverTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TestRepository repository;
+
+    @Before
+    public void setUp() throws Exception {
+        repository = new TestRepository(folder.newFolder("project"));
+    }
+
+    @After
+    public void tearDown() {
+        repository.close();
+    }
+
+    @Test
+    public void walkerMatchesDiff() throws Exception {
+        repository
+                .write("src/com/test/Modified.java", "class Modified {}")
+                .write("src/com/test/Deleted.java", "class Deleted {}")
+                .write("src/com/test/Same.java", "class Same {}")
+                .write("src/com/test/other/Nested.java", "class Nested {}")
+                .write("src/com/test/notes.txt", "notes")
+                .write("lib/Outside.java", "class Outside {}")
+                .commit("alice");
+        repository
+                .write("src/com/test/Modified.java", "class Modified { int a; }")
+                .delete("src/com/test/Deleted.java")
+                .write("src/com/test/Added.java", "class Added {}")
+                .write("src/com/test/Upper.JAVA", "class Upper {}")
+                .write("src/com/test/other/Nested.java", "class Nested { int b; }")
+                .write("src/com/test/notes.txt", "more notes")
+                .write("lib/Outside.java", "class Outside { int c; }")
+                .commit("bob");
+
+        final List<String> expected = diffJavaFiles("HEAD^", "HEAD");
+        assertEquals(6, expected.size());
+        assertEquals(expected, walk("srcDir", "."));
+    }
+
+    @Test
+    public void renameBecomesOneItem() throws Exception {
+        repository
+                .write("src/com/test/Old.java", createClass("Old", 20))
+                .write("src/com/test/Moved.java", createClass("Moved", 20))
+                .commit("alice");
+        final String[] renamed = createClass("Old", 20);
+        renamed[0] = "class New {";
+        repository
+                .delete("src/com/test/Old.java")
+                .write("src/com/test/New.java", renamed)
+                .delete("src/com/test/Moved.java")
+                .write("src/com/test/other/Moved.java", createClass("Moved", 20))
+                .commit("bob");
+
+        // the class moved without changes is not reported at all
+        assertEquals(singletonList("src/com/test/New.java: class Old { -> class New {"),
+                walk("srcDir", "src", "renames", "true"));
+        assertEquals(asList(
+                "src/com/test/Moved.java: class Moved { -> null",
+                "src/com/test/New.java: null -> class New {",
+                "src/com/test/Old.java: class Old { -> null",
+                "src/com/test/other/Moved.java: null -> class Moved {"),
+                walk("srcDir", "src"));
+    }
+
+    @Test
+    public void rangeCommitsOldestFirst() throws Exception {
+        final RevCommit start = repository.write("src/A.java", "class A {}").commit("alice");
+        repository.write("src/A.java", "class A { int a; }").commit("bob");
+        final Git git = repository.getGit();
+        git.checkout().setCreateBranch(true).setName("feature").call();
+        repository.write("src/B.java", "class B {}").commit("carol");
+        git.checkout().setName("master").call();
+        repository.write("src/A.java", "class A { int a, b; }").commit("dave");
+        git.merge().include(git.getRepository().resolve("feature")).setCommit(false).call();
+        repository.commit("erin");
+        repository.write("src/A.java", "class A { int a, b, c; }").commit("frank");
+
+        final List<String> all = walkAuthors("srcDir", "src", "oldRev", start.name(), "range", "true");
+        // the merge is skipped since the commit of the merged branch is walked itself, branches are in any order
+        assertEquals(4, all.size());
+        assertEquals("alice -> bob: src/A.java", all.get(0));
+        assertEquals(new HashSet<>(asList("bob -> carol: src/B.java", "bob -> dave: src/A.java")),
+                new HashSet<>(all.subList(1, 3)));
+        assertEquals("erin -> frank: src/A.java", all.get(3));
+
+        assertEquals(asList(
+                "alice -> bob: src/A.java",
+                "bob -> dave: src/A.java",
+                "dave -> erin: src/B.java",
+                "erin -> frank: src/A.java"),
+                walkAuthors("srcDir", "src", "oldRev", start.name(), "range", "true", "firstParent", "true"));
+    }
+
+    @Test
+    public void pathFilters() throws Exception {
+        repository.write("README", "readme").commit("alice");
+        repository
+                .write("src/com/test/App.java", "class App {}")
+                .write("src/com/test/gen/Gen.java", "class Gen {}")
+                .write("src/com/test/gen/deep/Deep.java", "class Deep {}")
+                .write("test/com/test/AppTest.java", "class AppTest {}")
+                .commit("bob");
+
+        assertEquals(asList(
+                "src/com/test/App.java: null -> class App {}",
+                "src/com/test/gen/Gen.java: null -> class Gen {}",
+                "src/com/test/gen/deep/Deep.java: null -> class Deep {}"),
+                walk("srcDir", "src"));
+        assertEquals(asList(
+                "src/com/test/App.java: null -> class App {}",
+                "test/com/test/AppTest.java: null -> class AppTest {}"),
+                walk("srcDir", ".", "exclude", "gen/"));
+        assertEquals(asList(
+                "src/com/test/App.java: null -> class App {}",
+                "src/com/test/gen/Gen.java: null -> class Gen {}"),
+                walk("srcDir", ".", "include", "src/**", "exclude", "deep/"));
+        assertEquals(singletonList("src/com/test/gen/deep/Deep.java: null -> class Deep {}"),
+                walk("srcDir", "src", "include", "**/deep/*.java,Missing.java"));
+    }
+
+    @Test
+    public void bareRepository() throws Exception {
+        repository.write("src/A.java", "class A {}").commit("alice");
+        repository.write("src/A.java", "class A { int a; }").commit("bob");
+        final File bare = new File(folder.getRoot(), "bare.git");
+        Git.cloneRepository().setURI(repository.getDirectory().toURI().toString()).setDirectory(bare).setBare(true)
+                .call().close();
+
+        assertEquals(singletonList("src/A.java: class A {} -> class A { int a; }"),
+                walk("gitDir", bare.getPath(), "srcDir", "src"));
+        assertEquals("bare", getProjectName(bare));
+    }
+
+    @Test
+    public void projectName() throws Exception {
+        repository.write("src/A.java", "class A {}").commit("alice");
+        assertEquals("project", getProjectName(repository.getDirectory()));
+        assertEquals("project", getProjectName(new File(repository.getDirectory(), ".git")));
+    }
+
+    @Test(expected = ProjectObserverException.class)
+    public void missingGitDirectory() throws Exception {
+        getProjectName(folder.newFolder("missing"));
+    }
+
+    private static String getProjectName(File gitDir) throws Exception {
+        try (GitProjectObserver observer = new GitProjectObserver()) {
+            final Map<String, String> arguments = new HashMap<>();
+            arguments.put("gitDir", gitDir.getPath());
+            arguments.put("srcDir", ".");
+            arguments.put("oldRev", "HEAD");
+            observer.init(arguments);
+            return observer.getProjectInfo().getName();
+        }
+    }
+
+    /**
+     * Java files changed between the revisions as the observer found them with the diff command
+     */
+    private List<String> diffJavaFiles(String oldRevision, String newRevision) throws Exception {
+        final Repository repo = repository.getGit().getRepository();
+        final List<DiffEntry> diff;
+        try (ObjectReader reader = repo.newObjectReader()) {
+            final CanonicalTreeParser oldTree = new CanonicalTreeParser();
+            oldTree.reset(reader, repo.resolve(oldRevision + "^{tree}"));
+            final CanonicalTreeParser newTree = new CanonicalTreeParser();
+            newTree.reset(reader, repo.resolve(newRevision + "^{tree}"));
+            diff = new Git(repo).diff().setOldTree(oldTree).setNewTree(newTree).call();
+        }
+        final List<String> result = new ArrayList<>();
+        for (DiffEntry entry : diff) {
+            final boolean deleted = entry.getChangeType() == DiffEntry.ChangeType.DELETE;
+            final String path = deleted ? entry.getOldPath() : entry.getNewPath();
+            if (!path.toLowerCase().endsWith(".java")) {
+                continue;
+            }
+            final String previous = entry.getChangeType() == DiffEntry.ChangeType.ADD
+                    ? null
+                    : firstLine(repo.open(entry.getOldId().toObjectId()).getBytes());
+            final String actual = deleted ? null : firstLine(repo.open(entry.getNewId().toObjectId()).getBytes());
+            result.add(describe(path, previous, actual));
+        }
+        return result;
+    }
+
+    private List<String> walk(String... args) throws Exception {
+        final List<String> result = new ArrayList<>();
+        walk(args, item -> result.add(describe(item.getDescription(),
+                item.hasPrevious() ? item.getPrevious().getLines().get(0) : null,
+                item.hasActual() ? item.getActual().getLines().get(0) : null)));
+        return result;
+    }
+
+    /**
+     * Walks items of the observer initialized with the repository and pairs of argument names and values
+     */
+    private void walk(String[] args, ItemConsumer consumer) throws Exception {
+        final Map<String, String> arguments = new HashMap<>();
+        arguments.put("gitDir", repository.getDirectory().getPath());
+        for (int i = 0; i < args.length; i += 2) {
+            arguments.put(args[i], args[i + 1]);
+        }
+        try (GitProjectObserver observer = new GitProjectObserver()) {
+            observer.init(arguments);
+            final ProjectWalker walker = observer.createWalker();
+            while (walker.hasNext()) {
+                consumer.accept(walker.next());
+            }
+        }
+    }
+
+    /**
+     * Items described by names of authors of both revisions and path
+     */
+    private List<String> walkAuthors(String... args) throws Exception {
+        final List<String> result = new ArrayList<>();
+        walk(args, item -> result.add(getAuthorName(item.getPreviousRevision()) + " -> "
+                + getAuthorName(item.getActualRevision()) + ": " + item.getDescription()));
+        return result;
+    }
+
+    private static String getAuthorName(Revision revision) {
+        if (revision == null) {
+            return null;
+        }
+        final String author = revision.getAuthor();
+        return author.substring(0, author.indexOf(' '));
+    }
+
+    private static String[] createClass(String name, int fieldCount) {
+        final String[] lines = new String[fieldCount + 2];
+        lines[0] = "class " + name + " {";
+        for (int i = 0; i < fieldCount; i++) {
+            lines[i + 1] = "    int field" + i + ";";
+        }
+        lines[fieldCount + 1] = "}";
+        return lines;
+    }
+
+    private static String describe(String path, String previous, String actual) {
+        return path + ": " + previous + " -> " + actual;
+    }
+
+    private static String firstLine(byte[] content) throws IOException {
+        final String text = new String(content, StandardCharsets.UTF_8);
+        return text.substring(0, text.indexOf('\n'));
+    }
+
+    private interface ItemConsumer {
+        void accept(ProjectItem item) throws IOException;
+    }
+}
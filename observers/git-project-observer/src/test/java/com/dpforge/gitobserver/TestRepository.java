@@ -0,0 +1,61 @@
+package com.dpforge.gitobserver;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.revwalk.RevCommit;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Git repository with a working tree in a temporary directory which test cases fill with commits
+ */
+class TestRepository implements Closeable {
+    private final File directory;
+    private final Git git;
+
+    TestRepository(File directory) throws GitAPIException {
+        this.directory = directory;
+        this.git = Git.init().setDirectory(directory).call();
+    }
+
+    File getDirectory() {
+        return directory;
+    }
+
+    Git getGit() {
+        return git;
+    }
+
+    TestRepository write(String path, String... lines) throws IOException {
+        final File file = new File(directory, path);
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), (String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8));
+        return this;
+    }
+
+    TestRepository delete(String path) throws IOException {
+        Files.delete(new File(directory, path).toPath());
+        return this;
+    }
+
+    /**
+     * Commits all changes of the working tree
+     */
+    RevCommit commit(String author) throws GitAPIException {
+        git.add().addFilepattern(".").call();
+        git.add().setUpdate(true).addFilepattern(".").call();
+        return git.commit()
+                .setAuthor(author, author + "@example.com")
+                .setMessage("Commit by " + author)
+                .call();
+    }
+
+    @Override
+    public void close() {
+        git.close();
+    }
+}
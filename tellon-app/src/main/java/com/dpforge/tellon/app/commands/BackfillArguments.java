@@ -0,0 +1,249 @@
+package com.dpforge.tellon.app.commands;
+
+import com.dpforge.tellon.core.parser.ComparisonMode;
+import com.dpforge.tellon.core.parser.ParserEngine;
+import org.apache.commons.cli.*;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+class BackfillArguments {
+
+    private static final String PROJECT_OBSERVER_ARGS = "observer-args";
+    private static final String PROJECT_OBSERVER_ARGS_DESCRIPTION = "Arguments for project observer in the form of 'key=value'. They define the whole range of history to process.";
+
+    private static final String PROJECT_OBSERVER_NAME = "observer";
+    private static final String PROJECT_OBSERVER_NAME_SHORT = "o";
+    private static final String PROJECT_OBSERVER_NAME_DESCRIPTION = "Name of project observer to use (if you have multiple)";
+
+    private static final String STORE = "store";
+    private static final String STORE_DESCRIPTION = "Directory to write change records of every processed part to (required). Parts already written there are skipped, so interrupted backfill continues where it stopped.";
+
+    private static final String CHUNK_SIZE = "chunk-size";
+    private static final String CHUNK_SIZE_DESCRIPTION = "Maximum number of revisions in a part processed at once. Default is 200.";
+    private static final int DEFAULT_CHUNK_SIZE = 200;
+
+    private static final String THREADS = "threads";
+    private static final String THREADS_DESCRIPTION = "Number of parts processed in parallel, each with its own observer. Default is the number of processors.";
+
+    private static final String PARSER = "parser";
+    private static final String PARSER_DESCRIPTION = "Engine used to find annotated blocks: 'java-parser' (default), 'scanner' or 'cross-check' that runs both and fails if they disagree";
+
+    private static final String PARSE_CACHE = "parse-cache";
+    private static final String PARSE_CACHE_DESCRIPTION = "Directory of cache of parsed source code shared between parts and runs. Cache is disabled by default.";
+
+    private static final String PARSE_CACHE_SIZE = "parse-cache-size";
+    private static final String PARSE_CACHE_SIZE_DESCRIPTION = "Maximum size of parse cache in megabytes. Default is 256.";
+    private static final int DEFAULT_PARSE_CACHE_SIZE_MB = 256;
+
+    private static final String COMPARISON = "comparison";
+    private static final String COMPARISON_DESCRIPTION = "Which differences of annotated blocks are changes: 'exact' (default), 'ignore-whitespace', 'ignore-comments' that compares only JavaDoc of comments or 'ignore-javadoc' that ignores all comments";
+
+    private static final String DETECT_MOVES = "detect-moves";
+    private static final String DETECT_MOVES_DESCRIPTION = "Record blocks deleted in one place and added to another one within a part with (almost) the same source code as moved or renamed";
+
+    private static final int LEFT_PAD = 2;
+    private static final int DESC_PAD = 4;
+
+    private final Options options = new Options();
+
+    private final Map<String, String> observerArgs = new HashMap<>();
+
+    private int chunkSize;
+    private int threadCount;
+    private ParserEngine parserEngine;
+    private ComparisonMode comparisonMode;
+    private int parseCacheSizeMegabytes;
+
+    private CommandLine cmd;
+
+    void parse(String[] args) throws ParseException {
+        final CommandLineParser parser = new DefaultParser();
+        cmd = parser.parse(options, args);
+
+        observerArgs.clear();
+        final String[] argPairs = cmd.getOptionValues(PROJECT_OBSERVER_ARGS);
+        if (argPairs != null && argPairs.length % 2 == 0) {
+            for (int i = 0; i < argPairs.length; i += 2) {
+                observerArgs.put(argPairs[i], argPairs[i + 1]);
+            }
+        }
+
+        chunkSize = parsePositiveInt(CHUNK_SIZE, DEFAULT_CHUNK_SIZE);
+        threadCount = parsePositiveInt(THREADS, Runtime.getRuntime().availableProcessors());
+        parserEngine = parseParserEngine();
+        comparisonMode = parseComparisonMode();
+        parseCacheSizeMegabytes = parsePositiveInt(PARSE_CACHE_SIZE, DEFAULT_PARSE_CACHE_SIZE_MB);
+    }
+
+    private ParserEngine parseParserEngine() throws ParseException {
+        final String value = cmd.getOptionValue(PARSER);
+        if (value == null) {
+            return ParserEngine.JAVA_PARSER;
+        }
+        for (ParserEngine engine : ParserEngine.values()) {
+            if (engine.name().replace('_', '-').equalsIgnoreCase(value)) {
+                return engine;
+            }
+        }
+        throw new ParseException("Unknown parser engine: " + value);
+    }
+
+    private ComparisonMode parseComparisonMode() throws ParseException {
+        final String value = cmd.getOptionValue(COMPARISON);
+        if (value == null) {
+            return ComparisonMode.EXACT;
+        }
+        for (ComparisonMode mode : ComparisonMode.values()) {
+            if (mode.name().replace('_', '-').equalsIgnoreCase(value)) {
+                return mode;
+            }
+        }
+        throw new ParseException("Unknown comparison mode: " + value);
+    }
+
+    private int parsePositiveInt(final String option, final int defaultValue) throws ParseException {
+        final String value = cmd.getOptionValue(option);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            final int result = Integer.parseInt(value);
+            if (result > 0) {
+                return result;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new ParseException("Option '" + option + "' must be a positive integer: " + value);
+    }
+
+    BackfillArguments() {
+        options.addOption(Option.builder()
+                .longOpt(PROJECT_OBSERVER_ARGS)
+                .desc(PROJECT_OBSERVER_ARGS_DESCRIPTION)
+                .hasArgs()
+                .valueSeparator('=')
+                .build());
+
+        options.addOption(Option.builder(PROJECT_OBSERVER_NAME_SHORT)
+                .longOpt(PROJECT_OBSERVER_NAME)
+                .desc(PROJECT_OBSERVER_NAME_DESCRIPTION)
+                .numberOfArgs(1)
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt(STORE)
+                .desc(STORE_DESCRIPTION)
+                .numberOfArgs(1)
+                .required()
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt(CHUNK_SIZE)
+                .desc(CHUNK_SIZE_DESCRIPTION)
+                .numberOfArgs(1)
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt(THREADS)
+                .desc(THREADS_DESCRIPTION)
+                .numberOfArgs(1)
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt(PARSER)
+                .desc(PARSER_DESCRIPTION)
+                .numberOfArgs(1)
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt(PARSE_CACHE)
+                .desc(PARSE_CACHE_DESCRIPTION)
+                .numberOfArgs(1)
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt(PARSE_CACHE_SIZE)
+                .desc(PARSE_CACHE_SIZE_DESCRIPTION)
+                .numberOfArgs(1)
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt(COMPARISON)
+                .desc(COMPARISON_DESCRIPTION)
+                .numberOfArgs(1)
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt(DETECT_MOVES)
+                .desc(DETECT_MOVES_DESCRIPTION)
+                .build());
+    }
+
+    void printHelp(final PrintStream stream) {
+        final HelpFormatter formatter = new HelpFormatter();
+        final PrintWriter writer = new PrintWriter(stream);
+        formatter.printHelp(writer, HelpFormatter.DEFAULT_WIDTH, "tellon backfill", null, options,
+                LEFT_PAD, DESC_PAD, null);
+        writer.flush();
+    }
+
+    String getProjectObserverName() {
+        checkParsed();
+        return cmd.getOptionValue(PROJECT_OBSERVER_NAME, null);
+    }
+
+    Map<String, String> getProjectObserverArgs() {
+        checkParsed();
+        return Collections.unmodifiableMap(observerArgs);
+    }
+
+    String getStoreDirectory() {
+        checkParsed();
+        return cmd.getOptionValue(STORE);
+    }
+
+    int getChunkSize() {
+        checkParsed();
+        return chunkSize;
+    }
+
+    int getThreadCount() {
+        checkParsed();
+        return threadCount;
+    }
+
+    ParserEngine getParserEngine() {
+        checkParsed();
+        return parserEngine;
+    }
+
+    String getParseCacheDirectory() {
+        checkParsed();
+        return cmd.getOptionValue(PARSE_CACHE, null);
+    }
+
+    int getParseCacheSizeMegabytes() {
+        checkParsed();
+        return parseCacheSizeMegabytes;
+    }
+
+    ComparisonMode getComparisonMode() {
+        checkParsed();
+        return comparisonMode;
+    }
+
+    boolean isDetectMoves() {
+        checkParsed();
+        return cmd.hasOption(DETECT_MOVES);
+    }
+
+    private void checkParsed() {
+        if (cmd == null) {
+            throw new IllegalStateException("Arguments not yet parsed");
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.dpforge.tellon.app.commands;
+
+import com.dpforge.tellon.app.Errors;
+import com.dpforge.tellon.core.ProcessingOptions;
+import com.dpforge.tellon.core.Tellon;
+import com.dpforge.tellon.core.observer.ProjectObserver;
+import com.dpforge.tellon.core.observer.ProjectObserverException;
+import org.apache.commons.cli.ParseException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records history of watched blocks without notifying anyone.
+ * <p>
+ * The range of the observer is split into parts which are processed in parallel, every part by its own observer
+ * so they share no repository readers. Records of a part are written to the store when the part is done, so
+ * the command can be run again after interruption and only parts without records are processed.
+ */
+public class BackfillCommand extends Command {
+    // argument of git observer to write manifests to notes ref, parts would race on updates of the ref
+    private static final String NOTES_REF_ARG = "notesRef";
+
+    private final BackfillArguments arguments = new BackfillArguments();
+
+    BackfillCommand() {
+    }
+
+    @Override
+    public boolean parseArguments(String[] args) {
+        try {
+            arguments.parse(args);
+            return true;
+        } catch (ParseException ignored) {
+            return false;
+        }
+    }
+
+    @Override
+    public void printHelp(final PrintStream stream) {
+        arguments.printHelp(stream);
+    }
+
+    @Override
+    public void execute(final CommandContext context) throws CommandExecutionException {
+        final PrintStream log = context.getLog();
+        final List<Map<String, String>> pending = new ArrayList<>();
+        final Class<? extends ProjectObserver> observerClass;
+        final ChangeRecordStore store;
+        try (ProjectObserver observer = initObserver(context)) {
+            observerClass = observer.getClass();
+            final List<Map<String, String>> parts = observer.splitRange(arguments.getChunkSize());
+            if (parts == null) {
+                throw new CommandExecutionException(Errors.BAD_CONFIG,
+                        "Project observer '" + observer.getName() + "' cannot split its changes into parts");
+            }
+            if (arguments.getProjectObserverArgs().containsKey(NOTES_REF_ARG)) {
+                log.println("Observer argument '" + NOTES_REF_ARG
+                        + "' is ignored since parts are processed in parallel");
+            }
+            store = new ChangeRecordStore(new File(arguments.getStoreDirectory()));
+            for (Map<String, String> part : parts) {
+                final Map<String, String> args = getPartArgs(part);
+                if (!store.isDone(args)) {
+                    pending.add(args);
+                }
+            }
+            log.println("Parts to process: " + pending.size() + " of " + parts.size());
+        } catch (IOException e) {
+            throw new CommandExecutionException(Errors.EXECUTION_FAIL, "Fail to split changes into parts", e);
+        }
+
+        final ProcessingOptions options = new ProcessingOptions.Builder()
+                .parserEngine(arguments.getParserEngine())
+                .parseCache(arguments.getParseCacheDirectory() != null
+                                ? new File(arguments.getParseCacheDirectory())
+                                : null,
+                        arguments.getParseCacheSizeMegabytes() * 1024L * 1024L)
+                .comparisonMode(arguments.getComparisonMode())
+                .detectMoves(arguments.isDetectMoves())
+                .build();
+        final AtomicInteger doneCount = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(arguments.getThreadCount());
+        final List<Future<?>> futures = new ArrayList<>(pending.size());
+        try {
+            for (Map<String, String> part : pending) {
+                futures.add(executor.submit(() -> {
+                    final int recordCount = processPart(observerClass, part, options, store);
+                    synchronized (log) {
+                        log.println("Part " + doneCount.incrementAndGet() + "/" + pending.size() + " done ("
+                                + recordCount + " records): " + ChangeRecordStore.describe(part));
+                    }
+                    return null;
+                }));
+            }
+            waitParts(log, pending, futures);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Map<String, String> getPartArgs(final Map<String, String> part) {
+        final Map<String, String> args = new HashMap<>(arguments.getProjectObserverArgs());
+        args.putAll(part);
+        args.remove(NOTES_REF_ARG);
+        return args;
+    }
+
+    private static int processPart(final Class<? extends ProjectObserver> observerClass,
+                                   final Map<String, String> args,
+                                   final ProcessingOptions options,
+                                   final ChangeRecordStore store) throws Exception {
+        final ChangeRecordNotifier recorder = new ChangeRecordNotifier();
+        try (ProjectObserver partObserver = observerClass.newInstance()) {
+            partObserver.init(args);
+            new Tellon().setOptions(options).addNotifier(recorder).process(partObserver);
+        }
+        store.write(args, recorder.getRecords());
+        return recorder.getRecords().size();
+    }
+
+    private static void waitParts(final PrintStream log,
+                                  final List<Map<String, String>> parts,
+                                  final List<Future<?>> futures) throws CommandExecutionException {
+        Throwable failure = null;
+        int failedCount = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get();
+            } catch (ExecutionException e) {
+                failedCount++;
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+                synchronized (log) {
+                    log.println("Part failed: " + ChangeRecordStore.describe(parts.get(i)) + ": " + e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CommandExecutionException(Errors.EXECUTION_FAIL, "Backfill is interrupted", e);
+            }
+        }
+        if (failure != null) {
+            throw new CommandExecutionException(Errors.EXECUTION_FAIL,
+                    failedCount + " of " + parts.size() + " parts have failed, run backfill again to retry them",
+                    failure);
+        }
+    }
+
+    private ProjectObserver initObserver(final CommandContext context) throws CommandExecutionException {
+        final List<ProjectObserver> observers = context.getObservers();
+
+        final ProjectObserver projectObserver;
+        if (observers.isEmpty()) {
+            throw new CommandExecutionException(Errors.BAD_CONFIG, "No project observer found");
+        }
+
+        if (arguments.getProjectObserverName() != null) {
+            projectObserver = NotifyCommand.getProjectObserver(observers, arguments.getProjectObserverName());
+            if (projectObserver == null) {
+                throw new CommandExecutionException(Errors.BAD_CONFIG,
+                        "Could not find project observer with name '" + arguments.getProjectObserverName() + "'");
+            }
+        } else {
+            if (observers.size() == 1) {
+                projectObserver = observers.get(0);
+            } else {
+                throw new CommandExecutionException(Errors.BAD_CONFIG,
+                        "More than one project observers found. Choose one of them.");
+            }
+        }
+
+        try {
+            projectObserver.init(arguments.getProjectObserverArgs());
+        } catch (ProjectObserverException e) {
+            throw new CommandExecutionException(Errors.INIT_FAIL, "Fail to initialize project observer", e);
+        }
+
+        return projectObserver;
+    }
+}
@@ -0,0 +1,98 @@
+package com.dpforge.tellon.app.commands;
+
+import com.dpforge.tellon.core.Changes;
+import com.dpforge.tellon.core.notifier.ChangesNotifier;
+import com.dpforge.tellon.core.observer.ProjectInfo;
+import com.dpforge.tellon.core.observer.ProjectItem;
+import com.dpforge.tellon.core.observer.Revision;
+import com.dpforge.tellon.core.parser.AnnotatedBlock;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Collects a record of every change of a watched block instead of notifying the watchers.
+ * <p>
+ * Record is a line of tab-separated fields: revision, its author, item, kind of change, type and name of the block
+ * and space-separated watchers. Tabs and line breaks within the fields are replaced with spaces.
+ */
+class ChangeRecordNotifier implements ChangesNotifier {
+    private final List<String> records = new ArrayList<>();
+
+    List<String> getRecords() {
+        return Collections.unmodifiableList(records);
+    }
+
+    @Override
+    public void onStartProject(ProjectInfo projectInfo) {
+    }
+
+    @Override
+    public void onFinishedProject() {
+    }
+
+    @Override
+    public void notifyChanges(ProjectItem item, Changes changes) {
+        for (Changes.Update update : changes.getUpdated()) {
+            addRecord(item, "changed", update.getNewBlock(), update.getOldBlock().getWatchers());
+        }
+        notifyItemAdded(item, changes);
+        notifyItemDeleted(item, changes);
+    }
+
+    @Override
+    public void notifyItemAdded(ProjectItem item, Changes changes) {
+        for (AnnotatedBlock block : changes.getAdded()) {
+            addRecord(item, "added", block, Collections.emptyList());
+        }
+        for (Changes.Move move : changes.getMoved()) {
+            final String kind = move.getKind() == Changes.Move.Kind.RENAMED ? "renamed" : "moved";
+            addRecord(item, kind, move.getNewBlock(), move.getOldBlock().getWatchers());
+        }
+    }
+
+    @Override
+    public void notifyItemDeleted(ProjectItem item, Changes changes) {
+        for (AnnotatedBlock block : changes.getDeleted()) {
+            addRecord(item, "deleted", block, Collections.emptyList());
+        }
+    }
+
+    private void addRecord(ProjectItem item, String kind, AnnotatedBlock block, List<String> moreWatchers) {
+        final Set<String> watchers = new LinkedHashSet<>(block.getWatchers());
+        watchers.addAll(moreWatchers);
+        if (watchers.isEmpty()) {
+            return;
+        }
+        final Revision revision = getRevision(item);
+        records.add(String.join("\t",
+                clean(revision != null ? revision.getVersion() : null),
+                clean(revision != null ? revision.getAuthor() : null),
+                clean(item.getDescription()),
+                kind,
+                block.getType().name(),
+                clean(block.getName()),
+                clean(String.join(" ", watchers))));
+    }
+
+    /**
+     * Revision the change is made in. Deleted items may only know their previous revision.
+     */
+    private static Revision getRevision(ProjectItem item) {
+        try {
+            final Revision revision = item.getActualRevision();
+            return revision != null || !item.hasPrevious() ? revision : item.getPreviousRevision();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Fail to get revision of " + item.getDescription(), e);
+        }
+    }
+
+    private static String clean(String value) {
+        return value != null ? value.replace('\t', ' ').replace('\r', ' ').replace('\n', ' ') : "";
+    }
+}
@@ -0,0 +1,89 @@
+package com.dpforge.tellon.app.commands;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps change records of processed parts as files of local directory, a file per part.
+ * <p>
+ * File name is derived from the arguments of the part, and the file is written to a temporary one which is
+ * atomically renamed when complete. So the part is done as soon as its file exists and is never read half-written.
+ */
+class ChangeRecordStore {
+    private static final String PART_PREFIX = "part-";
+    private static final String PART_SUFFIX = ".tsv";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final File directory;
+
+    ChangeRecordStore(File directory) throws IOException {
+        this.directory = directory;
+        if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+            throw new IOException("Fail to create store directory " + directory);
+        }
+    }
+
+    boolean isDone(Map<String, String> part) {
+        return getPartFile(part).isFile();
+    }
+
+    /**
+     * Writes records of the part. The first line is a comment with the arguments of the part.
+     */
+    void write(Map<String, String> part, List<String> records) throws IOException {
+        final List<String> lines = new ArrayList<>(records.size() + 1);
+        lines.add("# " + describe(part));
+        lines.addAll(records);
+
+        final File file = getPartFile(part);
+        final File temp = File.createTempFile(PART_PREFIX, TEMP_SUFFIX, directory);
+        try {
+            Files.write(temp.toPath(), lines, StandardCharsets.UTF_8);
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    static String describe(Map<String, String> part) {
+        final StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, String> arg : new TreeMap<>(part).entrySet()) {
+            if (builder.length() > 0) {
+                builder.append(' ');
+            }
+            builder.append(arg.getKey()).append('=').append(arg.getValue());
+        }
+        return builder.toString();
+    }
+
+    private File getPartFile(Map<String, String> part) {
+        return new File(directory, PART_PREFIX + hash(describe(part)) + PART_SUFFIX);
+    }
+
+    private static String hash(String text) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-1").digest(text.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder builder = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                builder.append(String.format("%02x", b & 0xff));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not supported", e);
+        }
+    }
+}
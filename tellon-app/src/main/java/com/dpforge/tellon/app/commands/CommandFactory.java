@@ -7,6 +7,8 @@ public class CommandFactory {
                 return new VerifyCommand();
             case "notify":
                 return new NotifyCommand();
+            case "backfill":
+                return new BackfillCommand();
             case "help":
             default:
                 return new HelpCommand();
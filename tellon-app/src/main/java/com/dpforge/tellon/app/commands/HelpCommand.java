@@ -35,6 +35,7 @@ public class HelpCommand extends Command {
             log.println();
             log.println("These command are supported:");
             log.println("  notify    Notify watchers about source code changes");
+            log.println("  backfill  Record history of watched blocks in parallel without notifying anyone");
             log.println("  verify    Verify the environment and application settings");
             log.println("  help      Print this help");
             log.println();
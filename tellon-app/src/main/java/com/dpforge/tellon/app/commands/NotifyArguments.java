@@ -1,5 +1,8 @@
 package com.dpforge.tellon.app.commands;
 
+import com.dpforge.tellon.core.notifier.AsyncChangesNotifier;
+import com.dpforge.tellon.core.parser.ComparisonMode;
+import com.dpforge.tellon.core.parser.ParserEngine;
 import org.apache.commons.cli.*;
 
 import java.io.PrintStream;
@@ -28,6 +31,41 @@ class NotifyArguments {
     private static final String MASTER_WATCHERS = "masters";
     private static final String MASTER_WATCHERS_DESCRIPTION = "Master watchers that will be notified when the error occurs in Tellon";
 
+    private static final String WORKERS = "workers";
+    private static final String WORKERS_DESCRIPTION = "Number of threads used to parse and compare source code. Default is 1.";
+
+    private static final String STATISTICS = "stats";
+    private static final String STATISTICS_DESCRIPTION = "Print statistics of processing stages when finished";
+
+    private static final String ASYNC_NOTIFIERS = "async-notifiers";
+    private static final String ASYNC_NOTIFIERS_DESCRIPTION = "Deliver notifications of every notifier on its own thread so slow notifiers do not slow down the processing";
+
+    private static final String NOTIFIER_TIMEOUT = "notifier-timeout";
+    private static final String NOTIFIER_TIMEOUT_DESCRIPTION = "How many seconds to wait for asynchronous notifiers to deliver notifications when processing is finished. Default is 600.";
+    private static final int DEFAULT_NOTIFIER_TIMEOUT_SECONDS = 600;
+
+    private static final String NOTIFIER_QUEUE = "notifier-queue";
+    private static final String NOTIFIER_QUEUE_DESCRIPTION = "Maximum number of notifications waiting for every asynchronous notifier. Notifications beyond it are dropped and reported as failures, processing never waits for the notifier. Default is 1024.";
+
+    private static final String PARSER = "parser";
+    private static final String PARSER_DESCRIPTION = "Engine used to find annotated blocks: 'java-parser' (default), 'scanner' or 'cross-check' that runs both and fails if they disagree";
+
+    private static final String PARSE_CACHE = "parse-cache";
+    private static final String PARSE_CACHE_DESCRIPTION = "Directory of cache of parsed source code shared between runs. Cache is disabled by default.";
+
+    private static final String PARSE_CACHE_SIZE = "parse-cache-size";
+    private static final String PARSE_CACHE_SIZE_DESCRIPTION = "Maximum size of parse cache in megabytes. Default is 256.";
+    private static final int DEFAULT_PARSE_CACHE_SIZE_MB = 256;
+
+    private static final String COMPARISON = "comparison";
+    private static final String COMPARISON_DESCRIPTION = "Which differences of annotated blocks are changes: 'exact' (default), 'ignore-whitespace', 'ignore-comments' that compares only JavaDoc of comments or 'ignore-javadoc' that ignores all comments";
+
+    private static final String VERIFY_FINGERPRINTS = "verify-fingerprints";
+    private static final String VERIFY_FINGERPRINTS_DESCRIPTION = "Compare source code of blocks with equal fingerprints to rule out hash collisions";
+
+    private static final String DETECT_MOVES = "detect-moves";
+    private static final String DETECT_MOVES_DESCRIPTION = "Report blocks deleted in one place and added to another one with (almost) the same source code as moved or renamed";
+
     private static final int LEFT_PAD = 2;
     private static final int DESC_PAD = 4;
 
@@ -37,6 +75,13 @@ class NotifyArguments {
     private final Set<String> enabledNotifiers = new HashSet<>();
     private final List<String> masterWatchers = new ArrayList<>();
 
+    private int workerCount;
+    private int notifierTimeoutSeconds;
+    private int notifierQueueCapacity;
+    private ParserEngine parserEngine;
+    private ComparisonMode comparisonMode;
+    private int parseCacheSizeMegabytes;
+
     private CommandLine cmd;
 
     void parse(String[] args) throws ParseException {
@@ -62,6 +107,54 @@ class NotifyArguments {
         if (notifiers != null) {
             Collections.addAll(enabledNotifiers, notifiers);
         }
+
+        workerCount = parsePositiveInt(WORKERS, 1);
+        notifierTimeoutSeconds = parsePositiveInt(NOTIFIER_TIMEOUT, DEFAULT_NOTIFIER_TIMEOUT_SECONDS);
+        notifierQueueCapacity = parsePositiveInt(NOTIFIER_QUEUE, AsyncChangesNotifier.DEFAULT_QUEUE_CAPACITY);
+        parserEngine = parseParserEngine();
+        comparisonMode = parseComparisonMode();
+        parseCacheSizeMegabytes = parsePositiveInt(PARSE_CACHE_SIZE, DEFAULT_PARSE_CACHE_SIZE_MB);
+    }
+
+    private ParserEngine parseParserEngine() throws ParseException {
+        final String value = cmd.getOptionValue(PARSER);
+        if (value == null) {
+            return ParserEngine.JAVA_PARSER;
+        }
+        for (ParserEngine engine : ParserEngine.values()) {
+            if (engine.name().replace('_', '-').equalsIgnoreCase(value)) {
+                return engine;
+            }
+        }
+        throw new ParseException("Unknown parser engine: " + value);
+    }
+
+    private ComparisonMode parseComparisonMode() throws ParseException {
+        final String value = cmd.getOptionValue(COMPARISON);
+        if (value == null) {
+            return ComparisonMode.EXACT;
+        }
+        for (ComparisonMode mode : ComparisonMode.values()) {
+            if (mode.name().replace('_', '-').equalsIgnoreCase(value)) {
+                return mode;
+            }
+        }
+        throw new ParseException("Unknown comparison mode: " + value);
+    }
+
+    private int parsePositiveInt(final String option, final int defaultValue) throws ParseException {
+        final String value = cmd.getOptionValue(option);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            final int result = Integer.parseInt(value);
+            if (result > 0) {
+                return result;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new ParseException("Option '" + option + "' must be a positive integer: " + value);
     }
 
     NotifyArguments() {
@@ -89,6 +182,68 @@ class NotifyArguments {
                 .desc(MASTER_WATCHERS_DESCRIPTION)
                 .hasArgs()
                 .build());
+
+        options.addOption(Option.builder()
+                .longOpt(WORKERS)
+                .desc(WORKERS_DESCRIPTION)
+                .numberOfArgs(1)
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt(ASYNC_NOTIFIERS)
+                .desc(ASYNC_NOTIFIERS_DESCRIPTION)
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt(NOTIFIER_TIMEOUT)
+                .desc(NOTIFIER_TIMEOUT_DESCRIPTION)
+                .numberOfArgs(1)
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt(NOTIFIER_QUEUE)
+                .desc(NOTIFIER_QUEUE_DESCRIPTION)
+                .numberOfArgs(1)
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt(PARSER)
+                .desc(PARSER_DESCRIPTION)
+                .numberOfArgs(1)
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt(PARSE_CACHE)
+                .desc(PARSE_CACHE_DESCRIPTION)
+                .numberOfArgs(1)
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt(PARSE_CACHE_SIZE)
+                .desc(PARSE_CACHE_SIZE_DESCRIPTION)
+                .numberOfArgs(1)
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt(COMPARISON)
+                .desc(COMPARISON_DESCRIPTION)
+                .numberOfArgs(1)
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt(VERIFY_FINGERPRINTS)
+                .desc(VERIFY_FINGERPRINTS_DESCRIPTION)
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt(DETECT_MOVES)
+                .desc(DETECT_MOVES_DESCRIPTION)
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt(STATISTICS)
+                .desc(STATISTICS_DESCRIPTION)
+                .build());
     }
 
     void printHelp(final PrintStream stream) {
@@ -119,6 +274,61 @@ class NotifyArguments {
         return Collections.unmodifiableList(masterWatchers);
     }
 
+    int getWorkerCount() {
+        checkParsed();
+        return workerCount;
+    }
+
+    boolean isAsyncNotifiers() {
+        checkParsed();
+        return cmd.hasOption(ASYNC_NOTIFIERS);
+    }
+
+    int getNotifierTimeoutSeconds() {
+        checkParsed();
+        return notifierTimeoutSeconds;
+    }
+
+    int getNotifierQueueCapacity() {
+        checkParsed();
+        return notifierQueueCapacity;
+    }
+
+    ParserEngine getParserEngine() {
+        checkParsed();
+        return parserEngine;
+    }
+
+    String getParseCacheDirectory() {
+        checkParsed();
+        return cmd.getOptionValue(PARSE_CACHE, null);
+    }
+
+    int getParseCacheSizeMegabytes() {
+        checkParsed();
+        return parseCacheSizeMegabytes;
+    }
+
+    ComparisonMode getComparisonMode() {
+        checkParsed();
+        return comparisonMode;
+    }
+
+    boolean isVerifyFingerprints() {
+        checkParsed();
+        return cmd.hasOption(VERIFY_FINGERPRINTS);
+    }
+
+    boolean isDetectMoves() {
+        checkParsed();
+        return cmd.hasOption(DETECT_MOVES);
+    }
+
+    boolean isStatisticsEnabled() {
+        checkParsed();
+        return cmd.hasOption(STATISTICS);
+    }
+
     private void checkParsed() {
         if (cmd == null) {
             throw new IllegalStateException("Arguments not yet parsed");
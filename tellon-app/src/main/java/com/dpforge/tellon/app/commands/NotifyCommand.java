@@ -1,6 +1,10 @@
 package com.dpforge.tellon.app.commands;
 
 import com.dpforge.tellon.app.Errors;
+import com.dpforge.tellon.core.NotifierStatistics;
+import com.dpforge.tellon.core.PipelineStatistics;
+import com.dpforge.tellon.core.ProcessingOptions;
+import com.dpforge.tellon.core.StageStatistics;
 import com.dpforge.tellon.core.Tellon;
 import com.dpforge.tellon.core.notifier.ProjectNotifier;
 import com.dpforge.tellon.core.notifier.ProjectNotifierException;
@@ -8,6 +12,7 @@ import com.dpforge.tellon.core.observer.ProjectObserver;
 import com.dpforge.tellon.core.observer.ProjectObserverException;
 import org.apache.commons.cli.ParseException;
 
+import java.io.File;
 import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
@@ -18,6 +23,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 public class NotifyCommand extends Command {
     private final NotifyArguments arguments = new NotifyArguments();
@@ -45,15 +51,47 @@ public class NotifyCommand extends Command {
         List<ProjectNotifier> notifiers = Collections.emptyList();
 
         try {
-            final Tellon tellon = new Tellon();
+            final Tellon tellon = new Tellon().setOptions(new ProcessingOptions.Builder()
+                    .workerCount(arguments.getWorkerCount())
+                    .asyncNotifiers(arguments.isAsyncNotifiers())
+                    .notifierDrainTimeout(arguments.getNotifierTimeoutSeconds(), TimeUnit.SECONDS)
+                    .notifierQueueCapacity(arguments.getNotifierQueueCapacity())
+                    .parserEngine(arguments.getParserEngine())
+                    .parseCache(arguments.getParseCacheDirectory() != null
+                                    ? new File(arguments.getParseCacheDirectory())
+                                    : null,
+                            arguments.getParseCacheSizeMegabytes() * 1024L * 1024L)
+                    .comparisonMode(arguments.getComparisonMode())
+                    .verifyFingerprints(arguments.isVerifyFingerprints())
+                    .detectMoves(arguments.isDetectMoves())
+                    .build());
             notifiers = initNotifiers(context, tellon);
-            tellon.process(initObserver(context));
+            try (ProjectObserver observer = initObserver(context)) {
+                tellon.process(observer);
+            }
+            if (arguments.isStatisticsEnabled()) {
+                printStatistics(context.getLog(), tellon.getStatistics());
+            }
         } catch (Throwable e) {
             reportError(e, notifiers);
             throw new CommandExecutionException(Errors.EXECUTION_FAIL, "Fail to notify", e);
         }
     }
 
+    private static void printStatistics(final PrintStream log, final PipelineStatistics statistics) {
+        log.println("Processing stages:");
+        for (StageStatistics stage : statistics.getStages()) {
+            log.println("  " + stage);
+        }
+        for (NotifierStatistics notifier : statistics.getNotifiers()) {
+            log.println("  " + notifier);
+        }
+        log.println("Source files parsed: " + statistics.getParserStatistics().getParsedCount()
+                + ", skipped without annotations: " + statistics.getParserStatistics().getSkippedCount()
+                + ", skipped as diff misses annotated blocks: " + statistics.getParserStatistics().getUnaffectedCount()
+                + ", loaded from cache: " + statistics.getParserStatistics().getCachedCount());
+    }
+
     private void reportError(final Throwable t, final List<ProjectNotifier> notifiers) {
         final List<String> masterWatchers = arguments.getMasterWatchers();
         if (masterWatchers.isEmpty()) {
@@ -161,7 +199,7 @@ public class NotifyCommand extends Command {
         return projectObserver;
     }
 
-    private static ProjectObserver getProjectObserver(final List<ProjectObserver> observers, final String name) {
+    static ProjectObserver getProjectObserver(final List<ProjectObserver> observers, final String name) {
         for (ProjectObserver observer : observers) {
             if (name.equals(observer.getName())) {
                 return observer;
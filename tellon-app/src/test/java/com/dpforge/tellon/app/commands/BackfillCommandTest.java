@@ -0,0 +1,186 @@
+package com.dpforge.tellon.app.commands;
+
+import com.dpforge.tellon.core.observer.ProjectInfo;
+import com.dpforge.tellon.core.observer.ProjectItem;
+import com.dpforge.tellon.core.observer.ProjectObserver;
+import com.dpforge.tellon.core.observer.ProjectObserverException;
+import com.dpforge.tellon.core.observer.ProjectWalker;
+import com.dpforge.tellon.core.parser.SourceCode;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BackfillCommandTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File store;
+
+    @Before
+    public void setUp() throws Exception {
+        store = folder.newFolder("store");
+        PartObserver.processedParts.clear();
+        PartObserver.failingPart = null;
+    }
+
+    @Test
+    public void skipsDoneParts() throws Exception {
+        backfill();
+        assertEquals(asList("1", "2", "3"), getProcessedParts());
+        assertEquals(3, countPartFiles());
+
+        assertTrue(new File(store, store.list()[0]).delete());
+        PartObserver.processedParts.clear();
+        backfill();
+        assertEquals(1, getProcessedParts().size());
+        assertEquals(3, countPartFiles());
+
+        PartObserver.processedParts.clear();
+        backfill();
+        assertEquals(Collections.<String>emptyList(), getProcessedParts());
+    }
+
+    @Test
+    public void failedPartIsNotWritten() throws Exception {
+        PartObserver.failingPart = "2";
+        try {
+            backfill();
+            fail("Backfill must fail");
+        } catch (CommandExecutionException ignored) {
+        }
+        assertEquals(asList("1", "2", "3"), getProcessedParts());
+        assertEquals(2, countPartFiles());
+        assertFalse(new ChangeRecordStore(store).isDone(partArgs("2")));
+
+        // only the failed part is processed again
+        PartObserver.processedParts.clear();
+        PartObserver.failingPart = null;
+        backfill();
+        assertEquals(Collections.singletonList("2"), getProcessedParts());
+        assertEquals(3, countPartFiles());
+    }
+
+    @Test
+    public void notesRefIsNotPassedToParts() throws Exception {
+        backfill("notesRef=refs/notes/tellon");
+        assertEquals(3, PartObserver.processedParts.size());
+        for (Map<String, String> args : PartObserver.processedParts) {
+            assertFalse(args.containsKey("notesRef"));
+        }
+        // parts are the same as without the ref
+        PartObserver.processedParts.clear();
+        backfill();
+        assertEquals(Collections.<String>emptyList(), getProcessedParts());
+    }
+
+    private void backfill(String... observerArgs) throws Exception {
+        final List<String> args = new ArrayList<>(asList("--store", store.getPath(), "--threads", "2"));
+        for (String arg : observerArgs) {
+            args.add("--observer-args");
+            args.add(arg);
+        }
+        final BackfillCommand command = new BackfillCommand();
+        assertTrue(command.parseArguments(args.toArray(new String[args.size()])));
+        command.execute(new CommandContext.Builder()
+                .observers(Collections.<ProjectObserver>singletonList(new PartObserver()))
+                .notifiers(Collections.emptyList())
+                .log(new PrintStream(new ByteArrayOutputStream()))
+                .build());
+    }
+
+    private int countPartFiles() {
+        return store.list().length;
+    }
+
+    private static List<String> getProcessedParts() {
+        final List<String> parts = new ArrayList<>();
+        for (Map<String, String> args : PartObserver.processedParts) {
+            parts.add(args.get("part"));
+        }
+        Collections.sort(parts);
+        return parts;
+    }
+
+    private static Map<String, String> partArgs(String part) {
+        final Map<String, String> result = new HashMap<>();
+        result.put("part", part);
+        return result;
+    }
+
+    /**
+     * Observer of three parts without items which fails to walk the failing part if there is one
+     */
+    public static class PartObserver implements ProjectObserver {
+        static final Queue<Map<String, String>> processedParts = new ConcurrentLinkedQueue<>();
+        static volatile String failingPart;
+
+        private Map<String, String> args;
+
+        @Override
+        public void init(Map<String, String> args) throws ProjectObserverException {
+            this.args = new HashMap<>(args);
+        }
+
+        @Override
+        public String getName() {
+            return "parts";
+        }
+
+        @Override
+        public String getDescription() {
+            return "for test purposes";
+        }
+
+        @Override
+        public ProjectInfo getProjectInfo() {
+            return new ProjectInfo.Builder().name("Test Project").build();
+        }
+
+        @Override
+        public ProjectWalker createWalker() {
+            processedParts.add(args);
+            if (args.get("part").equals(failingPart)) {
+                throw new IllegalStateException("Fail to walk part " + args.get("part"));
+            }
+            return new ProjectWalker() {
+                @Override
+                public boolean hasNext() {
+                    return false;
+                }
+
+                @Override
+                public ProjectItem next() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public SourceCode getSourceCode(String qualifiedName) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<Map<String, String>> splitRange(int maxRevisions) {
+            return asList(partArgs("1"), partArgs("2"), partArgs("3"));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.dpforge.tellon.core;
+
+import com.dpforge.tellon.core.parser.AnnotatedBlock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Open addressing hash index of annotated blocks by their identity keys without boxing of the keys.
+ * Blocks with the same key are all kept and taken in the order of the list.
+ */
+final class BlockIndex {
+    private final List<AnnotatedBlock> blocks;
+    private final boolean[] taken;
+    private final long[] keys;
+    // index of block plus one, zero marks a free slot
+    private final int[] slots;
+    private final int mask;
+
+    BlockIndex(List<AnnotatedBlock> blocks) {
+        this.blocks = blocks;
+        this.taken = new boolean[blocks.size()];
+        final int capacity = Integer.highestOneBit(Math.max(2, blocks.size()) * 2 - 1) << 1;
+        this.keys = new long[capacity];
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+        for (int i = 0; i < blocks.size(); i++) {
+            final long key = blocks.get(i).getIdentityKey();
+            int slot = slotOf(key);
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            slots[slot] = i + 1;
+        }
+    }
+
+    /**
+     * Returns the first block with the key which is not taken yet and marks it as taken
+     * or {@code null} if there is no such block
+     */
+    AnnotatedBlock take(long key) {
+        for (int slot = slotOf(key); slots[slot] != 0; slot = (slot + 1) & mask) {
+            // blocks with the same key follow each other along the probe sequence in the order of the list
+            final int index = slots[slot] - 1;
+            if (keys[slot] == key && !taken[index]) {
+                taken[index] = true;
+                return blocks.get(index);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Blocks which are not taken in the order of the list
+     */
+    List<AnnotatedBlock> getRemaining() {
+        final List<AnnotatedBlock> remaining = new ArrayList<>();
+        for (int i = 0; i < blocks.size(); i++) {
+            if (!taken[i]) {
+                remaining.add(blocks.get(i));
+            }
+        }
+        return remaining;
+    }
+
+    private int slotOf(long key) {
+        final long hash = key * 0x9e3779b97f4a7c15L;
+        return (int) (hash >>> 32) & mask;
+    }
+}
@@ -1,5 +1,6 @@
 package com.dpforge.tellon.core;
 
+import com.dpforge.tellon.core.observer.ProjectItem;
 import com.dpforge.tellon.core.parser.AnnotatedBlock;
 
 import java.util.ArrayList;
@@ -9,6 +10,7 @@ public class Changes {
     private final List<Update> updated = new ArrayList<>();
     private final List<AnnotatedBlock> deleted = new ArrayList<>();
     private final List<AnnotatedBlock> added = new ArrayList<>();
+    private final List<Move> moved = new ArrayList<>();
 
     Changes() {
     }
@@ -25,8 +27,24 @@ public class Changes {
         added.add(newBlock);
     }
 
+    void addMoved(Move move) {
+        moved.add(move);
+    }
+
+    void removeDeleted(AnnotatedBlock oldBlock) {
+        deleted.remove(oldBlock);
+    }
+
+    void removeInserted(AnnotatedBlock newBlock) {
+        added.remove(newBlock);
+    }
+
     boolean isEmpty() {
-        return !hasUpdated() && !hasDeleted() && !hasAdded();
+        return !hasUpdated() && !hasDeleted() && !hasAdded() && !hasMoved();
+    }
+
+    int size() {
+        return updated.size() + deleted.size() + added.size() + moved.size();
     }
 
     public boolean hasUpdated() {
@@ -53,6 +71,18 @@ public class Changes {
         return new ArrayList<>(added);
     }
 
+    public boolean hasMoved() {
+        return !moved.isEmpty();
+    }
+
+    /**
+     * Blocks which came from another place, maybe another item, instead of being added. Only reported
+     * if move detection is enabled, see {@link ProcessingOptions#isDetectMoves()}.
+     */
+    public List<Move> getMoved() {
+        return new ArrayList<>(moved);
+    }
+
     public static class Update {
         private final AnnotatedBlock oldBlock;
         private final AnnotatedBlock newBlock;
@@ -70,4 +100,49 @@ public class Changes {
             return newBlock;
         }
     }
+
+    public static class Move {
+        public enum Kind {
+            /**
+             * Block has the same name but another place: enclosing type, signature or item
+             */
+            MOVED,
+
+            /**
+             * Block has another name
+             */
+            RENAMED
+        }
+
+        private final Kind kind;
+        private final ProjectItem oldItem;
+        private final AnnotatedBlock oldBlock;
+        private final AnnotatedBlock newBlock;
+
+        public Move(Kind kind, ProjectItem oldItem, AnnotatedBlock oldBlock, AnnotatedBlock newBlock) {
+            this.kind = kind;
+            this.oldItem = oldItem;
+            this.oldBlock = oldBlock;
+            this.newBlock = newBlock;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * Item the block was deleted from, it may be the same item the changes belong to
+         */
+        public ProjectItem getOldItem() {
+            return oldItem;
+        }
+
+        public AnnotatedBlock getOldBlock() {
+            return oldBlock;
+        }
+
+        public AnnotatedBlock getNewBlock() {
+            return newBlock;
+        }
+    }
 }
@@ -1,35 +1,129 @@
 package com.dpforge.tellon.core;
 
+import com.dpforge.tellon.core.observer.LineChange;
+import com.dpforge.tellon.core.observer.Revision;
 import com.dpforge.tellon.core.parser.AnnotatedBlock;
+import com.dpforge.tellon.core.parser.ComparisonMode;
+import com.dpforge.tellon.core.parser.ParseCache;
 import com.dpforge.tellon.core.parser.ParsedSourceCode;
+import com.dpforge.tellon.core.parser.ParserEngine;
+import com.dpforge.tellon.core.parser.ParserStatistics;
 import com.dpforge.tellon.core.parser.SourceCode;
 import com.dpforge.tellon.core.parser.SourceCodeParser;
 import com.dpforge.tellon.core.parser.resolver.AsIsWatcherResolver;
 import com.dpforge.tellon.core.parser.resolver.WatcherResolver;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.function.Function;
 
+/**
+ * Builder is thread-safe if the watcher resolver passed to it is thread-safe.
+ */
 public class ChangesBuilder {
 
     private final SourceCodeParser parser;
+    private final Function<Revision, WatcherResolver> revisionResolvers;
+    private final boolean verifyFingerprints;
 
     public ChangesBuilder() {
         this(new AsIsWatcherResolver());
     }
 
     public ChangesBuilder(WatcherResolver watcherResolver) {
+        this(watcherResolver, ParserEngine.JAVA_PARSER);
+    }
+
+    public ChangesBuilder(WatcherResolver watcherResolver, ParserEngine parserEngine) {
+        this(watcherResolver, parserEngine, null);
+    }
+
+    /**
+     * @param parseCache cache of parsed source code or {@code null} if it should not be used
+     */
+    public ChangesBuilder(WatcherResolver watcherResolver, ParserEngine parserEngine, ParseCache parseCache) {
+        this(watcherResolver, parserEngine, parseCache, ComparisonMode.EXACT, revision -> watcherResolver, false);
+    }
+
+    /**
+     * @param comparisonMode     defines which differences in source code of blocks are changes
+     * @param revisionResolvers  returns resolver of watchers referenced from source code of the given revision
+     * @param verifyFingerprints if {@code true} blocks with equal fingerprints are compared by source code as well
+     */
+    public ChangesBuilder(WatcherResolver watcherResolver,
+                          ParserEngine parserEngine,
+                          ParseCache parseCache,
+                          ComparisonMode comparisonMode,
+                          Function<Revision, WatcherResolver> revisionResolvers,
+                          boolean verifyFingerprints) {
         if (watcherResolver == null) {
             throw new NullPointerException("Watcher resolver cannot be null");
         }
-        parser = new SourceCodeParser(watcherResolver);
+        if (revisionResolvers == null) {
+            throw new NullPointerException("Revision resolvers cannot be null");
+        }
+        parser = new SourceCodeParser(watcherResolver, parserEngine, parseCache, comparisonMode);
+        this.revisionResolvers = revisionResolvers;
+        this.verifyFingerprints = verifyFingerprints;
     }
 
     public Changes build(SourceCode oldSrc, SourceCode newSrc) {
         return buildChanges(parser.parse(oldSrc), parser.parse(newSrc));
     }
 
+    /**
+     * Same as {@link #build(SourceCode, SourceCode)} but new source code is not parsed at all if the hunks
+     * of the diff do not touch annotated blocks of the old one.
+     */
+    public Changes build(SourceCode oldSrc, SourceCode newSrc, List<LineChange> changedLines) {
+        final ParsedSourceCode oldCode = parser.parse(oldSrc);
+        final ParsedSourceCode newCode = parser.parseChanged(oldSrc, oldCode, newSrc, null, changedLines,
+                parser.getWatcherResolver());
+        return newCode != null ? buildChanges(oldCode, newCode) : new Changes();
+    }
+
     public Changes buildInserted(SourceCode src) {
-        final ParsedSourceCode code = parser.parse(src);
+        return buildInserted(parser.parse(src));
+    }
+
+    public Changes buildDeleted(SourceCode src) {
+        return buildDeleted(parser.parse(src));
+    }
+
+    public ParserStatistics getParserStatistics() {
+        return parser.getStatistics();
+    }
+
+    /**
+     * @param revision revision of the source code or {@code null} if it is unknown
+     */
+    ParsedSourceCode parse(SourceCode src, String contentId, Revision revision) {
+        return parser.parse(src, contentId, getWatcherResolver(revision));
+    }
+
+    /**
+     * Returns {@code null} if annotated blocks of the new source code are known to be the same as of the old one.
+     * Hunks are requested only if the new source code may contain annotated blocks.
+     */
+    ParsedSourceCode parseChanged(SourceCode oldSrc,
+                                  ParsedSourceCode oldCode,
+                                  SourceCode newSrc,
+                                  String newContentId,
+                                  Revision newRevision,
+                                  SourceCodeParser.ChangedLinesSupplier changedLines) throws IOException {
+        return parser.parseChanged(oldSrc, oldCode, newSrc, newContentId, changedLines,
+                getWatcherResolver(newRevision));
+    }
+
+    private WatcherResolver getWatcherResolver(Revision revision) {
+        if (revision == null) {
+            return parser.getWatcherResolver();
+        }
+        final WatcherResolver watcherResolver = revisionResolvers.apply(revision);
+        return watcherResolver != null ? watcherResolver : parser.getWatcherResolver();
+    }
+
+    static Changes buildInserted(ParsedSourceCode code) {
         final Changes changes = new Changes();
 
         for (AnnotatedBlock block : code.getAnnotatedBlocks()) {
@@ -39,8 +133,7 @@ public class ChangesBuilder {
         return changes;
     }
 
-    public Changes buildDeleted(SourceCode src) {
-        final ParsedSourceCode code = parser.parse(src);
+    static Changes buildDeleted(ParsedSourceCode code) {
         final Changes changes = new Changes();
 
         for (AnnotatedBlock block : code.getAnnotatedBlocks()) {
@@ -50,36 +143,37 @@ public class ChangesBuilder {
         return changes;
     }
 
-    private static Changes buildChanges(ParsedSourceCode oldCode, ParsedSourceCode newCode) {
+    /**
+     * Blocks are matched by their identity keys, so overloaded methods and same-named members of nested types
+     * are told apart
+     */
+    Changes buildChanges(ParsedSourceCode oldCode, ParsedSourceCode newCode) {
         final Changes changes = new Changes();
 
-        final Map<String, AnnotatedBlock> oldBlocks = new HashMap<>();
-        for (AnnotatedBlock block : oldCode.getAnnotatedBlocks()) {
-            oldBlocks.put(block.getName(), block);
-        }
-
+        final BlockIndex oldBlocks = new BlockIndex(oldCode.getAnnotatedBlocks());
         for (AnnotatedBlock newBlock : newCode.getAnnotatedBlocks()) {
-            final AnnotatedBlock oldBlock = oldBlocks.get(newBlock.getName());
-            if (oldBlock != null && oldBlock.getType() == newBlock.getType()) {
+            final AnnotatedBlock oldBlock = oldBlocks.take(newBlock.getIdentityKey());
+            if (oldBlock != null) {
                 if (!bodyEquals(oldBlock, newBlock)) {
                     changes.addChanged(oldBlock, newBlock);
                 }
-                oldBlocks.remove(newBlock.getName());
             } else {
                 changes.addInserted(newBlock);
             }
         }
 
-        for (AnnotatedBlock oldBlock : oldBlocks.values()) {
+        for (AnnotatedBlock oldBlock : oldBlocks.getRemaining()) {
             changes.addDeleted(oldBlock);
         }
 
         return changes;
     }
 
-    private static boolean bodyEquals(final AnnotatedBlock oldBlock, final AnnotatedBlock newBlock) {
-        final List<String> oldRaw = oldBlock.getSourceCode().asRaw();
-        final List<String> newRaw = newBlock.getSourceCode().asRaw();
-        return oldRaw.equals(newRaw);
+    private boolean bodyEquals(final AnnotatedBlock oldBlock, final AnnotatedBlock newBlock) {
+        if (!oldBlock.getFingerprint().equals(newBlock.getFingerprint())) {
+            return false;
+        }
+        return !verifyFingerprints
+                || oldBlock.getSourceCode().asCompared().equals(newBlock.getSourceCode().asCompared());
     }
 }
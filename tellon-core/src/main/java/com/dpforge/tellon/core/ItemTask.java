@@ -0,0 +1,153 @@
+package com.dpforge.tellon.core;
+
+import com.dpforge.tellon.core.observer.ProjectItem;
+import com.dpforge.tellon.core.observer.Revision;
+import com.dpforge.tellon.core.parser.ParsedSourceCode;
+import com.dpforge.tellon.core.parser.SourceCode;
+
+import java.io.IOException;
+
+/**
+ * State of single project item passing through the stages of processing.
+ * Every stage is run by one thread at a time and stages hand the task over through blocking queues.
+ */
+class ItemTask {
+    enum Kind {
+        CHANGED,
+        ADDED,
+        DELETED,
+        NONE
+    }
+
+    private final long index;
+    private final ProjectItem item;
+
+    private Kind kind;
+    private SourceCode previous;
+    private SourceCode actual;
+    private String previousContentId;
+    private String actualContentId;
+    private Revision previousRevision;
+    private Revision actualRevision;
+    private ParsedSourceCode parsedPrevious;
+    private ParsedSourceCode parsedActual;
+    private boolean unaffected;
+    private Changes changes;
+    private Throwable error;
+
+    ItemTask(long index, ProjectItem item) {
+        this.index = index;
+        this.item = item;
+    }
+
+    long getIndex() {
+        return index;
+    }
+
+    /**
+     * Task without item marks the end of project. It may carry an error occurred during enumeration.
+     */
+    boolean isLast() {
+        return item == null;
+    }
+
+    ProjectItem getItem() {
+        return item;
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    Changes getChanges() {
+        return changes;
+    }
+
+    Throwable getError() {
+        return error;
+    }
+
+    void fail(Throwable error) {
+        this.error = error;
+    }
+
+    void run(final PipelineStage stage, final ChangesBuilder changesBuilder) throws IOException {
+        switch (stage) {
+            case LOAD:
+                load();
+                break;
+            case PARSE:
+                parse(changesBuilder);
+                break;
+            case COMPARE:
+                compare(changesBuilder);
+                break;
+            default:
+                throw new IllegalArgumentException("Stage " + stage + " is not run by task");
+        }
+    }
+
+    void load() throws IOException {
+        final boolean hasActual = item.hasActual();
+        final boolean hasPrev = item.hasPrevious();
+        if (hasActual && hasPrev) {
+            kind = Kind.CHANGED;
+        } else if (hasActual) {
+            kind = Kind.ADDED;
+        } else if (hasPrev) {
+            kind = Kind.DELETED;
+        } else {
+            kind = Kind.NONE;
+        }
+
+        if (hasActual) {
+            actual = item.getActual();
+            actualContentId = item.getActualContentId();
+            actualRevision = item.getActualRevision();
+        }
+        if (hasPrev) {
+            previous = item.getPrevious();
+            previousContentId = item.getPreviousContentId();
+            previousRevision = item.getPreviousRevision();
+        }
+    }
+
+    void parse(final ChangesBuilder changesBuilder) throws IOException {
+        if (previous != null) {
+            parsedPrevious = changesBuilder.parse(previous, previousContentId, previousRevision);
+        }
+        if (actual != null) {
+            if (kind == Kind.CHANGED) {
+                final SourceCode previousCode = previous;
+                final SourceCode actualCode = actual;
+                parsedActual = changesBuilder.parseChanged(previous, parsedPrevious, actual, actualContentId,
+                        actualRevision, () -> item.getChangedLines(previousCode, actualCode));
+                unaffected = parsedActual == null;
+            } else {
+                parsedActual = changesBuilder.parse(actual, actualContentId, actualRevision);
+            }
+        }
+        previous = null;
+        actual = null;
+    }
+
+    void compare(final ChangesBuilder changesBuilder) {
+        switch (kind) {
+            case CHANGED:
+                changes = unaffected ? new Changes() : changesBuilder.buildChanges(parsedPrevious, parsedActual);
+                break;
+            case ADDED:
+                changes = ChangesBuilder.buildInserted(parsedActual);
+                break;
+            case DELETED:
+                changes = ChangesBuilder.buildDeleted(parsedPrevious);
+                break;
+            case NONE:
+            default:
+                changes = new Changes();
+                break;
+        }
+        parsedActual = null;
+        parsedPrevious = null;
+    }
+}
@@ -0,0 +1,186 @@
+package com.dpforge.tellon.core;
+
+import com.dpforge.tellon.core.parser.AnnotatedBlock;
+import com.dpforge.tellon.core.parser.BlockSketch;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.function.Consumer;
+
+/**
+ * Pairs blocks deleted in one place with the same or almost the same blocks added in another place during the run
+ * and reports them as {@link Changes.Move}s of the item the block is added to.
+ * <p>
+ * Since a counterpart may be found in any later item, notifications are held back once some item has deleted or
+ * added blocks. Held back items are released in walker order when the total number of their blocks exceeds
+ * the capacity or when the run is finished, their blocks are not matched any more after that.
+ * Blocks are indexed by sketches computed from their source code, so no source code is parsed again.
+ */
+class MoveDetector {
+    static final double SIMILARITY_THRESHOLD = 0.75;
+    private static final int BAND_SIZE = 4;
+
+    private final int capacity;
+    private final Consumer<ItemTask> consumer;
+    private final Queue<ItemTask> heldTasks = new ArrayDeque<>();
+    private final Map<ItemTask, List<Entry>> taskEntries = new HashMap<>();
+    private final Map<Long, List<Entry>> index = new HashMap<>();
+    private int heldBlockCount;
+
+    /**
+     * @param capacity maximum number of blocks of held back items
+     * @param consumer receives tasks in walker order when they are released
+     */
+    MoveDetector(int capacity, Consumer<ItemTask> consumer) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Move detector capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.consumer = consumer;
+    }
+
+    void accept(ItemTask task) {
+        final Changes changes = task.getChanges();
+        if (heldTasks.isEmpty() && !changes.hasDeleted() && !changes.hasAdded()) {
+            consumer.accept(task);
+            return;
+        }
+
+        // deleted blocks are indexed first, so a block renamed within the item is matched too
+        final List<Entry> entries = new ArrayList<>();
+        for (AnnotatedBlock block : changes.getDeleted()) {
+            entries.add(new Entry(task, block, true));
+        }
+        for (AnnotatedBlock block : changes.getAdded()) {
+            entries.add(new Entry(task, block, false));
+        }
+        for (Entry entry : entries) {
+            if (!match(entry)) {
+                addToIndex(entry);
+            }
+        }
+        taskEntries.put(task, entries);
+        heldTasks.add(task);
+        heldBlockCount += changes.size();
+
+        while (heldBlockCount > capacity) {
+            release();
+        }
+    }
+
+    /**
+     * Releases all held back tasks
+     */
+    void finish() {
+        while (!heldTasks.isEmpty()) {
+            release();
+        }
+    }
+
+    private void release() {
+        final ItemTask task = heldTasks.remove();
+        for (Entry entry : taskEntries.remove(task)) {
+            removeFromIndex(entry);
+        }
+        heldBlockCount -= task.getChanges().size();
+        consumer.accept(task);
+    }
+
+    /**
+     * Finds unmatched counterpart of the block among indexed ones and turns both into a move
+     */
+    private boolean match(Entry entry) {
+        Entry best = null;
+        double bestSimilarity = 0;
+        for (long key : entry.keys) {
+            final List<Entry> candidates = index.get(key);
+            if (candidates == null) {
+                continue;
+            }
+            for (Entry candidate : candidates) {
+                if (candidate.matched || candidate.deleted == entry.deleted
+                        || candidate.block.getType() != entry.block.getType()) {
+                    continue;
+                }
+                final double similarity = entry.sketch.similarity(candidate.sketch);
+                final boolean sameName = candidate.block.getName().equals(entry.block.getName());
+                final boolean bestSameName = best != null && best.block.getName().equals(entry.block.getName());
+                if (similarity >= SIMILARITY_THRESHOLD && (similarity > bestSimilarity
+                        || (similarity == bestSimilarity && sameName && !bestSameName))) {
+                    best = candidate;
+                    bestSimilarity = similarity;
+                }
+            }
+        }
+        if (best == null) {
+            return false;
+        }
+
+        final Entry deleted = entry.deleted ? entry : best;
+        final Entry added = entry.deleted ? best : entry;
+        deleted.matched = true;
+        added.matched = true;
+        if (deleted == best && best.task != entry.task) {
+            // the block leaves changes of a held back task, the move replaces the added block in the other one
+            heldBlockCount--;
+        }
+        deleted.task.getChanges().removeDeleted(deleted.block);
+        added.task.getChanges().removeInserted(added.block);
+        final Changes.Move.Kind kind = deleted.block.getName().equals(added.block.getName())
+                ? Changes.Move.Kind.MOVED
+                : Changes.Move.Kind.RENAMED;
+        added.task.getChanges().addMoved(new Changes.Move(kind, deleted.task.getItem(), deleted.block,
+                added.block));
+        return true;
+    }
+
+    private void addToIndex(Entry entry) {
+        for (long key : entry.keys) {
+            index.computeIfAbsent(key, k -> new ArrayList<>(1)).add(entry);
+        }
+    }
+
+    private void removeFromIndex(Entry entry) {
+        for (long key : entry.keys) {
+            final List<Entry> entries = index.get(key);
+            if (entries == null) {
+                continue;
+            }
+            for (Iterator<Entry> iterator = entries.iterator(); iterator.hasNext(); ) {
+                if (iterator.next() == entry) {
+                    iterator.remove();
+                }
+            }
+            if (entries.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static class Entry {
+        final ItemTask task;
+        final AnnotatedBlock block;
+        final boolean deleted;
+        final BlockSketch sketch;
+        // body hash followed by band hashes of the sketch
+        final long[] keys;
+        boolean matched;
+
+        Entry(ItemTask task, AnnotatedBlock block, boolean deleted) {
+            this.task = task;
+            this.block = block;
+            this.deleted = deleted;
+            this.sketch = BlockSketch.of(block);
+            this.keys = new long[1 + BlockSketch.SIZE / BAND_SIZE];
+            keys[0] = sketch.getBodyHash();
+            for (int i = 1; i < keys.length; i++) {
+                keys[i] = sketch.getBandHash((i - 1) * BAND_SIZE, i * BAND_SIZE);
+            }
+        }
+    }
+}
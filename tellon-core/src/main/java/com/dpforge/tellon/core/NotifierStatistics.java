@@ -0,0 +1,62 @@
+package com.dpforge.tellon.core;
+
+import com.dpforge.tellon.core.notifier.AsyncChangesNotifier;
+
+/**
+ * Live counters of the queue of an asynchronous notifier. Values may be read from any thread while the project is
+ * being processed.
+ */
+public class NotifierStatistics {
+    private final AsyncChangesNotifier notifier;
+
+    NotifierStatistics(AsyncChangesNotifier notifier) {
+        this.notifier = notifier;
+    }
+
+    /**
+     * Simple class name of the wrapped notifier
+     */
+    public String getName() {
+        return notifier.getNotifier().getClass().getSimpleName();
+    }
+
+    public int getQueueCapacity() {
+        return notifier.getQueueCapacity();
+    }
+
+    /**
+     * Number of notifications currently waiting for the notifier
+     */
+    public int getQueueSize() {
+        return notifier.getQueueSize();
+    }
+
+    /**
+     * Maximum number of notifications that have been waiting for the notifier at once
+     */
+    public int getPeakQueueSize() {
+        return notifier.getPeakQueueSize();
+    }
+
+    /**
+     * Number of notifications that have been passed to the notifier
+     */
+    public long getDeliveredCount() {
+        return notifier.getDeliveredCount();
+    }
+
+    /**
+     * Number of notifications that have been dropped because the queue was full
+     */
+    public long getDroppedCount() {
+        return notifier.getDroppedCount();
+    }
+
+    @Override
+    public String toString() {
+        return "NOTIFIER " + getName() + " {queue=" + getQueueSize() + "/" + getQueueCapacity()
+                + ", peak=" + getPeakQueueSize()
+                + ", delivered=" + getDeliveredCount()
+                + ", dropped=" + getDroppedCount() + "}";
+    }
+}
@@ -0,0 +1,31 @@
+package com.dpforge.tellon.core;
+
+/**
+ * Stages of project processing. Each stage except {@link #ENUMERATE} takes project items from its own bounded queue.
+ */
+public enum PipelineStage {
+    /**
+     * Walks through the project and feeds items into the pipeline. Always single-threaded.
+     */
+    ENUMERATE,
+
+    /**
+     * Loads previous and actual source code of the item
+     */
+    LOAD,
+
+    /**
+     * Parses loaded source code and extracts annotated blocks
+     */
+    PARSE,
+
+    /**
+     * Compares annotated blocks of previous and actual source code
+     */
+    COMPARE,
+
+    /**
+     * Delivers changes to notifiers in walker order. Always single-threaded and runs on the calling thread.
+     */
+    NOTIFY
+}
@@ -0,0 +1,63 @@
+package com.dpforge.tellon.core;
+
+import com.dpforge.tellon.core.notifier.AsyncChangesNotifier;
+import com.dpforge.tellon.core.parser.ParserStatistics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Statistics of project processing. The stage whose queue is constantly full is the bottleneck:
+ * its queue is filled faster than the stage is able to drain it. The same holds for queues of asynchronous
+ * notifiers, whose full queues hold the processing back.
+ */
+public class PipelineStatistics {
+    private final Map<PipelineStage, StageStatistics> stages = new EnumMap<>(PipelineStage.class);
+    private final ParserStatistics parserStatistics;
+    private volatile List<NotifierStatistics> notifiers = Collections.emptyList();
+
+    PipelineStatistics(ProcessingOptions options, ParserStatistics parserStatistics) {
+        this.parserStatistics = parserStatistics;
+        for (PipelineStage stage : PipelineStage.values()) {
+            final ProcessingOptions.StageOptions stageOptions = options.getStageOptions(stage);
+            stages.put(stage, new StageStatistics(stage,
+                    stageOptions.getConcurrency(),
+                    stageOptions.getQueueCapacity()));
+        }
+    }
+
+    public StageStatistics getStage(PipelineStage stage) {
+        return stages.get(stage);
+    }
+
+    public List<StageStatistics> getStages() {
+        return new ArrayList<>(stages.values());
+    }
+
+    /**
+     * Statistics of asynchronous notifiers or empty list if notifiers are synchronous
+     */
+    public List<NotifierStatistics> getNotifiers() {
+        return notifiers;
+    }
+
+    public ParserStatistics getParserStatistics() {
+        return parserStatistics;
+    }
+
+    void attachNotifiers(List<AsyncChangesNotifier> asyncNotifiers) {
+        final List<NotifierStatistics> result = new ArrayList<>(asyncNotifiers.size());
+        for (AsyncChangesNotifier notifier : asyncNotifiers) {
+            result.add(new NotifierStatistics(notifier));
+        }
+        notifiers = Collections.unmodifiableList(result);
+    }
+
+    @Override
+    public String toString() {
+        return stages.values() + (notifiers.isEmpty() ? "" : " " + notifiers) + " parser " + parserStatistics;
+    }
+}
@@ -0,0 +1,301 @@
+package com.dpforge.tellon.core;
+
+import com.dpforge.tellon.core.notifier.AsyncChangesNotifier;
+import com.dpforge.tellon.core.parser.ComparisonMode;
+import com.dpforge.tellon.core.parser.ParserEngine;
+
+import java.io.File;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class ProcessingOptions {
+    private static final int DEFAULT_QUEUE_CAPACITY_PER_WORKER = 2;
+    private static final long DEFAULT_NOTIFIER_DRAIN_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final long DEFAULT_PARSE_CACHE_MAX_SIZE = 256L * 1024 * 1024;
+    private static final int DEFAULT_MOVE_INDEX_CAPACITY = 10000;
+
+    private final int workerCount;
+    private final Map<PipelineStage, StageOptions> stages;
+    private final boolean pipelined;
+    private final boolean asyncNotifiers;
+    private final long notifierDrainTimeoutMillis;
+    private final int notifierQueueCapacity;
+    private final ParserEngine parserEngine;
+    private final File parseCacheDirectory;
+    private final long parseCacheMaxSize;
+    private final ComparisonMode comparisonMode;
+    private final boolean verifyFingerprints;
+    private final boolean detectMoves;
+    private final int moveIndexCapacity;
+
+    private ProcessingOptions(Builder builder) {
+        parserEngine = builder.parserEngine;
+        parseCacheDirectory = builder.parseCacheDirectory;
+        parseCacheMaxSize = builder.parseCacheMaxSize;
+        comparisonMode = builder.comparisonMode;
+        verifyFingerprints = builder.verifyFingerprints;
+        detectMoves = builder.detectMoves;
+        moveIndexCapacity = builder.moveIndexCapacity;
+        asyncNotifiers = builder.asyncNotifiers;
+        notifierDrainTimeoutMillis = builder.notifierDrainTimeoutMillis;
+        notifierQueueCapacity = builder.notifierQueueCapacity;
+        workerCount = builder.workerCount;
+        pipelined = workerCount > 1 || !builder.stages.isEmpty();
+        stages = new EnumMap<>(PipelineStage.class);
+        for (PipelineStage stage : PipelineStage.values()) {
+            stages.put(stage, createStageOptions(builder, stage));
+        }
+    }
+
+    /**
+     * Default number of threads used by {@link PipelineStage#LOAD}, {@link PipelineStage#PARSE}
+     * and {@link PipelineStage#COMPARE} stages.
+     */
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    public StageOptions getStageOptions(PipelineStage stage) {
+        return stages.get(stage);
+    }
+
+    /**
+     * If {@code false} all stages are run one after another on the calling thread without any queues.
+     * It is so unless worker count is greater than 1 or some stage is configured explicitly.
+     */
+    public boolean isPipelined() {
+        return pipelined;
+    }
+
+    /**
+     * If {@code true} every notifier gets its own thread and queue of notifications,
+     * so a slow notifier slows down neither the others nor the processing.
+     */
+    public boolean isAsyncNotifiers() {
+        return asyncNotifiers;
+    }
+
+    /**
+     * How long to wait for asynchronous notifiers to deliver queued notifications when the project is finished
+     */
+    public long getNotifierDrainTimeoutMillis() {
+        return notifierDrainTimeoutMillis;
+    }
+
+    /**
+     * Maximum number of item notifications waiting for every asynchronous notifier. When the queue of some notifier
+     * is full further notifications for it are dropped and reported when the project is finished, so the processing
+     * and other notifiers never wait for a slow notifier.
+     */
+    public int getNotifierQueueCapacity() {
+        return notifierQueueCapacity;
+    }
+
+    public ParserEngine getParserEngine() {
+        return parserEngine;
+    }
+
+    /**
+     * Directory of on-disk cache of parsed source code or {@code null} if cache is disabled.
+     * The cache is used only for project items which provide content ids.
+     */
+    public File getParseCacheDirectory() {
+        return parseCacheDirectory;
+    }
+
+    /**
+     * Maximum total size of parse cache entries in bytes
+     */
+    public long getParseCacheMaxSize() {
+        return parseCacheMaxSize;
+    }
+
+    /**
+     * Defines which differences in source code of annotated blocks are reported as changes. Modes other than
+     * {@link ComparisonMode#EXACT} hash normalized tokens of every block: {@link ParserEngine#SCANNER} takes them from
+     * the tokens of the file, while {@link ParserEngine#JAVA_PARSER} and blocks restored from parse cache tokenize
+     * source code of every block once more.
+     */
+    public ComparisonMode getComparisonMode() {
+        return comparisonMode;
+    }
+
+    /**
+     * If {@code true} blocks with equal fingerprints are compared by their source code as well,
+     * otherwise equal fingerprints are considered to mean unchanged blocks
+     */
+    public boolean isVerifyFingerprints() {
+        return verifyFingerprints;
+    }
+
+    /**
+     * If {@code true} blocks deleted in one place and added to another one with the same or almost the same
+     * source code are reported as moves, see {@link Changes#getMoved()}. Notifications of items with added
+     * or deleted blocks and of all the items after them are held back until a counterpart is found.
+     */
+    public boolean isDetectMoves() {
+        return detectMoves;
+    }
+
+    /**
+     * Maximum number of blocks in held back notifications when moves are detected. When it is exceeded
+     * the oldest notifications are delivered and their blocks cannot be paired any more.
+     */
+    public int getMoveIndexCapacity() {
+        return moveIndexCapacity;
+    }
+
+    private StageOptions createStageOptions(Builder builder, PipelineStage stage) {
+        final StageOptions custom = builder.stages.get(stage);
+        if (stage == PipelineStage.ENUMERATE) {
+            return new StageOptions(1, 0);
+        }
+        if (stage == PipelineStage.NOTIFY) {
+            final int queueCapacity = custom != null
+                    ? custom.getQueueCapacity()
+                    : workerCount * DEFAULT_QUEUE_CAPACITY_PER_WORKER;
+            return new StageOptions(1, queueCapacity);
+        }
+        if (custom != null) {
+            return custom;
+        }
+        return new StageOptions(workerCount, workerCount * DEFAULT_QUEUE_CAPACITY_PER_WORKER);
+    }
+
+    public static class StageOptions {
+        private final int concurrency;
+        private final int queueCapacity;
+
+        private StageOptions(int concurrency, int queueCapacity) {
+            this.concurrency = concurrency;
+            this.queueCapacity = queueCapacity;
+        }
+
+        /**
+         * Number of threads that process items of the stage
+         */
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        /**
+         * Maximum number of items waiting for the stage. When the queue is full the previous stage is blocked.
+         */
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+    }
+
+    public static class Builder {
+        private int workerCount = 1;
+        private final Map<PipelineStage, StageOptions> stages = new EnumMap<>(PipelineStage.class);
+        private boolean asyncNotifiers;
+        private long notifierDrainTimeoutMillis = DEFAULT_NOTIFIER_DRAIN_TIMEOUT_MILLIS;
+        private int notifierQueueCapacity = AsyncChangesNotifier.DEFAULT_QUEUE_CAPACITY;
+        private ParserEngine parserEngine = ParserEngine.JAVA_PARSER;
+        private File parseCacheDirectory;
+        private long parseCacheMaxSize = DEFAULT_PARSE_CACHE_MAX_SIZE;
+        private ComparisonMode comparisonMode = ComparisonMode.EXACT;
+        private boolean verifyFingerprints;
+        private boolean detectMoves;
+        private int moveIndexCapacity = DEFAULT_MOVE_INDEX_CAPACITY;
+
+        public Builder workerCount(int workerCount) {
+            if (workerCount < 1) {
+                throw new IllegalArgumentException("Worker count must be positive: " + workerCount);
+            }
+            this.workerCount = workerCount;
+            return this;
+        }
+
+        /**
+         * Overrides concurrency and queue capacity of the stage. Concurrency of {@link PipelineStage#ENUMERATE}
+         * and {@link PipelineStage#NOTIFY} stages is always 1.
+         */
+        public Builder stage(PipelineStage stage, int concurrency, int queueCapacity) {
+            if (stage == PipelineStage.ENUMERATE) {
+                throw new IllegalArgumentException("Enumeration stage cannot be configured");
+            }
+            if (concurrency < 1) {
+                throw new IllegalArgumentException("Stage concurrency must be positive: " + concurrency);
+            }
+            if (queueCapacity < 1) {
+                throw new IllegalArgumentException("Stage queue capacity must be positive: " + queueCapacity);
+            }
+            stages.put(stage, new StageOptions(concurrency, queueCapacity));
+            return this;
+        }
+
+        public Builder asyncNotifiers(boolean asyncNotifiers) {
+            this.asyncNotifiers = asyncNotifiers;
+            return this;
+        }
+
+        public Builder notifierDrainTimeout(long timeout, TimeUnit unit) {
+            if (timeout < 0) {
+                throw new IllegalArgumentException("Notifier drain timeout cannot be negative: " + timeout);
+            }
+            this.notifierDrainTimeoutMillis = unit.toMillis(timeout);
+            return this;
+        }
+
+        public Builder notifierQueueCapacity(int capacity) {
+            if (capacity < 1) {
+                throw new IllegalArgumentException("Notifier queue capacity must be positive: " + capacity);
+            }
+            this.notifierQueueCapacity = capacity;
+            return this;
+        }
+
+        public Builder parserEngine(ParserEngine parserEngine) {
+            if (parserEngine == null) {
+                throw new NullPointerException("Parser engine cannot be null");
+            }
+            this.parserEngine = parserEngine;
+            return this;
+        }
+
+        /**
+         * @param directory directory of parse cache or {@code null} to disable it
+         */
+        public Builder parseCache(File directory, long maxSize) {
+            if (maxSize <= 0) {
+                throw new IllegalArgumentException("Parse cache size must be positive: " + maxSize);
+            }
+            this.parseCacheDirectory = directory;
+            this.parseCacheMaxSize = maxSize;
+            return this;
+        }
+
+        public Builder comparisonMode(ComparisonMode comparisonMode) {
+            if (comparisonMode == null) {
+                throw new NullPointerException("Comparison mode cannot be null");
+            }
+            this.comparisonMode = comparisonMode;
+            return this;
+        }
+
+        public Builder verifyFingerprints(boolean verifyFingerprints) {
+            this.verifyFingerprints = verifyFingerprints;
+            return this;
+        }
+
+        public Builder detectMoves(boolean detectMoves) {
+            this.detectMoves = detectMoves;
+            return this;
+        }
+
+        public Builder moveIndexCapacity(int capacity) {
+            if (capacity < 1) {
+                throw new IllegalArgumentException("Move index capacity must be positive: " + capacity);
+            }
+            this.moveIndexCapacity = capacity;
+            return this;
+        }
+
+        public ProcessingOptions build() {
+            return new ProcessingOptions(this);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.dpforge.tellon.core;
+
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live counters of a pipeline stage. Values may be read from any thread while the project is being processed.
+ */
+public class StageStatistics {
+    private final PipelineStage stage;
+    private final int concurrency;
+    private final int queueCapacity;
+    private final AtomicInteger peakQueueSize = new AtomicInteger();
+    private final AtomicLong processedCount = new AtomicLong();
+
+    private volatile Queue<?> queue;
+
+    StageStatistics(PipelineStage stage, int concurrency, int queueCapacity) {
+        this.stage = stage;
+        this.concurrency = concurrency;
+        this.queueCapacity = queueCapacity;
+    }
+
+    public PipelineStage getStage() {
+        return stage;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Number of items currently waiting for the stage
+     */
+    public int getQueueSize() {
+        final Queue<?> current = queue;
+        return current != null ? current.size() : 0;
+    }
+
+    /**
+     * Maximum number of items that have been waiting for the stage at once
+     */
+    public int getPeakQueueSize() {
+        return peakQueueSize.get();
+    }
+
+    /**
+     * Number of items that have passed the stage
+     */
+    public long getProcessedCount() {
+        return processedCount.get();
+    }
+
+    void attachQueue(Queue<?> queue) {
+        this.queue = queue;
+    }
+
+    void onEnqueued(int queueSize) {
+        int peak;
+        do {
+            peak = peakQueueSize.get();
+        } while (queueSize > peak && !peakQueueSize.compareAndSet(peak, queueSize));
+    }
+
+    void onProcessed() {
+        processedCount.incrementAndGet();
+    }
+
+    @Override
+    public String toString() {
+        return stage + " {concurrency=" + concurrency
+                + ", queue=" + getQueueSize() + "/" + queueCapacity
+                + ", peak=" + getPeakQueueSize()
+                + ", processed=" + getProcessedCount() + "}";
+    }
+}
@@ -0,0 +1,228 @@
+package com.dpforge.tellon.core;
+
+import com.dpforge.tellon.core.observer.ProjectWalker;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs project items through enumeration, load, parse, compare and notify stages.
+ * <p>
+ * In pipelined mode every stage has its own threads and takes items from its own bounded queue, so a slow stage
+ * blocks only the stages before it. Items may complete out of order, therefore notify stage keeps them until all
+ * preceding items are delivered. The number of items in flight is limited by the total capacity of the pipeline.
+ */
+class StagedPipeline {
+    private static final PipelineStage[] WORKER_STAGES = {
+            PipelineStage.LOAD,
+            PipelineStage.PARSE,
+            PipelineStage.COMPARE
+    };
+
+    private final ProcessingOptions options;
+    private final PipelineStatistics statistics;
+    private final ChangesBuilder changesBuilder;
+
+    StagedPipeline(ProcessingOptions options, PipelineStatistics statistics, ChangesBuilder changesBuilder) {
+        this.options = options;
+        this.statistics = statistics;
+        this.changesBuilder = changesBuilder;
+    }
+
+    void process(final ProjectWalker walker, final Consumer<ItemTask> consumer) throws IOException {
+        if (options.isPipelined()) {
+            processPipelined(walker, consumer);
+        } else {
+            processSequentially(walker, consumer);
+        }
+    }
+
+    private void processSequentially(final ProjectWalker walker, final Consumer<ItemTask> consumer) throws IOException {
+        long index = 0;
+        while (walker.hasNext()) {
+            final ItemTask task = new ItemTask(index++, walker.next());
+            statistics.getStage(PipelineStage.ENUMERATE).onProcessed();
+            for (PipelineStage stage : WORKER_STAGES) {
+                task.run(stage, changesBuilder);
+                statistics.getStage(stage).onProcessed();
+            }
+            consumer.accept(task);
+            statistics.getStage(PipelineStage.NOTIFY).onProcessed();
+        }
+    }
+
+    private void processPipelined(final ProjectWalker walker, final Consumer<ItemTask> consumer) throws IOException {
+        final Map<PipelineStage, BlockingQueue<ItemTask>> queues = new EnumMap<>(PipelineStage.class);
+        int capacity = 0;
+        for (PipelineStage stage : PipelineStage.values()) {
+            final ProcessingOptions.StageOptions stageOptions = options.getStageOptions(stage);
+            capacity += stageOptions.getQueueCapacity();
+            if (stage != PipelineStage.ENUMERATE) {
+                capacity += stageOptions.getConcurrency();
+                final BlockingQueue<ItemTask> queue = new ArrayBlockingQueue<>(stageOptions.getQueueCapacity());
+                statistics.getStage(stage).attachQueue(queue);
+                queues.put(stage, queue);
+            }
+        }
+
+        final Semaphore inFlight = new Semaphore(capacity);
+        final ExecutorService executor = Executors.newCachedThreadPool(new StageThreadFactory());
+        try {
+            executor.execute(new Enumerator(walker, inFlight, queues));
+            for (int i = 0; i < WORKER_STAGES.length; i++) {
+                final PipelineStage stage = WORKER_STAGES[i];
+                final PipelineStage next = i + 1 < WORKER_STAGES.length ? WORKER_STAGES[i + 1] : PipelineStage.NOTIFY;
+                for (int j = 0; j < options.getStageOptions(stage).getConcurrency(); j++) {
+                    executor.execute(new Worker(stage, queues.get(stage), next, queues.get(next)));
+                }
+            }
+            deliverInOrder(queues.get(PipelineStage.NOTIFY), inFlight, consumer);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            final InterruptedIOException exception = new InterruptedIOException("Interrupted while processing project");
+            exception.initCause(e);
+            throw exception;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void deliverInOrder(final BlockingQueue<ItemTask> queue,
+                                final Semaphore inFlight,
+                                final Consumer<ItemTask> consumer) throws IOException, InterruptedException {
+        final Map<Long, ItemTask> completed = new HashMap<>();
+        long nextIndex = 0;
+        while (true) {
+            final ItemTask task = completed.remove(nextIndex);
+            if (task == null) {
+                final ItemTask received = queue.take();
+                completed.put(received.getIndex(), received);
+                continue;
+            }
+
+            if (task.getError() != null) {
+                rethrow(task.getError());
+            }
+            if (task.isLast()) {
+                return;
+            }
+
+            consumer.accept(task);
+            statistics.getStage(PipelineStage.NOTIFY).onProcessed();
+            inFlight.release();
+            nextIndex++;
+        }
+    }
+
+    private void put(final PipelineStage stage,
+                     final BlockingQueue<ItemTask> queue,
+                     final ItemTask task) throws InterruptedException {
+        queue.put(task);
+        statistics.getStage(stage).onEnqueued(queue.size());
+    }
+
+    private static void rethrow(final Throwable error) throws IOException {
+        if (error instanceof IOException) {
+            throw (IOException) error;
+        } else if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+        } else if (error instanceof Error) {
+            throw (Error) error;
+        }
+        throw new RuntimeException("Fail to process project item", error);
+    }
+
+    private class Enumerator implements Runnable {
+        private final ProjectWalker walker;
+        private final Semaphore inFlight;
+        private final Map<PipelineStage, BlockingQueue<ItemTask>> queues;
+
+        Enumerator(ProjectWalker walker, Semaphore inFlight, Map<PipelineStage, BlockingQueue<ItemTask>> queues) {
+            this.walker = walker;
+            this.inFlight = inFlight;
+            this.queues = queues;
+        }
+
+        @Override
+        public void run() {
+            long index = 0;
+            try {
+                ItemTask last;
+                try {
+                    while (walker.hasNext()) {
+                        inFlight.acquire();
+                        put(PipelineStage.LOAD, queues.get(PipelineStage.LOAD), new ItemTask(index, walker.next()));
+                        statistics.getStage(PipelineStage.ENUMERATE).onProcessed();
+                        index++;
+                    }
+                    last = new ItemTask(index, null);
+                } catch (RuntimeException | Error e) {
+                    last = new ItemTask(index, null);
+                    last.fail(e);
+                }
+                put(PipelineStage.NOTIFY, queues.get(PipelineStage.NOTIFY), last);
+            } catch (InterruptedException ignored) {
+                // pipeline is shutting down
+            }
+        }
+    }
+
+    private class Worker implements Runnable {
+        private final PipelineStage stage;
+        private final BlockingQueue<ItemTask> input;
+        private final PipelineStage nextStage;
+        private final BlockingQueue<ItemTask> output;
+
+        Worker(PipelineStage stage,
+               BlockingQueue<ItemTask> input,
+               PipelineStage nextStage,
+               BlockingQueue<ItemTask> output) {
+            this.stage = stage;
+            this.input = input;
+            this.nextStage = nextStage;
+            this.output = output;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    final ItemTask task = input.take();
+                    if (task.getError() == null) {
+                        try {
+                            task.run(stage, changesBuilder);
+                        } catch (Throwable t) {
+                            task.fail(t);
+                        }
+                    }
+                    statistics.getStage(stage).onProcessed();
+                    put(nextStage, output, task);
+                }
+            } catch (InterruptedException ignored) {
+                // pipeline is shutting down
+            }
+        }
+    }
+
+    private static class StageThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            final Thread thread = new Thread(r, "tellon-stage-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
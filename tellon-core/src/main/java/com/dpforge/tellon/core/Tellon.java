@@ -1,21 +1,38 @@
 package com.dpforge.tellon.core;
 
+import com.dpforge.tellon.core.notifier.AsyncChangesNotifier;
 import com.dpforge.tellon.core.notifier.ChangesNotifier;
+import com.dpforge.tellon.core.notifier.NotificationException;
 import com.dpforge.tellon.core.observer.ProjectInfo;
 import com.dpforge.tellon.core.observer.ProjectItem;
 import com.dpforge.tellon.core.observer.ProjectObserver;
-import com.dpforge.tellon.core.observer.ProjectWalker;
-import com.dpforge.tellon.core.parser.SourceCode;
-import com.dpforge.tellon.core.parser.resolver.SourceCodeWatcherResolver;
+import com.dpforge.tellon.core.observer.Revision;
+import com.dpforge.tellon.core.parser.DirectoryCacheStorage;
+import com.dpforge.tellon.core.parser.ParseCache;
+import com.dpforge.tellon.core.parser.ParseCacheStorage;
+import com.dpforge.tellon.core.parser.resolver.CachingWatcherResolver;
+import com.dpforge.tellon.core.parser.resolver.WatcherResolver;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
 public class Tellon {
     private final List<ChangesNotifier> notifiers = new ArrayList<>();
 
+    private ProcessingOptions options = new ProcessingOptions.Builder().build();
+
+    private volatile PipelineStatistics statistics;
+
+    private List<ChangesNotifier> activeNotifiers = Collections.emptyList();
+
     public Tellon addNotifier(final ChangesNotifier notifier) {
         notifiers.add(notifier);
         return this;
@@ -26,38 +43,182 @@ public class Tellon {
         return this;
     }
 
+    public Tellon setOptions(final ProcessingOptions options) {
+        if (options == null) {
+            throw new NullPointerException("Processing options cannot be null");
+        }
+        this.options = options;
+        return this;
+    }
+
+    /**
+     * Walks through the project items and notifies about changes found.
+     * If {@link ProcessingOptions#isPipelined()} is {@code true} then items are processed by the staged pipeline
+     * and the observer must tolerate concurrent calls of its items and {@code getSourceCode} method.
+     * Notifiers are called in walker order: either from the calling thread or, if
+     * {@link ProcessingOptions#isAsyncNotifiers()} is {@code true}, each one from its own thread.
+     */
     public void process(final ProjectObserver observer) throws IOException {
-        final ChangesBuilder changesBuilder = new ChangesBuilder(new SourceCodeWatcherResolver(observer));
-        final ProjectWalker walker = observer.createWalker();
-
-        onStartProject(observer.getProjectInfo());
-        while (walker.hasNext()) {
-            final ProjectItem item = walker.next();
-            final boolean hasActual = item.hasActual();
-            final boolean hasPrev = item.hasPrevious();
-            if (hasActual && hasPrev) {
-                final SourceCode actual = item.getActual();
-                final SourceCode prev = item.getPrevious();
-                final Changes changes = changesBuilder.build(prev, actual);
-                notifyChanges(item, changes);
-            } else if (hasActual) {
-                notifyItemAdded(item, changesBuilder.buildInserted(item.getActual()));
-            } else if (hasPrev) {
-                notifyItemDeleted(item, changesBuilder.buildDeleted(item.getPrevious()));
+        final ParseCache parseCache = createParseCache(observer);
+        final CachingWatcherResolver watcherResolver = new CachingWatcherResolver(observer);
+        final ChangesBuilder changesBuilder = new ChangesBuilder(watcherResolver, options.getParserEngine(),
+                parseCache, options.getComparisonMode(), createRevisionResolvers(observer, watcherResolver),
+                options.isVerifyFingerprints());
+        final PipelineStatistics statistics = new PipelineStatistics(options, changesBuilder.getParserStatistics());
+        this.statistics = statistics;
+        activeNotifiers = createActiveNotifiers();
+        if (options.isAsyncNotifiers()) {
+            final List<AsyncChangesNotifier> asyncNotifiers = new ArrayList<>(activeNotifiers.size());
+            for (ChangesNotifier notifier : activeNotifiers) {
+                asyncNotifiers.add((AsyncChangesNotifier) notifier);
+            }
+            statistics.attachNotifiers(asyncNotifiers);
+        }
+
+        boolean finished = false;
+        try {
+            onStartProject(observer.getProjectInfo());
+            if (options.isDetectMoves()) {
+                final MoveDetector moveDetector = new MoveDetector(options.getMoveIndexCapacity(),
+                        this::notifyItemChanges);
+                new StagedPipeline(options, statistics, changesBuilder).process(observer.createWalker(),
+                        moveDetector::accept);
+                moveDetector.finish();
+            } else {
+                new StagedPipeline(options, statistics, changesBuilder).process(observer.createWalker(),
+                        this::notifyItemChanges);
+            }
+            if (parseCache != null) {
+                parseCache.flush();
+            }
+            finished = true;
+            onFinishedProject();
+        } finally {
+            if (!finished) {
+                abortAsyncNotifiers();
             }
         }
-        onFinishedProject();
+    }
+
+    /**
+     * Statistics of the current or the last {@link #process(ProjectObserver)} call. It is safe to call this method
+     * from another thread while the project is being processed.
+     */
+    public PipelineStatistics getStatistics() {
+        return statistics;
     }
 
     void onStartProject(final ProjectInfo projectInfo) {
-        for (ChangesNotifier notifier : notifiers) {
+        for (ChangesNotifier notifier : activeNotifiers) {
             notifier.onStartProject(projectInfo);
         }
     }
 
     void onFinishedProject() {
+        if (!options.isAsyncNotifiers()) {
+            for (ChangesNotifier notifier : activeNotifiers) {
+                notifier.onFinishedProject();
+            }
+            return;
+        }
+
+        // every notifier drains its own queue so wait for all of them against the common deadline
+        final long deadline = System.currentTimeMillis() + options.getNotifierDrainTimeoutMillis();
+        for (ChangesNotifier notifier : activeNotifiers) {
+            ((AsyncChangesNotifier) notifier).finish();
+        }
+        final NotificationException exception = new NotificationException("Some notifications have not been delivered");
+        for (ChangesNotifier notifier : activeNotifiers) {
+            final AsyncChangesNotifier asyncNotifier = (AsyncChangesNotifier) notifier;
+            if (!asyncNotifier.awaitFinished(deadline)) {
+                exception.addSuppressed(new TimeoutException("Notifier "
+                        + asyncNotifier.getNotifier().getClass().getName()
+                        + " has not finished in " + options.getNotifierDrainTimeoutMillis() + " ms"));
+            }
+            if (asyncNotifier.getDroppedCount() > 0) {
+                exception.addSuppressed(new IllegalStateException("Notifier "
+                        + asyncNotifier.getNotifier().getClass().getName() + " has dropped "
+                        + asyncNotifier.getDroppedCount() + " notifications since its queue of "
+                        + asyncNotifier.getQueueCapacity() + " was full"));
+            }
+            for (Throwable failure : asyncNotifier.getFailures()) {
+                exception.addSuppressed(failure);
+            }
+        }
+        if (exception.getSuppressed().length > 0) {
+            throw exception;
+        }
+    }
+
+    /**
+     * Every revision gets its own resolver over observer's source code of that revision.
+     * Resolvers share constants of classes which are the same in several revisions.
+     */
+    private static Function<Revision, WatcherResolver> createRevisionResolvers(
+            final ProjectObserver observer,
+            final CachingWatcherResolver watcherResolver) {
+        final Map<String, WatcherResolver> resolvers = new ConcurrentHashMap<>();
+        return revision -> {
+            if (revision.getVersion() == null) {
+                return watcherResolver;
+            }
+            return resolvers.computeIfAbsent(revision.getVersion(),
+                    version -> watcherResolver.withProvider(observer.getSourceCodeProvider(revision)));
+        };
+    }
+
+    private ParseCache createParseCache(final ProjectObserver observer) throws IOException {
+        final List<ParseCacheStorage> storages = new ArrayList<>();
+        if (options.getParseCacheDirectory() != null) {
+            storages.add(new DirectoryCacheStorage(options.getParseCacheDirectory(), options.getParseCacheMaxSize()));
+        }
+        final ParseCacheStorage observerStorage = observer.getParseCacheStorage();
+        if (observerStorage != null) {
+            storages.add(observerStorage);
+        }
+        return storages.isEmpty() ? null : new ParseCache(storages.toArray(new ParseCacheStorage[storages.size()]));
+    }
+
+    private List<ChangesNotifier> createActiveNotifiers() {
+        if (!options.isAsyncNotifiers()) {
+            return new ArrayList<>(notifiers);
+        }
+        final List<ChangesNotifier> result = new ArrayList<>(notifiers.size());
         for (ChangesNotifier notifier : notifiers) {
-            notifier.onFinishedProject();
+            result.add(new AsyncChangesNotifier(notifier, options.getNotifierQueueCapacity(),
+                    options.getNotifierDrainTimeoutMillis(), TimeUnit.MILLISECONDS));
+        }
+        return result;
+    }
+
+    private void abortAsyncNotifiers() {
+        if (!options.isAsyncNotifiers()) {
+            return;
+        }
+        // let notifications of already processed items be delivered as if notifiers were synchronous
+        final long deadline = System.currentTimeMillis() + options.getNotifierDrainTimeoutMillis();
+        for (ChangesNotifier notifier : activeNotifiers) {
+            ((AsyncChangesNotifier) notifier).shutdown();
+        }
+        for (ChangesNotifier notifier : activeNotifiers) {
+            ((AsyncChangesNotifier) notifier).awaitFinished(deadline);
+        }
+    }
+
+    private void notifyItemChanges(final ItemTask task) {
+        switch (task.getKind()) {
+            case CHANGED:
+                notifyChanges(task.getItem(), task.getChanges());
+                break;
+            case ADDED:
+                notifyItemAdded(task.getItem(), task.getChanges());
+                break;
+            case DELETED:
+                notifyItemDeleted(task.getItem(), task.getChanges());
+                break;
+            case NONE:
+            default:
+                break;
         }
     }
 
@@ -65,7 +226,7 @@ public class Tellon {
         if (changes.isEmpty()) {
             return;
         }
-        for (ChangesNotifier notifier : notifiers) {
+        for (ChangesNotifier notifier : activeNotifiers) {
             notifier.notifyChanges(item, changes);
         }
     }
@@ -74,7 +235,7 @@ public class Tellon {
         if (changes.isEmpty()) {
             return;
         }
-        for (ChangesNotifier notifier : notifiers) {
+        for (ChangesNotifier notifier : activeNotifiers) {
             notifier.notifyItemAdded(item, changes);
         }
     }
@@ -83,7 +244,7 @@ public class Tellon {
         if (changes.isEmpty()) {
             return;
         }
-        for (ChangesNotifier notifier : notifiers) {
+        for (ChangesNotifier notifier : activeNotifiers) {
             notifier.notifyItemDeleted(item, changes);
         }
     }
@@ -0,0 +1,235 @@
+package com.dpforge.tellon.core.notifier;
+
+import com.dpforge.tellon.core.Changes;
+import com.dpforge.tellon.core.observer.ProjectInfo;
+import com.dpforge.tellon.core.observer.ProjectItem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers notifications to the wrapped notifier on its own thread in the order they have been received.
+ * Callers are never blocked by the wrapped notifier: when its queue already holds the maximum number of item
+ * notifications, the next ones are dropped and counted, so a slow notifier can neither hold the analysis back nor
+ * grow memory without a limit. Start and finish of the project are always queued. {@link #onFinishedProject()}
+ * waits until all queued notifications are delivered.
+ * <p>
+ * Exceptions thrown by the wrapped notifier do not stop the delivery of the next notifications.
+ * They are collected and available through {@link #getFailures()}.
+ */
+public class AsyncChangesNotifier implements ChangesNotifier {
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    private final ChangesNotifier notifier;
+    private final long drainTimeoutMillis;
+    private final int queueCapacity;
+    private final BlockingQueue<Runnable> queue;
+    private final ThreadPoolExecutor executor;
+    private final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+    // item notifications queued but not taken by the notifier thread yet
+    private final AtomicInteger pendingItems = new AtomicInteger();
+    private final AtomicInteger peakQueueSize = new AtomicInteger();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong deliveredCount = new AtomicLong();
+
+    private volatile boolean timedOut;
+
+    public AsyncChangesNotifier(final ChangesNotifier notifier, final long drainTimeout, final TimeUnit unit) {
+        this(notifier, DEFAULT_QUEUE_CAPACITY, drainTimeout, unit);
+    }
+
+    /**
+     * @param queueCapacity maximum number of item notifications waiting for delivery, the ones beyond it are dropped
+     */
+    public AsyncChangesNotifier(final ChangesNotifier notifier,
+                                final int queueCapacity,
+                                final long drainTimeout,
+                                final TimeUnit unit) {
+        if (notifier == null) {
+            throw new NullPointerException("Notifier cannot be null");
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be positive: " + queueCapacity);
+        }
+        this.notifier = notifier;
+        this.drainTimeoutMillis = unit.toMillis(drainTimeout);
+        this.queueCapacity = queueCapacity;
+        // the capacity is enforced by dispatching item notifications, the queue itself never rejects a task
+        this.queue = new LinkedBlockingQueue<>();
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, queue,
+                r -> {
+                    final Thread thread = new Thread(r, "tellon-notifier-" + notifier.getClass().getSimpleName());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public ChangesNotifier getNotifier() {
+        return notifier;
+    }
+
+    @Override
+    public void onStartProject(final ProjectInfo projectInfo) {
+        dispatch(() -> notifier.onStartProject(projectInfo));
+    }
+
+    /**
+     * Equivalent to {@link #finish()} followed by waiting for at most drain timeout
+     */
+    @Override
+    public void onFinishedProject() {
+        finish();
+        awaitFinished(System.currentTimeMillis() + drainTimeoutMillis);
+    }
+
+    @Override
+    public void notifyChanges(final ProjectItem item, final Changes changes) {
+        dispatchItem(() -> notifier.notifyChanges(item, changes));
+    }
+
+    @Override
+    public void notifyItemAdded(final ProjectItem item, final Changes changes) {
+        dispatchItem(() -> notifier.notifyItemAdded(item, changes));
+    }
+
+    @Override
+    public void notifyItemDeleted(final ProjectItem item, final Changes changes) {
+        dispatchItem(() -> notifier.notifyItemDeleted(item, changes));
+    }
+
+    /**
+     * Queues {@link ChangesNotifier#onFinishedProject()} of the wrapped notifier. No more notifications are
+     * accepted after this call.
+     */
+    public void finish() {
+        dispatch(notifier::onFinishedProject);
+        shutdown();
+    }
+
+    /**
+     * Stops accepting notifications. Already queued ones are still delivered.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Waits until all queued notifications are delivered or the deadline is reached. In the latter case
+     * the rest of notifications is dropped.
+     *
+     * @param deadlineMillis deadline in terms of {@link System#currentTimeMillis()}
+     * @return {@code true} if all notifications have been delivered
+     */
+    public boolean awaitFinished(final long deadlineMillis) {
+        try {
+            final long timeout = Math.max(0, deadlineMillis - System.currentTimeMillis());
+            if (executor.awaitTermination(timeout, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        timedOut = true;
+        executor.shutdownNow();
+        return false;
+    }
+
+    public long getDrainTimeoutMillis() {
+        return drainTimeoutMillis;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Number of notifications currently waiting for delivery
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * Maximum number of notifications that have been waiting for delivery at once
+     */
+    public int getPeakQueueSize() {
+        return peakQueueSize.get();
+    }
+
+    /**
+     * Number of item notifications dropped because the queue was full
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Number of notifications passed to the wrapped notifier, including failed ones
+     */
+    public long getDeliveredCount() {
+        return deliveredCount.get();
+    }
+
+    /**
+     * Whether the last wait for the delivery has been stopped because of timeout
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    public List<Throwable> getFailures() {
+        synchronized (failures) {
+            return new ArrayList<>(failures);
+        }
+    }
+
+    /**
+     * Queues the item notification unless the queue is full, in which case it is dropped
+     */
+    private void dispatchItem(final Runnable notification) {
+        if (executor.isShutdown()) {
+            throw new IllegalStateException("Notifier has already finished");
+        }
+        int pending;
+        do {
+            pending = pendingItems.get();
+            if (pending >= queueCapacity) {
+                droppedCount.incrementAndGet();
+                return;
+            }
+        } while (!pendingItems.compareAndSet(pending, pending + 1));
+        dispatch(() -> {
+            pendingItems.decrementAndGet();
+            notification.run();
+        });
+    }
+
+    private void dispatch(final Runnable notification) {
+        try {
+            executor.execute(() -> {
+                try {
+                    notification.run();
+                } catch (Throwable t) {
+                    failures.add(t);
+                } finally {
+                    deliveredCount.incrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            throw new IllegalStateException("Notifier has already finished", e);
+        }
+        final int queueSize = queue.size();
+        int peak;
+        do {
+            peak = peakQueueSize.get();
+        } while (queueSize > peak && !peakQueueSize.compareAndSet(peak, queueSize));
+    }
+}
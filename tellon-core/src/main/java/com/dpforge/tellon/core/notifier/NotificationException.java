@@ -0,0 +1,10 @@
+package com.dpforge.tellon.core.notifier;
+
+/**
+ * Thrown when some notifications have not been delivered. Exceptions of notifiers are attached as suppressed ones.
+ */
+public class NotificationException extends RuntimeException {
+    public NotificationException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,47 @@
+package com.dpforge.tellon.core.observer;
+
+/**
+ * Range of lines replaced between previous and actual revisions of project item (single hunk of the diff).
+ * Lines are zero-based, start is inclusive and end is exclusive. Empty previous range means lines were inserted
+ * before the previous start line, empty actual range means lines were deleted.
+ */
+public class LineChange {
+    private final int previousStart;
+    private final int previousEnd;
+    private final int actualStart;
+    private final int actualEnd;
+
+    public LineChange(int previousStart, int previousEnd, int actualStart, int actualEnd) {
+        if (previousStart < 0 || previousEnd < previousStart) {
+            throw new IllegalArgumentException("Invalid previous range: " + previousStart + " - " + previousEnd);
+        }
+        if (actualStart < 0 || actualEnd < actualStart) {
+            throw new IllegalArgumentException("Invalid actual range: " + actualStart + " - " + actualEnd);
+        }
+        this.previousStart = previousStart;
+        this.previousEnd = previousEnd;
+        this.actualStart = actualStart;
+        this.actualEnd = actualEnd;
+    }
+
+    public int getPreviousStart() {
+        return previousStart;
+    }
+
+    public int getPreviousEnd() {
+        return previousEnd;
+    }
+
+    public int getActualStart() {
+        return actualStart;
+    }
+
+    public int getActualEnd() {
+        return actualEnd;
+    }
+
+    @Override
+    public String toString() {
+        return "{previous=" + previousStart + "-" + previousEnd + ", actual=" + actualStart + "-" + actualEnd + "}";
+    }
+}
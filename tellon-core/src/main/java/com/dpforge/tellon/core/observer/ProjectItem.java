@@ -3,6 +3,7 @@ package com.dpforge.tellon.core.observer;
 import com.dpforge.tellon.core.parser.SourceCode;
 
 import java.io.IOException;
+import java.util.List;
 
 public interface ProjectItem {
     String getDescription();
@@ -11,11 +12,42 @@ public interface ProjectItem {
 
     SourceCode getActual() throws IOException;
 
+    /**
+     * Identifier of actual source code content (e.g. git blob id) or {@code null} if it is unknown.
+     * Equal identifiers must always mean equal content since they are used as keys of parse cache.
+     */
+    default String getActualContentId() throws IOException {
+        return null;
+    }
+
     Revision getActualRevision() throws IOException;
 
     boolean hasPrevious();
 
     SourceCode getPrevious() throws IOException;
 
+    /**
+     * Same as {@link #getActualContentId()} but for previous source code
+     */
+    default String getPreviousContentId() throws IOException {
+        return null;
+    }
+
     Revision getPreviousRevision() throws IOException;
+
+    /**
+     * Hunks of the diff between previous and actual revisions or {@code null} if they are unknown.
+     * When hunks are known Tellon skips parsing of actual revision if none of them touches annotated blocks.
+     */
+    default List<LineChange> getChangedLines() throws IOException {
+        return null;
+    }
+
+    /**
+     * Same as {@link #getChangedLines()} but the diff may be computed from the source code already loaded for both
+     * revisions. It is requested only when the actual source code may contain annotated blocks.
+     */
+    default List<LineChange> getChangedLines(SourceCode previous, SourceCode actual) throws IOException {
+        return getChangedLines();
+    }
 }
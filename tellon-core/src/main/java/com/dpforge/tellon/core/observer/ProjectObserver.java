@@ -1,8 +1,13 @@
 package com.dpforge.tellon.core.observer;
 
+import com.dpforge.tellon.core.parser.ParseCacheStorage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 
-public interface ProjectObserver extends SourceCodeProvider {
+public interface ProjectObserver extends SourceCodeProvider, Closeable {
 
     void init(Map<String, String> args) throws ProjectObserverException;
 
@@ -13,4 +18,38 @@ public interface ProjectObserver extends SourceCodeProvider {
     ProjectInfo getProjectInfo();
 
     ProjectWalker createWalker();
+
+    /**
+     * Provider of source code as of the given revision of project items. Watcher constants referenced from
+     * the source code are resolved through it, by default the observer itself is used for every revision.
+     */
+    default SourceCodeProvider getSourceCodeProvider(Revision revision) {
+        return this;
+    }
+
+    /**
+     * Storage of parse cache provided by the observer itself (e.g. kept in the repository) or {@code null}.
+     * It is used only for project items which provide content ids.
+     */
+    default ParseCacheStorage getParseCacheStorage() {
+        return null;
+    }
+
+    /**
+     * Splits the changes the observer is initialized with into consecutive parts of at most the given number of
+     * revisions, e.g. to process a long history in parallel. Every part is described by arguments which override
+     * the initial ones when another observer of the same class is initialized for the part. Returns {@code null}
+     * if the observer cannot split its changes.
+     */
+    default List<Map<String, String>> splitRange(int maxRevisions) throws IOException {
+        return null;
+    }
+
+    /**
+     * Releases resources held since {@link #init(Map)}, e.g. an open repository. It is called when walkers, items
+     * and source code of the observer are not used anymore.
+     */
+    @Override
+    default void close() throws IOException {
+    }
 }
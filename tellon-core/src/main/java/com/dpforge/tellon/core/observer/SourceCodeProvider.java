@@ -6,4 +6,12 @@ import java.io.IOException;
 
 public interface SourceCodeProvider {
     SourceCode getSourceCode(String qualifiedName) throws IOException;
+
+    /**
+     * Identifier of the class source code content (e.g. git blob id) or {@code null} if it is unknown.
+     * Classes with equal identifiers must have equal source code.
+     */
+    default String getContentId(String qualifiedName) throws IOException {
+        return null;
+    }
 }
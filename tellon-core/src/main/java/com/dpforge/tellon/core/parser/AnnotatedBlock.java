@@ -2,8 +2,13 @@ package com.dpforge.tellon.core.parser;
 
 import com.github.javaparser.Position;
 import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.body.*;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.nodeTypes.NodeWithSimpleName;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class AnnotatedBlock {
@@ -12,6 +17,8 @@ public class AnnotatedBlock {
     private final BlockSourceCode sourceCode;
     private final BlockType type;
     private final String name;
+    private final long identityKey;
+    private final List<Integer> typePathLines;
     private final List<String> watchers;
 
     private AnnotatedBlock(Builder builder) {
@@ -20,6 +27,8 @@ public class AnnotatedBlock {
         this.sourceCode = builder.sourceCode;
         this.type = builder.type;
         this.name = builder.name;
+        this.identityKey = builder.identityKey;
+        this.typePathLines = builder.typePathLines;
         this.watchers = builder.watchers;
     }
 
@@ -35,6 +44,14 @@ public class AnnotatedBlock {
         return sourceCode;
     }
 
+    /**
+     * Fingerprint of source code of the block in the comparison mode it was parsed with,
+     * see {@link BlockSourceCode#getFingerprint()}
+     */
+    public BlockFingerprint getFingerprint() {
+        return sourceCode.getFingerprint();
+    }
+
     public BlockType getType() {
         return type;
     }
@@ -43,6 +60,22 @@ public class AnnotatedBlock {
         return name;
     }
 
+    /**
+     * Hash of enclosing types, type, name and parameter types of the block which identifies it within its file
+     * across revisions, see {@link BlockIdentity}
+     */
+    public long getIdentityKey() {
+        return identityKey;
+    }
+
+    /**
+     * Zero-based lines of names of enclosing types from the outermost one. Renaming any of them changes the identity
+     * of the block.
+     */
+    public List<Integer> getTypePathLines() {
+        return typePathLines;
+    }
+
     public List<String> getWatchers() {
         return watchers;
     }
@@ -53,42 +86,53 @@ public class AnnotatedBlock {
     }
 
     static AnnotatedBlock fromNode(final SourceCode sourceCode,
+                                   final ComparisonMode comparisonMode,
                                    final ClassOrInterfaceDeclaration node,
                                    final List<String> watchers) {
-        return createBuilder(sourceCode, node, BlockType.TYPE)
+        return createBuilder(sourceCode, comparisonMode, node, BlockType.TYPE)
                 .name(node.getNameAsString())
+                .identityKey(BlockIdentity.key(getTypePath(node), BlockType.TYPE, node.getNameAsString(), null))
                 .watchers(watchers)
                 .build();
     }
 
     static AnnotatedBlock fromNode(final SourceCode sourceCode,
+                                   final ComparisonMode comparisonMode,
                                    final AnnotationDeclaration node,
                                    final List<String> watchers) {
-        return createBuilder(sourceCode, node, BlockType.ANNOTATION)
+        return createBuilder(sourceCode, comparisonMode, node, BlockType.ANNOTATION)
                 .name(node.getNameAsString())
+                .identityKey(BlockIdentity.key(getTypePath(node), BlockType.ANNOTATION, node.getNameAsString(), null))
                 .watchers(watchers)
                 .build();
     }
 
     static AnnotatedBlock fromNode(final SourceCode sourceCode,
+                                   final ComparisonMode comparisonMode,
                                    final ConstructorDeclaration node,
                                    final List<String> watchers) {
-        return createBuilder(sourceCode, node, BlockType.CONSTRUCTOR)
+        return createBuilder(sourceCode, comparisonMode, node, BlockType.CONSTRUCTOR)
                 .name(node.getNameAsString())
+                .identityKey(BlockIdentity.key(getTypePath(node), BlockType.CONSTRUCTOR, node.getNameAsString(),
+                        getParameterTypes(node.getParameters())))
                 .watchers(watchers)
                 .build();
     }
 
     static AnnotatedBlock fromNode(final SourceCode sourceCode,
+                                   final ComparisonMode comparisonMode,
                                    final MethodDeclaration node,
                                    final List<String> watchers) {
-        return createBuilder(sourceCode, node, BlockType.METHOD)
+        return createBuilder(sourceCode, comparisonMode, node, BlockType.METHOD)
                 .name(node.getNameAsString())
+                .identityKey(BlockIdentity.key(getTypePath(node), BlockType.METHOD, node.getNameAsString(),
+                        getParameterTypes(node.getParameters())))
                 .watchers(watchers)
                 .build();
     }
 
     static AnnotatedBlock fromNode(final SourceCode sourceCode,
+                                   final ComparisonMode comparisonMode,
                                    final FieldDeclaration node,
                                    final List<String> watchers) {
         StringBuilder builder = new StringBuilder();
@@ -98,29 +142,68 @@ public class AnnotatedBlock {
             }
             builder.append(var.getNameAsString());
         }
-        return createBuilder(sourceCode, node, BlockType.FIELD)
+        return createBuilder(sourceCode, comparisonMode, node, BlockType.FIELD)
                 .name(builder.toString())
+                .identityKey(BlockIdentity.key(getTypePath(node), BlockType.FIELD, builder.toString(), null))
                 .watchers(watchers)
                 .build();
     }
 
     static AnnotatedBlock fromNode(final SourceCode sourceCode,
+                                   final ComparisonMode comparisonMode,
                                    final AnnotationMemberDeclaration node,
                                    final List<String> watchers) {
-        return createBuilder(sourceCode, node, BlockType.ANNOTATION_MEMBER)
+        return createBuilder(sourceCode, comparisonMode, node, BlockType.ANNOTATION_MEMBER)
                 .name(node.getNameAsString())
+                .identityKey(BlockIdentity.key(getTypePath(node), BlockType.ANNOTATION_MEMBER, node.getNameAsString(),
+                        null))
                 .watchers(watchers)
                 .build();
     }
 
-    private static Builder createBuilder(final SourceCode sourceCode, final Node node, final BlockType type) {
+    /**
+     * @param fingerprint fingerprint of the declaration computed by the scanner or {@code null} to compute it here
+     */
+    static AnnotatedBlock fromDeclaration(final SourceCode sourceCode,
+                                          final ComparisonMode comparisonMode,
+                                          final DeclarationScanner.Declaration declaration,
+                                          final BlockFingerprint fingerprint,
+                                          final List<String> watchers) {
+        return createBuilder(sourceCode, comparisonMode, declaration.getType(), declaration.getStartPosition(),
+                declaration.getEndPosition(), fingerprint)
+                .name(declaration.getName())
+                .identityKey(BlockIdentity.key(declaration.getTypePath(), declaration.getType(),
+                        declaration.getName(), declaration.getParameterTypes()))
+                .typePathLines(declaration.getTypePathLines())
+                .watchers(watchers)
+                .build();
+    }
+
+    static AnnotatedBlock fromPositions(final SourceCode sourceCode,
+                                        final ComparisonMode comparisonMode,
+                                        final BlockType type,
+                                        final String name,
+                                        final long identityKey,
+                                        final List<Integer> typePathLines,
+                                        final BlockPosition startPosition,
+                                        final BlockPosition endPosition,
+                                        final List<String> watchers) {
+        return createBuilder(sourceCode, comparisonMode, type, startPosition, endPosition)
+                .name(name)
+                .identityKey(identityKey)
+                .typePathLines(typePathLines)
+                .watchers(watchers)
+                .build();
+    }
+
+    private static Builder createBuilder(final SourceCode sourceCode,
+                                         final ComparisonMode comparisonMode,
+                                         final Node node,
+                                         final BlockType type) {
         if (!node.getBegin().isPresent() || !node.getEnd().isPresent()) {
             throw new IllegalStateException("Source code block position is unknown");
         }
 
-        final Builder builder = new Builder()
-                .type(type);
-
         final BlockPosition startPosition;
         if (node.hasJavaDocComment()) {
             if (!node.getComment().getBegin().isPresent()) {
@@ -130,18 +213,115 @@ public class AnnotatedBlock {
         } else {
             startPosition = convertPosition(node.getBegin().get());
         }
-        builder.startPosition(startPosition);
 
-        final BlockPosition endPosition = convertPosition(node.getEnd().get());
-        builder.endPosition(endPosition);
+        return createBuilder(sourceCode, comparisonMode, type, startPosition, convertPosition(node.getEnd().get()))
+                .typePathLines(getTypePathLines(node));
+    }
 
-        final List<String> rawSourceCode = sourceCode.getContent().getExactRange(startPosition, endPosition);
-        final List<String> sourceCodeFragment = sourceCode.getContent().getLineRange(startPosition, endPosition);
-        builder.sourceCode(new BlockSourceCode(rawSourceCode, sourceCodeFragment));
+    private static Builder createBuilder(final SourceCode sourceCode,
+                                         final ComparisonMode comparisonMode,
+                                         final BlockType type,
+                                         final BlockPosition startPosition,
+                                         final BlockPosition endPosition) {
+        return createBuilder(sourceCode, comparisonMode, type, startPosition, endPosition, null);
+    }
+
+    private static Builder createBuilder(final SourceCode sourceCode,
+                                         final ComparisonMode comparisonMode,
+                                         final BlockType type,
+                                         final BlockPosition startPosition,
+                                         final BlockPosition endPosition,
+                                         final BlockFingerprint fingerprint) {
+        final Builder builder = new Builder()
+                .type(type)
+                .startPosition(startPosition)
+                .endPosition(endPosition);
+
+        builder.sourceCode(BlockSourceCode.create(sourceCode.getContent(), startPosition, endPosition, comparisonMode,
+                fingerprint));
 
         return builder;
     }
 
+    /**
+     * Names of types enclosing the node from the outermost one
+     */
+    private static List<String> getTypePath(final Node node) {
+        final List<Node> types = getEnclosingTypes(node);
+        final List<String> path = new ArrayList<>(types.size());
+        for (Node type : types) {
+            if (type instanceof ObjectCreationExpr) {
+                path.add("new " + ((ObjectCreationExpr) type).getType().getNameAsString());
+            } else {
+                path.add(((NodeWithSimpleName<?>) type).getNameAsString());
+            }
+        }
+        return path;
+    }
+
+    private static List<Integer> getTypePathLines(final Node node) {
+        final List<Node> types = getEnclosingTypes(node);
+        final List<Integer> lines = new ArrayList<>(types.size());
+        for (Node type : types) {
+            final Node name = type instanceof ObjectCreationExpr
+                    ? ((ObjectCreationExpr) type).getType().getName()
+                    : ((NodeWithSimpleName<?>) type).getName();
+            if (!name.getBegin().isPresent()) {
+                throw new IllegalStateException("Type name position is unknown");
+            }
+            lines.add(convertPosition(name.getBegin().get()).getLine());
+        }
+        return lines;
+    }
+
+    /**
+     * Type declarations, anonymous class creations and enum constants with bodies which enclose the node,
+     * from the outermost one
+     */
+    private static List<Node> getEnclosingTypes(final Node node) {
+        final List<Node> types = new ArrayList<>();
+        Node child = node;
+        Node parent = node.getParentNode().orElse(null);
+        while (parent != null) {
+            if (parent instanceof TypeDeclaration) {
+                types.add(parent);
+            } else if (parent instanceof ObjectCreationExpr) {
+                final ObjectCreationExpr creation = (ObjectCreationExpr) parent;
+                if (creation.getAnonymousClassBody().isPresent()
+                        && containsNode(creation.getAnonymousClassBody().get(), child)) {
+                    types.add(creation);
+                }
+            } else if (parent instanceof EnumConstantDeclaration) {
+                final EnumConstantDeclaration constant = (EnumConstantDeclaration) parent;
+                if (containsNode(constant.getClassBody(), child)) {
+                    types.add(constant);
+                }
+            }
+            child = parent;
+            parent = parent.getParentNode().orElse(null);
+        }
+        Collections.reverse(types);
+        return types;
+    }
+
+    private static boolean containsNode(final NodeList<? extends Node> nodes, final Node node) {
+        for (Node item : nodes) {
+            if (item == node) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<String> getParameterTypes(final NodeList<Parameter> parameters) {
+        final List<String> types = new ArrayList<>(parameters.size());
+        for (Parameter parameter : parameters) {
+            final String type = BlockIdentity.simplifyType(parameter.getType().toString());
+            types.add(parameter.isVarArgs() ? type + "[]" : type);
+        }
+        return types;
+    }
+
     private static BlockPosition convertPosition(final Position position) {
         return BlockPosition.createHumanBased(position.line, position.column);
     }
@@ -150,6 +330,8 @@ public class AnnotatedBlock {
         private BlockType type;
         private BlockSourceCode sourceCode;
         private String name;
+        private long identityKey;
+        private List<Integer> typePathLines;
         private BlockPosition startPosition;
         private BlockPosition endPosition;
         private List<String> watchers;
@@ -169,6 +351,16 @@ public class AnnotatedBlock {
             return this;
         }
 
+        Builder identityKey(long identityKey) {
+            this.identityKey = identityKey;
+            return this;
+        }
+
+        Builder typePathLines(List<Integer> typePathLines) {
+            this.typePathLines = typePathLines;
+            return this;
+        }
+
         Builder startPosition(BlockPosition position) {
             this.startPosition = position;
             return this;
@@ -190,6 +382,7 @@ public class AnnotatedBlock {
                     || name == null
                     || startPosition == null
                     || endPosition == null
+                    || typePathLines == null
                     || watchers == null) {
                 throw new IllegalArgumentException("Some fields of annotated block are null");
             }
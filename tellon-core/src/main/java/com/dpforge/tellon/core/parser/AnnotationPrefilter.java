@@ -0,0 +1,114 @@
+package com.dpforge.tellon.core.parser;
+
+import com.dpforge.tellon.annotations.NotifyChanges;
+
+/**
+ * Fast check whether the source code could contain {@link NotifyChanges} annotation at all.
+ * It looks for '@' followed by simple or qualified annotation name skipping comments, string and char literals.
+ * The check never gives false negatives for compilable code so the full parsing may be skipped when it fails.
+ */
+final class AnnotationPrefilter {
+    private static final String SIMPLE_NAME = NotifyChanges.class.getSimpleName();
+    private static final String QUALIFIED_NAME = NotifyChanges.class.getName();
+
+    private AnnotationPrefilter() {
+    }
+
+    static boolean mayContainAnnotation(final CharSequence text) {
+        final int length = text.length();
+        int i = 0;
+        while (i < length) {
+            final char c = text.charAt(i);
+            if (c == '/' && i + 1 < length && text.charAt(i + 1) == '/') {
+                i = skipLineComment(text, i + 2);
+            } else if (c == '/' && i + 1 < length && text.charAt(i + 1) == '*') {
+                i = skipBlockComment(text, i + 2);
+            } else if (c == '"' || c == '\'') {
+                i = skipLiteral(text, i + 1, c);
+            } else if (c == '@') {
+                if (matchesAnnotationName(text, i + 1)) {
+                    return true;
+                }
+                i++;
+            } else {
+                i++;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matchesAnnotationName(final CharSequence text, final int start) {
+        final StringBuilder name = new StringBuilder(QUALIFIED_NAME.length());
+        int i = skipSpaceAndComments(text, start);
+        while (i < text.length() && Character.isJavaIdentifierStart(text.charAt(i))) {
+            final int identifierStart = i;
+            i++;
+            while (i < text.length() && Character.isJavaIdentifierPart(text.charAt(i))) {
+                i++;
+            }
+            name.append(text, identifierStart, i);
+            if (name.length() > QUALIFIED_NAME.length()) {
+                return false;
+            }
+
+            i = skipSpaceAndComments(text, i);
+            if (i >= text.length() || text.charAt(i) != '.') {
+                break;
+            }
+            name.append('.');
+            i = skipSpaceAndComments(text, i + 1);
+        }
+        return SIMPLE_NAME.contentEquals(name) || QUALIFIED_NAME.contentEquals(name);
+    }
+
+    private static int skipSpaceAndComments(final CharSequence text, int i) {
+        final int length = text.length();
+        while (i < length) {
+            final char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '/' && i + 1 < length && text.charAt(i + 1) == '/') {
+                i = skipLineComment(text, i + 2);
+            } else if (c == '/' && i + 1 < length && text.charAt(i + 1) == '*') {
+                i = skipBlockComment(text, i + 2);
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private static int skipLineComment(final CharSequence text, int i) {
+        while (i < text.length() && text.charAt(i) != '\n' && text.charAt(i) != '\r') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipBlockComment(final CharSequence text, int i) {
+        while (i + 1 < text.length()) {
+            if (text.charAt(i) == '*' && text.charAt(i + 1) == '/') {
+                return i + 2;
+            }
+            i++;
+        }
+        return text.length();
+    }
+
+    private static int skipLiteral(final CharSequence text, int i, final char quote) {
+        while (i < text.length()) {
+            final char c = text.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == quote) {
+                return i + 1;
+            } else if (c == '\n' || c == '\r') {
+                // unterminated literal, let the parser complain about it
+                return i;
+            } else {
+                i++;
+            }
+        }
+        return text.length();
+    }
+}
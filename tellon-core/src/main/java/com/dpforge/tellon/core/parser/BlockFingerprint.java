@@ -0,0 +1,160 @@
+package com.dpforge.tellon.core.parser;
+
+import java.util.List;
+
+/**
+ * 128-bit non-cryptographic hash of block source code. Blocks with different fingerprints are surely different,
+ * while equal fingerprints mean equal source code with negligible probability of collision.
+ */
+public final class BlockFingerprint {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final long high;
+    private final long low;
+
+    public BlockFingerprint(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    public long getLow() {
+        return low;
+    }
+
+    /**
+     * Fingerprint of lines joined with line feeds and their count, computed in one pass over their characters
+     */
+    public static BlockFingerprint of(List<String> lines) {
+        long first = FNV_OFFSET;
+        long second = GOLDEN_GAMMA;
+        long length = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            if (i > 0) {
+                first = (first ^ '\n') * FNV_PRIME;
+                second = Long.rotateLeft((second ^ '\n') * GOLDEN_GAMMA, 31);
+                length++;
+            }
+            final String line = lines.get(i);
+            for (int j = 0; j < line.length(); j++) {
+                final char c = line.charAt(j);
+                first = (first ^ c) * FNV_PRIME;
+                second = Long.rotateLeft((second ^ c) * GOLDEN_GAMMA, 31);
+            }
+            length += line.length();
+        }
+        return new BlockFingerprint(mix(first ^ length), mix(second + lines.size() * GOLDEN_GAMMA));
+    }
+
+    /**
+     * Fingerprint of lines given as text with line feeds, equal to the one of the list of the same lines
+     */
+    static BlockFingerprint of(CharSequence text) {
+        long first = FNV_OFFSET;
+        long second = GOLDEN_GAMMA;
+        long lineCount = 1;
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            first = (first ^ c) * FNV_PRIME;
+            second = Long.rotateLeft((second ^ c) * GOLDEN_GAMMA, 31);
+            if (c == '\n') {
+                lineCount++;
+            }
+        }
+        return new BlockFingerprint(mix(first ^ text.length()), mix(second + lineCount * GOLDEN_GAMMA));
+    }
+
+    /**
+     * Fingerprint of normalized tokens of the source code, equal to the one of the list of the tokens.
+     * Tokens are hashed as the normalizer finds them, so neither the list nor the tokens are created.
+     */
+    static BlockFingerprint ofTokens(CharSequence source, ComparisonMode mode) {
+        final TokenHasher hasher = new TokenHasher();
+        TokenNormalizer.normalize(source, mode, hasher);
+        return hasher.build();
+    }
+
+    /**
+     * Finalizer of MurmurHash3 which spreads every input bit over the whole value
+     */
+    static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final BlockFingerprint that = (BlockFingerprint) o;
+        return high == that.high && low == that.low;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (low ^ (low >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x%016x", high, low);
+    }
+
+    /**
+     * Fingerprint of normalized tokens computed as they are passed to it
+     */
+    static final class TokenHasher implements TokenNormalizer.TokenSink {
+        private long first = FNV_OFFSET;
+        private long second = GOLDEN_GAMMA;
+        private long length;
+        private int count;
+        private boolean inToken;
+
+        @Override
+        public void append(CharSequence text, int start, int end) {
+            startToken();
+            for (int i = start; i < end; i++) {
+                final char c = text.charAt(i);
+                first = (first ^ c) * FNV_PRIME;
+                second = Long.rotateLeft((second ^ c) * GOLDEN_GAMMA, 31);
+            }
+            length += end - start;
+        }
+
+        @Override
+        public void endToken() {
+            startToken();
+            inToken = false;
+            count++;
+        }
+
+        private void startToken() {
+            if (!inToken) {
+                // tokens are separated as lines
+                if (count > 0) {
+                    first = (first ^ '\n') * FNV_PRIME;
+                    second = Long.rotateLeft((second ^ '\n') * GOLDEN_GAMMA, 31);
+                    length++;
+                }
+                inToken = true;
+            }
+        }
+
+        BlockFingerprint build() {
+            return new BlockFingerprint(mix(first ^ length), mix(second + count * GOLDEN_GAMMA));
+        }
+    }
+}
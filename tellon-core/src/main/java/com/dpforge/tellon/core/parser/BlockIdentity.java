@@ -0,0 +1,121 @@
+package com.dpforge.tellon.core.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Identity of annotated block within its source file: path of enclosing types, type and name of the block
+ * and, for methods and constructors, simple names of parameter types. Identity is hashed into a 64-bit key.
+ * <p>
+ * Anonymous classes appear in the path as {@code new Type} and bodies of enum constants as constant names.
+ * Type arguments, annotations and qualifiers of parameter types are ignored, varargs are the same as arrays.
+ */
+final class BlockIdentity {
+    private BlockIdentity() {
+    }
+
+    /**
+     * @param parameters types of parameters or {@code null} if the block has no parameter list
+     */
+    static long key(List<String> typePath, BlockType type, String name, List<String> parameters) {
+        final List<String> parts = new ArrayList<>(typePath.size() + 4);
+        parts.addAll(typePath);
+        parts.add(type.name());
+        parts.add(name);
+        if (parameters != null) {
+            parts.add(String.join(",", parameters));
+        }
+        return BlockFingerprint.of(parts).getLow();
+    }
+
+    /**
+     * Turns type as written in source code into simple name of its raw type with array dimensions,
+     * e.g. {@code java.util.Map.Entry<K, V> @A []} into {@code Entry[]}
+     */
+    static String simplifyType(CharSequence type) {
+        final StringBuilder result = new StringBuilder();
+        int nameStart = 0;
+        int i = 0;
+        while (i < type.length()) {
+            final char c = type.charAt(i);
+            if (c == '@') {
+                i = skipAnnotation(type, i + 1);
+            } else if (c == '<') {
+                i = skipBalanced(type, i, '<', '>');
+            } else if (c == '.' && startsWith(type, i, "...")) {
+                result.append("[]");
+                i += 3;
+            } else if (c == '.') {
+                result.setLength(nameStart);
+                i++;
+            } else if (c == '[' || c == ']') {
+                result.append(c);
+                nameStart = result.length();
+                i++;
+            } else {
+                if (!Character.isWhitespace(c)) {
+                    result.append(c);
+                }
+                i++;
+            }
+        }
+        return result.toString();
+    }
+
+    private static int skipAnnotation(CharSequence text, int index) {
+        while (index < text.length()) {
+            final char c = text.charAt(index);
+            if (!Character.isJavaIdentifierPart(c) && c != '.' && !Character.isWhitespace(c)) {
+                break;
+            }
+            if (Character.isWhitespace(c) && !continuesName(text, index)) {
+                return index;
+            }
+            index++;
+        }
+        return index < text.length() && text.charAt(index) == '('
+                ? skipBalanced(text, index, '(', ')')
+                : index;
+    }
+
+    /**
+     * Whether whitespace at the index is followed or preceded by a dot of qualified name
+     */
+    private static boolean continuesName(CharSequence text, int index) {
+        int before = index;
+        while (before > 0 && Character.isWhitespace(text.charAt(before - 1))) {
+            before--;
+        }
+        int after = index;
+        while (after < text.length() && Character.isWhitespace(text.charAt(after))) {
+            after++;
+        }
+        return (before > 0 && text.charAt(before - 1) == '.')
+                || (after < text.length() && (text.charAt(after) == '.' || text.charAt(after) == '('));
+    }
+
+    private static int skipBalanced(CharSequence text, int index, char open, char close) {
+        int depth = 0;
+        do {
+            final char c = text.charAt(index++);
+            if (c == open) {
+                depth++;
+            } else if (c == close) {
+                depth--;
+            }
+        } while (depth > 0 && index < text.length());
+        return index;
+    }
+
+    private static boolean startsWith(CharSequence text, int index, String prefix) {
+        if (index + prefix.length() > text.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (text.charAt(index + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
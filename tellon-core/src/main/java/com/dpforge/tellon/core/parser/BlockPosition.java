@@ -48,7 +48,6 @@ public class BlockPosition {
         return "{line=" + line + ", column=" + column + "}";
     }
 
-    @SuppressWarnings("unused")
     public static BlockPosition createZeroBased(int line, int column) {
         return new BlockPosition(line, column);
     }
@@ -0,0 +1,95 @@
+package com.dpforge.tellon.core.parser;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compact summary of block tokens used to find the same or almost the same block in another place.
+ * Tokens are normalized as in {@link ComparisonMode#IGNORE_WHITESPACE} (or the mode the block was parsed with
+ * if it is not exact) and names of the block are masked, so renamed blocks have equal sketches.
+ * <p>
+ * Similarity of two sketches estimates Jaccard similarity of their token trigrams by min-hashing.
+ */
+public final class BlockSketch {
+    public static final int SIZE = 16;
+    private static final String NAME_MASK = "\u0000";
+    private static final int SHINGLE_SIZE = 3;
+
+    private final long bodyHash;
+    private final long[] minHashes;
+
+    private BlockSketch(long bodyHash, long[] minHashes) {
+        this.bodyHash = bodyHash;
+        this.minHashes = minHashes;
+    }
+
+    public static BlockSketch of(AnnotatedBlock block) {
+        final ComparisonMode mode = block.getSourceCode().getComparisonMode();
+        final List<String> tokens = TokenNormalizer.normalize(block.getSourceCode().getRawText(),
+                mode == ComparisonMode.EXACT ? ComparisonMode.IGNORE_WHITESPACE : mode);
+        final Set<String> names = new HashSet<>(Arrays.asList(block.getName().split(", ")));
+        for (int i = 0; i < tokens.size(); i++) {
+            if (names.contains(tokens.get(i))) {
+                tokens.set(i, NAME_MASK);
+            }
+        }
+
+        final long[] tokenHashes = new long[tokens.size()];
+        for (int i = 0; i < tokens.size(); i++) {
+            tokenHashes[i] = BlockFingerprint.mix(tokens.get(i).hashCode());
+        }
+        final long[] minHashes = new long[SIZE];
+        Arrays.fill(minHashes, Long.MAX_VALUE);
+        final int shingleCount = Math.max(1, tokenHashes.length - SHINGLE_SIZE + 1);
+        for (int i = 0; i < shingleCount; i++) {
+            long shingle = 0;
+            for (int j = i; j < Math.min(i + SHINGLE_SIZE, tokenHashes.length); j++) {
+                shingle = Long.rotateLeft(shingle, 21) ^ tokenHashes[j];
+            }
+            for (int k = 0; k < SIZE; k++) {
+                final long hash = BlockFingerprint.mix(shingle + (k + 1) * 0x9e3779b97f4a7c15L);
+                if (hash < minHashes[k]) {
+                    minHashes[k] = hash;
+                }
+            }
+        }
+        return new BlockSketch(BlockFingerprint.of(tokens).getLow(), minHashes);
+    }
+
+    /**
+     * Hash of all normalized tokens with masked names. Equal hashes mean the same code up to names of the block.
+     */
+    public long getBodyHash() {
+        return bodyHash;
+    }
+
+    /**
+     * Hash of the given part of min-hashes. Sketches with similarity {@code s} have equal band hashes
+     * with probability of {@code s} to the power of the band size.
+     */
+    public long getBandHash(int start, int end) {
+        long hash = start;
+        for (int i = start; i < end; i++) {
+            hash = BlockFingerprint.mix(hash ^ minHashes[i]);
+        }
+        return hash;
+    }
+
+    /**
+     * Estimated share of token trigrams which are common for both blocks, from 0 to 1
+     */
+    public double similarity(BlockSketch other) {
+        if (bodyHash == other.bodyHash) {
+            return 1;
+        }
+        int equal = 0;
+        for (int i = 0; i < SIZE; i++) {
+            if (minHashes[i] == other.minHashes[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / SIZE;
+    }
+}
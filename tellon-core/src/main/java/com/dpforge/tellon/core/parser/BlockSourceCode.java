@@ -1,22 +1,131 @@
 package com.dpforge.tellon.core.parser;
 
+import java.nio.CharBuffer;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+/**
+ * Source code of a block. Only the lines of the block are kept, as a single character array, so the block does
+ * not retain the source code of the whole file. Lists of lines are created on first access.
+ */
 public class BlockSourceCode {
-    private final List<String> raw;
-    private final List<String> fragment;
+    // whole lines of the block joined with line feeds
+    private final char[] text;
+    private final int rawStart;
+    private final int rawEnd;
+    private final ComparisonMode comparisonMode;
+    private final BlockFingerprint fingerprint;
 
-    BlockSourceCode(List<String> raw, List<String> fragment) {
-        this.raw = raw;
-        this.fragment = fragment;
+    private volatile List<String> raw;
+    private volatile List<String> fragment;
+
+    private BlockSourceCode(char[] text,
+                            int rawStart,
+                            int rawEnd,
+                            ComparisonMode comparisonMode,
+                            BlockFingerprint fingerprint) {
+        this.text = text;
+        this.rawStart = rawStart;
+        this.rawEnd = rawEnd;
+        this.comparisonMode = comparisonMode;
+        if (fingerprint != null) {
+            this.fingerprint = fingerprint;
+        } else {
+            // normalized tokens are not known, so the block is tokenized on its own
+            this.fingerprint = comparisonMode == ComparisonMode.EXACT
+                    ? BlockFingerprint.of(getRawText())
+                    : BlockFingerprint.ofTokens(getRawText(), comparisonMode);
+        }
+    }
+
+    static BlockSourceCode create(SourceCodeLines lines,
+                                  BlockPosition start,
+                                  BlockPosition end,
+                                  ComparisonMode comparisonMode) {
+        return create(lines, start, end, comparisonMode, null);
+    }
+
+    /**
+     * @param fingerprint fingerprint of the block computed along with parsing or {@code null} to compute it here
+     */
+    static BlockSourceCode create(SourceCodeLines lines,
+                                  BlockPosition start,
+                                  BlockPosition end,
+                                  ComparisonMode comparisonMode,
+                                  BlockFingerprint fingerprint) {
+        final char[] text = lines.copyLines(start, end);
+        int endLineStart = text.length;
+        while (endLineStart > 0 && text[endLineStart - 1] != '\n') {
+            endLineStart--;
+        }
+        return new BlockSourceCode(text, start.getColumn(), endLineStart + end.getColumn() + 1, comparisonMode,
+                fingerprint);
     }
 
+    /**
+     * Lines from the first character of the block to the last one
+     */
     public List<String> asRaw() {
-        return Collections.unmodifiableList(raw);
+        List<String> result = raw;
+        if (result == null) {
+            result = split(rawStart, rawEnd);
+            raw = result;
+        }
+        return result;
     }
 
+    /**
+     * Whole lines the block occupies
+     */
     public List<String> asFragment() {
-        return Collections.unmodifiableList(fragment);
+        List<String> result = fragment;
+        if (result == null) {
+            result = split(0, text.length);
+            fragment = result;
+        }
+        return result;
+    }
+
+    /**
+     * Source code as it is compared: raw lines in {@link ComparisonMode#EXACT} mode, otherwise normalized tokens
+     * which are computed again on every call, e.g. to verify a fingerprint or to show the difference
+     */
+    public List<String> asCompared() {
+        if (comparisonMode == ComparisonMode.EXACT) {
+            return asRaw();
+        }
+        return Collections.unmodifiableList(TokenNormalizer.normalize(getRawText(), comparisonMode));
+    }
+
+    /**
+     * Raw source code with line feeds as a view of the block text
+     */
+    CharSequence getRawText() {
+        return CharBuffer.wrap(text, rawStart, rawEnd - rawStart);
+    }
+
+    public ComparisonMode getComparisonMode() {
+        return comparisonMode;
+    }
+
+    /**
+     * Fingerprint of source code returned by {@link #asCompared()}
+     */
+    public BlockFingerprint getFingerprint() {
+        return fingerprint;
+    }
+
+    private List<String> split(int start, int end) {
+        final List<String> lines = new ArrayList<>();
+        int lineStart = start;
+        for (int i = start; i < end; i++) {
+            if (text[i] == '\n') {
+                lines.add(new String(text, lineStart, i - lineStart));
+                lineStart = i + 1;
+            }
+        }
+        lines.add(new String(text, lineStart, end - lineStart));
+        return Collections.unmodifiableList(lines);
     }
 }
@@ -0,0 +1,123 @@
+package com.dpforge.tellon.core.parser;
+
+import com.dpforge.tellon.annotations.NotifyChanges;
+import com.dpforge.tellon.core.observer.LineChange;
+
+import java.util.List;
+
+/**
+ * Decides whether hunks of the diff may change annotated blocks found in the previous revision.
+ * The check is conservative: hunk touches block if it replaces any of its lines, inserts lines inside it or right
+ * before it, replaces the line right above it (it may turn into block's javadoc or modifier) or replaces the name of
+ * any type enclosing it, which is a part of block identity. Hunks adding or
+ * removing {@link NotifyChanges} or block comment delimiters and hunks of the package and import declarations
+ * are considered to affect the whole file.
+ */
+final class ChangedLinesFilter {
+    private static final String ANNOTATION_NAME = NotifyChanges.class.getSimpleName();
+
+    private ChangedLinesFilter() {
+    }
+
+    static boolean mayAffectBlocks(final SourceCode previous,
+                                   final ParsedSourceCode parsedPrevious,
+                                   final SourceCode actual,
+                                   final List<LineChange> changes) {
+        final SourceCodeLines previousLines = previous.getContent();
+        final SourceCodeLines actualLines = actual.getContent();
+        final int headerEnd = findHeaderEnd(previousLines);
+        for (LineChange change : changes) {
+            if (change.getPreviousEnd() > previousLines.size() || change.getActualEnd() > actualLines.size()) {
+                // hunks do not match the source code
+                return true;
+            }
+            if (containsCommentDelimiter(previousLines, change.getPreviousStart(), change.getPreviousEnd())
+                    || containsCommentDelimiter(actualLines, change.getActualStart(), change.getActualEnd())
+                    || containsAnnotationName(previousLines, change.getPreviousStart(), change.getPreviousEnd())
+                    || containsAnnotationName(actualLines, change.getActualStart(), change.getActualEnd())) {
+                return true;
+            }
+            if (change.getPreviousStart() < headerEnd) {
+                // imports define which annotation and watcher constants the blocks refer to
+                return true;
+            }
+            for (AnnotatedBlock block : parsedPrevious.getAnnotatedBlocks()) {
+                if (touches(change, block)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean touches(final LineChange change, final AnnotatedBlock block) {
+        for (int line : block.getTypePathLines()) {
+            if (line >= change.getPreviousStart() && line < change.getPreviousEnd()) {
+                return true;
+            }
+        }
+        final int start = block.getStartPosition().getLine();
+        final int end = block.getEndPosition().getLine();
+        if (change.getPreviousStart() == change.getPreviousEnd()) {
+            return change.getPreviousStart() >= start && change.getPreviousStart() <= end;
+        }
+        return change.getPreviousStart() <= end && change.getPreviousEnd() >= start;
+    }
+
+    /**
+     * Line following the package and import declarations and comments around them
+     */
+    private static int findHeaderEnd(final SourceCodeLines lines) {
+        boolean inStatement = false;
+        for (int i = 0; i < lines.size(); i++) {
+            final String line = lines.getLine(i).toString().trim();
+            if (line.indexOf('{') >= 0) {
+                // type declaration starts on the line
+                return i;
+            }
+            if (inStatement || line.startsWith("package") || line.startsWith("import")) {
+                inStatement = !line.endsWith(";");
+            } else if (!line.isEmpty() && !line.startsWith("//") && !line.startsWith("/*") && !line.startsWith("*")) {
+                return i;
+            }
+        }
+        return lines.size();
+    }
+
+    private static boolean containsCommentDelimiter(final SourceCodeLines lines, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            final CharSequence line = lines.getLine(i);
+            if (contains(line, "/*") || contains(line, "*/")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean containsAnnotationName(final SourceCodeLines lines, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            if (contains(lines.getLine(i), ANNOTATION_NAME)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(final CharSequence line, final String part) {
+        for (int i = 0; i + part.length() <= line.length(); i++) {
+            if (regionMatches(line, i, part)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean regionMatches(final CharSequence line, final int offset, final String part) {
+        for (int j = 0; j < part.length(); j++) {
+            if (line.charAt(offset + j) != part.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,26 @@
+package com.dpforge.tellon.core.parser;
+
+/**
+ * Defines which differences in source code of annotated blocks are considered changes
+ */
+public enum ComparisonMode {
+    /**
+     * Any difference in source code of the block including whitespace
+     */
+    EXACT,
+
+    /**
+     * Differences in tokens of the block and in words of its comments, so reformatted blocks are not changed
+     */
+    IGNORE_WHITESPACE,
+
+    /**
+     * Same as {@link #IGNORE_WHITESPACE} but line and block comments are ignored as well, only JavaDoc is compared
+     */
+    IGNORE_COMMENTS,
+
+    /**
+     * Only tokens of the block are compared, all comments including JavaDoc are ignored
+     */
+    IGNORE_JAVADOC
+}
@@ -0,0 +1,1026 @@
+package com.dpforge.tellon.core.parser;
+
+import com.dpforge.tellon.annotations.NotifyChanges;
+import com.dpforge.tellon.core.parser.SourceTokenizer.Comment;
+import com.dpforge.tellon.core.parser.SourceTokenizer.CommentKind;
+import com.dpforge.tellon.core.parser.SourceTokenizer.Token;
+import com.dpforge.tellon.core.parser.SourceTokenizer.TokenKind;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds declarations of a compilation unit without building a syntax tree. Bodies of methods and initializers
+ * are only brace-matched and looked through for anonymous and local classes.
+ * <p>
+ * Positions, names and javadoc attribution follow JavaParser, so blocks built from the declarations found
+ * are the same as the ones built from JavaParser AST.
+ */
+final class DeclarationScanner {
+    private static final String ANNOTATION_NAME = NotifyChanges.class.getSimpleName();
+
+    private static final Set<String> MODIFIERS = new HashSet<>(Arrays.asList(
+            "public", "protected", "private", "static", "final", "abstract", "native", "synchronized",
+            "transient", "volatile", "strictfp"));
+
+    private static final Set<String> KEYWORDS = new HashSet<>(Arrays.asList(
+            "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const",
+            "continue", "default", "do", "double", "else", "enum", "extends", "final", "finally", "float",
+            "for", "goto", "if", "implements", "import", "instanceof", "int", "interface", "long", "native",
+            "new", "package", "private", "protected", "public", "return", "short", "static", "strictfp",
+            "super", "switch", "synchronized", "this", "throw", "throws", "transient", "try", "void",
+            "volatile", "while", "true", "false", "null"));
+
+    private enum BodyKind {
+        CLASS,
+        ANNOTATION,
+        ENUM
+    }
+
+    private final CharSequence text;
+    private final List<Token> tokens;
+    private final List<Comment> comments;
+    private int pos;
+
+    private String packageName;
+    private final List<Import> imports = new ArrayList<>();
+    private final List<Declaration> declarations = new ArrayList<>();
+    private final List<String> typePath = new ArrayList<>();
+    private final List<Integer> typePathLines = new ArrayList<>();
+
+    private DeclarationScanner(CharSequence text) {
+        final SourceTokenizer tokenizer = SourceTokenizer.tokenize(text);
+        this.text = text;
+        this.tokens = tokenizer.getTokens();
+        this.comments = tokenizer.getComments();
+    }
+
+    static DeclarationScanner scan(CharSequence text) {
+        final DeclarationScanner scanner = new DeclarationScanner(text);
+        scanner.scanCompilationUnit();
+        return scanner;
+    }
+
+    /**
+     * Package name or {@code null} if there is no package declaration
+     */
+    String getPackageName() {
+        return packageName;
+    }
+
+    List<Import> getImports() {
+        return imports;
+    }
+
+    /**
+     * Declarations of types, annotations, constructors, methods, fields and annotation members
+     * in the order of their appearance in source code
+     */
+    List<Declaration> getDeclarations() {
+        return declarations;
+    }
+
+    /**
+     * Fingerprint of source code of the declaration normalized in the comparison mode. It is computed from
+     * the tokens of the whole compilation unit, so source code of the declaration is not tokenized again.
+     */
+    BlockFingerprint getFingerprint(Declaration declaration, ComparisonMode comparisonMode) {
+        final BlockFingerprint.TokenHasher hasher = new BlockFingerprint.TokenHasher();
+        TokenNormalizer.normalize(text, tokens, comments, declaration.getStartOffset(), declaration.end.end,
+                comparisonMode, hasher);
+        return hasher.build();
+    }
+
+    private void scanCompilationUnit() {
+        final List<Member> members = new ArrayList<>();
+
+        Comment unitComment = null;
+        skipAnnotations();
+        if (at("package")) {
+            final Token packageToken = tokens.get(0);
+            if (!comments.isEmpty() && comments.get(0).start < packageToken.start) {
+                // the very first comment belongs to the compilation unit itself
+                unitComment = comments.get(0);
+            }
+            next();
+            packageName = readQualifiedName();
+            expect(";");
+            members.add(new Member(0, pos - 1, null));
+        } else {
+            pos = 0;
+        }
+
+        while (at("import")) {
+            final int begin = pos;
+            next();
+            final boolean isStatic = skip("static");
+            final StringBuilder name = new StringBuilder(text(expectIdentifier()));
+            boolean asterisk = false;
+            while (skip(".")) {
+                if (skip("*")) {
+                    asterisk = true;
+                    break;
+                }
+                name.append('.').append(text(expectIdentifier()));
+            }
+            expect(";");
+            imports.add(new Import(name.toString(), isStatic, asterisk));
+            members.add(new Member(begin, pos - 1, null));
+        }
+
+        while (current().kind != TokenKind.EOF) {
+            members.add(scanMember(BodyKind.CLASS));
+        }
+
+        attributeComments(members, 0, current().start, -1, -1, unitComment);
+    }
+
+    private Member scanMember(BodyKind bodyKind) {
+        int begin = pos;
+        final List<Annotation> annotations = scanModifiers(MODIFIERS);
+        if (at("default")) {
+            // like JavaParser ignore modifiers after "default" for the position and drop their annotations
+            final boolean noModifiers = pos == begin;
+            next();
+            scanModifiers(MODIFIERS);
+            if (noModifiers) {
+                begin = pos;
+            }
+        }
+        final Declaration declaration;
+        if (at("class") || at("interface")) {
+            declaration = scanTypeDeclaration(begin, annotations, BlockType.TYPE, BodyKind.CLASS);
+        } else if (at("@")) {
+            declaration = scanTypeDeclaration(begin, annotations, BlockType.ANNOTATION, BodyKind.ANNOTATION);
+        } else if (at("enum")) {
+            declaration = scanTypeDeclaration(begin, annotations, null, BodyKind.ENUM);
+        } else if (at("{")) {
+            scanBlock();
+            declaration = null;
+        } else if (at(";")) {
+            next();
+            declaration = null;
+        } else {
+            declaration = scanMethodOrField(begin, annotations, bodyKind);
+        }
+        return new Member(begin, pos - 1, declaration);
+    }
+
+    private List<Annotation> scanModifiers(Set<String> modifiers) {
+        List<Annotation> annotations = Collections.emptyList();
+        while (true) {
+            if (at("@") && !is(peek(1), "interface")) {
+                if (annotations.isEmpty()) {
+                    annotations = new ArrayList<>();
+                }
+                annotations.add(scanAnnotation());
+            } else if (current().kind == TokenKind.IDENTIFIER && modifiers.contains(text(current()))) {
+                next();
+            } else {
+                return annotations;
+            }
+        }
+    }
+
+    /**
+     * @param type type of block or {@code null} if the declaration is not recorded
+     */
+    private Declaration scanTypeDeclaration(int begin, List<Annotation> annotations, BlockType type,
+                                            BodyKind bodyKind) {
+        skip("@");
+        next();
+        final Token name = expectIdentifier();
+        final Declaration declaration = type != null ? declare(type, begin, annotations) : null;
+        while (!at("{")) {
+            if (at("(")) {
+                skipParentheses();
+            } else {
+                checkNotEof();
+                next();
+            }
+        }
+        enterType(text(name), name);
+        final Token end = scanBody(bodyKind, begin);
+        exitType();
+        if (declaration != null) {
+            declaration.name = text(name);
+            declaration.end = end;
+        }
+        return declaration;
+    }
+
+    /**
+     * @param headerBegin index of the first token of the node that owns the body
+     * @return closing brace
+     */
+    private Token scanBody(BodyKind bodyKind, int headerBegin) {
+        final int open = pos;
+        expect("{");
+        final List<Member> members = new ArrayList<>();
+        if (bodyKind == BodyKind.ENUM) {
+            scanEnumConstants(members);
+        }
+        while (!at("}")) {
+            checkNotEof();
+            members.add(scanMember(bodyKind));
+        }
+        final Token close = next();
+        attributeComments(members, tokens.get(open - 1).end, close.start, headerBegin, open, null);
+        return close;
+    }
+
+    private void scanEnumConstants(List<Member> members) {
+        while (!at(";") && !at("}")) {
+            final int begin = pos;
+            scanModifiers(Collections.<String>emptySet());
+            final Token name = expectIdentifier();
+            if (at("(")) {
+                scanGroup();
+            }
+            if (at("{")) {
+                enterType(text(name), name);
+                scanBody(BodyKind.CLASS, begin);
+                exitType();
+            }
+            members.add(new Member(begin, pos - 1, null));
+            if (!skip(",")) {
+                break;
+            }
+        }
+        skip(";");
+    }
+
+    private Declaration scanMethodOrField(int begin, List<Annotation> annotations, BodyKind bodyKind) {
+        if (at("<")) {
+            skipAngleBrackets();
+        }
+
+        if (current().kind == TokenKind.IDENTIFIER && is(peek(1), "(")) {
+            final Declaration declaration = declare(BlockType.CONSTRUCTOR, begin, annotations);
+            declaration.name = text(next());
+            declaration.parameterTypes = scanParameters();
+            scanMethodRest(declaration);
+            return declaration;
+        }
+
+        skipType();
+        final Token name = expectIdentifier();
+        if (at("(")) {
+            final BlockType type = bodyKind == BodyKind.ANNOTATION ? BlockType.ANNOTATION_MEMBER : BlockType.METHOD;
+            final Declaration declaration = declare(type, begin, annotations);
+            declaration.name = text(name);
+            if (type == BlockType.METHOD) {
+                declaration.parameterTypes = scanParameters();
+            } else {
+                skipParentheses();
+            }
+            scanMethodRest(declaration);
+            return declaration;
+        }
+
+        final Declaration declaration = declare(BlockType.FIELD, begin, annotations);
+        final StringBuilder names = new StringBuilder(text(name));
+        while (true) {
+            skipDimensions();
+            if (skip("=")) {
+                scanCode(",", ";");
+            }
+            if (!skip(",")) {
+                break;
+            }
+            names.append(", ").append(text(expectIdentifier()));
+        }
+        declaration.name = names.toString();
+        declaration.end = expect(";");
+        return declaration;
+    }
+
+    /**
+     * Scans formal parameters of method or constructor
+     *
+     * @return simplified types of parameters, see {@link BlockIdentity#simplifyType(CharSequence)}
+     */
+    private List<String> scanParameters() {
+        expect("(");
+        final List<String> types = new ArrayList<>();
+        while (!at(")")) {
+            scanModifiers(MODIFIERS);
+            final int typeBegin = pos;
+            skipType();
+            final StringBuilder type = new StringBuilder();
+            for (int i = typeBegin; i < pos; i++) {
+                if (i > typeBegin && tokens.get(i - 1).kind == TokenKind.IDENTIFIER
+                        && tokens.get(i).kind == TokenKind.IDENTIFIER) {
+                    type.append(' ');
+                }
+                type.append(text(tokens.get(i)));
+            }
+            expectIdentifier();
+            while (skip(".")) {
+                // receiver parameter of inner class constructor
+                expectIdentifier();
+            }
+            final int dimensionsBegin = pos;
+            skipDimensions();
+            for (int i = dimensionsBegin; i < pos; i++) {
+                if (is(tokens.get(i), "[")) {
+                    type.append("[]");
+                }
+            }
+            types.add(BlockIdentity.simplifyType(type));
+            if (!skip(",")) {
+                break;
+            }
+        }
+        expect(")");
+        return types;
+    }
+
+    private void scanMethodRest(Declaration declaration) {
+        skipDimensions();
+        if (skip("throws")) {
+            while (!at("{") && !at(";")) {
+                checkNotEof();
+                next();
+            }
+        }
+        if (skip("default")) {
+            scanCode(";");
+        }
+        if (at("{")) {
+            scanBlock();
+            declaration.end = tokens.get(pos - 1);
+        } else {
+            declaration.end = expect(";");
+        }
+    }
+
+    private void scanBlock() {
+        expect("{");
+        scanCode("}");
+        expect("}");
+    }
+
+    /**
+     * Scans the group that starts at the current bracket up to the matching one
+     */
+    private void scanGroup() {
+        if (at("{")) {
+            scanBlock();
+        } else if (at("(")) {
+            next();
+            scanCode(")");
+            expect(")");
+        } else {
+            expect("[");
+            scanCode("]");
+            expect("]");
+        }
+    }
+
+    /**
+     * Skips statements and expressions up to one of the terminators on the same nesting level.
+     * Anonymous and local classes met on the way are scanned for declarations.
+     */
+    private void scanCode(String... terminators) {
+        int modifiersBegin = -1;
+        List<Annotation> annotations = Collections.emptyList();
+        while (!atAny(terminators)) {
+            checkNotEof();
+            if (at("@") || (current().kind == TokenKind.IDENTIFIER && MODIFIERS.contains(text(current())))) {
+                // may be modifiers of a local class
+                if (modifiersBegin < 0) {
+                    modifiersBegin = pos;
+                }
+                if (at("@")) {
+                    if (annotations.isEmpty()) {
+                        annotations = new ArrayList<>();
+                    }
+                    annotations.add(scanAnnotation());
+                } else {
+                    next();
+                }
+                continue;
+            }
+
+            if ((at("class") || at("interface")) && !is(previous(), ".")) {
+                final int begin = modifiersBegin >= 0 ? modifiersBegin : pos;
+                scanTypeDeclaration(begin, annotations, BlockType.TYPE, BodyKind.CLASS);
+            } else if (at("new") && !isMethodReference()) {
+                scanCreator();
+            } else if (at("(") || at("[") || at("{")) {
+                scanGroup();
+            } else if (at(".") && is(peek(1), "<")) {
+                next();
+                skipAngleBrackets();
+            } else if (at("instanceof")) {
+                next();
+                skipType();
+            } else {
+                next();
+            }
+            modifiersBegin = -1;
+            annotations = Collections.emptyList();
+        }
+    }
+
+    private void scanCreator() {
+        final int begin = pos;
+        expect("new");
+        if (at("<")) {
+            skipAngleBrackets();
+        }
+        Token name;
+        while (true) {
+            while (at("@")) {
+                scanAnnotation();
+            }
+            name = expectIdentifier();
+            if (at("<")) {
+                skipAngleBrackets();
+            }
+            if (!skip(".")) {
+                break;
+            }
+        }
+        if (at("[")) {
+            while (at("[")) {
+                scanGroup();
+            }
+            if (at("{")) {
+                scanBlock();
+            }
+        } else if (at("(")) {
+            scanGroup();
+            if (at("{")) {
+                enterType("new " + text(name), name);
+                scanBody(BodyKind.CLASS, begin);
+                exitType();
+            }
+        }
+    }
+
+    private Annotation scanAnnotation() {
+        expect("@");
+        final String name = readQualifiedName();
+        if (!at("(")) {
+            return new Annotation(name, Annotation.Kind.MARKER, Collections.<AnnotationValue>emptyList());
+        }
+        if (is(peek(1), ")") || (peek(1).kind == TokenKind.IDENTIFIER && is(peek(2), "="))) {
+            skipParentheses();
+            return new Annotation(name, Annotation.Kind.NORMAL, Collections.<AnnotationValue>emptyList());
+        }
+        if (!name.endsWith(ANNOTATION_NAME)) {
+            // arguments of other annotations are never needed
+            skipParentheses();
+            return new Annotation(name, Annotation.Kind.SINGLE_MEMBER, Collections.<AnnotationValue>emptyList());
+        }
+
+        expect("(");
+        final List<AnnotationValue> values = new ArrayList<>();
+        if (skip("{")) {
+            while (!at("}")) {
+                values.add(scanAnnotationValue());
+                if (!skip(",")) {
+                    break;
+                }
+            }
+            expect("}");
+        } else {
+            values.add(scanAnnotationValue());
+        }
+        expect(")");
+        return new Annotation(name, Annotation.Kind.SINGLE_MEMBER, values);
+    }
+
+    private AnnotationValue scanAnnotationValue() {
+        final Token first = current();
+        if (first.kind == TokenKind.STRING && isValueEnd(peek(1))) {
+            next();
+            return AnnotationValue.literal(text.subSequence(first.start + 1, first.end - 1).toString());
+        }
+
+        if (isNameIdentifier(first) && isValueEnd(peek(1))) {
+            next();
+            return AnnotationValue.name(text(first));
+        }
+
+        if (first.kind == TokenKind.IDENTIFIER && isScopeIdentifier(first)) {
+            final StringBuilder scope = new StringBuilder(text(first));
+            int index = pos + 1;
+            Token field = null;
+            while (is(tokens.get(index), ".") && isNameIdentifier(tokens.get(index + 1))) {
+                if (field != null) {
+                    scope.append('.').append(text(field));
+                }
+                field = tokens.get(index + 1);
+                index += 2;
+            }
+            if (field != null && isValueEnd(tokens.get(index))) {
+                pos = index;
+                return AnnotationValue.fieldAccess(scope.toString(), text(field));
+            }
+        }
+
+        // anything else cannot be resolved to watchers
+        int depth = 0;
+        while (depth > 0 || !isValueEnd(current())) {
+            checkNotEof();
+            if (at("(") || at("[") || at("{")) {
+                depth++;
+            } else if (at(")") || at("]") || at("}")) {
+                depth--;
+            }
+            next();
+        }
+        return AnnotationValue.unsupported();
+    }
+
+    private boolean isScopeIdentifier(Token token) {
+        return isNameIdentifier(token) || is(token, "this") || is(token, "super");
+    }
+
+    private boolean isNameIdentifier(Token token) {
+        return token.kind == TokenKind.IDENTIFIER && !KEYWORDS.contains(text(token));
+    }
+
+    private boolean isValueEnd(Token token) {
+        return is(token, ",") || is(token, ")") || is(token, "}");
+    }
+
+    private void skipAnnotations() {
+        while (at("@") && !is(peek(1), "interface")) {
+            scanAnnotation();
+        }
+    }
+
+    private void skipType() {
+        while (true) {
+            skipAnnotations();
+            expectIdentifier();
+            if (at("<")) {
+                skipAngleBrackets();
+            }
+            if (!at(".") || is(peek(1), ".")) {
+                // the latter is an ellipsis of varargs
+                break;
+            }
+            next();
+        }
+        skipDimensions();
+        if (at(".") && is(peek(1), ".") && is(peek(2), ".")) {
+            pos += 3;
+        }
+    }
+
+    private void skipDimensions() {
+        while (true) {
+            skipAnnotations();
+            if (!at("[")) {
+                return;
+            }
+            next();
+            expect("]");
+        }
+    }
+
+    private void skipAngleBrackets() {
+        int depth = 0;
+        do {
+            checkNotEof();
+            if (at("(")) {
+                skipParentheses();
+                continue;
+            }
+            if (at("<")) {
+                depth++;
+            } else if (at(">")) {
+                depth--;
+            }
+            next();
+        } while (depth > 0);
+    }
+
+    private void skipParentheses() {
+        int depth = 0;
+        do {
+            checkNotEof();
+            if (at("(")) {
+                depth++;
+            } else if (at(")")) {
+                depth--;
+            }
+            next();
+        } while (depth > 0);
+    }
+
+    private String readQualifiedName() {
+        final StringBuilder name = new StringBuilder(text(expectIdentifier()));
+        while (at(".") && peek(1).kind == TokenKind.IDENTIFIER) {
+            next();
+            name.append('.').append(text(next()));
+        }
+        return name.toString();
+    }
+
+    private Declaration declare(BlockType type, int begin, List<Annotation> annotations) {
+        final Declaration declaration = new Declaration(type, tokens.get(begin), annotations,
+                Collections.unmodifiableList(new ArrayList<>(typePath)),
+                Collections.unmodifiableList(new ArrayList<>(typePathLines)));
+        declarations.add(declaration);
+        return declaration;
+    }
+
+    private void enterType(String pathElement, Token name) {
+        typePath.add(pathElement);
+        typePathLines.add(name.line - 1);
+    }
+
+    private void exitType() {
+        typePath.remove(typePath.size() - 1);
+        typePathLines.remove(typePathLines.size() - 1);
+    }
+
+    /**
+     * Finds javadoc comments of the members the way JavaParser attributes comments to the children of a node:
+     * a line comment goes to every child that is on the same line, any other comment goes to the next child
+     * unless there is an empty line between them or the child already has a comment.
+     *
+     * @param ignored comment that is attributed to the owner of the members itself
+     */
+    private void attributeComments(List<Member> members, int fromOffset, int toOffset,
+                                   int headerBegin, int headerEnd, Comment ignored) {
+        final List<Comment> orphans = new ArrayList<>();
+        int memberIndex = 0;
+        for (int i = firstCommentFrom(fromOffset); i < comments.size(); i++) {
+            final Comment comment = comments.get(i);
+            if (comment.start >= toOffset) {
+                break;
+            }
+            while (memberIndex < members.size() && members.get(memberIndex).end.end <= comment.start) {
+                memberIndex++;
+            }
+            final boolean insideMember = memberIndex < members.size()
+                    && members.get(memberIndex).begin.start <= comment.start;
+            if (comment == ignored || insideMember) {
+                continue;
+            }
+            if (comment.kind == CommentKind.LINE && claimLineComment(comment, members, memberIndex,
+                    headerBegin, headerEnd)) {
+                continue;
+            }
+            orphans.add(comment);
+        }
+
+        Comment previous = null;
+        int orphanIndex = 0;
+        for (Member member : members) {
+            while (orphanIndex < orphans.size() && orphans.get(orphanIndex).start < member.begin.start) {
+                previous = orphans.get(orphanIndex++);
+            }
+            if (previous != null && !member.hasComment && member.begin.line <= previous.endLine + 1) {
+                if (previous.kind == CommentKind.JAVADOC && member.declaration != null) {
+                    member.declaration.javadoc = previous;
+                }
+                previous = null;
+            }
+        }
+    }
+
+    /**
+     * @param nextMember index of the first member that follows the comment
+     * @return {@code true} if some node on the line of the comment takes it
+     */
+    private boolean claimLineComment(Comment comment, List<Member> members, int nextMember,
+                                     int headerBegin, int headerEnd) {
+        boolean claimed = false;
+        for (int i = nextMember - 1; i >= 0 && members.get(i).end.endLine == comment.line; i--) {
+            final Member member = members.get(i);
+            if (member.begin.line == comment.line) {
+                member.hasComment = true;
+                claimed = true;
+            } else if (hasNodeStartOnLine(member.beginIndex, member.endIndex, comment.line)) {
+                claimed = true;
+            }
+        }
+        return claimed || (headerBegin >= 0 && hasNodeStartOnLine(headerBegin, headerEnd - 1, comment.line));
+    }
+
+    private boolean hasNodeStartOnLine(int begin, int end, int line) {
+        for (int i = end; i >= begin && tokens.get(i).line == line; i--) {
+            final Token token = tokens.get(i);
+            if (token.kind != TokenKind.SYMBOL || is(token, "(") || is(token, "{") || is(token, "@")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int firstCommentFrom(int offset) {
+        int low = 0;
+        int high = comments.size();
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (comments.get(middle).start < offset) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private Token current() {
+        return tokens.get(pos);
+    }
+
+    private Token peek(int distance) {
+        return tokens.get(Math.min(pos + distance, tokens.size() - 1));
+    }
+
+    private Token previous() {
+        return pos > 0 ? tokens.get(pos - 1) : null;
+    }
+
+    private boolean isMethodReference() {
+        return pos > 1 && is(tokens.get(pos - 1), ":") && is(tokens.get(pos - 2), ":");
+    }
+
+    private Token next() {
+        checkNotEof();
+        return tokens.get(pos++);
+    }
+
+    private boolean at(String value) {
+        return is(current(), value);
+    }
+
+    private boolean atAny(String... values) {
+        for (String value : values) {
+            if (at(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean skip(String value) {
+        if (at(value)) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private Token expect(String value) {
+        if (!at(value)) {
+            throw unexpectedToken("'" + value + "'");
+        }
+        return tokens.get(pos++);
+    }
+
+    private Token expectIdentifier() {
+        if (current().kind != TokenKind.IDENTIFIER) {
+            throw unexpectedToken("identifier");
+        }
+        return tokens.get(pos++);
+    }
+
+    private void checkNotEof() {
+        if (current().kind == TokenKind.EOF) {
+            throw unexpectedToken("more tokens");
+        }
+    }
+
+    private IllegalArgumentException unexpectedToken(String expected) {
+        final Token token = current();
+        final String found = token.kind == TokenKind.EOF ? "end of file" : "'" + text(token) + "'";
+        return new IllegalArgumentException(String.format("Expected %s but found %s at line %d, column %d",
+                expected, found, token.line, token.column));
+    }
+
+    private boolean is(Token token, String value) {
+        if (token == null || token.end - token.start != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (text.charAt(token.start + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return token.kind != TokenKind.STRING && token.kind != TokenKind.CHAR;
+    }
+
+    private String text(Token token) {
+        return text.subSequence(token.start, token.end).toString();
+    }
+
+    private class Member {
+        private final Token begin;
+        private final Token end;
+        private final int beginIndex;
+        private final int endIndex;
+        private final Declaration declaration;
+        private boolean hasComment;
+
+        private Member(int beginIndex, int endIndex, Declaration declaration) {
+            this.begin = tokens.get(beginIndex);
+            this.end = tokens.get(endIndex);
+            this.beginIndex = beginIndex;
+            this.endIndex = endIndex;
+            this.declaration = declaration;
+        }
+    }
+
+    static class Import {
+        private final String name;
+        private final boolean isStatic;
+        private final boolean asterisk;
+
+        private Import(String name, boolean isStatic, boolean asterisk) {
+            this.name = name;
+            this.isStatic = isStatic;
+            this.asterisk = asterisk;
+        }
+
+        /**
+         * Imported name without trailing asterisk
+         */
+        String getName() {
+            return name;
+        }
+
+        boolean isStatic() {
+            return isStatic;
+        }
+
+        boolean isAsterisk() {
+            return asterisk;
+        }
+    }
+
+    static class Declaration {
+        private final BlockType type;
+        private final Token begin;
+        private final List<Annotation> annotations;
+        private final List<String> typePath;
+        private final List<Integer> typePathLines;
+        private String name;
+        private List<String> parameterTypes;
+        private Token end;
+        private Comment javadoc;
+
+        private Declaration(BlockType type,
+                            Token begin,
+                            List<Annotation> annotations,
+                            List<String> typePath,
+                            List<Integer> typePathLines) {
+            this.type = type;
+            this.begin = begin;
+            this.annotations = annotations;
+            this.typePath = typePath;
+            this.typePathLines = typePathLines;
+        }
+
+        BlockType getType() {
+            return type;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        List<Annotation> getAnnotations() {
+            return annotations;
+        }
+
+        /**
+         * Names of enclosing types from the outermost one, see {@link BlockIdentity}
+         */
+        List<String> getTypePath() {
+            return typePath;
+        }
+
+        /**
+         * Zero-based lines of names of enclosing types, see {@link AnnotatedBlock#getTypePathLines()}
+         */
+        List<Integer> getTypePathLines() {
+            return typePathLines;
+        }
+
+        /**
+         * Simplified types of parameters of method or constructor, otherwise {@code null}
+         */
+        List<String> getParameterTypes() {
+            return parameterTypes;
+        }
+
+        /**
+         * Start of the javadoc if the declaration has one or start of the declaration itself
+         */
+        BlockPosition getStartPosition() {
+            return javadoc != null
+                    ? BlockPosition.createHumanBased(javadoc.line, javadoc.column)
+                    : BlockPosition.createHumanBased(begin.line, begin.column);
+        }
+
+        BlockPosition getEndPosition() {
+            return BlockPosition.createHumanBased(end.endLine, end.endColumn);
+        }
+
+        private int getStartOffset() {
+            return javadoc != null ? javadoc.start : begin.start;
+        }
+    }
+
+    static class Annotation {
+        enum Kind {
+            MARKER,
+            SINGLE_MEMBER,
+            NORMAL
+        }
+
+        private final String name;
+        private final Kind kind;
+        private final List<AnnotationValue> values;
+
+        private Annotation(String name, Kind kind, List<AnnotationValue> values) {
+            this.name = name;
+            this.kind = kind;
+            this.values = values;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * Values of single member annotation either from array initializer or the only one.
+         * Filled only for annotations which name may refer to {@code NotifyChanges}.
+         */
+        List<AnnotationValue> getValues() {
+            return values;
+        }
+    }
+
+    static class AnnotationValue {
+        enum Kind {
+            LITERAL,
+            NAME,
+            FIELD_ACCESS,
+            UNSUPPORTED
+        }
+
+        private final Kind kind;
+        private final String scope;
+        private final String value;
+
+        private AnnotationValue(Kind kind, String scope, String value) {
+            this.kind = kind;
+            this.scope = scope;
+            this.value = value;
+        }
+
+        Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * Scope of accessed field like class name
+         */
+        String getScope() {
+            return scope;
+        }
+
+        /**
+         * Literal content without quotes and with escape sequences as is or name of accessed or referenced field
+         */
+        String getValue() {
+            return value;
+        }
+
+        static AnnotationValue literal(String value) {
+            return new AnnotationValue(Kind.LITERAL, null, value);
+        }
+
+        static AnnotationValue name(String name) {
+            return new AnnotationValue(Kind.NAME, null, name);
+        }
+
+        static AnnotationValue fieldAccess(String scope, String field) {
+            return new AnnotationValue(Kind.FIELD_ACCESS, scope, field);
+        }
+
+        static AnnotationValue unsupported() {
+            return new AnnotationValue(Kind.UNSUPPORTED, null, null);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.dpforge.tellon.core.parser;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps parse cache entries as files of local directory.
+ * <p>
+ * Entries are written to temporary files and atomically renamed, therefore several processes may share the same
+ * directory. When total size of entries exceeds the limit, least recently used ones are deleted.
+ */
+public class DirectoryCacheStorage implements ParseCacheStorage {
+    private static final String ENTRY_SUFFIX = ".blocks";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final File directory;
+    private final long maxSize;
+    private final AtomicLong size = new AtomicLong();
+
+    /**
+     * @param maxSize maximum total size of cache entries in bytes
+     */
+    public DirectoryCacheStorage(File directory, long maxSize) throws IOException {
+        if (directory == null) {
+            throw new NullPointerException("Cache directory cannot be null");
+        }
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maxSize);
+        }
+        this.directory = new File(directory, "v" + ParseCache.FORMAT_VERSION);
+        this.maxSize = maxSize;
+        if (!this.directory.isDirectory() && !this.directory.mkdirs() && !this.directory.isDirectory()) {
+            throw new IOException("Fail to create cache directory " + this.directory);
+        }
+        size.set(totalSize(listEntries()));
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public byte[] read(String contentId) throws IOException {
+        final File file = getEntryFile(contentId);
+        final byte[] entry;
+        try {
+            entry = Files.readAllBytes(file.toPath());
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        //noinspection ResultOfMethodCallIgnored
+        file.setLastModified(System.currentTimeMillis());
+        return entry;
+    }
+
+    @Override
+    public void write(String contentId, byte[] entry) throws IOException {
+        final File file = getEntryFile(contentId);
+        final File parent = file.getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()) {
+            throw new IOException("Fail to create cache directory " + parent);
+        }
+
+        final File temp = File.createTempFile(file.getName(), TEMP_SUFFIX, parent);
+        try {
+            try (OutputStream out = new FileOutputStream(temp)) {
+                out.write(entry);
+            }
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (size.addAndGet(entry.length) > maxSize) {
+                evict();
+            }
+        } finally {
+            //noinspection ResultOfMethodCallIgnored
+            temp.delete();
+        }
+    }
+
+    private File getEntryFile(String contentId) {
+        if (contentId.length() < 3 || !isSafeName(contentId)) {
+            throw new IllegalArgumentException("Invalid content id: " + contentId);
+        }
+        return new File(new File(directory, contentId.substring(0, 2)), contentId.substring(2) + ENTRY_SUFFIX);
+    }
+
+    /**
+     * Deletes least recently used entries until the cache takes no more than 3/4 of its maximum size.
+     * Other processes may modify the directory meanwhile so actual size is recalculated every time.
+     */
+    private synchronized void evict() {
+        final List<File> entries = listEntries();
+        long total = totalSize(entries);
+        if (total > maxSize) {
+            final long[] lastModified = new long[entries.size()];
+            final List<Integer> order = new ArrayList<>(entries.size());
+            for (int i = 0; i < entries.size(); i++) {
+                lastModified[i] = entries.get(i).lastModified();
+                order.add(i);
+            }
+            order.sort((first, second) -> Long.compare(lastModified[first], lastModified[second]));
+
+            final long target = maxSize / 4 * 3;
+            for (int i = 0; i < order.size() && total > target; i++) {
+                final File entry = entries.get(order.get(i));
+                final long length = entry.length();
+                if (entry.delete()) {
+                    total -= length;
+                }
+            }
+        }
+        size.set(total);
+    }
+
+    private List<File> listEntries() {
+        final List<File> entries = new ArrayList<>();
+        final File[] buckets = directory.listFiles();
+        if (buckets == null) {
+            return entries;
+        }
+        for (File bucket : buckets) {
+            final File[] files = bucket.listFiles();
+            if (files == null) {
+                continue;
+            }
+            for (File file : files) {
+                if (file.getName().endsWith(ENTRY_SUFFIX)) {
+                    entries.add(file);
+                }
+            }
+        }
+        return entries;
+    }
+
+    private static long totalSize(List<File> entries) {
+        long total = 0;
+        for (File entry : entries) {
+            total += entry.length();
+        }
+        return total;
+    }
+
+    private static boolean isSafeName(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            final char c = name.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '-' && c != '_') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,89 @@
+package com.dpforge.tellon.core.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Package and imports of a compilation unit which are needed to find out qualified names of referenced classes.
+ * Only names of classes are known, so the name starting with lower case letter is considered to be qualified and
+ * the name which is not imported by single type import may be either in the same package or in any package imported
+ * on demand. Such candidates are told apart later by the class which actually declares the referenced field.
+ */
+final class ImportScope {
+    private String packageName = "";
+    private final List<String> imports = new ArrayList<>();
+    private final List<String> asteriskImports = new ArrayList<>();
+    private final Map<String, String> staticImports = new HashMap<>();
+    private final List<String> staticAsteriskImports = new ArrayList<>();
+
+    void setPackage(String name) {
+        packageName = name;
+    }
+
+    /**
+     * @param name imported name without trailing asterisk
+     */
+    void addImport(String name, boolean isStatic, boolean asterisk) {
+        if (isStatic) {
+            if (asterisk) {
+                staticAsteriskImports.add(name);
+            } else {
+                final int dot = name.lastIndexOf('.');
+                if (dot > 0) {
+                    staticImports.putIfAbsent(name.substring(dot + 1), name.substring(0, dot));
+                }
+            }
+        } else if (asterisk) {
+            asteriskImports.add(name);
+        } else {
+            imports.add(name);
+        }
+    }
+
+    /**
+     * Returns qualified names of classes which may be referenced by possibly dotted name (e.g. {@code Contacts.Team})
+     * in order of precedence: the same package goes before packages imported on demand. Imported by single type
+     * import or qualified name is the only candidate.
+     */
+    List<String> resolveClassNames(String name) {
+        final int dot = name.indexOf('.');
+        final String first = dot < 0 ? name : name.substring(0, dot);
+        final String rest = dot < 0 ? "" : name.substring(dot);
+        for (String imported : imports) {
+            if (imported.substring(imported.lastIndexOf('.') + 1).equals(first)) {
+                return Collections.singletonList(imported + rest);
+            }
+        }
+        if (Character.isLowerCase(first.charAt(0))) {
+            return Collections.singletonList(name);
+        }
+        final String samePackage = packageName.isEmpty() ? name : packageName + "." + name;
+        if (asteriskImports.isEmpty()) {
+            return Collections.singletonList(samePackage);
+        }
+        final List<String> result = new ArrayList<>(asteriskImports.size() + 1);
+        result.add(samePackage);
+        for (String imported : asteriskImports) {
+            final String candidate = imported + "." + name;
+            if (!result.contains(candidate)) {
+                result.add(candidate);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns qualified name of the class the field is statically imported from by single static import
+     * or {@code null} if there is no such import
+     */
+    String getStaticImport(String field) {
+        return staticImports.get(field);
+    }
+
+    List<String> getStaticAsteriskImports() {
+        return Collections.unmodifiableList(staticAsteriskImports);
+    }
+}
@@ -0,0 +1,228 @@
+package com.dpforge.tellon.core.parser;
+
+import com.dpforge.tellon.core.parser.resolver.WatcherResolver;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Cache of annotated blocks keyed by content id of source code (e.g. git blob id).
+ * <p>
+ * Watchers are stored unresolved (literals and qualified field names) and resolved on every load, so cached
+ * entries stay valid when constants with watcher addresses change. Entries are kept in one or more storages:
+ * they are looked up in the given order and written to all of them. Unreadable entries are treated as missing.
+ */
+public class ParseCache {
+    // must be changed whenever stored data or its meaning changes
+    static final int FORMAT_VERSION = 4;
+    private static final int MAGIC = 0x544c4e43;
+
+    private final List<ParseCacheStorage> storages;
+
+    /**
+     * Cache in local directory
+     *
+     * @param maxSize maximum total size of cache entries in bytes
+     */
+    public ParseCache(File directory, long maxSize) throws IOException {
+        this(new DirectoryCacheStorage(directory, maxSize));
+    }
+
+    public ParseCache(ParseCacheStorage... storages) {
+        if (storages.length == 0) {
+            throw new IllegalArgumentException("At least one cache storage is required");
+        }
+        for (ParseCacheStorage storage : storages) {
+            if (storage == null) {
+                throw new NullPointerException("Cache storage cannot be null");
+            }
+        }
+        this.storages = Collections.unmodifiableList(new ArrayList<>(Arrays.asList(storages)));
+    }
+
+    public List<ParseCacheStorage> getStorages() {
+        return storages;
+    }
+
+    /**
+     * Returns cached blocks of the source code or {@code null} if there is no valid entry for the content id.
+     * Entry found in some storage is copied to the preceding ones.
+     */
+    ParsedSourceCode load(String contentId,
+                          SourceCode sourceCode,
+                          ComparisonMode comparisonMode,
+                          WatcherResolver watcherResolver) {
+        for (int i = 0; i < storages.size(); i++) {
+            final byte[] entry = read(storages.get(i), contentId);
+            if (entry == null) {
+                continue;
+            }
+            final ParsedSourceCode parsed = decode(entry, sourceCode, comparisonMode, watcherResolver);
+            if (parsed != null) {
+                for (int j = 0; j < i; j++) {
+                    write(storages.get(j), contentId, entry);
+                }
+                return parsed;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stores blocks of the source code. Cache is just an optimization so failure to write an entry is ignored.
+     */
+    void store(String contentId, ParsedSourceCode parsed) {
+        final byte[] entry;
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                writeEntry(out, parsed);
+            }
+            entry = bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Fail to encode cache entry", e);
+        }
+        for (ParseCacheStorage storage : storages) {
+            write(storage, contentId, entry);
+        }
+    }
+
+    /**
+     * Persists entries of storages that batch their writes
+     */
+    public void flush() throws IOException {
+        for (ParseCacheStorage storage : storages) {
+            storage.flush();
+        }
+    }
+
+    private static byte[] read(ParseCacheStorage storage, String contentId) {
+        try {
+            return storage.read(contentId);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void write(ParseCacheStorage storage, String contentId, byte[] entry) {
+        try {
+            storage.write(contentId, entry);
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static ParsedSourceCode decode(byte[] entry,
+                                           SourceCode sourceCode,
+                                           ComparisonMode comparisonMode,
+                                           WatcherResolver watcherResolver) {
+        final List<CachedBlock> cachedBlocks;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(entry))) {
+            cachedBlocks = readEntry(in);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+
+        final List<AnnotatedBlock> blocks = new ArrayList<>(cachedBlocks.size());
+        final List<List<WatcherReference>> references = new ArrayList<>(cachedBlocks.size());
+        for (CachedBlock cached : cachedBlocks) {
+            final List<String> watchers = WatcherReference.resolveAll(cached.references, watcherResolver);
+            try {
+                blocks.add(AnnotatedBlock.fromPositions(sourceCode, comparisonMode, cached.type, cached.name,
+                        cached.identityKey, cached.typePathLines, cached.startPosition, cached.endPosition, watchers));
+            } catch (RuntimeException e) {
+                // entry does not match the source code
+                return null;
+            }
+            references.add(cached.references);
+        }
+        return new ParsedSourceCode(blocks, references);
+    }
+
+    private static void writeEntry(DataOutputStream out, ParsedSourceCode parsed) throws IOException {
+        final List<AnnotatedBlock> blocks = parsed.getAnnotatedBlocks();
+        final List<List<WatcherReference>> references = parsed.getWatcherReferences();
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(blocks.size());
+        for (int i = 0; i < blocks.size(); i++) {
+            final AnnotatedBlock block = blocks.get(i);
+            out.writeUTF(block.getType().name());
+            out.writeUTF(block.getName());
+            out.writeLong(block.getIdentityKey());
+            out.writeInt(block.getTypePathLines().size());
+            for (int line : block.getTypePathLines()) {
+                out.writeInt(line);
+            }
+            out.writeInt(block.getStartPosition().getLine());
+            out.writeInt(block.getStartPosition().getColumn());
+            out.writeInt(block.getEndPosition().getLine());
+            out.writeInt(block.getEndPosition().getColumn());
+            out.writeInt(references.get(i).size());
+            for (WatcherReference reference : references.get(i)) {
+                out.writeBoolean(reference.isField());
+                if (reference.isField()) {
+                    out.writeInt(reference.getQualifiedNames().size());
+                    for (String qualifiedName : reference.getQualifiedNames()) {
+                        out.writeUTF(qualifiedName);
+                    }
+                }
+                out.writeUTF(reference.getValue());
+            }
+        }
+    }
+
+    private static List<CachedBlock> readEntry(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Unknown format of cache entry");
+        }
+        final int blockCount = in.readInt();
+        final List<CachedBlock> blocks = new ArrayList<>(Math.min(blockCount, 1024));
+        for (int i = 0; i < blockCount; i++) {
+            final CachedBlock block = new CachedBlock();
+            block.type = BlockType.valueOf(in.readUTF());
+            block.name = in.readUTF();
+            block.identityKey = in.readLong();
+            final int typeCount = in.readInt();
+            final List<Integer> typePathLines = new ArrayList<>(Math.min(typeCount, 16));
+            for (int j = 0; j < typeCount; j++) {
+                typePathLines.add(in.readInt());
+            }
+            block.typePathLines = Collections.unmodifiableList(typePathLines);
+            block.startPosition = BlockPosition.createZeroBased(in.readInt(), in.readInt());
+            block.endPosition = BlockPosition.createZeroBased(in.readInt(), in.readInt());
+            final int referenceCount = in.readInt();
+            final List<WatcherReference> references = new ArrayList<>(Math.min(referenceCount, 16));
+            for (int j = 0; j < referenceCount; j++) {
+                if (in.readBoolean()) {
+                    final int candidateCount = in.readInt();
+                    final List<String> qualifiedNames = new ArrayList<>(Math.min(candidateCount, 16));
+                    for (int k = 0; k < candidateCount; k++) {
+                        qualifiedNames.add(in.readUTF());
+                    }
+                    references.add(WatcherReference.field(qualifiedNames, in.readUTF()));
+                } else {
+                    references.add(WatcherReference.literal(in.readUTF()));
+                }
+            }
+            block.references = Collections.unmodifiableList(references);
+            blocks.add(block);
+        }
+        if (in.read() != -1) {
+            throw new IOException("Unexpected data at the end of cache entry");
+        }
+        return blocks;
+    }
+
+    private static class CachedBlock {
+        BlockType type;
+        String name;
+        long identityKey;
+        List<Integer> typePathLines;
+        BlockPosition startPosition;
+        BlockPosition endPosition;
+        List<WatcherReference> references;
+    }
+}
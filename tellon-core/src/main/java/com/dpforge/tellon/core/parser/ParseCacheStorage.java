@@ -0,0 +1,22 @@
+package com.dpforge.tellon.core.parser;
+
+import java.io.IOException;
+
+/**
+ * Place where {@link ParseCache} keeps its entries. Entries are opaque byte arrays keyed by content id.
+ * Implementations must be thread-safe.
+ */
+public interface ParseCacheStorage {
+    /**
+     * Returns entry stored for the content id or {@code null} if there is none
+     */
+    byte[] read(String contentId) throws IOException;
+
+    void write(String contentId, byte[] entry) throws IOException;
+
+    /**
+     * Called once when the project is processed successfully. Storages that batch writes persist them here.
+     */
+    default void flush() throws IOException {
+    }
+}
@@ -1,15 +1,30 @@
 package com.dpforge.tellon.core.parser;
 
+import java.util.Collections;
 import java.util.List;
 
 public class ParsedSourceCode {
     private final List<AnnotatedBlock> annotatedBlocks;
+    private final List<List<WatcherReference>> watcherReferences;
 
-    ParsedSourceCode(List<AnnotatedBlock> annotatedBlocks) {
+    ParsedSourceCode(List<AnnotatedBlock> annotatedBlocks, List<List<WatcherReference>> watcherReferences) {
         this.annotatedBlocks = annotatedBlocks;
+        this.watcherReferences = watcherReferences;
+    }
+
+    static ParsedSourceCode empty() {
+        return new ParsedSourceCode(Collections.<AnnotatedBlock>emptyList(),
+                Collections.<List<WatcherReference>>emptyList());
     }
 
     public List<AnnotatedBlock> getAnnotatedBlocks() {
         return annotatedBlocks;
     }
+
+    /**
+     * Unresolved arguments of annotation of every block in the same order as blocks
+     */
+    List<List<WatcherReference>> getWatcherReferences() {
+        return watcherReferences;
+    }
 }
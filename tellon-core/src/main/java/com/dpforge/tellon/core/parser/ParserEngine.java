@@ -0,0 +1,21 @@
+package com.dpforge.tellon.core.parser;
+
+public enum ParserEngine {
+    /**
+     * Builds complete syntax tree of source code with JavaParser. Unless source code is compared exactly, every
+     * annotated block is tokenized once more to compute its fingerprint, nested blocks included.
+     */
+    JAVA_PARSER,
+
+    /**
+     * Only tokenizes source code and matches braces to find declarations. It is much faster and produces
+     * the same blocks as {@link #JAVA_PARSER} for compilable source code. Fingerprints of blocks are computed from
+     * the tokens of the whole file, so source code is tokenized once.
+     */
+    SCANNER,
+
+    /**
+     * Runs both engines and fails if their results differ. Intended for verification of {@link #SCANNER}.
+     */
+    CROSS_CHECK
+}
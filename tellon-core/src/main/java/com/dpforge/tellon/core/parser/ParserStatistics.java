@@ -0,0 +1,63 @@
+package com.dpforge.tellon.core.parser;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of {@link SourceCodeParser}. Values may be read from any thread.
+ */
+public class ParserStatistics {
+    private final AtomicLong parsedCount = new AtomicLong();
+    private final AtomicLong skippedCount = new AtomicLong();
+    private final AtomicLong unaffectedCount = new AtomicLong();
+    private final AtomicLong cachedCount = new AtomicLong();
+
+    /**
+     * Number of source files that have been fully parsed
+     */
+    public long getParsedCount() {
+        return parsedCount.get();
+    }
+
+    /**
+     * Number of source files that have been skipped without parsing because they cannot contain annotated blocks
+     */
+    public long getSkippedCount() {
+        return skippedCount.get();
+    }
+
+    /**
+     * Number of actual revisions that have not been parsed because the diff misses all annotated blocks
+     */
+    public long getUnaffectedCount() {
+        return unaffectedCount.get();
+    }
+
+    /**
+     * Number of source files whose annotated blocks have been loaded from parse cache instead of parsing
+     */
+    public long getCachedCount() {
+        return cachedCount.get();
+    }
+
+    void onParsed() {
+        parsedCount.incrementAndGet();
+    }
+
+    void onSkipped() {
+        skippedCount.incrementAndGet();
+    }
+
+    void onUnaffected() {
+        unaffectedCount.incrementAndGet();
+    }
+
+    void onCached() {
+        cachedCount.incrementAndGet();
+    }
+
+    @Override
+    public String toString() {
+        return "{parsed=" + getParsedCount() + ", skipped=" + getSkippedCount()
+                + ", unaffected=" + getUnaffectedCount() + ", cached=" + getCachedCount() + "}";
+    }
+}
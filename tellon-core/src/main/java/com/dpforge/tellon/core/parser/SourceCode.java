@@ -3,6 +3,10 @@ package com.dpforge.tellon.core.parser;
 import com.github.javaparser.JavaParser;
 import com.github.javaparser.ast.CompilationUnit;
 
+import java.io.CharArrayReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
 import java.util.Collection;
 
 public abstract class SourceCode {
@@ -11,25 +15,47 @@ public abstract class SourceCode {
 
     abstract SourceCodeLines getContent();
 
+    /**
+     * Lines of source code exactly as the parser sees them
+     */
+    public SourceCodeLines getLines() {
+        return getContent();
+    }
+
+    abstract CharSequence getText();
+
     abstract CompilationUnit toCompilationUnit();
 
     public static SourceCode createFromContent(final String... code) {
-        return new ContentSourceCode(code);
+        return new ContentSourceCode(SourceCodeLines.create(code));
     }
 
     public static SourceCode createFromContent(final Collection<String> code) {
-        return new ContentSourceCode(code);
+        return new ContentSourceCode(SourceCodeLines.create(code));
     }
 
-    private static class ContentSourceCode extends SourceCode {
-        private final SourceCodeLines code;
+    public static SourceCode createFromBytes(final byte[] bytes, final Charset charset) {
+        return createFromBytes(ByteBuffer.wrap(bytes), charset);
+    }
 
-        private ContentSourceCode(final Collection<String> code) {
-            this.code = SourceCodeLines.create(code);
+    /**
+     * Decodes remaining bytes of the buffer without changing its position. Malformed input is replaced.
+     */
+    public static SourceCode createFromBytes(final ByteBuffer bytes, final Charset charset) {
+        final CharBuffer chars = charset.decode(bytes.duplicate());
+        if (chars.hasArray() && chars.arrayOffset() == 0 && chars.position() == 0) {
+            return new ContentSourceCode(SourceCodeLines.create(chars.array(), chars.limit()));
         }
+        final char[] text = new char[chars.remaining()];
+        chars.get(text);
+        return new ContentSourceCode(SourceCodeLines.create(text, text.length));
+    }
 
-        private ContentSourceCode(final String... code) {
-            this.code = SourceCodeLines.create(code);
+    private static class ContentSourceCode extends SourceCode {
+        private final SourceCodeLines code;
+
+        private ContentSourceCode(final SourceCodeLines code) {
+            this.code = code;
         }
 
         @Override
@@ -37,13 +63,14 @@ public abstract class SourceCode {
             return code;
         }
 
+        @Override
+        CharSequence getText() {
+            return code.getText();
+        }
+
         @Override
         CompilationUnit toCompilationUnit() {
-            final StringBuilder builder = new StringBuilder();
-            for (String line : code) {
-                builder.append(line).append("\n");
-            }
-            return JavaParser.parse(builder.toString());
+            return JavaParser.parse(new CharArrayReader(code.getBuffer(), 0, code.getLength()));
         }
     }
 }
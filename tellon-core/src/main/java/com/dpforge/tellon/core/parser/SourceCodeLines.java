@@ -1,63 +1,222 @@
 package com.dpforge.tellon.core.parser;
 
+import java.nio.CharBuffer;
 import java.util.*;
 
+/**
+ * Lines of source code kept in a single character buffer with an index of line offsets.
+ * <p>
+ * Line terminators ({@code \n}, {@code \r\n} and {@code \r}) are replaced with {@code \n} in place, so the buffer
+ * is exactly the text the parser sees. Lines and ranges are views of the buffer, strings are only created when
+ * they are requested.
+ */
 public class SourceCodeLines implements Iterable<String> {
-    private final List<String> lines;
+    private final char[] text;
+    private final int length;
+    // start offset of every line followed by the offset the next line would start at
+    private final int[] lineStarts;
 
-    private SourceCodeLines(List<String> lines) {
-        this.lines = lines;
+    private SourceCodeLines(char[] text, int length, int[] lineStarts) {
+        this.text = text;
+        this.length = length;
+        this.lineStarts = lineStarts;
     }
 
     public int size() {
-        return lines.size();
+        return lineStarts.length - 1;
     }
 
     public String get(int index) {
-        if (index < 0 || index >= lines.size()) {
-            throw new IndexOutOfBoundsException(String.format(
-                    "Trying to get line with index %d but source contains only %d line(s)",
-                    index,
-                    lines.size()
-            ));
-        }
-        return lines.get(index);
+        checkIndex(index);
+        return new String(text, lineStarts[index], lineLength(index));
     }
 
     public String get(BlockPosition position) {
         return get(position.getLine());
     }
 
+    /**
+     * Line without terminator as a view of the buffer
+     */
+    public CharSequence getLine(int index) {
+        checkIndex(index);
+        return CharBuffer.wrap(text, lineStarts[index], lineLength(index));
+    }
+
+    /**
+     * Whole source code as a view of the buffer
+     */
+    public CharSequence getText() {
+        return CharBuffer.wrap(text, 0, length);
+    }
+
+    char[] getBuffer() {
+        return text;
+    }
+
+    int getLength() {
+        return length;
+    }
+
     public List<String> getExactRange(final BlockPosition start, final BlockPosition end) {
+        checkExactRange(start, end);
+        final int startColumn = start.getColumn();
+        final int endColumn = end.getColumn();
         if (start.getLine() == end.getLine()) {
-            final String line = get(start);
-            return Collections.singletonList(line.substring(start.getColumn(), end.getColumn() + 1));
+            return Collections.singletonList(get(start).substring(startColumn, endColumn + 1));
         }
+        return new Range(start.getLine(), end.getLine() + 1) {
+            @Override
+            int lineStart(int line) {
+                return line == start.getLine() ? lineStarts[line] + startColumn : lineStarts[line];
+            }
 
-        final int rangeLength = end.getLine() - start.getLine() + 1;
-        final List<String> code = new ArrayList<>(rangeLength);
-        code.add(get(start).substring(start.getColumn()));
-        if (rangeLength > 2) {
-            code.addAll(lines.subList(start.getLine() + 1, end.getLine()));
-        }
-        code.add(get(end).substring(0, end.getColumn() + 1));
-        return code;
+            @Override
+            int lineEnd(int line) {
+                return line == end.getLine() ? lineStarts[line] + endColumn + 1 : super.lineEnd(line);
+            }
+        };
     }
 
     public List<String> getLineRange(final BlockPosition start, final BlockPosition end) {
-        return lines.subList(start.getLine(), end.getLine() + 1);
+        checkIndex(start.getLine());
+        checkIndex(end.getLine());
+        return new Range(start.getLine(), end.getLine() + 1);
+    }
+
+    /**
+     * Copy of whole lines of the exact range joined with line feeds, without terminator of the last line
+     */
+    char[] copyLines(final BlockPosition start, final BlockPosition end) {
+        checkExactRange(start, end);
+        return Arrays.copyOfRange(text, lineStarts[start.getLine()], lineStarts[end.getLine() + 1] - 1);
     }
 
     @Override
     public Iterator<String> iterator() {
-        return lines.iterator();
+        return new Range(0, size()).iterator();
     }
 
     public static SourceCodeLines create(Collection<String> lines) {
-        return new SourceCodeLines(new ArrayList<>(lines));
+        int length = 0;
+        for (String line : lines) {
+            length += line.length() + 1;
+        }
+        final char[] text = new char[length];
+        int offset = 0;
+        for (String line : lines) {
+            line.getChars(0, line.length(), text, offset);
+            offset += line.length();
+            text[offset++] = '\n';
+        }
+        return create(text, length);
     }
 
     public static SourceCodeLines create(String... code) {
-        return new SourceCodeLines(Arrays.asList(code));
+        return create(Arrays.asList(code));
+    }
+
+    /**
+     * Takes ownership of the buffer: its line terminators are normalized in place
+     */
+    static SourceCodeLines create(char[] text, int length) {
+        int[] lineStarts = new int[Math.max(16, length / 32)];
+        int lineCount = 0;
+        int lineStart = 0;
+        int out = 0;
+        for (int in = 0; in < length; in++) {
+            final char c = text[in];
+            if (c != '\n' && c != '\r') {
+                text[out++] = c;
+                continue;
+            }
+            if (c == '\r' && in + 1 < length && text[in + 1] == '\n') {
+                in++;
+            }
+            text[out++] = '\n';
+            if (lineCount + 1 >= lineStarts.length) {
+                lineStarts = Arrays.copyOf(lineStarts, lineStarts.length * 2);
+            }
+            lineStarts[lineCount++] = lineStart;
+            lineStart = out;
+        }
+        if (lineStart < out) {
+            // the last line has no terminator
+            if (lineCount + 1 >= lineStarts.length) {
+                lineStarts = Arrays.copyOf(lineStarts, lineStarts.length + 2);
+            }
+            lineStarts[lineCount++] = lineStart;
+            lineStart = out + 1;
+        }
+        lineStarts[lineCount] = lineStart;
+        return new SourceCodeLines(text, out, Arrays.copyOf(lineStarts, lineCount + 1));
+    }
+
+    private int lineLength(int index) {
+        return lineStarts[index + 1] - 1 - lineStarts[index];
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException(String.format(
+                    "Trying to get line with index %d but source contains only %d line(s)",
+                    index,
+                    size()
+            ));
+        }
+    }
+
+    private void checkExactRange(final BlockPosition start, final BlockPosition end) {
+        checkIndex(start.getLine());
+        checkIndex(end.getLine());
+        checkColumn(start.getLine(), start.getColumn());
+        checkColumn(end.getLine(), end.getColumn() + 1);
+        if (start.getLine() == end.getLine() && start.getColumn() > end.getColumn() + 1) {
+            throw new IndexOutOfBoundsException(String.format("Range from %s to %s is reversed", start, end));
+        }
+    }
+
+    private void checkColumn(int index, int column) {
+        if (column < 0 || column > lineLength(index)) {
+            throw new IndexOutOfBoundsException(String.format(
+                    "Trying to get column %d of line %d which has only %d character(s)",
+                    column,
+                    index,
+                    lineLength(index)
+            ));
+        }
+    }
+
+    private class Range extends AbstractList<String> implements RandomAccess {
+        private final int startLine;
+        private final int endLine;
+
+        Range(int startLine, int endLine) {
+            this.startLine = startLine;
+            this.endLine = endLine;
+        }
+
+        int lineStart(int line) {
+            return lineStarts[line];
+        }
+
+        int lineEnd(int line) {
+            return lineStarts[line + 1] - 1;
+        }
+
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size());
+            }
+            final int line = startLine + index;
+            final int start = lineStart(line);
+            return new String(text, start, lineEnd(line) - start);
+        }
+
+        @Override
+        public int size() {
+            return endLine - startLine;
+        }
     }
 }
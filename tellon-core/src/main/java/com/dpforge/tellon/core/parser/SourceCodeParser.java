@@ -1,5 +1,6 @@
 package com.dpforge.tellon.core.parser;
 
+import com.dpforge.tellon.core.observer.LineChange;
 import com.dpforge.tellon.core.parser.resolver.AsIsWatcherResolver;
 import com.dpforge.tellon.core.parser.resolver.WatcherResolver;
 import com.github.javaparser.ast.ImportDeclaration;
@@ -7,98 +8,354 @@ import com.github.javaparser.ast.PackageDeclaration;
 import com.github.javaparser.ast.body.*;
 import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 
+import java.io.IOException;
 import java.util.List;
 
+/**
+ * Parser holds no per-parse state so a single instance may be shared between threads
+ * as long as its watcher resolver is thread-safe.
+ */
 public class SourceCodeParser {
     private final WatcherResolver watcherResolver;
+    private final ParserEngine engine;
+    private final ParseCache cache;
+    private final ComparisonMode comparisonMode;
+    private final ParserStatistics statistics = new ParserStatistics();
 
     public SourceCodeParser() {
         this(new AsIsWatcherResolver());
     }
 
     public SourceCodeParser(WatcherResolver watcherResolver) {
+        this(watcherResolver, ParserEngine.JAVA_PARSER);
+    }
+
+    public SourceCodeParser(WatcherResolver watcherResolver, ParserEngine engine) {
+        this(watcherResolver, engine, null);
+    }
+
+    /**
+     * @param cache cache of parsed source code or {@code null} if it should not be used
+     */
+    public SourceCodeParser(WatcherResolver watcherResolver, ParserEngine engine, ParseCache cache) {
+        this(watcherResolver, engine, cache, ComparisonMode.EXACT);
+    }
+
+    /**
+     * @param comparisonMode mode of comparison the fingerprints of annotated blocks are computed for
+     */
+    public SourceCodeParser(WatcherResolver watcherResolver,
+                            ParserEngine engine,
+                            ParseCache cache,
+                            ComparisonMode comparisonMode) {
         if (watcherResolver == null) {
             throw new NullPointerException("Watcher resolver cannot be null");
         }
+        if (engine == null) {
+            throw new NullPointerException("Parser engine cannot be null");
+        }
+        if (comparisonMode == null) {
+            throw new NullPointerException("Comparison mode cannot be null");
+        }
         this.watcherResolver = watcherResolver;
+        this.engine = engine;
+        this.cache = cache;
+        this.comparisonMode = comparisonMode;
     }
 
     public ParsedSourceCode parse(SourceCode sourceCode) {
-        final VisitorContext visitorContext = new VisitorContext(sourceCode, watcherResolver);
+        return parse(sourceCode, null);
+    }
+
+    /**
+     * @param contentId identifier of source code content used as a key of parse cache, may be {@code null}
+     */
+    public ParsedSourceCode parse(SourceCode sourceCode, String contentId) {
+        return parse(sourceCode, contentId, watcherResolver);
+    }
+
+    /**
+     * Same as {@link #parse(SourceCode, String)} but watchers are resolved by the given resolver
+     * (e.g. against the same revision as the source code) instead of the parser one
+     */
+    public ParsedSourceCode parse(SourceCode sourceCode, String contentId, WatcherResolver watcherResolver) {
+        if (watcherResolver == null) {
+            throw new NullPointerException("Watcher resolver cannot be null");
+        }
+        if (!AnnotationPrefilter.mayContainAnnotation(sourceCode.getText())) {
+            statistics.onSkipped();
+            return ParsedSourceCode.empty();
+        }
+        return parseFiltered(sourceCode, contentId, watcherResolver);
+    }
+
+    private ParsedSourceCode parseFiltered(SourceCode sourceCode, String contentId, WatcherResolver watcherResolver) {
+        if (cache == null || contentId == null) {
+            return parseAnnotated(sourceCode, watcherResolver);
+        }
+
+        final ParsedSourceCode cached = cache.load(contentId, sourceCode, comparisonMode, watcherResolver);
+        if (cached != null) {
+            statistics.onCached();
+            return cached;
+        }
+        final ParsedSourceCode parsed = parseAnnotated(sourceCode, watcherResolver);
+        cache.store(contentId, parsed);
+        return parsed;
+    }
+
+    private ParsedSourceCode parseAnnotated(SourceCode sourceCode, WatcherResolver watcherResolver) {
+        statistics.onParsed();
+        switch (engine) {
+            case SCANNER:
+                return scan(sourceCode, comparisonMode, watcherResolver);
+            case CROSS_CHECK:
+                return crossCheck(sourceCode, comparisonMode, watcherResolver);
+            case JAVA_PARSER:
+            default:
+                return parseCompilationUnit(sourceCode, comparisonMode, watcherResolver);
+        }
+    }
+
+    /**
+     * Parses actual revision of source code unless the hunks of the diff miss every annotated block of the previous
+     * revision and add no annotations. In the latter case annotated blocks are known to be unchanged
+     * and {@code null} is returned.
+     */
+    public ParsedSourceCode parseChanged(SourceCode previous,
+                                         ParsedSourceCode parsedPrevious,
+                                         SourceCode actual,
+                                         String actualContentId,
+                                         List<LineChange> changes) {
+        return parseChanged(previous, parsedPrevious, actual, actualContentId, changes, watcherResolver);
+    }
+
+    public ParsedSourceCode parseChanged(SourceCode previous,
+                                         ParsedSourceCode parsedPrevious,
+                                         SourceCode actual,
+                                         String actualContentId,
+                                         List<LineChange> changes,
+                                         WatcherResolver watcherResolver) {
+        try {
+            return parseChanged(previous, parsedPrevious, actual, actualContentId, () -> changes, watcherResolver);
+        } catch (IOException e) {
+            throw new IllegalStateException("Given hunks cannot fail", e);
+        }
+    }
+
+    /**
+     * Same as {@link #parseChanged(SourceCode, ParsedSourceCode, SourceCode, String, List, WatcherResolver)} but
+     * the hunks are requested only if the actual source code passes the annotation prefilter. If they are
+     * {@code null} the actual source code is parsed.
+     */
+    public ParsedSourceCode parseChanged(SourceCode previous,
+                                         ParsedSourceCode parsedPrevious,
+                                         SourceCode actual,
+                                         String actualContentId,
+                                         ChangedLinesSupplier changes,
+                                         WatcherResolver watcherResolver) throws IOException {
+        if (!AnnotationPrefilter.mayContainAnnotation(actual.getText())) {
+            statistics.onSkipped();
+            return ParsedSourceCode.empty();
+        }
+        final List<LineChange> changedLines = changes.get();
+        if (changedLines != null
+                && !ChangedLinesFilter.mayAffectBlocks(previous, parsedPrevious, actual, changedLines)) {
+            statistics.onUnaffected();
+            return null;
+        }
+        return parseFiltered(actual, actualContentId, watcherResolver);
+    }
+
+    public WatcherResolver getWatcherResolver() {
+        return watcherResolver;
+    }
+
+    public ParserEngine getEngine() {
+        return engine;
+    }
+
+    public ComparisonMode getComparisonMode() {
+        return comparisonMode;
+    }
+
+    public ParseCache getCache() {
+        return cache;
+    }
+
+    public ParserStatistics getStatistics() {
+        return statistics;
+    }
+
+    private static ParsedSourceCode parseCompilationUnit(SourceCode sourceCode,
+                                                         ComparisonMode comparisonMode,
+                                                         WatcherResolver watcherResolver) {
+        final VisitorContext visitorContext = new VisitorContext(sourceCode, comparisonMode, watcherResolver);
         new Visitor().visit(sourceCode.toCompilationUnit(), visitorContext);
-        return new ParsedSourceCode(visitorContext.getAnnotatedBlocks());
+        return new ParsedSourceCode(visitorContext.getAnnotatedBlocks(), visitorContext.getWatcherReferences());
+    }
+
+    private static ParsedSourceCode scan(SourceCode sourceCode,
+                                         ComparisonMode comparisonMode,
+                                         WatcherResolver watcherResolver) {
+        final DeclarationScanner scanner = DeclarationScanner.scan(sourceCode.getText());
+        final VisitorContext visitorContext = new VisitorContext(sourceCode, comparisonMode, watcherResolver);
+        if (scanner.getPackageName() != null) {
+            visitorContext.setPackage(scanner.getPackageName());
+        }
+        for (DeclarationScanner.Import declaration : scanner.getImports()) {
+            visitorContext.addImport(declaration.getName(), declaration.isStatic(), declaration.isAsterisk());
+        }
+        for (DeclarationScanner.Declaration declaration : scanner.getDeclarations()) {
+            final WatchersExtractor extractor = visitorContext.getWatchersExtractor();
+            final List<WatcherReference> references = extractor.tryExtractReferences(declaration.getAnnotations());
+            if (references != null) {
+                // exact source code is hashed as it is, otherwise tokens of the file are reused for the fingerprint
+                final BlockFingerprint fingerprint = comparisonMode == ComparisonMode.EXACT
+                        ? null
+                        : scanner.getFingerprint(declaration, comparisonMode);
+                visitorContext.addAnnotatedBlock(AnnotatedBlock.fromDeclaration(sourceCode, comparisonMode, declaration,
+                        fingerprint, extractor.resolveWatchers(references)), references);
+            }
+        }
+        return new ParsedSourceCode(visitorContext.getAnnotatedBlocks(), visitorContext.getWatcherReferences());
+    }
+
+    private static ParsedSourceCode crossCheck(SourceCode sourceCode,
+                                               ComparisonMode comparisonMode,
+                                               WatcherResolver watcherResolver) {
+        final ParsedSourceCode parsed = parseCompilationUnit(sourceCode, comparisonMode, watcherResolver);
+        final ParsedSourceCode scanned;
+        try {
+            scanned = scan(sourceCode, comparisonMode, watcherResolver);
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Scanner failed on source code accepted by JavaParser", e);
+        }
+
+        final List<AnnotatedBlock> expected = parsed.getAnnotatedBlocks();
+        final List<AnnotatedBlock> actual = scanned.getAnnotatedBlocks();
+        for (int i = 0; i < Math.max(expected.size(), actual.size()); i++) {
+            final AnnotatedBlock expectedBlock = i < expected.size() ? expected.get(i) : null;
+            final AnnotatedBlock actualBlock = i < actual.size() ? actual.get(i) : null;
+            if (!sameBlocks(expectedBlock, actualBlock)) {
+                throw new IllegalStateException("Parser engines disagree on block #" + i
+                        + ": JavaParser found " + expectedBlock + " but scanner found " + actualBlock);
+            }
+        }
+        return parsed;
+    }
+
+    private static boolean sameBlocks(AnnotatedBlock first, AnnotatedBlock second) {
+        if (first == null || second == null) {
+            return first == second;
+        }
+        return first.getType() == second.getType()
+                && first.getName().equals(second.getName())
+                && first.getIdentityKey() == second.getIdentityKey()
+                && first.getTypePathLines().equals(second.getTypePathLines())
+                && samePositions(first.getStartPosition(), second.getStartPosition())
+                && samePositions(first.getEndPosition(), second.getEndPosition())
+                && first.getWatchers().equals(second.getWatchers())
+                && first.getFingerprint().equals(second.getFingerprint());
+    }
+
+    private static boolean samePositions(BlockPosition first, BlockPosition second) {
+        return first.getLine() == second.getLine() && first.getColumn() == second.getColumn();
+    }
+
+    /**
+     * Hunks of the diff computed on demand
+     */
+    public interface ChangedLinesSupplier {
+        /**
+         * @return hunks or {@code null} if they are unknown
+         */
+        List<LineChange> get() throws IOException;
     }
 
     private static class Visitor extends VoidVisitorAdapter<VisitorContext> {
         @Override
         public void visit(MethodDeclaration declaration, VisitorContext visitorContext) {
-            final List<String> watcherList = visitorContext.getWatchersExtractor().tryExtractWatchers(declaration);
-            if (watcherList != null) {
+            final WatchersExtractor extractor = visitorContext.getWatchersExtractor();
+            final List<WatcherReference> references = extractor.tryExtractReferences(declaration);
+            if (references != null) {
                 visitorContext.addAnnotatedBlock(AnnotatedBlock.fromNode(visitorContext.getSourceCode(),
-                        declaration, watcherList));
+                        visitorContext.getComparisonMode(), declaration, extractor.resolveWatchers(references)),
+                        references);
             }
             super.visit(declaration, visitorContext);
         }
 
         @Override
         public void visit(ConstructorDeclaration declaration, VisitorContext visitorContext) {
-            final List<String> watcherList = visitorContext.getWatchersExtractor().tryExtractWatchers(declaration);
-            if (watcherList != null) {
+            final WatchersExtractor extractor = visitorContext.getWatchersExtractor();
+            final List<WatcherReference> references = extractor.tryExtractReferences(declaration);
+            if (references != null) {
                 visitorContext.addAnnotatedBlock(AnnotatedBlock.fromNode(visitorContext.getSourceCode(),
-                        declaration, watcherList));
+                        visitorContext.getComparisonMode(), declaration, extractor.resolveWatchers(references)),
+                        references);
             }
             super.visit(declaration, visitorContext);
         }
 
         @Override
         public void visit(FieldDeclaration declaration, VisitorContext visitorContext) {
-            final List<String> watchers = visitorContext.getWatchersExtractor().tryExtractWatchers(declaration);
-            if (watchers != null) {
+            final WatchersExtractor extractor = visitorContext.getWatchersExtractor();
+            final List<WatcherReference> references = extractor.tryExtractReferences(declaration);
+            if (references != null) {
                 visitorContext.addAnnotatedBlock(AnnotatedBlock.fromNode(visitorContext.getSourceCode(),
-                        declaration, watchers));
+                        visitorContext.getComparisonMode(), declaration, extractor.resolveWatchers(references)),
+                        references);
             }
             super.visit(declaration, visitorContext);
         }
 
         @Override
         public void visit(ClassOrInterfaceDeclaration declaration, VisitorContext visitorContext) {
-            final List<String> watchers = visitorContext.getWatchersExtractor().tryExtractWatchers(declaration);
-            if (watchers != null) {
+            final WatchersExtractor extractor = visitorContext.getWatchersExtractor();
+            final List<WatcherReference> references = extractor.tryExtractReferences(declaration);
+            if (references != null) {
                 visitorContext.addAnnotatedBlock(AnnotatedBlock.fromNode(visitorContext.getSourceCode(),
-                        declaration, watchers));
+                        visitorContext.getComparisonMode(), declaration, extractor.resolveWatchers(references)),
+                        references);
             }
             super.visit(declaration, visitorContext);
         }
 
         @Override
         public void visit(AnnotationDeclaration declaration, VisitorContext visitorContext) {
-            final List<String> watchers = visitorContext.getWatchersExtractor().tryExtractWatchers(declaration);
-            if (watchers != null) {
+            final WatchersExtractor extractor = visitorContext.getWatchersExtractor();
+            final List<WatcherReference> references = extractor.tryExtractReferences(declaration);
+            if (references != null) {
                 visitorContext.addAnnotatedBlock(AnnotatedBlock.fromNode(visitorContext.getSourceCode(),
-                        declaration, watchers));
+                        visitorContext.getComparisonMode(), declaration, extractor.resolveWatchers(references)),
+                        references);
             }
             super.visit(declaration, visitorContext);
         }
 
         @Override
         public void visit(AnnotationMemberDeclaration declaration, VisitorContext visitorContext) {
-            final List<String> watchers = visitorContext.getWatchersExtractor().tryExtractWatchers(declaration);
-            if (watchers != null) {
+            final WatchersExtractor extractor = visitorContext.getWatchersExtractor();
+            final List<WatcherReference> references = extractor.tryExtractReferences(declaration);
+            if (references != null) {
                 visitorContext.addAnnotatedBlock(AnnotatedBlock.fromNode(visitorContext.getSourceCode(),
-                        declaration, watchers));
+                        visitorContext.getComparisonMode(), declaration, extractor.resolveWatchers(references)),
+                        references);
             }
             super.visit(declaration, visitorContext);
         }
 
         @Override
         public void visit(ImportDeclaration declaration, VisitorContext visitorContext) {
-            visitorContext.addImport(declaration);
+            visitorContext.addImport(declaration.getNameAsString(), declaration.isStatic(),
+                    declaration.isAsterisk());
             super.visit(declaration, visitorContext);
         }
 
         @Override
         public void visit(PackageDeclaration declaration, VisitorContext visitorContext) {
-            visitorContext.setPackage(declaration);
+            visitorContext.setPackage(declaration.getNameAsString());
             super.visit(declaration, visitorContext);
         }
     }
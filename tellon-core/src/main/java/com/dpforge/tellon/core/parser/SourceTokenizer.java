@@ -0,0 +1,220 @@
+package com.dpforge.tellon.core.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits Java source code into tokens. Comments are not tokens, they are collected separately.
+ * Lines and columns are 1-based and every character including tab takes one column like in JavaParser.
+ */
+final class SourceTokenizer {
+    enum TokenKind {
+        IDENTIFIER, // keywords included
+        STRING,
+        CHAR,
+        NUMBER,
+        SYMBOL,
+        EOF
+    }
+
+    enum CommentKind {
+        LINE,
+        BLOCK,
+        JAVADOC
+    }
+
+    private final CharSequence text;
+    private final int length;
+    private final List<Token> tokens = new ArrayList<>();
+    private final List<Comment> comments = new ArrayList<>();
+
+    private int offset;
+    private int line = 1;
+    private int column = 1;
+    private int lastLine;
+    private int lastColumn;
+
+    private SourceTokenizer(CharSequence text) {
+        this.text = text;
+        this.length = text.length();
+    }
+
+    static SourceTokenizer tokenize(CharSequence text) {
+        final SourceTokenizer tokenizer = new SourceTokenizer(text);
+        tokenizer.run();
+        return tokenizer;
+    }
+
+    List<Token> getTokens() {
+        return tokens;
+    }
+
+    List<Comment> getComments() {
+        return comments;
+    }
+
+    private void run() {
+        while (offset < length) {
+            final char c = text.charAt(offset);
+            if (c == ' ' || c == '\t' || c == '\f' || c == '\n' || c == '\r' || c == '\u001a') {
+                advance();
+            } else if (c == '/' && charAt(offset + 1) == '/') {
+                readLineComment();
+            } else if (c == '/' && charAt(offset + 1) == '*') {
+                readBlockComment();
+            } else if (c == '"' || c == '\'') {
+                readQuoted(c);
+            } else if (Character.isJavaIdentifierStart(c)) {
+                final Token token = startToken(TokenKind.IDENTIFIER);
+                do {
+                    advance();
+                } while (offset < length && Character.isJavaIdentifierPart(text.charAt(offset)));
+                finishToken(token);
+            } else if (isDigit(c) || (c == '.' && isDigit(charAt(offset + 1)))) {
+                readNumber();
+            } else {
+                final Token token = startToken(TokenKind.SYMBOL);
+                advance();
+                finishToken(token);
+            }
+        }
+        final Token eof = new Token(TokenKind.EOF, length, line, column);
+        eof.end = length;
+        eof.endLine = line;
+        eof.endColumn = column;
+        tokens.add(eof);
+    }
+
+    private void readLineComment() {
+        final Comment comment = new Comment(CommentKind.LINE, offset, line, column);
+        while (offset < length && text.charAt(offset) != '\n' && text.charAt(offset) != '\r') {
+            advance();
+        }
+        finishComment(comment);
+    }
+
+    private void readBlockComment() {
+        // "/**/" is an empty block comment rather than javadoc
+        final boolean javadoc = charAt(offset + 2) == '*' && charAt(offset + 3) != '/';
+        final Comment comment = new Comment(javadoc ? CommentKind.JAVADOC : CommentKind.BLOCK, offset, line, column);
+        advance();
+        advance();
+        while (offset < length && !(text.charAt(offset) == '*' && charAt(offset + 1) == '/')) {
+            advance();
+        }
+        if (offset < length) {
+            advance();
+            advance();
+        }
+        finishComment(comment);
+    }
+
+    private void readQuoted(char quote) {
+        final Token token = startToken(quote == '"' ? TokenKind.STRING : TokenKind.CHAR);
+        advance();
+        while (offset < length) {
+            final char c = text.charAt(offset);
+            if (c == '\n' || c == '\r') {
+                break;
+            }
+            advance();
+            if (c == quote) {
+                break;
+            }
+            if (c == '\\' && offset < length && text.charAt(offset) != '\n' && text.charAt(offset) != '\r') {
+                advance();
+            }
+        }
+        finishToken(token);
+    }
+
+    private void readNumber() {
+        final Token token = startToken(TokenKind.NUMBER);
+        final boolean hex = text.charAt(offset) == '0' && (charAt(offset + 1) == 'x' || charAt(offset + 1) == 'X');
+        while (offset < length) {
+            final char c = text.charAt(offset);
+            if (Character.isLetterOrDigit(c) || c == '_' || c == '.') {
+                advance();
+                final boolean exponent = hex ? (c == 'p' || c == 'P') : (c == 'e' || c == 'E');
+                if (exponent && (charAt(offset) == '+' || charAt(offset) == '-')) {
+                    advance();
+                }
+            } else {
+                break;
+            }
+        }
+        finishToken(token);
+    }
+
+    private Token startToken(TokenKind kind) {
+        return new Token(kind, offset, line, column);
+    }
+
+    private void finishToken(Token token) {
+        token.end = offset;
+        token.endLine = lastLine;
+        token.endColumn = lastColumn;
+        tokens.add(token);
+    }
+
+    private void finishComment(Comment comment) {
+        comment.end = offset;
+        comment.endLine = lastLine;
+        comment.endColumn = lastColumn;
+        comments.add(comment);
+    }
+
+    private void advance() {
+        final char c = text.charAt(offset++);
+        lastLine = line;
+        lastColumn = column;
+        if (c == '\n' || (c == '\r' && charAt(offset) != '\n')) {
+            line++;
+            column = 1;
+        } else {
+            column++;
+        }
+    }
+
+    private char charAt(int index) {
+        return index < length ? text.charAt(index) : '\0';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    static class Token {
+        final TokenKind kind;
+        final int start;
+        final int line;
+        final int column;
+        int end;
+        int endLine;
+        int endColumn;
+
+        private Token(TokenKind kind, int start, int line, int column) {
+            this.kind = kind;
+            this.start = start;
+            this.line = line;
+            this.column = column;
+        }
+    }
+
+    static class Comment {
+        final CommentKind kind;
+        final int start;
+        final int line;
+        final int column;
+        int end;
+        int endLine;
+        int endColumn;
+
+        private Comment(CommentKind kind, int start, int line, int column) {
+            this.kind = kind;
+            this.start = start;
+            this.line = line;
+            this.column = column;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.dpforge.tellon.core.parser;
+
+import com.dpforge.tellon.core.parser.SourceTokenizer.Comment;
+import com.dpforge.tellon.core.parser.SourceTokenizer.CommentKind;
+import com.dpforge.tellon.core.parser.SourceTokenizer.Token;
+import com.dpforge.tellon.core.parser.SourceTokenizer.TokenKind;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Turns source code of a block into the sequence of its tokens and comments which does not depend on formatting.
+ * Operator characters written without whitespace between them are kept as a single token, so {@code x++ + y}
+ * and {@code x + ++y} stay different. Comments are reduced to their words, leading asterisks of lines excluded.
+ */
+final class TokenNormalizer {
+    private static final String OPERATOR_CHARS = "+-*/%&|^!~<>=?:";
+
+    private TokenNormalizer() {
+    }
+
+    static List<String> normalize(List<String> lines, ComparisonMode mode) {
+        return normalize(String.join("\n", lines), mode);
+    }
+
+    static List<String> normalize(CharSequence source, ComparisonMode mode) {
+        final List<String> result = new ArrayList<>();
+        normalize(source, mode, new TokenSink() {
+            private final StringBuilder token = new StringBuilder();
+
+            @Override
+            public void append(CharSequence text, int start, int end) {
+                token.append(text, start, end);
+            }
+
+            @Override
+            public void endToken() {
+                result.add(token.toString());
+                token.setLength(0);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Passes normalized tokens to the sink as ranges of the source code, so no string is created per token
+     */
+    static void normalize(CharSequence source, ComparisonMode mode, TokenSink sink) {
+        final SourceTokenizer tokenizer = SourceTokenizer.tokenize(source);
+        normalize(source, tokenizer.getTokens(), tokenizer.getComments(), 0, source.length(), mode, sink);
+    }
+
+    /**
+     * Passes normalized tokens of the range of already tokenized text to the sink. The range must not split tokens
+     * or comments, then the result is the same as if the text of the range were tokenized on its own.
+     *
+     * @param start offset of the first character of the range
+     * @param end   offset after the last character of the range
+     */
+    static void normalize(CharSequence text,
+                          List<Token> tokens,
+                          List<Comment> comments,
+                          int start,
+                          int end,
+                          ComparisonMode mode,
+                          TokenSink sink) {
+        if (mode == ComparisonMode.EXACT) {
+            throw new IllegalArgumentException("Exact source code is not normalized");
+        }
+        int commentIndex = findFirst(comments, start, comment -> comment.start);
+        // range of operator characters not passed to the sink yet since the next token may continue it
+        int operatorStart = -1;
+        int operatorEnd = -1;
+        for (int i = findFirst(tokens, start, token -> token.start); i < tokens.size(); i++) {
+            final Token token = tokens.get(i);
+            final boolean last = token.kind == TokenKind.EOF || token.start >= end;
+            final int commentsEnd = last ? end : token.start;
+            while (commentIndex < comments.size() && comments.get(commentIndex).start < commentsEnd) {
+                final Comment comment = comments.get(commentIndex++);
+                if (!isIgnored(comment.kind, mode)) {
+                    if (operatorStart >= 0) {
+                        emit(sink, text, operatorStart, operatorEnd);
+                        operatorStart = -1;
+                    }
+                    emitComment(sink, text, comment);
+                }
+            }
+            if (last) {
+                break;
+            }
+            final boolean operator = isOperator(text, token);
+            if (operator && operatorStart >= 0 && operatorEnd == token.start) {
+                operatorEnd = token.end;
+                continue;
+            }
+            if (operatorStart >= 0) {
+                emit(sink, text, operatorStart, operatorEnd);
+                operatorStart = -1;
+            }
+            if (operator) {
+                operatorStart = token.start;
+                operatorEnd = token.end;
+            } else {
+                emit(sink, text, token.start, token.end);
+            }
+        }
+        if (operatorStart >= 0) {
+            emit(sink, text, operatorStart, operatorEnd);
+        }
+    }
+
+    /**
+     * Index of the first element starting at the offset or after it, elements are sorted by their start
+     */
+    private static <T> int findFirst(List<T> elements, int offset, ToIntFunction<T> start) {
+        int low = 0;
+        int high = elements.size();
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (start.applyAsInt(elements.get(middle)) < offset) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static boolean isIgnored(CommentKind kind, ComparisonMode mode) {
+        switch (mode) {
+            case IGNORE_JAVADOC:
+                return true;
+            case IGNORE_COMMENTS:
+                return kind != CommentKind.JAVADOC;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isOperator(CharSequence text, Token token) {
+        return token.kind == TokenKind.SYMBOL && OPERATOR_CHARS.indexOf(text.charAt(token.start)) >= 0;
+    }
+
+    private static void emit(TokenSink sink, CharSequence text, int start, int end) {
+        sink.append(text, start, end);
+        sink.endToken();
+    }
+
+    /**
+     * Passes the comment as its prefix followed by its words separated with spaces
+     */
+    private static void emitComment(TokenSink sink, CharSequence text, Comment comment) {
+        final String prefix;
+        int end = comment.end;
+        switch (comment.kind) {
+            case LINE:
+                prefix = "//";
+                break;
+            case JAVADOC:
+                prefix = "/**";
+                break;
+            case BLOCK:
+            default:
+                prefix = "/*";
+                break;
+        }
+        if (comment.kind != CommentKind.LINE && end - 2 >= comment.start + prefix.length()
+                && text.charAt(end - 2) == '*' && text.charAt(end - 1) == '/') {
+            end -= 2;
+        }
+
+        int start = comment.start + prefix.length();
+        // trimmed the same way as strings
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        sink.append(prefix, 0, prefix.length());
+        int wordStart = -1;
+        for (int i = start; i <= end; i++) {
+            if (i < end && !isWhitespace(text.charAt(i))) {
+                if (wordStart < 0) {
+                    wordStart = i;
+                }
+            } else if (wordStart >= 0) {
+                if (!isAsterisks(text, wordStart, i)) {
+                    sink.append(" ", 0, 1);
+                    sink.append(text, wordStart, i);
+                }
+                wordStart = -1;
+            }
+        }
+        sink.endToken();
+    }
+
+    /**
+     * Whitespace of regular expressions, control characters other than these ones are parts of words
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000b' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isAsterisks(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) != '*') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Receiver of normalized tokens, every token is passed in one or more pieces followed by the end of token
+     */
+    interface TokenSink {
+        void append(CharSequence text, int start, int end);
+
+        void endToken();
+    }
+}
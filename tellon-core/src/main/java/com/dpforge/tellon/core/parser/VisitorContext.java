@@ -2,8 +2,6 @@ package com.dpforge.tellon.core.parser;
 
 import com.dpforge.tellon.annotations.NotifyChanges;
 import com.dpforge.tellon.core.parser.resolver.WatcherResolver;
-import com.github.javaparser.ast.ImportDeclaration;
-import com.github.javaparser.ast.PackageDeclaration;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -14,14 +12,17 @@ class VisitorContext {
 
     private final WatchersExtractor watchersExtractor;
     private final SourceCode sourceCode;
+    private final ComparisonMode comparisonMode;
 
     private boolean annotationImported;
 
     private final List<AnnotatedBlock> annotatedBlocks = new ArrayList<>();
-    private final List<ImportDeclaration> imports = new ArrayList<>();
+    private final List<List<WatcherReference>> watcherReferences = new ArrayList<>();
+    private final ImportScope importScope = new ImportScope();
 
-    VisitorContext(SourceCode sourceCode, WatcherResolver watcherResolver) {
+    VisitorContext(SourceCode sourceCode, ComparisonMode comparisonMode, WatcherResolver watcherResolver) {
         this.sourceCode = sourceCode;
+        this.comparisonMode = comparisonMode;
         this.watchersExtractor = new WatchersExtractor(this, watcherResolver);
     }
 
@@ -29,33 +30,46 @@ class VisitorContext {
         return sourceCode;
     }
 
+    ComparisonMode getComparisonMode() {
+        return comparisonMode;
+    }
+
     WatchersExtractor getWatchersExtractor() {
         return watchersExtractor;
     }
 
-    void addAnnotatedBlock(AnnotatedBlock block) {
+    void addAnnotatedBlock(AnnotatedBlock block, List<WatcherReference> references) {
         annotatedBlocks.add(block);
+        watcherReferences.add(references);
     }
 
     List<AnnotatedBlock> getAnnotatedBlocks() {
         return annotatedBlocks;
     }
 
-    void addImport(ImportDeclaration declaration) {
-        imports.add(declaration);
-        if (!annotationImported) {
-            if (declaration.isAsterisk()) {
-                annotationImported = NOTIFY_CHANGED_ANNOTATION_PACKAGE.equals(declaration.getNameAsString());
+    List<List<WatcherReference>> getWatcherReferences() {
+        return watcherReferences;
+    }
+
+    /**
+     * @param name imported name without trailing asterisk
+     */
+    void addImport(String name, boolean isStatic, boolean asterisk) {
+        importScope.addImport(name, isStatic, asterisk);
+        if (!annotationImported && !isStatic) {
+            if (asterisk) {
+                annotationImported = NOTIFY_CHANGED_ANNOTATION_PACKAGE.equals(name);
             } else {
-                annotationImported = NOTIFY_CHANGES_ANNOTATION.equals(declaration.getNameAsString());
+                annotationImported = NOTIFY_CHANGES_ANNOTATION.equals(name);
             }
         }
     }
 
-    void setPackage(PackageDeclaration declaration) {
+    void setPackage(String name) {
+         importScope.setPackage(name);
          if (!annotationImported) {
              // if annotated class in the same package with NotifyChanges annotation
-             annotationImported = NOTIFY_CHANGED_ANNOTATION_PACKAGE.equals(declaration.getNameAsString());
+             annotationImported = NOTIFY_CHANGED_ANNOTATION_PACKAGE.equals(name);
          }
     }
 
@@ -63,12 +77,7 @@ class VisitorContext {
         return annotationImported;
     }
 
-    public String resolveClassName(String className) {
-        for (ImportDeclaration declaration : imports) {
-            if (declaration.getName().getIdentifier().equals(className)) {
-                return declaration.getNameAsString();
-            }
-        }
-        return null;
+    ImportScope getImportScope() {
+        return importScope;
     }
 }
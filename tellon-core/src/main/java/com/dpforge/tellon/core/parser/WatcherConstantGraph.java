@@ -0,0 +1,248 @@
+package com.dpforge.tellon.core.parser;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves watcher constants which may reference constants of the same, nested or other classes, including ones
+ * imported statically. Every class is loaded once and resolved values are memoized, so the graph is meant to live
+ * as long as the source code of classes stays the same. Cyclic references are reported instead of being followed.
+ * <p>
+ * Nested classes are told from packages by the case of the first letter: {@code com.test.Contacts.Team} means class
+ * {@code Team} nested in {@code com.test.Contacts}.
+ * <p>
+ * Graph is thread-safe if its loader is thread-safe.
+ */
+public class WatcherConstantGraph {
+
+    public interface Loader {
+        /**
+         * Returns constants of the top level class by its qualified name
+         */
+        WatcherConstants load(String qualifiedName) throws IOException;
+    }
+
+    private final Loader loader;
+    private final Map<String, WatcherConstants> classes = new ConcurrentHashMap<>();
+    private final Map<String, String> values = new ConcurrentHashMap<>();
+
+    public WatcherConstantGraph(Loader loader) {
+        if (loader == null) {
+            throw new NullPointerException("Loader cannot be null");
+        }
+        this.loader = loader;
+    }
+
+    /**
+     * Returns value of the constant or {@code null} if the class does not declare such field
+     */
+    public String resolve(String qualifiedName, String field) throws IOException {
+        return resolve(qualifiedName, field, new LinkedHashSet<>(), false);
+    }
+
+    /**
+     * Returns value of the constant declared by the first of candidate classes which declares it or {@code null}
+     * if none does. Candidates which are unknown to the loader are skipped unless there is only one.
+     */
+    public String resolve(List<String> qualifiedNames, String field) throws IOException {
+        if (qualifiedNames.size() == 1) {
+            return resolve(qualifiedNames.get(0), field);
+        }
+        final String declaring = findDeclaringClass(qualifiedNames, field);
+        return declaring != null ? resolve(declaring, field) : null;
+    }
+
+    /**
+     * Forgets the class. Resolved values are forgotten all together since they may depend on it.
+     */
+    public void invalidate(String qualifiedName) {
+        classes.remove(new ClassName(qualifiedName).topLevel);
+        values.clear();
+    }
+
+    public void invalidateAll() {
+        classes.clear();
+        values.clear();
+    }
+
+    private String resolve(String qualifiedName, String field, Set<String> path, boolean required)
+            throws IOException {
+        final String key = qualifiedName + "." + field;
+        final String resolved = values.get(key);
+        if (resolved != null) {
+            return resolved;
+        }
+        if (!path.add(key)) {
+            throw new RuntimeException("Cyclic reference of watcher constants: "
+                    + String.join(" -> ", path) + " -> " + key);
+        }
+
+        final ClassName className = new ClassName(qualifiedName);
+        final WatcherConstants constants = load(className.topLevel);
+        final String typePath = constants.findType(className.simpleName, className.nestedNames);
+        final WatcherConstants.Value value = typePath != null ? constants.getValue(typePath, field) : null;
+        if (value == null) {
+            if (required) {
+                throw new RuntimeException("Field '" + field + "' is not declared in '" + qualifiedName + "'");
+            }
+            path.remove(key);
+            return null;
+        }
+
+        final String result;
+        switch (value.getKind()) {
+            case LITERAL:
+                result = value.getValue();
+                break;
+            case REFERENCE:
+                final String referenced = findReferencedClass(className, constants, typePath, value);
+                result = resolve(referenced, value.getValue(), path, true);
+                break;
+            case UNSUPPORTED:
+                throw new UnsupportedOperationException(value.getValue());
+            case INVALID:
+            default:
+                throw new RuntimeException(value.getValue());
+        }
+        path.remove(key);
+        values.put(key, result);
+        return result;
+    }
+
+    private String findReferencedClass(ClassName className,
+                                       WatcherConstants constants,
+                                       String typePath,
+                                       WatcherConstants.Value value) throws IOException {
+        final String scope = value.getScope();
+        if (scope == null) {
+            return findFieldClass(className, constants, typePath, value.getValue());
+        }
+
+        // the class itself, enclosing or nested ones hide imported classes
+        final int dot = scope.indexOf('.');
+        final String first = dot < 0 ? scope : scope.substring(0, dot);
+        final String rest = dot < 0 ? "" : scope.substring(dot);
+        for (String type = typePath; type != null; type = getEnclosingType(type)) {
+            if (type.substring(type.lastIndexOf('.') + 1).equals(first)) {
+                return className.qualify(type) + rest;
+            }
+            if (constants.hasType(type + "." + first)) {
+                return className.qualify(type + "." + first) + rest;
+            }
+        }
+        final List<String> candidates = constants.getImportScope().resolveClassNames(scope);
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+        final String declaring = findDeclaringClass(candidates, value.getValue());
+        if (declaring == null) {
+            throw new RuntimeException("Field '" + value.getValue() + "' is not declared in any of " + candidates);
+        }
+        return declaring;
+    }
+
+    private String findFieldClass(ClassName className,
+                                  WatcherConstants constants,
+                                  String typePath,
+                                  String field) throws IOException {
+        for (String type = typePath; type != null; type = getEnclosingType(type)) {
+            if (constants.getValue(type, field) != null) {
+                return className.qualify(type);
+            }
+        }
+        final ImportScope importScope = constants.getImportScope();
+        final String imported = importScope.getStaticImport(field);
+        if (imported != null) {
+            return imported;
+        }
+        final String declaring = findDeclaringClass(importScope.getStaticAsteriskImports(), field);
+        if (declaring == null) {
+            throw new RuntimeException("Reference to non-declared name: " + field);
+        }
+        return declaring;
+    }
+
+    private String findDeclaringClass(List<String> candidates, String field) throws IOException {
+        for (String candidate : candidates) {
+            if (declares(candidate, field)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private boolean declares(String qualifiedName, String field) throws IOException {
+        final ClassName className = new ClassName(qualifiedName);
+        final WatcherConstants constants;
+        try {
+            constants = load(className.topLevel);
+        } catch (FileNotFoundException e) {
+            // classes out of the project (e.g. JDK ones) are not known
+            return false;
+        }
+        final String typePath = constants.findType(className.simpleName, className.nestedNames);
+        return typePath != null && constants.getValue(typePath, field) != null;
+    }
+
+    private WatcherConstants load(String topLevel) throws IOException {
+        try {
+            return classes.computeIfAbsent(topLevel, name -> {
+                try {
+                    return loader.load(name);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static String getEnclosingType(String typePath) {
+        final int dot = typePath.lastIndexOf('.');
+        return dot < 0 ? null : typePath.substring(0, dot);
+    }
+
+    private static class ClassName {
+        final String topLevel;
+        final String simpleName;
+        final String nestedNames;
+
+        ClassName(String qualifiedName) {
+            final String[] segments = qualifiedName.split("\\.");
+            int topLevelIndex = segments.length - 1;
+            for (int i = 0; i < segments.length; i++) {
+                if (!segments[i].isEmpty() && Character.isUpperCase(segments[i].charAt(0))) {
+                    topLevelIndex = i;
+                    break;
+                }
+            }
+            final StringBuilder topLevel = new StringBuilder();
+            final StringBuilder nested = new StringBuilder();
+            for (int i = 0; i < segments.length; i++) {
+                final StringBuilder builder = i <= topLevelIndex ? topLevel : nested;
+                if (builder.length() > 0) {
+                    builder.append('.');
+                }
+                builder.append(segments[i]);
+            }
+            this.topLevel = topLevel.toString();
+            this.simpleName = segments[topLevelIndex];
+            this.nestedNames = nested.toString();
+        }
+
+        /**
+         * Qualified name of the type declared in the same unit as this class
+         */
+        String qualify(String typePath) {
+            final int dot = typePath.indexOf('.');
+            return dot < 0 ? topLevel : topLevel + typePath.substring(dot);
+        }
+    }
+}
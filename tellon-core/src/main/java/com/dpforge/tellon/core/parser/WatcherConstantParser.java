@@ -1,7 +1,8 @@
 package com.dpforge.tellon.core.parser;
 
-import com.github.javaparser.ast.body.FieldDeclaration;
-import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.body.*;
 import com.github.javaparser.ast.expr.*;
 import com.github.javaparser.ast.type.ArrayType;
 import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
@@ -16,6 +17,90 @@ public class WatcherConstantParser {
         return fields;
     }
 
+    /**
+     * Collects constants of all classes in the source code without resolving references between them,
+     * see {@link WatcherConstantGraph}
+     */
+    public WatcherConstants parseDeclarations(SourceCode sourceCode) {
+        final CompilationUnit unit = sourceCode.toCompilationUnit();
+        final ImportScope importScope = new ImportScope();
+        unit.getPackageDeclaration().ifPresent(declaration -> importScope.setPackage(declaration.getNameAsString()));
+        for (ImportDeclaration declaration : unit.getImports()) {
+            importScope.addImport(declaration.getNameAsString(), declaration.isStatic(), declaration.isAsterisk());
+        }
+        final WatcherConstants constants = new WatcherConstants(importScope);
+        for (TypeDeclaration<?> type : unit.getTypes()) {
+            addType(constants, type, null);
+        }
+        return constants;
+    }
+
+    private static void addType(WatcherConstants constants, TypeDeclaration<?> type, String outerPath) {
+        final String path = outerPath == null ? type.getNameAsString() : outerPath + "." + type.getNameAsString();
+        constants.addType(path);
+        // fields of interfaces are implicitly static and final
+        final boolean constantFields = type instanceof AnnotationDeclaration
+                || (type instanceof ClassOrInterfaceDeclaration && ((ClassOrInterfaceDeclaration) type).isInterface());
+        for (BodyDeclaration<?> member : type.getMembers()) {
+            if (member instanceof TypeDeclaration) {
+                addType(constants, (TypeDeclaration<?>) member, path);
+            } else if (member instanceof FieldDeclaration) {
+                addFields(constants, path, (FieldDeclaration) member, constantFields);
+            }
+        }
+    }
+
+    private static void addFields(WatcherConstants constants,
+                                  String typePath,
+                                  FieldDeclaration field,
+                                  boolean constantFields) {
+        final String error = getFieldError(field, constantFields);
+        for (VariableDeclarator var : field.getVariables()) {
+            final String name = var.getNameAsString();
+            if (error != null) {
+                constants.addValue(typePath, name, WatcherConstants.Value.invalid(error));
+            } else if (!var.getInitializer().isPresent()) {
+                constants.addValue(typePath, name,
+                        WatcherConstants.Value.invalid("Field '" + name + "' has no initializer"));
+            } else {
+                constants.addValue(typePath, name, getValue(name, var.getInitializer().get()));
+            }
+        }
+    }
+
+    private static WatcherConstants.Value getValue(String name, Expression initializer) {
+        if (initializer instanceof StringLiteralExpr) {
+            return WatcherConstants.Value.literal(((StringLiteralExpr) initializer).getValue());
+        } else if (initializer instanceof NameExpr) {
+            return WatcherConstants.Value.reference(null, ((NameExpr) initializer).getNameAsString());
+        } else if (initializer instanceof FieldAccessExpr) {
+            final FieldAccessExpr fieldAccess = (FieldAccessExpr) initializer;
+            if (fieldAccess.getScope().isPresent()) {
+                return WatcherConstants.Value.reference(fieldAccess.getScope().get().toString(),
+                        fieldAccess.getNameAsString());
+            }
+        }
+        return WatcherConstants.Value.unsupported("Field '" + name + "' must be initialized with string literal "
+                + "or reference to another string constant");
+    }
+
+    private static String getFieldError(FieldDeclaration field, boolean constantFields) {
+        if (!constantFields && !field.isStatic()) {
+            return "Field not static";
+        }
+        if (!constantFields && !field.isFinal()) {
+            return "Field not final";
+        }
+        if (!"String".equals(field.getElementType().toString())) {
+            return "Field must be of type String";
+        }
+        if (field.getElementType().getParentNode().isPresent()
+                && field.getElementType().getParentNode().get() instanceof ArrayType) {
+            return "Field must be constant string not array";
+        }
+        return null;
+    }
+
     private static class Visitor extends VoidVisitorAdapter<Void> {
         private final Map<String, String> map;
 
@@ -0,0 +1,113 @@
+package com.dpforge.tellon.core.parser;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Watcher constants declared in a single compilation unit, including nested classes, with their initializers
+ * kept unresolved. Types are identified by their paths within the unit, e.g. {@code Contacts.Team}.
+ * Fields which cannot be used as watcher constants are kept too and fail only when they are referenced.
+ */
+public final class WatcherConstants {
+    private final ImportScope importScope;
+    private final List<String> topLevelTypes = new ArrayList<>();
+    private final Map<String, Map<String, Value>> types = new HashMap<>();
+
+    WatcherConstants(ImportScope importScope) {
+        this.importScope = importScope;
+    }
+
+    ImportScope getImportScope() {
+        return importScope;
+    }
+
+    void addType(String typePath) {
+        if (typePath.indexOf('.') < 0) {
+            topLevelTypes.add(typePath);
+        }
+        types.putIfAbsent(typePath, new HashMap<>());
+    }
+
+    void addValue(String typePath, String field, Value value) {
+        types.get(typePath).put(field, value);
+    }
+
+    boolean hasType(String typePath) {
+        return types.containsKey(typePath);
+    }
+
+    /**
+     * Returns path of the type by simple name of top level class and names of nested classes (possibly empty).
+     * Top level class is the first one of the unit unless the unit declares class with the given name.
+     */
+    String findType(String topLevelName, String nestedNames) {
+        final String topLevel = topLevelTypes.contains(topLevelName) || topLevelTypes.isEmpty()
+                ? topLevelName
+                : topLevelTypes.get(0);
+        final String typePath = nestedNames.isEmpty() ? topLevel : topLevel + "." + nestedNames;
+        return types.containsKey(typePath) ? typePath : null;
+    }
+
+    /**
+     * Returns initializer of the field or {@code null} if the type does not declare it
+     */
+    Value getValue(String typePath, String field) {
+        final Map<String, Value> values = types.get(typePath);
+        return values != null ? values.get(field) : null;
+    }
+
+    static final class Value {
+        enum Kind {
+            LITERAL,
+            REFERENCE,
+            INVALID,
+            UNSUPPORTED
+        }
+
+        private final Kind kind;
+        private final String scope;
+        private final String value;
+
+        private Value(Kind kind, String scope, String value) {
+            this.kind = kind;
+            this.scope = scope;
+            this.value = value;
+        }
+
+        Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * Class name of referenced field or {@code null} if field is referenced by its simple name
+         */
+        String getScope() {
+            return scope;
+        }
+
+        /**
+         * Literal value, name of referenced field or error message for invalid and unsupported fields
+         */
+        String getValue() {
+            return value;
+        }
+
+        static Value literal(String value) {
+            return new Value(Kind.LITERAL, null, value);
+        }
+
+        static Value reference(String scope, String field) {
+            return new Value(Kind.REFERENCE, scope, field);
+        }
+
+        static Value invalid(String message) {
+            return new Value(Kind.INVALID, null, message);
+        }
+
+        static Value unsupported(String message) {
+            return new Value(Kind.UNSUPPORTED, null, message);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.dpforge.tellon.core.parser;
+
+import com.dpforge.tellon.core.parser.resolver.WatcherResolver;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Single argument of {@link com.dpforge.tellon.annotations.NotifyChanges} annotation before it is resolved
+ * to watchers: either string literal or constant field of the class. The class is known only by candidate qualified
+ * names when it is imported on demand, so the one which declares the field is chosen by the resolver.
+ */
+final class WatcherReference {
+    private final List<String> qualifiedNames;
+    private final String value;
+
+    private WatcherReference(List<String> qualifiedNames, String value) {
+        this.qualifiedNames = qualifiedNames;
+        this.value = value;
+    }
+
+    static WatcherReference literal(String value) {
+        return new WatcherReference(null, value);
+    }
+
+    static WatcherReference field(String qualifiedName, String field) {
+        return field(Collections.singletonList(qualifiedName), field);
+    }
+
+    static WatcherReference field(List<String> qualifiedNames, String field) {
+        if (qualifiedNames.isEmpty()) {
+            throw new IllegalArgumentException("No candidate classes for field '" + field + "'");
+        }
+        return new WatcherReference(Collections.unmodifiableList(new ArrayList<>(qualifiedNames)), field);
+    }
+
+    boolean isField() {
+        return qualifiedNames != null;
+    }
+
+    /**
+     * Qualified names of candidate classes declaring the field in order of precedence or {@code null} for literal
+     */
+    List<String> getQualifiedNames() {
+        return qualifiedNames;
+    }
+
+    /**
+     * Literal value or field name
+     */
+    String getValue() {
+        return value;
+    }
+
+    List<String> resolve(WatcherResolver resolver) throws IOException {
+        if (!isField()) {
+            return resolver.resolveLiteral(value);
+        }
+        return qualifiedNames.size() == 1
+                ? resolver.resolveReference(qualifiedNames.get(0), value)
+                : resolver.resolveReference(qualifiedNames, value);
+    }
+
+    static List<String> resolveAll(List<WatcherReference> references, WatcherResolver resolver) {
+        final List<String> result = new ArrayList<>(references.size());
+        try {
+            for (WatcherReference reference : references) {
+                result.addAll(reference.resolve(resolver));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Fail to extract watchers", e);
+        }
+        return Collections.unmodifiableList(result);
+    }
+}
@@ -6,7 +6,6 @@ import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.expr.*;
 import com.github.javaparser.ast.nodeTypes.NodeWithAnnotations;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -23,7 +22,10 @@ class WatchersExtractor {
         this.watcherResolver = watcherResolver;
     }
 
-    List<String> tryExtractWatchers(NodeWithAnnotations<?> node) {
+    /**
+     * Returns unresolved arguments of {@link NotifyChanges} annotation or {@code null} if node is not annotated
+     */
+    List<WatcherReference> tryExtractReferences(NodeWithAnnotations<?> node) {
         final NodeList<AnnotationExpr> annotations = node.getAnnotations();
 
         if (annotations.isEmpty()) {
@@ -31,73 +33,121 @@ class WatchersExtractor {
         }
 
         for (AnnotationExpr a : annotations) {
-            if (verifyAnnotation(a)) {
-                try {
-                    return Collections.unmodifiableList(extractArguments(a));
-                } catch (IOException e) {
-                    throw new RuntimeException("Fail to extract watchers", e);
-                }
+            if (verifyAnnotation(a.getNameAsString())) {
+                return Collections.unmodifiableList(extractArguments(a));
             }
         }
         return null;
     }
 
-    private boolean verifyAnnotation(AnnotationExpr annotation) {
-        if (ANNOTATION_QUALIFIED_NAME.equals(annotation.getNameAsString())) {
+    List<WatcherReference> tryExtractReferences(List<DeclarationScanner.Annotation> annotations) {
+        for (DeclarationScanner.Annotation a : annotations) {
+            if (verifyAnnotation(a.getName())) {
+                return Collections.unmodifiableList(extractArguments(a));
+            }
+        }
+        return null;
+    }
+
+    List<String> resolveWatchers(List<WatcherReference> references) {
+        return WatcherReference.resolveAll(references, watcherResolver);
+    }
+
+    private boolean verifyAnnotation(String annotationName) {
+        if (ANNOTATION_QUALIFIED_NAME.equals(annotationName)) {
             return true;
         }
 
         //noinspection SimplifiableIfStatement
         if (visitorContext.isAnnotationImported()) {
-            return ANNOTATION_NAME.equals(annotation.getNameAsString());
+            return ANNOTATION_NAME.equals(annotationName);
         }
 
         return false;
     }
 
-    private List<String> extractArguments(AnnotationExpr annotation) throws IOException {
+    private List<WatcherReference> extractArguments(AnnotationExpr annotation) {
         if (annotation instanceof SingleMemberAnnotationExpr) {
             return processAnnotationArgument(((SingleMemberAnnotationExpr) annotation).getMemberValue());
         }
         throw new UnsupportedOperationException();
     }
 
-    private List<String> processAnnotationArgument(Expression expression) throws IOException {
+    private List<WatcherReference> extractArguments(DeclarationScanner.Annotation annotation) {
+        if (annotation.getKind() != DeclarationScanner.Annotation.Kind.SINGLE_MEMBER) {
+            throw new UnsupportedOperationException();
+        }
+        final List<WatcherReference> result = new ArrayList<>(annotation.getValues().size());
+        for (DeclarationScanner.AnnotationValue value : annotation.getValues()) {
+            switch (value.getKind()) {
+                case LITERAL:
+                    result.add(WatcherReference.literal(value.getValue()));
+                    break;
+                case NAME:
+                    result.add(processName(value.getValue()));
+                    break;
+                case FIELD_ACCESS:
+                    result.add(processFieldAccess(value.getScope(), value.getValue()));
+                    break;
+                default:
+                    throw new UnsupportedOperationException();
+            }
+        }
+        return result;
+    }
+
+    private List<WatcherReference> processAnnotationArgument(Expression expression) {
         if (expression instanceof ArrayInitializerExpr) {
             return processArrayExpression((ArrayInitializerExpr) expression);
         }
-        return processExpression(expression);
+        return Collections.singletonList(processExpression(expression));
     }
 
-    private List<String> processArrayExpression(ArrayInitializerExpr expression) throws IOException {
+    private List<WatcherReference> processArrayExpression(ArrayInitializerExpr expression) {
         final NodeList<Expression> values = expression.getValues();
-        final List<String> result = new ArrayList<>(values.size());
+        final List<WatcherReference> result = new ArrayList<>(values.size());
         for (Expression val : values) {
-            result.addAll(processExpression(val));
+            result.add(processExpression(val));
         }
         return result;
     }
 
-    private List<String> processExpression(Expression expression) throws IOException {
+    private WatcherReference processExpression(Expression expression) {
         if (expression instanceof StringLiteralExpr) {
-            final String value = ((StringLiteralExpr) expression).getValue();
-            return watcherResolver.resolveLiteral(value);
+            return WatcherReference.literal(((StringLiteralExpr) expression).getValue());
         } else if (expression instanceof FieldAccessExpr) {
-            return processFieldAccess((FieldAccessExpr) expression);
+            // At this case there is no way to get FieldAccess expression without scope.
+            // Because UnsupportedOperationException will be thrown earlier.
+            // noinspection OptionalGetWithoutIsPresent
+            final FieldAccessExpr fieldAccess = (FieldAccessExpr) expression;
+            return processFieldAccess(fieldAccess.getScope().get().toString(), fieldAccess.getNameAsString());
+        } else if (expression instanceof NameExpr) {
+            return processName(((NameExpr) expression).getNameAsString());
         }
         throw new UnsupportedOperationException();
     }
 
-    private List<String> processFieldAccess(FieldAccessExpr expression) throws IOException {
-        // At this case there is no way to get FieldAccess expression without scope.
-        // Because UnsupportedOperationException will be thrown earlier.
-        // noinspection OptionalGetWithoutIsPresent
-        final String className = expression.getScope().get().toString();
-        final String fieldName = expression.getNameAsString();
-        final String qualifiedName = visitorContext.resolveClassName(className);
-        if (qualifiedName == null || qualifiedName.isEmpty()) {
-            throw new RuntimeException("Class '" + className + "' is not imported or imported in unsupported way");
+    /**
+     * Class name may be qualified, imported, nested (e.g. {@code Contacts.Team}), from the same package
+     * or from a package imported on demand
+     */
+    private WatcherReference processFieldAccess(String className, String fieldName) {
+        return WatcherReference.field(visitorContext.getImportScope().resolveClassNames(className), fieldName);
+    }
+
+    /**
+     * Field without class name must be imported statically. Every class imported on demand may declare it.
+     */
+    private WatcherReference processName(String fieldName) {
+        final ImportScope importScope = visitorContext.getImportScope();
+        final String qualifiedName = importScope.getStaticImport(fieldName);
+        if (qualifiedName != null) {
+            return WatcherReference.field(qualifiedName, fieldName);
+        }
+        final List<String> asteriskImports = importScope.getStaticAsteriskImports();
+        if (asteriskImports.isEmpty()) {
+            throw new UnsupportedOperationException("Field '" + fieldName + "' is not imported statically");
         }
-        return watcherResolver.resolveReference(qualifiedName, fieldName);
+        return WatcherReference.field(asteriskImports, fieldName);
     }
 }
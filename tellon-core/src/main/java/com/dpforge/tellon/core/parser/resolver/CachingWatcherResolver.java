@@ -0,0 +1,83 @@
+package com.dpforge.tellon.core.parser.resolver;
+
+import com.dpforge.tellon.core.observer.SourceCodeProvider;
+import com.dpforge.tellon.core.parser.WatcherConstantGraph;
+import com.dpforge.tellon.core.parser.WatcherConstants;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Source code resolver which reads and parses every class with watcher constants only once and memoizes resolved
+ * constants in {@link WatcherConstantGraph}. They are kept until invalidated, so long-running processes should call
+ * {@link #invalidate(String)} or {@link #invalidateAll()} when the source code of constants may change.
+ * <p>
+ * Parsed classes which have content id are also shared with resolvers created by
+ * {@link #withProvider(SourceCodeProvider)}, so the class is parsed once for all revisions where it is the same.
+ * <p>
+ * Resolver is thread-safe if its source code provider is thread-safe.
+ */
+public class CachingWatcherResolver extends SourceCodeWatcherResolver {
+
+    private final WatcherConstantGraph graph = new WatcherConstantGraph(this::loadConstants);
+    private final Map<String, WatcherConstants> contentConstants;
+
+    public CachingWatcherResolver(SourceCodeProvider sourceCodeProvider) {
+        this(sourceCodeProvider, new ConcurrentHashMap<>());
+    }
+
+    private CachingWatcherResolver(SourceCodeProvider sourceCodeProvider,
+                                   Map<String, WatcherConstants> contentConstants) {
+        super(sourceCodeProvider);
+        this.contentConstants = contentConstants;
+    }
+
+    /**
+     * Creates resolver over another source code provider (e.g. of another revision) which shares parsed classes
+     * with equal content ids with this one
+     */
+    public CachingWatcherResolver withProvider(SourceCodeProvider sourceCodeProvider) {
+        return new CachingWatcherResolver(sourceCodeProvider, contentConstants);
+    }
+
+    @Override
+    protected String resolveConstant(String qualifiedName, String field) throws IOException {
+        return graph.resolve(qualifiedName, field);
+    }
+
+    @Override
+    protected String resolveConstant(List<String> qualifiedNames, String field) throws IOException {
+        return graph.resolve(qualifiedNames, field);
+    }
+
+    @Override
+    protected WatcherConstants loadConstants(String qualifiedName) throws IOException {
+        final String contentId = getSourceCodeProvider().getContentId(qualifiedName);
+        if (contentId == null) {
+            return super.loadConstants(qualifiedName);
+        }
+        try {
+            return contentConstants.computeIfAbsent(contentId, id -> {
+                try {
+                    return super.loadConstants(qualifiedName);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public void invalidate(String qualifiedName) {
+        graph.invalidate(qualifiedName);
+    }
+
+    public void invalidateAll() {
+        graph.invalidateAll();
+        contentConstants.clear();
+    }
+}
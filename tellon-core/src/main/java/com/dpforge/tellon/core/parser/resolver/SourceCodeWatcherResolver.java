@@ -2,11 +2,17 @@ package com.dpforge.tellon.core.parser.resolver;
 
 import com.dpforge.tellon.core.observer.SourceCodeProvider;
 import com.dpforge.tellon.core.parser.SourceCode;
+import com.dpforge.tellon.core.parser.WatcherConstantGraph;
 import com.dpforge.tellon.core.parser.WatcherConstantParser;
+import com.dpforge.tellon.core.parser.WatcherConstants;
 
 import java.io.IOException;
-import java.util.Map;
+import java.util.Collections;
+import java.util.List;
 
+/**
+ * Resolver is thread-safe if its source code provider is thread-safe.
+ */
 public class SourceCodeWatcherResolver extends SingleWatcherResolver {
 
     private final SourceCodeProvider sourceCodeProvider;
@@ -19,6 +25,10 @@ public class SourceCodeWatcherResolver extends SingleWatcherResolver {
         this.sourceCodeProvider = sourceCodeProvider;
     }
 
+    protected SourceCodeProvider getSourceCodeProvider() {
+        return sourceCodeProvider;
+    }
+
     @Override
     public String resolveLiteralSingle(String value) {
         return value;
@@ -26,13 +36,43 @@ public class SourceCodeWatcherResolver extends SingleWatcherResolver {
 
     @Override
     public String resolveReferenceSingle(String qualifiedName, String field) throws IOException {
-        final SourceCode code = sourceCodeProvider.getSourceCode(qualifiedName);
-        final Map<String, String> watcherMap = watcherConstantParser.parse(code);
-        final String address = watcherMap.get(field);
+        final String address = resolveConstant(qualifiedName, field);
         verifyAddress(field, address);
         return address;
     }
 
+    @Override
+    public List<String> resolveReference(List<String> qualifiedNames, String field) throws IOException {
+        final String address = resolveConstant(qualifiedNames, field);
+        if (address == null) {
+            throw new RuntimeException("Field '" + field + "' is not declared in any of " + qualifiedNames);
+        }
+        return Collections.singletonList(address);
+    }
+
+    /**
+     * Returns value of the constant or {@code null} if the class does not declare such field.
+     * Every call reads classes referenced by the constant anew.
+     */
+    protected String resolveConstant(String qualifiedName, String field) throws IOException {
+        return new WatcherConstantGraph(this::loadConstants).resolve(qualifiedName, field);
+    }
+
+    /**
+     * Returns value of the constant declared by the first of candidate classes which declares it or {@code null}
+     */
+    protected String resolveConstant(List<String> qualifiedNames, String field) throws IOException {
+        return new WatcherConstantGraph(this::loadConstants).resolve(qualifiedNames, field);
+    }
+
+    /**
+     * Reads and parses constants of the top level class
+     */
+    protected WatcherConstants loadConstants(String qualifiedName) throws IOException {
+        final SourceCode code = sourceCodeProvider.getSourceCode(qualifiedName);
+        return watcherConstantParser.parseDeclarations(code);
+    }
+
     private static void verifyAddress(final String field, final String address) {
         if (address == null) {
             throw new RuntimeException("Address for field '" + field + "' is null");
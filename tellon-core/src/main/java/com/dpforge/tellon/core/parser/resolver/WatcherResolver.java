@@ -7,4 +7,12 @@ public interface WatcherResolver {
     List<String> resolveLiteral(final String value) throws IOException;
 
     List<String> resolveReference(final String qualifiedName, final String field) throws IOException;
+
+    /**
+     * Resolves the field of the class known only by candidate qualified names (e.g. imported on demand) in order
+     * of precedence. Resolvers which cannot tell which of candidates declares the field take the first one.
+     */
+    default List<String> resolveReference(final List<String> qualifiedNames, final String field) throws IOException {
+        return resolveReference(qualifiedNames.get(0), field);
+    }
 }
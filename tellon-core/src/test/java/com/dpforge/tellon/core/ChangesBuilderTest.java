@@ -1,10 +1,15 @@
 package com.dpforge.tellon.core;
 
+import com.dpforge.tellon.core.observer.LineChange;
+import com.dpforge.tellon.core.parser.ComparisonMode;
+import com.dpforge.tellon.core.parser.ParserEngine;
 import com.dpforge.tellon.core.parser.SourceCode;
+import com.dpforge.tellon.core.parser.resolver.AsIsWatcherResolver;
 import com.dpforge.tellon.core.parser.resolver.SingleWatcherResolver;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.Collections;
 
 import static org.junit.Assert.*;
 
@@ -291,6 +296,329 @@ public class ChangesBuilderTest {
         assertEquals("LOWER-CASE", changes.getUpdated().get(0).getNewBlock().getWatchers().get(0));
     }
 
+    @Test
+    public void changedLinesMissBlocks() throws Exception {
+        final SourceCode src1 = createSourceCode(
+                "class Foo {",
+                "    @NotifyChanges(\"a\")",
+                "    int a;",
+                "",
+                "    void foo() {",
+                "        bar(1);",
+                "    }",
+                "}");
+
+        final SourceCode src2 = createSourceCode(
+                "class Foo {",
+                "    @NotifyChanges(\"a\")",
+                "    int a;",
+                "",
+                "    void foo() {",
+                "        bar(2);",
+                "    }",
+                "}");
+
+        final ChangesBuilder builder = new ChangesBuilder();
+        final Changes changes = builder.build(src1, src2, Collections.singletonList(new LineChange(7, 8, 7, 8)));
+        assertTrue(changes.isEmpty());
+        assertEquals(1, builder.getParserStatistics().getParsedCount());
+        assertEquals(1, builder.getParserStatistics().getUnaffectedCount());
+    }
+
+    @Test
+    public void changedLinesInsideBlock() throws Exception {
+        final SourceCode src1 = createSourceCode(
+                "class Foo {",
+                "    @NotifyChanges(\"a\")",
+                "    void foo() {",
+                "        bar(1);",
+                "    }",
+                "}");
+
+        final SourceCode src2 = createSourceCode(
+                "class Foo {",
+                "    @NotifyChanges(\"a\")",
+                "    void foo() {",
+                "        bar(2);",
+                "    }",
+                "}");
+
+        final ChangesBuilder builder = new ChangesBuilder();
+        final Changes changes = builder.build(src1, src2, Collections.singletonList(new LineChange(5, 6, 5, 6)));
+        assertTrue(changes.hasUpdated());
+        assertEquals(0, builder.getParserStatistics().getUnaffectedCount());
+    }
+
+    @Test
+    public void changedLinesInsertedAboveBlock() throws Exception {
+        final SourceCode src1 = createSourceCode(
+                "class Foo {",
+                "    int b;",
+                "    @NotifyChanges(\"a\")",
+                "    int a;",
+                "}");
+
+        final SourceCode src2 = createSourceCode(
+                "class Foo {",
+                "    int b;",
+                "    @Deprecated",
+                "    @NotifyChanges(\"a\")",
+                "    int a;",
+                "}");
+
+        final Changes changes = new ChangesBuilder()
+                .build(src1, src2, Collections.singletonList(new LineChange(4, 4, 4, 5)));
+        assertTrue(changes.hasUpdated());
+    }
+
+    @Test
+    public void changedLinesAddAnnotation() throws Exception {
+        final SourceCode src1 = createSourceCode(
+                "class Foo {",
+                "    @NotifyChanges(\"a\")",
+                "    int a;",
+                "",
+                "    int b;",
+                "}");
+
+        final SourceCode src2 = createSourceCode(
+                "class Foo {",
+                "    @NotifyChanges(\"a\")",
+                "    int a;",
+                "",
+                "    @NotifyChanges(\"b\") int b;",
+                "}");
+
+        final Changes changes = new ChangesBuilder()
+                .build(src1, src2, Collections.singletonList(new LineChange(6, 7, 6, 7)));
+        assertTrue(changes.hasAdded());
+    }
+
+    @Test
+    public void changedLinesOpenComment() throws Exception {
+        final SourceCode src1 = createSourceCode(
+                "class Foo {",
+                "    int b;",
+                "",
+                "    @NotifyChanges(\"a\")",
+                "    int a;",
+                "    // end */",
+                "}");
+
+        final SourceCode src2 = createSourceCode(
+                "class Foo {",
+                "    int b; /*",
+                "",
+                "    @NotifyChanges(\"a\")",
+                "    int a;",
+                "    // end */",
+                "}");
+
+        final Changes changes = new ChangesBuilder()
+                .build(src1, src2, Collections.singletonList(new LineChange(3, 4, 3, 4)));
+        assertTrue(changes.hasDeleted());
+    }
+
+    @Test
+    public void changedLinesRemoveImport() throws Exception {
+        final SourceCode src1 = createSourceCode(
+                "class Foo {",
+                "    @NotifyChanges(\"a\")",
+                "    int a;",
+                "}");
+
+        final SourceCode src2 = SourceCode.createFromContent(
+                "package com.test;",
+                "class Foo {",
+                "    @NotifyChanges(\"a\")",
+                "    int a;",
+                "}");
+
+        final Changes changes = new ChangesBuilder()
+                .build(src1, src2, Collections.singletonList(new LineChange(1, 2, 1, 1)));
+        assertTrue(changes.hasDeleted());
+        assertEquals(buildChanges(src1, src2).getDeleted().size(), changes.getDeleted().size());
+    }
+
+    @Test
+    public void changedLinesRenameEnclosingType() throws Exception {
+        final SourceCode src1 = createSourceCode(
+                "class Foo {",
+                "    static class Outer {",
+                "        @NotifyChanges(\"a\")",
+                "        int a;",
+                "    }",
+                "}");
+
+        final SourceCode src2 = createSourceCode(
+                "class Foo {",
+                "    static class Outer2 {",
+                "        @NotifyChanges(\"a\")",
+                "        int a;",
+                "    }",
+                "}");
+
+        for (ParserEngine engine : new ParserEngine[]{ParserEngine.JAVA_PARSER, ParserEngine.SCANNER}) {
+            final ChangesBuilder builder = new ChangesBuilder(new AsIsWatcherResolver(), engine);
+            final Changes expected = builder.build(src1, src2);
+            final Changes changes = builder.build(src1, src2, Collections.singletonList(new LineChange(3, 4, 3, 4)));
+            assertEquals(1, expected.getDeleted().size());
+            assertEquals(expected.getDeleted().size(), changes.getDeleted().size());
+            assertEquals(expected.getAdded().size(), changes.getAdded().size());
+        }
+    }
+
+    @Test
+    public void overloadedMethods() throws Exception {
+        final SourceCode src1 = createSourceCode(
+                "class Foo {",
+                "    @NotifyChanges(\"a\")",
+                "    void foo(int a) { bar(a); }",
+                "    @NotifyChanges(\"a\")",
+                "    void foo(String a) { bar(a); }",
+                "}");
+
+        final SourceCode src2 = createSourceCode(
+                "class Foo {",
+                "    @NotifyChanges(\"a\")",
+                "    void foo(String a) { bar(a); }",
+                "    @NotifyChanges(\"a\")",
+                "    void foo(int a) { bar(a + 1); }",
+                "}");
+
+        final Changes changes = buildChanges(src1, src2);
+        assertEquals(1, changes.getUpdated().size());
+        assertEquals("void foo(int a) { bar(a + 1); }",
+                changes.getUpdated().get(0).getNewBlock().getSourceCode().asRaw().get(1).trim());
+        assertFalse(changes.hasAdded());
+        assertFalse(changes.hasDeleted());
+    }
+
+    @Test
+    public void sameNamesInNestedClasses() throws Exception {
+        final SourceCode src1 = createSourceCode(
+                "class Foo {",
+                "    @NotifyChanges(\"a\") int a, b;",
+                "    static class Bar {",
+                "        @NotifyChanges(\"a\") int a, b;",
+                "    }",
+                "}");
+
+        final SourceCode src2 = createSourceCode(
+                "class Foo {",
+                "    @NotifyChanges(\"a\") int a, b;",
+                "    static class Bar {",
+                "        @NotifyChanges(\"a\") long a, b;",
+                "    }",
+                "}");
+
+        final Changes changes = buildChanges(src1, src2);
+        assertEquals(1, changes.getUpdated().size());
+        assertEquals(5, changes.getUpdated().get(0).getNewBlock().getStartPosition().getLine());
+        assertFalse(changes.hasAdded());
+        assertFalse(changes.hasDeleted());
+    }
+
+    @Test
+    public void changedParameterTypes() throws Exception {
+        final SourceCode src1 = createSourceCode(
+                "class Foo {",
+                "    @NotifyChanges(\"a\")",
+                "    void foo(int a) {}",
+                "}");
+
+        final SourceCode src2 = createSourceCode(
+                "class Foo {",
+                "    @NotifyChanges(\"a\")",
+                "    void foo(long a) {}",
+                "}");
+
+        final Changes changes = buildChanges(src1, src2);
+        assertEquals(1, changes.getAdded().size());
+        assertEquals(1, changes.getDeleted().size());
+    }
+
+    @Test
+    public void reformattedBlock() throws Exception {
+        final SourceCode src1 = createSourceCode(
+                "class Foo {",
+                "    @NotifyChanges(\"a\")",
+                "    void foo(int a) { bar(a+1); }",
+                "}");
+
+        final SourceCode src2 = createSourceCode(
+                "class Foo {",
+                "    @NotifyChanges(\"a\")",
+                "    void foo(int a) {",
+                "        bar(a + 1);",
+                "    }",
+                "}");
+
+        assertTrue(buildChanges(src1, src2).hasUpdated());
+        assertTrue(buildChanges(src1, src2, ComparisonMode.IGNORE_WHITESPACE).isEmpty());
+    }
+
+    @Test
+    public void changedComment() throws Exception {
+        final SourceCode src1 = createSourceCode(
+                "class Foo {",
+                "    /** Doc */",
+                "    @NotifyChanges(\"a\")",
+                "    void foo() {",
+                "        bar(); // call bar",
+                "    }",
+                "}");
+
+        final SourceCode src2 = createSourceCode(
+                "class Foo {",
+                "    /** Doc */",
+                "    @NotifyChanges(\"a\")",
+                "    void foo() {",
+                "        bar(); // bar is called",
+                "    }",
+                "}");
+
+        assertTrue(buildChanges(src1, src2, ComparisonMode.IGNORE_WHITESPACE).hasUpdated());
+        assertTrue(buildChanges(src1, src2, ComparisonMode.IGNORE_COMMENTS).isEmpty());
+    }
+
+    @Test
+    public void changedJavadoc() throws Exception {
+        final SourceCode src1 = createSourceCode(
+                "class Foo {",
+                "    /** Doc */",
+                "    @NotifyChanges(\"a\")",
+                "    int a;",
+                "}");
+
+        final SourceCode src2 = createSourceCode(
+                "class Foo {",
+                "    /** Updated doc */",
+                "    @NotifyChanges(\"a\")",
+                "    int a;",
+                "}");
+
+        assertTrue(buildChanges(src1, src2, ComparisonMode.IGNORE_COMMENTS).hasUpdated());
+        assertTrue(buildChanges(src1, src2, ComparisonMode.IGNORE_JAVADOC).isEmpty());
+    }
+
+    @Test
+    public void changedTokens() throws Exception {
+        final SourceCode src1 = createSourceCode(
+                "class Foo {",
+                "    @NotifyChanges(\"a\")",
+                "    int a = x++ + y;",
+                "}");
+
+        final SourceCode src2 = createSourceCode(
+                "class Foo {",
+                "    @NotifyChanges(\"a\")",
+                "    int a = x + ++y;",
+                "}");
+
+        assertTrue(buildChanges(src1, src2, ComparisonMode.IGNORE_JAVADOC).hasUpdated());
+    }
+
     @SuppressWarnings("ConstantConditions")
     @Test(expected = NullPointerException.class)
     public void nullWatcherResolver() {
@@ -308,4 +636,10 @@ public class ChangesBuilderTest {
     private static Changes buildChanges(final SourceCode src1, final SourceCode src2) throws IOException {
         return new ChangesBuilder().build(src1, src2);
     }
+
+    private static Changes buildChanges(final SourceCode src1, final SourceCode src2, final ComparisonMode mode) {
+        final AsIsWatcherResolver watcherResolver = new AsIsWatcherResolver();
+        return new ChangesBuilder(watcherResolver, ParserEngine.JAVA_PARSER, null, mode, revision -> watcherResolver,
+                true).build(src1, src2);
+    }
 }
\ No newline at end of file
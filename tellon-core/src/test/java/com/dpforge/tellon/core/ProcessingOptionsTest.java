@@ -0,0 +1,60 @@
+package com.dpforge.tellon.core;
+
+import com.dpforge.tellon.core.parser.ComparisonMode;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ProcessingOptionsTest {
+    @Test
+    public void defaults() {
+        final ProcessingOptions options = new ProcessingOptions.Builder().build();
+        assertEquals(1, options.getWorkerCount());
+        assertFalse(options.isPipelined());
+        assertEquals(ComparisonMode.EXACT, options.getComparisonMode());
+        assertFalse(options.isVerifyFingerprints());
+        assertFalse(options.isDetectMoves());
+        assertEquals(1024, options.getNotifierQueueCapacity());
+    }
+
+    @Test
+    public void workerCount() {
+        final ProcessingOptions options = new ProcessingOptions.Builder().workerCount(4).build();
+        assertTrue(options.isPipelined());
+        assertEquals(4, options.getStageOptions(PipelineStage.LOAD).getConcurrency());
+        assertEquals(4, options.getStageOptions(PipelineStage.PARSE).getConcurrency());
+        assertEquals(4, options.getStageOptions(PipelineStage.COMPARE).getConcurrency());
+        assertEquals(1, options.getStageOptions(PipelineStage.NOTIFY).getConcurrency());
+        assertEquals(1, options.getStageOptions(PipelineStage.ENUMERATE).getConcurrency());
+        assertEquals(8, options.getStageOptions(PipelineStage.PARSE).getQueueCapacity());
+    }
+
+    @Test
+    public void customStage() {
+        final ProcessingOptions options = new ProcessingOptions.Builder()
+                .stage(PipelineStage.PARSE, 6, 20)
+                .stage(PipelineStage.NOTIFY, 5, 10)
+                .build();
+        assertTrue(options.isPipelined());
+        assertEquals(6, options.getStageOptions(PipelineStage.PARSE).getConcurrency());
+        assertEquals(20, options.getStageOptions(PipelineStage.PARSE).getQueueCapacity());
+        assertEquals(1, options.getStageOptions(PipelineStage.LOAD).getConcurrency());
+        assertEquals(1, options.getStageOptions(PipelineStage.NOTIFY).getConcurrency());
+        assertEquals(10, options.getStageOptions(PipelineStage.NOTIFY).getQueueCapacity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void enumerationStage() {
+        new ProcessingOptions.Builder().stage(PipelineStage.ENUMERATE, 1, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroQueueCapacity() {
+        new ProcessingOptions.Builder().stage(PipelineStage.LOAD, 1, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroNotifierQueueCapacity() {
+        new ProcessingOptions.Builder().notifierQueueCapacity(0);
+    }
+}
@@ -1,6 +1,7 @@
 package com.dpforge.tellon.core;
 
 import com.dpforge.tellon.core.notifier.ChangesNotifier;
+import com.dpforge.tellon.core.notifier.NotificationException;
 import com.dpforge.tellon.core.observer.*;
 import com.dpforge.tellon.core.parser.SourceCode;
 import org.junit.Test;
@@ -9,10 +10,14 @@ import java.io.IOException;
 import java.lang.reflect.Proxy;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
-import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.*;
 
 public class TellonTest {
 
@@ -41,6 +46,92 @@ public class TellonTest {
         assertArrayEquals(new String[]{"onStartProject", "onFinishedProject"}, notifierCalls.toArray());
     }
 
+    @Test
+    public void changedLinesMissBlocks() throws Exception {
+        final Tellon tellon = new Tellon();
+        final List<String> notifierCalls = new ArrayList<>();
+        tellon.addNotifier(createNotifier(notifierCalls));
+        final TestProjectItem item = new TestProjectItem("test description",
+                code("class Foo { @NotifyChanges(\"test\") int a; }\nclass Bar { int b; }"),
+                code("class Foo { @NotifyChanges(\"test\") int a; }\nclass Bar { long b; }")) {
+            @Override
+            public SourceCode getActual() throws IOException {
+                return SourceCode.createFromContent(actualCode.split("\n"));
+            }
+
+            @Override
+            public SourceCode getPrevious() throws IOException {
+                return SourceCode.createFromContent(prevCode.split("\n"));
+            }
+
+            @Override
+            public List<LineChange> getChangedLines() throws IOException {
+                return Collections.singletonList(new LineChange(1, 2, 1, 2));
+            }
+        };
+        tellon.process(new TestObserver(item));
+
+        assertArrayEquals(new String[]{"onStartProject", "onFinishedProject"}, notifierCalls.toArray());
+        assertEquals(1, tellon.getStatistics().getParserStatistics().getParsedCount());
+        assertEquals(1, tellon.getStatistics().getParserStatistics().getUnaffectedCount());
+    }
+
+    @Test
+    public void changedLinesRequestedOnlyForAnnotatedCode() throws Exception {
+        final List<String> requests = new ArrayList<>();
+        final TestProjectItem plain = new TestProjectItem("plain", "class Foo { int a; }", "class Foo { long a; }") {
+            @Override
+            public List<LineChange> getChangedLines(SourceCode previous, SourceCode actual) throws IOException {
+                requests.add(description);
+                return null;
+            }
+        };
+        final TestProjectItem annotated = new TestProjectItem("annotated",
+                code("class Foo { @NotifyChanges(\"test\") int a; }"),
+                code("class Foo { @NotifyChanges(\"test\") long a; }")) {
+            @Override
+            public List<LineChange> getChangedLines(SourceCode previous, SourceCode actual) throws IOException {
+                requests.add(description);
+                return null;
+            }
+        };
+        final Tellon tellon = new Tellon();
+        tellon.process(new TestObserver(plain, annotated));
+
+        assertEquals(Collections.singletonList("annotated"), requests);
+        assertEquals(2, tellon.getStatistics().getParserStatistics().getSkippedCount());
+    }
+
+    @Test
+    public void watchersResolvedAgainstOwnRevision() throws Exception {
+        final Tellon tellon = new Tellon();
+        final List<Changes> changes = new ArrayList<>();
+        tellon.addNotifier((ChangesNotifier) Proxy.newProxyInstance(TellonTest.class.getClassLoader(),
+                new Class[]{ChangesNotifier.class},
+                (proxy, method, args) -> {
+                    if ("notifyChanges".equals(method.getName())) {
+                        changes.add((Changes) args[1]);
+                    }
+                    return null;
+                }));
+        final TestProjectItem item = item(
+                code("import com.test.Watchers; class Foo { @NotifyChanges(Watchers.DEV) int a; }"),
+                code("import com.test.Watchers; class Foo { @NotifyChanges(Watchers.DEV) long a; }"));
+        tellon.process(new TestObserver(item) {
+            @Override
+            public SourceCodeProvider getSourceCodeProvider(Revision revision) {
+                return qualifiedName -> SourceCode.createFromContent("class Watchers {",
+                        "static final String DEV = \"" + revision.getVersion() + "@example.com\";",
+                        "}");
+            }
+        });
+
+        assertEquals(1, changes.size());
+        final Changes.Update update = changes.get(0).getUpdated().get(0);
+        assertEquals(Collections.singletonList("v1@example.com"), update.getOldBlock().getWatchers());
+        assertEquals(Collections.singletonList("v2@example.com"), update.getNewBlock().getWatchers());
+    }
+
     @Test
     public void onlyActual() throws Exception {
         final List<String> notifierCalls = process(item(
@@ -90,6 +181,316 @@ public class TellonTest {
         assertArrayEquals(new String[]{"onStartProject", "onFinishedProject"}, firstCalls.toArray());
     }
 
+    @Test
+    public void parallelKeepsWalkerOrder() throws Exception {
+        final TestProjectItem[] items = new TestProjectItem[50];
+        for (int i = 0; i < items.length; i++) {
+            final String field = "@NotifyChanges(\"test\") int a" + i + ";";
+            switch (i % 4) {
+                case 0:
+                    items[i] = item("item" + i, code("class Foo { " + field + " }"), code("class Foo { }"));
+                    break;
+                case 1:
+                    items[i] = item("item" + i, null, code("class Foo { " + field + " }"));
+                    break;
+                case 2:
+                    items[i] = item("item" + i, code("class Foo { " + field + " }"), null);
+                    break;
+                default:
+                    items[i] = item("item" + i, code("class Foo { " + field + " }"), code("class Foo { " + field + " }"));
+                    break;
+            }
+        }
+
+        final List<String> sequential = new ArrayList<>();
+        new Tellon().addNotifier(createDescribingNotifier(sequential))
+                .process(new TestObserver(items));
+
+        final List<String> parallel = new ArrayList<>();
+        new Tellon().addNotifier(createDescribingNotifier(parallel))
+                .setOptions(new ProcessingOptions.Builder().workerCount(4).build())
+                .process(new TestObserver(items));
+
+        assertEquals(2 + 38, sequential.size());
+        assertArrayEquals(sequential.toArray(), parallel.toArray());
+    }
+
+    @Test
+    public void parallelRethrowsItemFailure() throws Exception {
+        final Tellon tellon = new Tellon().setOptions(new ProcessingOptions.Builder().workerCount(2).build());
+        final TestProjectItem failing = new TestProjectItem("failing", null, "") {
+            @Override
+            public SourceCode getActual() throws IOException {
+                throw new IOException("blob is missing");
+            }
+        };
+        try {
+            tellon.process(new TestObserver(item(null, code("class Foo {}")), failing));
+            fail("No exception thrown");
+        } catch (IOException e) {
+            assertEquals("blob is missing", e.getMessage());
+        }
+    }
+
+    @Test
+    public void stagedPipelineStatistics() throws Exception {
+        final TestProjectItem[] items = new TestProjectItem[10];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = item("item" + i,
+                    code("class Foo { @NotifyChanges(\"test\") int a; }"),
+                    code("class Foo { @NotifyChanges(\"test\") Integer a; }"));
+        }
+
+        final List<String> calls = new ArrayList<>();
+        final Tellon tellon = new Tellon()
+                .addNotifier(createDescribingNotifier(calls))
+                .setOptions(new ProcessingOptions.Builder()
+                        .stage(PipelineStage.LOAD, 1, 1)
+                        .stage(PipelineStage.PARSE, 3, 1)
+                        .stage(PipelineStage.NOTIFY, 1, 2)
+                        .build());
+        tellon.process(new TestObserver(items));
+
+        assertEquals(12, calls.size());
+        for (int i = 0; i < items.length; i++) {
+            assertEquals("notifyChanges item" + i, calls.get(i + 1));
+        }
+
+        final PipelineStatistics statistics = tellon.getStatistics();
+        for (StageStatistics stage : statistics.getStages()) {
+            assertEquals(stage.toString(), items.length, stage.getProcessedCount());
+            assertEquals(0, stage.getQueueSize());
+            assertTrue(stage.getPeakQueueSize() <= stage.getQueueCapacity());
+        }
+        assertEquals(3, statistics.getStage(PipelineStage.PARSE).getConcurrency());
+        assertEquals(1, statistics.getStage(PipelineStage.COMPARE).getConcurrency());
+    }
+
+    @Test
+    public void sequentialStatistics() throws Exception {
+        final Tellon tellon = new Tellon();
+        tellon.process(new TestObserver(item(null, code("class Foo {}")), item(code("class Foo {}"), null)));
+        assertEquals(2, tellon.getStatistics().getStage(PipelineStage.NOTIFY).getProcessedCount());
+        assertEquals(0, tellon.getStatistics().getStage(PipelineStage.PARSE).getPeakQueueSize());
+    }
+
+    @Test
+    public void asyncNotifiers() throws Exception {
+        final CountDownLatch fastFinished = new CountDownLatch(1);
+        final List<String> slowCalls = Collections.synchronizedList(new ArrayList<String>());
+        final List<String> fastCalls = Collections.synchronizedList(new ArrayList<String>());
+        final ChangesNotifier slow = (ChangesNotifier) Proxy.newProxyInstance(TellonTest.class.getClassLoader(),
+                new Class[]{ChangesNotifier.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("notifyItemAdded")) {
+                        // blocks until the other notifier finishes so it would hang with synchronous notifiers
+                        slowCalls.add(fastFinished.await(5, TimeUnit.SECONDS) ? "notifyItemAdded" : "timeout");
+                    } else {
+                        slowCalls.add(method.getName());
+                    }
+                    return null;
+                });
+        final ChangesNotifier fast = (ChangesNotifier) Proxy.newProxyInstance(TellonTest.class.getClassLoader(),
+                new Class[]{ChangesNotifier.class},
+                (proxy, method, args) -> {
+                    fastCalls.add(method.getName());
+                    if (method.getName().equals("onFinishedProject")) {
+                        fastFinished.countDown();
+                    }
+                    return null;
+                });
+
+        new Tellon()
+                .addNotifiers(Arrays.asList(slow, fast))
+                .setOptions(new ProcessingOptions.Builder().asyncNotifiers(true).build())
+                .process(new TestObserver(
+                        item(null, code("class Foo { @NotifyChanges(\"test\") Integer a; }")),
+                        item(code("class Foo { @NotifyChanges(\"test\") int a; }"), null)));
+
+        final String[] expected = {"onStartProject", "notifyItemAdded", "notifyItemDeleted", "onFinishedProject"};
+        assertArrayEquals(expected, fastCalls.toArray());
+        assertArrayEquals(expected, slowCalls.toArray());
+    }
+
+    @Test
+    public void asyncNotifierStatistics() throws Exception {
+        final List<String> calls = Collections.synchronizedList(new ArrayList<String>());
+        final Tellon tellon = new Tellon()
+                .addNotifier(createNotifier(calls))
+                .setOptions(new ProcessingOptions.Builder().asyncNotifiers(true).notifierQueueCapacity(2).build());
+        tellon.process(new TestObserver(
+                item(null, code("class Foo { @NotifyChanges(\"test\") int a; }")),
+                item(code("class Bar { @NotifyChanges(\"test\") int a; }"), null)));
+
+        assertEquals(4, calls.size());
+        final List<NotifierStatistics> notifiers = tellon.getStatistics().getNotifiers();
+        assertEquals(1, notifiers.size());
+        assertEquals(2, notifiers.get(0).getQueueCapacity());
+        assertEquals(0, notifiers.get(0).getQueueSize());
+        assertEquals(4, notifiers.get(0).getDeliveredCount());
+        assertEquals(0, notifiers.get(0).getDroppedCount());
+    }
+
+    @Test
+    public void slowAsyncNotifierDoesNotStallOthers() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final ChangesNotifier blocked = (ChangesNotifier) Proxy.newProxyInstance(TellonTest.class.getClassLoader(),
+                new Class[]{ChangesNotifier.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("notifyItemAdded")) {
+                        latch.await();
+                    }
+                    return null;
+                });
+        final List<String> calls = Collections.synchronizedList(new ArrayList<String>());
+        final TestProjectItem[] items = new TestProjectItem[10];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = item(null, code("class Foo" + i + " { @NotifyChanges(\"test\") int a; }"));
+        }
+
+        final Tellon tellon = new Tellon()
+                .addNotifiers(Arrays.asList(blocked, createNotifier(calls)))
+                .setOptions(new ProcessingOptions.Builder()
+                        .asyncNotifiers(true)
+                        .notifierQueueCapacity(2)
+                        .notifierDrainTimeout(5, TimeUnit.SECONDS)
+                        .build());
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        final Thread processing = new Thread(() -> {
+            try {
+                tellon.process(new TestObserver(items));
+            } catch (IOException | NotificationException e) {
+                failure.set(e);
+            }
+        });
+        processing.start();
+        // the other notifier is finished, so the walk is done, while the blocked one has not delivered a single item
+        for (int i = 0; i < 500 && !calls.contains("onFinishedProject"); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(calls.contains("onFinishedProject"));
+        final NotifierStatistics blockedStatistics = tellon.getStatistics().getNotifiers().get(0);
+        final NotifierStatistics otherStatistics = tellon.getStatistics().getNotifiers().get(1);
+        // only the start of the project
+        assertEquals(1, blockedStatistics.getDeliveredCount());
+        assertEquals(items.length + 2, calls.size() + otherStatistics.getDroppedCount());
+
+        latch.countDown();
+        processing.join(5000);
+        assertFalse(processing.isAlive());
+        // at most one notification is being delivered and two are queued, the rest is dropped
+        assertTrue(blockedStatistics.getDroppedCount() >= items.length - 3);
+        assertEquals(items.length - blockedStatistics.getDroppedCount() + 2, blockedStatistics.getDeliveredCount());
+        assertTrue(failure.get() instanceof NotificationException);
+    }
+
+    @Test
+    public void asyncNotifierFailure() throws Exception {
+        final List<String> calls = Collections.synchronizedList(new ArrayList<String>());
+        final ChangesNotifier failing = (ChangesNotifier) Proxy.newProxyInstance(TellonTest.class.getClassLoader(),
+                new Class[]{ChangesNotifier.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("notifyItemAdded")) {
+                        throw new IllegalStateException("fail");
+                    }
+                    return null;
+                });
+
+        final Tellon tellon = new Tellon()
+                .addNotifiers(Arrays.asList(failing, createNotifier(calls)))
+                .setOptions(new ProcessingOptions.Builder().asyncNotifiers(true).build());
+        try {
+            tellon.process(new TestObserver(item(null, code("class Foo { @NotifyChanges(\"test\") int a; }"))));
+            fail("No exception thrown");
+        } catch (NotificationException e) {
+            assertEquals(1, e.getSuppressed().length);
+            assertEquals("fail", e.getSuppressed()[0].getMessage());
+        }
+        assertArrayEquals(new String[]{"onStartProject", "notifyItemAdded", "onFinishedProject"}, calls.toArray());
+    }
+
+    @Test
+    public void movedBetweenItems() throws Exception {
+        final String method = "@NotifyChanges(\"test\") void run() { int x = 1; x++; System.out.println(x); }";
+        final List<String> calls = new ArrayList<>();
+        new Tellon().addNotifier(createMoveNotifier(calls))
+                .setOptions(new ProcessingOptions.Builder().detectMoves(true).build())
+                .process(new TestObserver(
+                        item("Foo", code("class Foo { " + method + " }"), code("class Foo { }")),
+                        item("Baz", code("class Baz { @NotifyChanges(\"test\") int a; }"),
+                                code("class Baz { @NotifyChanges(\"test\") long a; }")),
+                        item("Bar", null, code("class Bar { " + method + " }"))));
+        assertEquals(Arrays.asList(
+                "onStartProject",
+                "notifyChanges Baz",
+                "notifyItemAdded Bar: MOVED Foo run -> run",
+                "onFinishedProject"), calls);
+    }
+
+    @Test
+    public void renamedWithinItem() throws Exception {
+        final List<String> calls = new ArrayList<>();
+        new Tellon().addNotifier(createMoveNotifier(calls))
+                .setOptions(new ProcessingOptions.Builder().detectMoves(true).build())
+                .process(new TestObserver(item("Foo",
+                        code("class Foo { @NotifyChanges(\"test\") int sum(int a, int b) { return a + b; } }"),
+                        code("class Foo { @NotifyChanges(\"test\") int add(int a, int b) { return a + b; } }"))));
+        assertEquals(Arrays.asList(
+                "onStartProject",
+                "notifyChanges Foo: RENAMED Foo sum -> add",
+                "onFinishedProject"), calls);
+    }
+
+    @Test
+    public void moveIndexCapacity() throws Exception {
+        final String method = "@NotifyChanges(\"test\") void run() { int x = 1; x++; System.out.println(x); }";
+        final List<String> calls = new ArrayList<>();
+        new Tellon().addNotifier(createMoveNotifier(calls))
+                .setOptions(new ProcessingOptions.Builder().detectMoves(true).moveIndexCapacity(1).build())
+                .process(new TestObserver(
+                        item("Foo", code("class Foo { " + method + " }"), code("class Foo { }")),
+                        item("Baz", code("class Baz { @NotifyChanges(\"test\") int a; }"), null),
+                        item("Bar", null, code("class Bar { " + method + " }"))));
+        assertEquals(Arrays.asList(
+                "onStartProject",
+                "notifyChanges Foo",
+                "notifyItemDeleted Baz",
+                "notifyItemAdded Bar",
+                "onFinishedProject"), calls);
+    }
+
+    @Test
+    public void moveDetectionKeepsWalkerOrder() throws Exception {
+        final TestProjectItem[] items = new TestProjectItem[40];
+        for (int i = 0; i < items.length; i++) {
+            final String field = "@NotifyChanges(\"test\") int a" + i + ";";
+            items[i] = i % 2 == 0
+                    ? item("item" + i, code("class Foo { " + field + " }"), code("class Foo { }"))
+                    : item("item" + i, code("class Foo { " + field + " }"), code("class Foo { long a" + i + "; }"));
+        }
+
+        final List<String> plain = new ArrayList<>();
+        new Tellon().addNotifier(createDescribingNotifier(plain))
+                .process(new TestObserver(items));
+
+        final List<String> detecting = new ArrayList<>();
+        new Tellon().addNotifier(createDescribingNotifier(detecting))
+                .setOptions(new ProcessingOptions.Builder().workerCount(4).detectMoves(true).build())
+                .process(new TestObserver(items));
+
+        assertArrayEquals(plain.toArray(), detecting.toArray());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroMoveIndexCapacity() {
+        new ProcessingOptions.Builder().moveIndexCapacity(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroWorkers() {
+        new ProcessingOptions.Builder().workerCount(0);
+    }
+
     private static List<String> process(final TestProjectItem... items) throws IOException {
         final Tellon tellon = new Tellon();
         final List<String> notifierCalls = new ArrayList<>();
@@ -107,8 +508,46 @@ public class TellonTest {
                 });
     }
 
+    private static ChangesNotifier createDescribingNotifier(final List<String> calls) {
+        return (ChangesNotifier) Proxy.newProxyInstance(TellonTest.class.getClassLoader(),
+                new Class[]{ChangesNotifier.class},
+                (proxy, method, args) -> {
+                    if (args != null && args[0] instanceof ProjectItem) {
+                        calls.add(method.getName() + " " + ((ProjectItem) args[0]).getDescription());
+                    } else {
+                        calls.add(method.getName());
+                    }
+                    return null;
+                });
+    }
+
+    private static ChangesNotifier createMoveNotifier(final List<String> calls) {
+        return (ChangesNotifier) Proxy.newProxyInstance(TellonTest.class.getClassLoader(),
+                new Class[]{ChangesNotifier.class},
+                (proxy, method, args) -> {
+                    if (args == null || !(args[0] instanceof ProjectItem)) {
+                        calls.add(method.getName());
+                        return null;
+                    }
+                    final StringBuilder call = new StringBuilder(method.getName())
+                            .append(' ').append(((ProjectItem) args[0]).getDescription());
+                    for (Changes.Move move : ((Changes) args[1]).getMoved()) {
+                        call.append(": ").append(move.getKind())
+                                .append(' ').append(move.getOldItem().getDescription())
+                                .append(' ').append(move.getOldBlock().getName())
+                                .append(" -> ").append(move.getNewBlock().getName());
+                    }
+                    calls.add(call.toString());
+                    return null;
+                });
+    }
+
     private static TestProjectItem item(final String prevCode, final String actualCode) {
-        return new TestProjectItem(prevCode, actualCode);
+        return new TestProjectItem("test description", prevCode, actualCode);
+    }
+
+    private static TestProjectItem item(final String description, final String prevCode, final String actualCode) {
+        return new TestProjectItem(description, prevCode, actualCode);
     }
 
     private static String code(final String clazz) {
@@ -177,17 +616,19 @@ public class TellonTest {
     }
 
     private static class TestProjectItem implements ProjectItem {
+        final String description;
         final String prevCode;
         final String actualCode;
 
-        private TestProjectItem(String prevCode, String actualCode) {
+        private TestProjectItem(String description, String prevCode, String actualCode) {
+            this.description = description;
             this.prevCode = prevCode;
             this.actualCode = actualCode;
         }
 
         @Override
         public String getDescription() {
-            return "test description";
+            return description;
         }
 
         @Override
@@ -0,0 +1,177 @@
+package com.dpforge.tellon.core.notifier;
+
+import com.dpforge.tellon.core.Changes;
+import com.dpforge.tellon.core.observer.ProjectInfo;
+import com.dpforge.tellon.core.observer.ProjectItem;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AsyncChangesNotifierTest {
+
+    @Test
+    public void orderedDelivery() {
+        final List<String> calls = Collections.synchronizedList(new ArrayList<String>());
+        final AsyncChangesNotifier notifier = new AsyncChangesNotifier(new RecordingNotifier(calls), 5, TimeUnit.SECONDS);
+
+        notifier.onStartProject(new ProjectInfo.Builder().name("test").build());
+        notifier.notifyChanges(null, null);
+        notifier.notifyItemAdded(null, null);
+        notifier.notifyItemDeleted(null, null);
+        notifier.onFinishedProject();
+
+        assertFalse(notifier.isTimedOut());
+        assertArrayEquals(new String[]{"onStartProject test", "notifyChanges", "notifyItemAdded",
+                "notifyItemDeleted", "onFinishedProject"}, calls.toArray());
+    }
+
+    @Test
+    public void callerIsNotBlocked() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final List<String> calls = Collections.synchronizedList(new ArrayList<String>());
+        final AsyncChangesNotifier notifier = new AsyncChangesNotifier(new RecordingNotifier(calls) {
+            @Override
+            public void notifyChanges(ProjectItem item, Changes changes) {
+                awaitQuietly(latch);
+                super.notifyChanges(item, changes);
+            }
+        }, 5, TimeUnit.SECONDS);
+
+        notifier.notifyChanges(null, null);
+        notifier.notifyItemAdded(null, null);
+        assertTrue(calls.isEmpty());
+
+        latch.countDown();
+        notifier.onFinishedProject();
+        assertArrayEquals(new String[]{"notifyChanges", "notifyItemAdded", "onFinishedProject"}, calls.toArray());
+    }
+
+    @Test
+    public void fullQueueDropsNotifications() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch latch = new CountDownLatch(1);
+        final List<String> calls = Collections.synchronizedList(new ArrayList<String>());
+        final AsyncChangesNotifier notifier = new AsyncChangesNotifier(new RecordingNotifier(calls) {
+            @Override
+            public void notifyChanges(ProjectItem item, Changes changes) {
+                started.countDown();
+                awaitQuietly(latch);
+                super.notifyChanges(item, changes);
+            }
+        }, 1, 5, TimeUnit.SECONDS);
+
+        // the first notification is taken by the notifier thread, the second one fills the queue
+        notifier.notifyChanges(null, null);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        notifier.notifyItemAdded(null, null);
+        // the caller returns at once although the notifier is blocked
+        notifier.notifyItemDeleted(null, null);
+        assertEquals(1, notifier.getQueueSize());
+        assertEquals(1, notifier.getPeakQueueSize());
+        assertEquals(1, notifier.getDroppedCount());
+
+        latch.countDown();
+        notifier.onFinishedProject();
+        assertArrayEquals(new String[]{"notifyChanges", "notifyItemAdded", "onFinishedProject"}, calls.toArray());
+        assertEquals(3, notifier.getDeliveredCount());
+        assertEquals(1, notifier.getDroppedCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroQueueCapacity() {
+        new AsyncChangesNotifier(new RecordingNotifier(new ArrayList<String>()), 0, 5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void failuresAreCollected() {
+        final List<String> calls = Collections.synchronizedList(new ArrayList<String>());
+        final AsyncChangesNotifier notifier = new AsyncChangesNotifier(new RecordingNotifier(calls) {
+            @Override
+            public void notifyItemAdded(ProjectItem item, Changes changes) {
+                throw new IllegalStateException("SMTP server is down");
+            }
+        }, 5, TimeUnit.SECONDS);
+
+        notifier.notifyItemAdded(null, null);
+        notifier.notifyItemDeleted(null, null);
+        notifier.onFinishedProject();
+
+        assertArrayEquals(new String[]{"notifyItemDeleted", "onFinishedProject"}, calls.toArray());
+        assertEquals(1, notifier.getFailures().size());
+        assertEquals("SMTP server is down", notifier.getFailures().get(0).getMessage());
+    }
+
+    @Test
+    public void drainTimeout() {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final List<String> calls = Collections.synchronizedList(new ArrayList<String>());
+        final AsyncChangesNotifier notifier = new AsyncChangesNotifier(new RecordingNotifier(calls) {
+            @Override
+            public void notifyChanges(ProjectItem item, Changes changes) {
+                awaitQuietly(latch);
+            }
+        }, 50, TimeUnit.MILLISECONDS);
+
+        notifier.notifyChanges(null, null);
+        notifier.onFinishedProject();
+        latch.countDown();
+
+        assertTrue(notifier.isTimedOut());
+        assertFalse(calls.contains("onFinishedProject"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void notifyAfterFinish() {
+        final AsyncChangesNotifier notifier = new AsyncChangesNotifier(
+                new RecordingNotifier(new ArrayList<String>()), 5, TimeUnit.SECONDS);
+        notifier.onFinishedProject();
+        notifier.notifyChanges(null, null);
+    }
+
+    private static void awaitQuietly(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class RecordingNotifier implements ChangesNotifier {
+        private final List<String> calls;
+
+        RecordingNotifier(List<String> calls) {
+            this.calls = calls;
+        }
+
+        @Override
+        public void onStartProject(ProjectInfo projectInfo) {
+            calls.add("onStartProject " + projectInfo.getName());
+        }
+
+        @Override
+        public void onFinishedProject() {
+            calls.add("onFinishedProject");
+        }
+
+        @Override
+        public void notifyChanges(ProjectItem item, Changes changes) {
+            calls.add("notifyChanges");
+        }
+
+        @Override
+        public void notifyItemAdded(ProjectItem item, Changes changes) {
+            calls.add("notifyItemAdded");
+        }
+
+        @Override
+        public void notifyItemDeleted(ProjectItem item, Changes changes) {
+            calls.add("notifyItemDeleted");
+        }
+    }
+}
@@ -17,6 +17,7 @@ public class AnnotatedBlockHelper {
         node.setRange(new Range(new Position(1, 1), new Position(2, 1)));
         return AnnotatedBlock.fromNode(
                 SourceCode.createFromContent("class Bar {", "}"),
+                ComparisonMode.EXACT,
                 node,
                 Collections.emptyList());
     }
@@ -19,7 +19,7 @@ public class AnnotatedBlockTest {
                 EnumSet.of(Modifier.PUBLIC),
                 true,
                 "Bar");
-        AnnotatedBlock.fromNode(SourceCode.createFromContent(), node, Collections.emptyList());
+        AnnotatedBlock.fromNode(SourceCode.createFromContent(), ComparisonMode.EXACT, node, Collections.emptyList());
     }
 
     @Test(expected = IllegalStateException.class)
@@ -30,7 +30,7 @@ public class AnnotatedBlockTest {
                 "Bar");
         node.setRange(new Range(new Position(1, 1), new Position(5, 1)));
         node.setJavadocComment("Test");
-        AnnotatedBlock.fromNode(SourceCode.createFromContent(), node, Collections.emptyList());
+        AnnotatedBlock.fromNode(SourceCode.createFromContent(), ComparisonMode.EXACT, node, Collections.emptyList());
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -40,7 +40,7 @@ public class AnnotatedBlockTest {
                 true,
                 "Bar");
         node.setRange(new Range(new Position(1, 1), new Position(2, 1)));
-        AnnotatedBlock.fromNode(SourceCode.createFromContent("class Bar {", "}"), node, null);
+        AnnotatedBlock.fromNode(SourceCode.createFromContent("class Bar {", "}"), ComparisonMode.EXACT, node, null);
     }
 
     @Test
@@ -52,6 +52,7 @@ public class AnnotatedBlockTest {
         node.setRange(new Range(new Position(1, 1), new Position(2, 2)));
         final AnnotatedBlock block = AnnotatedBlock.fromNode(
                 SourceCode.createFromContent("class Bar {", " }"),
+                ComparisonMode.EXACT,
                 node,
                 Collections.singletonList("test-watcher"));
         assertEquals("TYPE 'Bar' {line=0, column=0} - {line=1, column=1} [test-watcher]", block.toString());
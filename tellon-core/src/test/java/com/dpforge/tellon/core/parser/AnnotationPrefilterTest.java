@@ -0,0 +1,78 @@
+package com.dpforge.tellon.core.parser;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AnnotationPrefilterTest {
+    @Test
+    public void simpleName() {
+        assertTrue(mayContain("class Foo { @NotifyChanges(\"a\") int a; }"));
+    }
+
+    @Test
+    public void qualifiedName() {
+        assertTrue(mayContain("class Foo { @com.dpforge.tellon.annotations.NotifyChanges(\"a\") int a; }"));
+    }
+
+    @Test
+    public void spacesAndCommentsInsideName() {
+        assertTrue(mayContain("class Foo { @ NotifyChanges(\"a\") int a; }"));
+        assertTrue(mayContain("class Foo { @com.dpforge /* c */ .tellon.\n annotations . NotifyChanges(\"a\") int a; }"));
+    }
+
+    @Test
+    public void noAnnotation() {
+        assertFalse(mayContain("class Foo { @Deprecated int a; }"));
+        assertFalse(mayContain(""));
+    }
+
+    @Test
+    public void similarNames() {
+        assertFalse(mayContain("class Foo { @NotifyChangesLater int a; }"));
+        assertFalse(mayContain("class Foo { @Other.NotifyChanges int a; }"));
+        assertFalse(mayContain("class Foo { @NotifyChanges.Other int a; }"));
+        assertFalse(mayContain("class Foo { NotifyChanges a; }"));
+    }
+
+    @Test
+    public void insideComments() {
+        assertFalse(mayContain("class Foo { // @NotifyChanges(\"a\")\n int a; }"));
+        assertFalse(mayContain("class Foo { /* @NotifyChanges(\"a\") */ int a; }"));
+        assertFalse(mayContain("/**\n * @NotifyChanges(\"a\")\n */\nclass Foo {}"));
+        assertTrue(mayContain("class Foo { // comment\n @NotifyChanges(\"a\") int a; }"));
+        assertTrue(mayContain("class Foo { /* comment */ @NotifyChanges(\"a\") int a; }"));
+    }
+
+    @Test
+    public void insideLiterals() {
+        assertFalse(mayContain("class Foo { String s = \"@NotifyChanges\"; }"));
+        assertFalse(mayContain("class Foo { String s = \"\\\"@NotifyChanges\"; }"));
+        assertFalse(mayContain("class Foo { char c = '\"'; String s = \"@NotifyChanges\"; }"));
+        assertTrue(mayContain("class Foo { char c = '@'; @NotifyChanges(\"a\") int a; }"));
+        assertTrue(mayContain("class Foo { String s = \"/*\"; @NotifyChanges(\"a\") int a; }"));
+    }
+
+    @Test
+    public void annotationDeclaration() {
+        assertFalse(mayContain("@interface NotifyChanges {}"));
+    }
+
+    @Test
+    public void parserSkipsFilesWithoutAnnotation() {
+        final SourceCodeParser parser = new SourceCodeParser();
+        assertTrue(parser.parse(SourceCode.createFromContent("class Foo { int a; }")).getAnnotatedBlocks().isEmpty());
+        assertEquals(1, parser.getStatistics().getSkippedCount());
+        assertEquals(0, parser.getStatistics().getParsedCount());
+
+        assertEquals(1, parser.parse(SourceCode.createFromContent(
+                "package com.dpforge.tellon.annotations;",
+                "class Foo { @NotifyChanges(\"a\") int a; }")).getAnnotatedBlocks().size());
+        assertEquals(1, parser.getStatistics().getSkippedCount());
+        assertEquals(1, parser.getStatistics().getParsedCount());
+    }
+
+    private static boolean mayContain(final String code) {
+        return AnnotationPrefilter.mayContainAnnotation(code);
+    }
+}
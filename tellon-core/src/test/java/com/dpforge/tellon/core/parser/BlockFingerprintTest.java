@@ -0,0 +1,71 @@
+package com.dpforge.tellon.core.parser;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class BlockFingerprintTest {
+
+    @Test
+    public void sameLines() {
+        assertEquals(BlockFingerprint.of(Arrays.asList("int a;", "int b;")),
+                BlockFingerprint.of(Arrays.asList("int a;", "int b;")));
+    }
+
+    @Test
+    public void differentLines() {
+        assertNotEquals(BlockFingerprint.of(Arrays.asList("int a;", "int b;")),
+                BlockFingerprint.of(Arrays.asList("int a;", "int c;")));
+        assertNotEquals(BlockFingerprint.of(Collections.singletonList("")),
+                BlockFingerprint.of(Collections.emptyList()));
+    }
+
+    @Test
+    public void lineBreaks() {
+        assertNotEquals(BlockFingerprint.of(Arrays.asList("ab", "c")), BlockFingerprint.of(Arrays.asList("a", "bc")));
+        assertNotEquals(BlockFingerprint.of(Collections.singletonList("a b")),
+                BlockFingerprint.of(Arrays.asList("a", "b")));
+    }
+
+    @Test
+    public void blockFingerprint() {
+        final SourceCode sourceCode = SourceCode.createFromContent(
+                "class Foo {",
+                "    int a;",
+                "}");
+        final AnnotatedBlock block = AnnotatedBlock.fromPositions(sourceCode, ComparisonMode.EXACT, BlockType.FIELD,
+                "a", 0, Collections.singletonList(0), BlockPosition.createZeroBased(1, 4), BlockPosition.createZeroBased(1, 9),
+                Collections.emptyList());
+        assertEquals(BlockFingerprint.of(Collections.singletonList("int a;")), block.getFingerprint());
+    }
+
+    @Test
+    public void toStringTest() {
+        assertEquals("00000000000000ff0000000000000001", new BlockFingerprint(255, 1).toString());
+    }
+
+    @Test
+    public void textEqualsLines() {
+        assertEquals(BlockFingerprint.of(Arrays.asList("int a;", "", "int b;")),
+                BlockFingerprint.of("int a;\n\nint b;"));
+        assertEquals(BlockFingerprint.of(Collections.singletonList("")), BlockFingerprint.of(""));
+    }
+
+    @Test
+    public void tokensEqualNormalizedList() {
+        final String code = "/**\n * Doc  of\tfoo\n **/\n// line\u0001 \n"
+                + "int foo(int a) { /* block */ return a+++b >>= 1; }";
+        for (ComparisonMode mode : Arrays.asList(ComparisonMode.IGNORE_WHITESPACE, ComparisonMode.IGNORE_COMMENTS,
+                ComparisonMode.IGNORE_JAVADOC)) {
+            assertEquals(BlockFingerprint.of(TokenNormalizer.normalize(code, mode)),
+                    BlockFingerprint.ofTokens(code, mode));
+        }
+        assertEquals(BlockFingerprint.of(Collections.emptyList()),
+                BlockFingerprint.ofTokens("", ComparisonMode.IGNORE_WHITESPACE));
+        assertEquals(BlockFingerprint.of(Collections.singletonList("/*")),
+                BlockFingerprint.ofTokens("/**/", ComparisonMode.IGNORE_WHITESPACE));
+    }
+}
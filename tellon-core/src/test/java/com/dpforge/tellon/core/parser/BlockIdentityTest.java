@@ -0,0 +1,38 @@
+package com.dpforge.tellon.core.parser;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BlockIdentityTest {
+
+    @Test
+    public void simplifyType() {
+        assertEquals("int", BlockIdentity.simplifyType("int"));
+        assertEquals("String[]", BlockIdentity.simplifyType("java.lang.String ..."));
+        assertEquals("List", BlockIdentity.simplifyType("java.util.List<Map<K, V>>"));
+        assertEquals("Entry[][]", BlockIdentity.simplifyType("Map.Entry<K, V> @A [] @B(1) []"));
+        assertEquals("String", BlockIdentity.simplifyType("@A @b.C(x = \"y\") String"));
+    }
+
+    @Test
+    public void key() {
+        final long key = BlockIdentity.key(Collections.singletonList("Foo"), BlockType.METHOD, "doIt",
+                Arrays.asList("int", "String"));
+        assertEquals(key, BlockIdentity.key(Collections.singletonList("Foo"), BlockType.METHOD, "doIt",
+                Arrays.asList("int", "String")));
+        assertNotEquals(key, BlockIdentity.key(Collections.singletonList("Foo"), BlockType.METHOD, "doIt",
+                Arrays.asList("String", "int")));
+        assertNotEquals(key, BlockIdentity.key(Arrays.asList("Foo", "Bar"), BlockType.METHOD, "doIt",
+                Arrays.asList("int", "String")));
+        assertNotEquals(key, BlockIdentity.key(Collections.singletonList("Foo"), BlockType.CONSTRUCTOR, "doIt",
+                Arrays.asList("int", "String")));
+        final List<String> noTypes = Collections.emptyList();
+        assertNotEquals(BlockIdentity.key(noTypes, BlockType.METHOD, "doIt", noTypes),
+                BlockIdentity.key(noTypes, BlockType.METHOD, "doIt", null));
+    }
+}
@@ -0,0 +1,50 @@
+package com.dpforge.tellon.core.parser;
+
+import com.dpforge.tellon.core.parser.resolver.AsIsWatcherResolver;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BlockSketchTest {
+
+    @Test
+    public void renamedBlock() {
+        final BlockSketch sketch = sketch("@NotifyChanges(\"a\") int sum(int a, int b) { return a + b; }");
+        final BlockSketch renamed = sketch("@NotifyChanges(\"a\")   int add( int a,int b ) {return a+b;}");
+        assertEquals(sketch.getBodyHash(), renamed.getBodyHash());
+        assertEquals(1, sketch.similarity(renamed), 0);
+    }
+
+    @Test
+    public void slightlyChangedBlock() {
+        final BlockSketch sketch = sketch("@NotifyChanges(\"a\") void run() { int x = 1; x++; x *= 2; x--; x += 3; "
+                + "System.out.println(x); System.out.println(x + 1); System.out.println(x + 2); }");
+        final BlockSketch changed = sketch("@NotifyChanges(\"a\") void run() { int x = 1; x++; x *= 2; x--; x += 3; "
+                + "System.out.println(x); System.out.println(x + 1); System.out.println(x + 3); }");
+        assertNotEquals(sketch.getBodyHash(), changed.getBodyHash());
+        assertTrue(sketch.similarity(changed) >= 0.5);
+        assertTrue(sketch.similarity(changed) < 1);
+    }
+
+    @Test
+    public void differentBlocks() {
+        final BlockSketch sketch = sketch("@NotifyChanges(\"a\") int sum(int a, int b) { return a + b; }");
+        final BlockSketch other = sketch("@NotifyChanges(\"a\") String name() { return getClass().getName(); }");
+        assertTrue(sketch.similarity(other) < 0.5);
+        assertNotEquals(sketch.getBandHash(0, BlockSketch.SIZE), other.getBandHash(0, BlockSketch.SIZE));
+    }
+
+    private static BlockSketch sketch(final String member) {
+        final List<AnnotatedBlock> blocks = new SourceCodeParser(new AsIsWatcherResolver(), ParserEngine.JAVA_PARSER)
+                .parse(SourceCode.createFromContent(
+                        "import com.dpforge.tellon.annotations.NotifyChanges;",
+                        "class Foo {",
+                        "    " + member,
+                        "}"))
+                .getAnnotatedBlocks();
+        assertEquals(1, blocks.size());
+        return BlockSketch.of(blocks.get(0));
+    }
+}
@@ -0,0 +1,43 @@
+package com.dpforge.tellon.core.parser;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class BlockSourceCodeTest {
+
+    @Test
+    public void rawAndFragment() {
+        final SourceCodeLines lines = SourceCodeLines.create(
+                "class Foo {",
+                "    /** Doc */ int a;",
+                "    int b; int c",
+                "        = 1; int d;",
+                "}");
+        final BlockSourceCode sourceCode = BlockSourceCode.create(lines, BlockPosition.createZeroBased(1, 4),
+                BlockPosition.createZeroBased(1, 20), ComparisonMode.EXACT);
+        assertEquals(Collections.singletonList("/** Doc */ int a;"), sourceCode.asRaw());
+        assertEquals(Collections.singletonList("    /** Doc */ int a;"), sourceCode.asFragment());
+
+        final BlockSourceCode multiline = BlockSourceCode.create(lines, BlockPosition.createZeroBased(2, 11),
+                BlockPosition.createZeroBased(3, 11), ComparisonMode.EXACT);
+        assertEquals(Arrays.asList("int c", "        = 1;"), multiline.asRaw());
+        assertEquals(Arrays.asList("    int b; int c", "        = 1; int d;"), multiline.asFragment());
+        assertSame(multiline.asRaw(), multiline.asRaw());
+        assertEquals(BlockFingerprint.of(multiline.asRaw()), multiline.getFingerprint());
+    }
+
+    @Test
+    public void normalizedFingerprint() {
+        final SourceCodeLines lines = SourceCodeLines.create("int a = 1 ;", "int a=1;");
+        final BlockSourceCode first = BlockSourceCode.create(lines, BlockPosition.createZeroBased(0, 0),
+                BlockPosition.createZeroBased(0, 10), ComparisonMode.IGNORE_WHITESPACE);
+        final BlockSourceCode second = BlockSourceCode.create(lines, BlockPosition.createZeroBased(1, 0),
+                BlockPosition.createZeroBased(1, 7), ComparisonMode.IGNORE_WHITESPACE);
+        assertEquals(first.asCompared(), second.asCompared());
+        assertEquals(first.getFingerprint(), second.getFingerprint());
+    }
+}
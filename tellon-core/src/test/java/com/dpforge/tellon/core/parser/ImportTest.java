@@ -1,5 +1,6 @@
 package com.dpforge.tellon.core.parser;
 
+import com.dpforge.tellon.core.parser.resolver.AsIsWatcherResolver;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
@@ -84,6 +85,7 @@ public class ImportTest {
     }
 
     private static ParsedSourceCode parse(final String... code) {
-        return new SourceCodeParser().parse(SourceCode.createFromContent(code));
+        return new SourceCodeParser(new AsIsWatcherResolver(), ParserEngine.CROSS_CHECK)
+                .parse(SourceCode.createFromContent(code));
     }
 }
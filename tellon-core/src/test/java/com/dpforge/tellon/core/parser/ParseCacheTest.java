@@ -0,0 +1,187 @@
+package com.dpforge.tellon.core.parser;
+
+import com.dpforge.tellon.core.parser.resolver.AsIsWatcherResolver;
+import com.dpforge.tellon.core.parser.resolver.SingleWatcherResolver;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ParseCacheTest {
+    private static final String CONTENT_ID = "0123456789abcdef0123456789abcdef01234567";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void loadStored() throws Exception {
+        final ParseCache cache = new ParseCache(folder.getRoot(), 1024 * 1024);
+        final ParsedSourceCode parsed = parse(new SourceCodeParser(new AsIsWatcherResolver(), ParserEngine.JAVA_PARSER,
+                cache));
+
+        final SourceCodeParser parser = new SourceCodeParser(new AsIsWatcherResolver(), ParserEngine.JAVA_PARSER, cache);
+        final ParsedSourceCode cached = parse(parser);
+        assertEquals(0, parser.getStatistics().getParsedCount());
+        assertEquals(1, parser.getStatistics().getCachedCount());
+
+        final List<AnnotatedBlock> expected = parsed.getAnnotatedBlocks();
+        final List<AnnotatedBlock> actual = cached.getAnnotatedBlocks();
+        assertEquals(2, actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).toString(), actual.get(i).toString());
+            assertEquals(expected.get(i).getSourceCode().asRaw(), actual.get(i).getSourceCode().asRaw());
+        }
+        assertEquals(Arrays.asList("a", "b", "com.test.Watchers.SOMEONE"), actual.get(1).getWatchers());
+    }
+
+    @Test
+    public void watchersResolvedOnLoad() throws Exception {
+        final ParseCache cache = new ParseCache(folder.getRoot(), 1024 * 1024);
+        parse(new SourceCodeParser(new AsIsWatcherResolver(), ParserEngine.JAVA_PARSER, cache));
+
+        final ParsedSourceCode cached = parse(new SourceCodeParser(new SingleWatcherResolver() {
+            @Override
+            protected String resolveLiteralSingle(String value) {
+                return value.toUpperCase();
+            }
+
+            @Override
+            protected String resolveReferenceSingle(String qualifiedName, String field) {
+                return "mailto:" + field.toLowerCase();
+            }
+        }, ParserEngine.JAVA_PARSER, cache));
+        assertEquals(Arrays.asList("A", "B", "mailto:someone"), cached.getAnnotatedBlocks().get(1).getWatchers());
+    }
+
+    @Test
+    public void corruptedEntry() throws Exception {
+        final ParseCache cache = new ParseCache(folder.getRoot(), 1024 * 1024);
+        parse(new SourceCodeParser(new AsIsWatcherResolver(), ParserEngine.JAVA_PARSER, cache));
+        final File entry = getEntries(cache)[0];
+        Files.write(entry.toPath(), new byte[]{1, 2, 3});
+
+        final SourceCodeParser parser = new SourceCodeParser(new AsIsWatcherResolver(), ParserEngine.JAVA_PARSER, cache);
+        assertEquals(2, parse(parser).getAnnotatedBlocks().size());
+        assertEquals(1, parser.getStatistics().getParsedCount());
+        assertEquals(0, parser.getStatistics().getCachedCount());
+    }
+
+    @Test
+    public void entryDoesNotMatchSourceCode() throws Exception {
+        final ParseCache cache = new ParseCache(folder.getRoot(), 1024 * 1024);
+        parse(new SourceCodeParser(new AsIsWatcherResolver(), ParserEngine.JAVA_PARSER, cache));
+
+        final SourceCodeParser parser = new SourceCodeParser(new AsIsWatcherResolver(), ParserEngine.JAVA_PARSER, cache);
+        final ParsedSourceCode parsed = parser.parse(SourceCode.createFromContent(
+                "import com.dpforge.tellon.annotations.NotifyChanges;",
+                "@NotifyChanges(\"a\") class Foo {}"), CONTENT_ID);
+        assertEquals(1, parsed.getAnnotatedBlocks().size());
+        assertEquals(1, parser.getStatistics().getParsedCount());
+    }
+
+    @Test
+    public void eviction() throws Exception {
+        final ParseCache cache = new ParseCache(folder.getRoot(), 1000);
+        final SourceCodeParser parser = new SourceCodeParser(new AsIsWatcherResolver(), ParserEngine.JAVA_PARSER, cache);
+        for (int i = 0; i < 20; i++) {
+            parser.parse(createSourceCode(), String.format("%040d", i));
+        }
+        long total = 0;
+        for (File bucket : getDirectory(cache).listFiles()) {
+            for (File entry : bucket.listFiles()) {
+                total += entry.length();
+            }
+        }
+        assertTrue(total > 0);
+        assertTrue(total <= 1000);
+
+        parser.parse(createSourceCode(), String.format("%040d", 19));
+        assertEquals(1, parser.getStatistics().getCachedCount());
+    }
+
+    @Test
+    public void noContentId() throws Exception {
+        final ParseCache cache = new ParseCache(folder.getRoot(), 1024 * 1024);
+        final SourceCodeParser parser = new SourceCodeParser(new AsIsWatcherResolver(), ParserEngine.JAVA_PARSER, cache);
+        parser.parse(createSourceCode());
+        parser.parse(createSourceCode());
+        assertEquals(2, parser.getStatistics().getParsedCount());
+        assertEquals(0, getEntries(cache).length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidContentId() throws Exception {
+        final ParseCache cache = new ParseCache(folder.getRoot(), 1024 * 1024);
+        new SourceCodeParser(new AsIsWatcherResolver(), ParserEngine.JAVA_PARSER, cache)
+                .parse(createSourceCode(), "../../foo");
+    }
+
+    @Test
+    public void entryCopiedToPrecedingStorages() throws Exception {
+        final MemoryStorage local = new MemoryStorage();
+        final MemoryStorage shared = new MemoryStorage();
+        parse(new SourceCodeParser(new AsIsWatcherResolver(), ParserEngine.JAVA_PARSER, new ParseCache(shared)));
+        assertTrue(shared.entries.containsKey(CONTENT_ID));
+
+        final SourceCodeParser parser = new SourceCodeParser(new AsIsWatcherResolver(), ParserEngine.JAVA_PARSER,
+                new ParseCache(local, shared));
+        assertEquals(2, parse(parser).getAnnotatedBlocks().size());
+        assertEquals(1, parser.getStatistics().getCachedCount());
+        assertArrayEquals(shared.entries.get(CONTENT_ID), local.entries.get(CONTENT_ID));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroSize() throws IOException {
+        new ParseCache(folder.getRoot(), 0);
+    }
+
+    private static class MemoryStorage implements ParseCacheStorage {
+        final Map<String, byte[]> entries = new HashMap<>();
+
+        @Override
+        public byte[] read(String contentId) {
+            return entries.get(contentId);
+        }
+
+        @Override
+        public void write(String contentId, byte[] entry) {
+            entries.put(contentId, entry);
+        }
+    }
+
+    private static ParsedSourceCode parse(final SourceCodeParser parser) {
+        return parser.parse(createSourceCode(), CONTENT_ID);
+    }
+
+    private static File getDirectory(final ParseCache cache) {
+        return ((DirectoryCacheStorage) cache.getStorages().get(0)).getDirectory();
+    }
+
+    private static File[] getEntries(final ParseCache cache) {
+        final File[] entries = new File(getDirectory(cache), CONTENT_ID.substring(0, 2)).listFiles();
+        return entries != null ? entries : new File[0];
+    }
+
+    private static SourceCode createSourceCode() {
+        return SourceCode.createFromContent(
+                "package com.test;",
+                "import com.dpforge.tellon.annotations.NotifyChanges;",
+                "import com.test.Watchers;",
+                "class Foo {",
+                "    /** Doc */",
+                "    @NotifyChanges(\"a\")",
+                "    void doIt() {",
+                "    }",
+                "    @NotifyChanges({\"a\", \"b\", Watchers.SOMEONE}) int a, b;",
+                "}");
+    }
+}
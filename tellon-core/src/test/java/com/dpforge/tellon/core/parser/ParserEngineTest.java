@@ -0,0 +1,164 @@
+package com.dpforge.tellon.core.parser;
+
+import com.dpforge.tellon.core.parser.resolver.AsIsWatcherResolver;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ParserEngineTest {
+    @Test
+    public void crossCheckCorpus() throws Exception {
+        final File[] files = getCorpusFiles();
+        assertTrue(files.length > 0);
+        for (File file : files) {
+            final SourceCode sourceCode = SourceCode.createFromContent(
+                    Files.readAllLines(file.toPath(), StandardCharsets.UTF_8));
+            final ParsedSourceCode parsed = parse(ParserEngine.CROSS_CHECK, sourceCode);
+            assertFalse(file.getName(), parsed.getAnnotatedBlocks().isEmpty());
+        }
+    }
+
+    @Test
+    public void crossCheckCorpusFingerprints() throws Exception {
+        // fingerprints of the scanner are computed from tokens of the whole file, of JavaParser from every block
+        for (ComparisonMode mode : Arrays.asList(ComparisonMode.IGNORE_WHITESPACE, ComparisonMode.IGNORE_COMMENTS,
+                ComparisonMode.IGNORE_JAVADOC)) {
+            for (File file : getCorpusFiles()) {
+                final SourceCode sourceCode = SourceCode.createFromContent(
+                        Files.readAllLines(file.toPath(), StandardCharsets.UTF_8));
+                final ParsedSourceCode parsed = new SourceCodeParser(new AsIsWatcherResolver(),
+                        ParserEngine.CROSS_CHECK, null, mode).parse(sourceCode);
+                for (AnnotatedBlock block : parsed.getAnnotatedBlocks()) {
+                    assertEquals(file.getName(), BlockFingerprint.of(block.getSourceCode().asCompared()),
+                            block.getFingerprint());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void scannerBlocks() {
+        final ParsedSourceCode parsed = parse(ParserEngine.SCANNER, SourceCode.createFromContent(
+                "package com.test;",
+                "import com.dpforge.tellon.annotations.NotifyChanges;",
+                "class Foo {",
+                "    /** Doc */",
+                "    @NotifyChanges(\"method\")",
+                "    void doIt() {",
+                "        new Object() { @NotifyChanges(\"anonymous\") int value; };",
+                "    }",
+                "    @NotifyChanges(\"field\") int a, b; // comment",
+                "}"));
+
+        final List<AnnotatedBlock> blocks = parsed.getAnnotatedBlocks();
+        assertEquals(3, blocks.size());
+
+        assertBlock(blocks.get(0), BlockType.METHOD, "doIt", 3, 4, 7, 4);
+        assertEquals(Arrays.asList("    /** Doc */", "    @NotifyChanges(\"method\")", "    void doIt() {",
+                "        new Object() { @NotifyChanges(\"anonymous\") int value; };", "    }"),
+                blocks.get(0).getSourceCode().asFragment());
+        assertEquals(Arrays.asList("method"), blocks.get(0).getWatchers());
+
+        assertBlock(blocks.get(1), BlockType.FIELD, "value", 6, 23, 6, 60);
+        assertBlock(blocks.get(2), BlockType.FIELD, "a, b", 8, 4, 8, 36);
+    }
+
+    @Test
+    public void annotationAfterDefaultModifier() {
+        // JavaParser drops annotations that follow "default" and the scanner has to do the same
+        final ParsedSourceCode parsed = parse(ParserEngine.CROSS_CHECK, SourceCode.createFromContent(
+                "package com.test;",
+                "import com.dpforge.tellon.annotations.NotifyChanges;",
+                "interface Foo {",
+                "    default @NotifyChanges(\"someone\") void doIt() {}",
+                "}"));
+        assertTrue(parsed.getAnnotatedBlocks().isEmpty());
+    }
+
+    @Test
+    public void identityKeys() {
+        final ParsedSourceCode parsed = parse(ParserEngine.CROSS_CHECK, SourceCode.createFromContent(
+                "package com.test;",
+                "import com.dpforge.tellon.annotations.NotifyChanges;",
+                "class Foo {",
+                "    @NotifyChanges(\"a\") void doIt(final java.util.List<String> a, int b[]) {}",
+                "    @NotifyChanges(\"a\") void doIt(@Deprecated List<Integer> a, int... b) {}",
+                "    @NotifyChanges(\"a\") void doIt(Map.Entry<K, V>[] entries) {}",
+                "    static class Inner {",
+                "        @NotifyChanges(\"a\") void doIt(final java.util.List<String> a, int b[]) {}",
+                "    }",
+                "    enum E {",
+                "        A { @NotifyChanges(\"a\") void doIt(List a, int[] b) {} };",
+                "    }",
+                "    Object o = new Runnable() {",
+                "        @NotifyChanges(\"a\") public void doIt(List a, int[] b) {}",
+                "    };",
+                "}"));
+        final List<AnnotatedBlock> blocks = parsed.getAnnotatedBlocks();
+        assertEquals(6, blocks.size());
+        assertEquals(blocks.get(0).getIdentityKey(), blocks.get(1).getIdentityKey());
+        final Set<Long> keys = new HashSet<>();
+        for (AnnotatedBlock block : blocks.subList(1, blocks.size())) {
+            assertTrue(keys.add(block.getIdentityKey()));
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void scannerUnsupportedWatcher() {
+        parse(ParserEngine.SCANNER, SourceCode.createFromContent(
+                "package com.test;",
+                "import com.dpforge.tellon.annotations.NotifyChanges;",
+                "class Foo {",
+                "    @NotifyChanges(\"a\" + \"b\") int value;",
+                "}"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void scannerInvalidCode() {
+        parse(ParserEngine.SCANNER, SourceCode.createFromContent(
+                "package com.test;",
+                "import com.dpforge.tellon.annotations.NotifyChanges;",
+                "class Foo {",
+                "    @NotifyChanges(\"someone\") int value;"));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void nullEngine() {
+        new SourceCodeParser(new AsIsWatcherResolver(), null);
+    }
+
+    private static void assertBlock(final AnnotatedBlock block, final BlockType type, final String name,
+                                    final int startLine, final int startColumn,
+                                    final int endLine, final int endColumn) {
+        assertEquals(type, block.getType());
+        assertEquals(name, block.getName());
+        assertEquals(startLine, block.getStartPosition().getLine());
+        assertEquals(startColumn, block.getStartPosition().getColumn());
+        assertEquals(endLine, block.getEndPosition().getLine());
+        assertEquals(endColumn, block.getEndPosition().getColumn());
+    }
+
+    private static ParsedSourceCode parse(final ParserEngine engine, final SourceCode sourceCode) {
+        return new SourceCodeParser(new AsIsWatcherResolver(), engine).parse(sourceCode);
+    }
+
+    private static File[] getCorpusFiles() throws URISyntaxException, IOException {
+        final File directory = new File(ParserEngineTest.class.getResource("/corpus").toURI());
+        final File[] files = directory.listFiles();
+        if (files == null) {
+            throw new IOException("Cannot list files of " + directory);
+        }
+        Arrays.sort(files);
+        return files;
+    }
+}
@@ -1,12 +1,18 @@
 package com.dpforge.tellon.core.parser;
 
+import com.dpforge.tellon.core.parser.resolver.AsIsWatcherResolver;
+import com.dpforge.tellon.core.parser.resolver.CachingWatcherResolver;
 import com.dpforge.tellon.core.parser.resolver.SingleWatcherResolver;
 import com.dpforge.tellon.core.parser.resolver.WatcherResolver;
 import org.junit.Test;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.*;
 
@@ -384,19 +390,107 @@ public class ParserTest {
         }
     }
 
+    @Test
+    public void samePackageReferenceWatcher() {
+        final ParsedSourceCode parsed = parse(
+                "package com.test;",
+                "import com.dpforge.tellon.annotations.NotifyChanges;",
+                "class Foo {",
+                "    @NotifyChanges(Contacts.SOME_DEVELOPER)",
+                "    int value;",
+                "}");
+        assertEquals("com.test.Contacts.SOME_DEVELOPER", parsed.getAnnotatedBlocks().get(0).getWatchers().get(0));
+    }
+
+    @Test
+    public void nestedAndQualifiedReferenceWatcher() {
+        final ParsedSourceCode parsed = parse(
+                "package com.test;",
+                "import com.dpforge.tellon.annotations.NotifyChanges;",
+                "import com.watcher.Contacts;",
+                "class Foo {",
+                "    @NotifyChanges({Contacts.Team.LEAD, com.other.Watchers.DEV})",
+                "    int value;",
+                "}");
+        final List<String> watchers = parsed.getAnnotatedBlocks().get(0).getWatchers();
+        assertEquals("com.watcher.Contacts.Team.LEAD", watchers.get(0));
+        assertEquals("com.other.Watchers.DEV", watchers.get(1));
+    }
+
+    @Test
+    public void staticImportReferenceWatcher() {
+        final ParsedSourceCode parsed = parse(
+                "package com.test;",
+                "import com.dpforge.tellon.annotations.NotifyChanges;",
+                "import static com.watcher.Contacts.LEAD;",
+                "import static com.other.Watchers.*;",
+                "class Foo {",
+                "    @NotifyChanges({LEAD, DEV})",
+                "    int value;",
+                "}");
+        final List<String> watchers = parsed.getAnnotatedBlocks().get(0).getWatchers();
+        assertEquals("com.watcher.Contacts.LEAD", watchers.get(0));
+        assertEquals("com.other.Watchers.DEV", watchers.get(1));
+    }
+
+    @Test
+    public void severalStaticImportsOnDemandAsIs() {
+        final ParsedSourceCode parsed = parse(
+                "package com.test;",
+                "import com.dpforge.tellon.annotations.NotifyChanges;",
+                "import static com.watcher.Contacts.*;",
+                "import static com.other.Watchers.*;",
+                "class Foo {",
+                "    @NotifyChanges(DEV)",
+                "    int value;",
+                "}");
+        assertEquals("com.watcher.Contacts.DEV", parsed.getAnnotatedBlocks().get(0).getWatchers().get(0));
+    }
+
+    @Test
+    public void severalStaticImportsOnDemandReferenceWatcher() {
+        final ParsedSourceCode parsed = parse(createClassResolver(), ParserEngine.CROSS_CHECK,
+                "package com.test;",
+                "import com.dpforge.tellon.annotations.NotifyChanges;",
+                "import static java.util.Objects.*;",
+                "import static com.watcher.Contacts.*;",
+                "import static com.other.Watchers.*;",
+                "class Foo {",
+                "    @NotifyChanges({DEV, LEAD})",
+                "    int value;",
+                "}");
+        assertEquals(Arrays.asList("dev@other.com", "lead@watcher.com"),
+                parsed.getAnnotatedBlocks().get(0).getWatchers());
+    }
+
+    @Test
+    public void importOnDemandReferenceWatcher() {
+        final ParsedSourceCode parsed = parse(createClassResolver(), ParserEngine.SCANNER,
+                "package com.test;",
+                "import com.dpforge.tellon.annotations.NotifyChanges;",
+                "import com.other.*;",
+                "class Foo {",
+                "    @NotifyChanges(Watchers.DEV)",
+                "    int value;",
+                "}");
+        assertEquals(Collections.singletonList("dev@other.com"), parsed.getAnnotatedBlocks().get(0).getWatchers());
+    }
+
     @Test
     public void notImportedReferenceWatcher() {
         try {
-            parse(
+            parse(createClassResolver(), ParserEngine.CROSS_CHECK,
                     "package com.test;",
                     "import com.dpforge.tellon.annotations.NotifyChanges;",
+                    "import com.watcher.*;",
                     "class Foo {",
-                    "    @NotifyChanges(Contacts.SOME_DEVELOPER)",
+                    "    @NotifyChanges(Watchers.DEV)",
                     "    int value;",
                     "}");
             fail("No exception thrown");
-        } catch (Exception e) {
-            assertEquals("Class 'Contacts' is not imported or imported in unsupported way", e.getMessage());
+        } catch (RuntimeException e) {
+            assertEquals("Field 'DEV' is not declared in any of [com.test.Watchers, com.watcher.Watchers]",
+                    e.getMessage());
         }
     }
 
@@ -427,7 +521,37 @@ public class ParserTest {
     }
 
     private static ParsedSourceCode parse(final String... code) {
-        return new SourceCodeParser().parse(SourceCode.createFromContent(code));
+        return parse(new AsIsWatcherResolver(), ParserEngine.CROSS_CHECK, code);
+    }
+
+    private static ParsedSourceCode parse(final WatcherResolver resolver,
+                                          final ParserEngine engine,
+                                          final String... code) {
+        return new SourceCodeParser(resolver, engine).parse(SourceCode.createFromContent(code));
+    }
+
+    /**
+     * Resolver which knows only {@code com.watcher.Contacts} and {@code com.other.Watchers} classes
+     */
+    private static WatcherResolver createClassResolver() {
+        final Map<String, SourceCode> classes = new HashMap<>();
+        classes.put("com.watcher.Contacts", SourceCode.createFromContent(
+                "package com.watcher;",
+                "public class Contacts {",
+                "    public static final String LEAD = \"lead@watcher.com\";",
+                "}"));
+        classes.put("com.other.Watchers", SourceCode.createFromContent(
+                "package com.other;",
+                "public interface Watchers {",
+                "    String DEV = \"dev@other.com\";",
+                "}"));
+        return new CachingWatcherResolver(qualifiedName -> {
+            final SourceCode sourceCode = classes.get(qualifiedName);
+            if (sourceCode == null) {
+                throw new FileNotFoundException(qualifiedName);
+            }
+            return sourceCode;
+        });
     }
 
     private static void assertBlocks(final ParsedSourceCode sourceCode, final BlockType... blockTypes) {
@@ -136,4 +136,33 @@ public class SourceCodeLinesTest {
             }
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void lineTerminators() throws Exception {
+        final SourceCodeLines lines = SourceCodeLines.create("class Foo {\r\n    int a;\r    int b;\n\n}");
+        assertEquals(5, lines.size());
+        assertEquals("    int a;", lines.get(1));
+        assertEquals("    int b;", lines.getLine(2).toString());
+        assertEquals("", lines.get(3));
+        assertEquals("class Foo {\n    int a;\n    int b;\n\n}\n", lines.getText().toString());
+    }
+
+    @Test
+    public void lastLineWithoutTerminator() throws Exception {
+        final String text = "class Foo {\n}";
+        final SourceCodeLines lines = SourceCodeLines.create(text.toCharArray(), text.length());
+        assertEquals(2, lines.size());
+        assertEquals("}", lines.get(1));
+        assertEquals(text, lines.getText().toString());
+        assertEquals(Arrays.asList("{", "}"), lines.getExactRange(BlockPosition.createHumanBased(1, 11),
+                BlockPosition.createHumanBased(2, 1)));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getExactRangeBeyondLine() throws Exception {
+        final SourceCodeLines lines = SourceCodeLines.create(
+                "class Foo {",
+                "}");
+        lines.getExactRange(BlockPosition.createHumanBased(1, 1), BlockPosition.createHumanBased(2, 3));
+    }
+}
@@ -2,6 +2,8 @@ package com.dpforge.tellon.core.parser;
 
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
 import static org.junit.Assert.*;
@@ -26,4 +28,26 @@ public class SourceCodeTest {
         assertEquals(3, sourceCode.getContent().size());
     }
 
+    @Test
+    public void createFromBytes() throws Exception {
+        final SourceCode sourceCode = SourceCode.createFromBytes(
+                "class Foo {\r\n    String b = \"\u00e9\";\r\n}\r\n".getBytes(StandardCharsets.UTF_8),
+                StandardCharsets.UTF_8);
+        assertEquals(Arrays.asList("class Foo {", "    String b = \"\u00e9\";", "}"),
+                Arrays.asList(sourceCode.getContent().get(0), sourceCode.getContent().get(1),
+                        sourceCode.getContent().get(2)));
+        assertEquals(3, sourceCode.getContent().size());
+        assertEquals("class Foo {\n    String b = \"\u00e9\";\n}\n", sourceCode.getText().toString());
+        assertEquals(1, sourceCode.toCompilationUnit().getTypes().size());
+    }
+
+    @Test
+    public void createFromByteBuffer() throws Exception {
+        final ByteBuffer bytes = ByteBuffer.wrap("//\nclass Foo {}".getBytes(StandardCharsets.UTF_8));
+        bytes.position(3);
+        final SourceCode sourceCode = SourceCode.createFromBytes(bytes, StandardCharsets.UTF_8);
+        assertEquals(3, bytes.position());
+        assertEquals(1, sourceCode.getContent().size());
+        assertEquals("class Foo {}", sourceCode.getContent().get(0));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.dpforge.tellon.core.parser;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TokenNormalizerTest {
+
+    @Test
+    public void whitespaceIgnored() {
+        assertEquals(
+                normalize(ComparisonMode.IGNORE_WHITESPACE, "void foo(int a) {", "    return a+1;", "}"),
+                normalize(ComparisonMode.IGNORE_WHITESPACE, "void foo( int a )", "{", "\treturn a + 1 ;}"));
+    }
+
+    @Test
+    public void adjacentOperators() {
+        assertEquals(Arrays.asList("x", "++", "+", "y"), normalize(ComparisonMode.IGNORE_WHITESPACE, "x++ + y"));
+        assertEquals(Arrays.asList("x", "+", "++", "y"), normalize(ComparisonMode.IGNORE_WHITESPACE, "x + ++y"));
+        assertEquals(Arrays.asList("f", "(", "a", ")", ";"), normalize(ComparisonMode.IGNORE_WHITESPACE, "f(a);"));
+    }
+
+    @Test
+    public void stringLiteralsKept() {
+        assertNotEquals(
+                normalize(ComparisonMode.IGNORE_JAVADOC, "String s = \"a  b\";"),
+                normalize(ComparisonMode.IGNORE_JAVADOC, "String s = \"a b\";"));
+    }
+
+    @Test
+    public void reflowedJavadoc() {
+        assertEquals(
+                Arrays.asList("/** Does it.", "void", "foo", "(", ")", ";"),
+                normalize(ComparisonMode.IGNORE_WHITESPACE, "/**", " * Does", " * it.", " */", "void foo();"));
+        assertEquals(
+                normalize(ComparisonMode.IGNORE_WHITESPACE, "/** Does it. */ void foo();"),
+                normalize(ComparisonMode.IGNORE_WHITESPACE, "/**", " * Does", " * it.", " */", "void foo();"));
+    }
+
+    @Test
+    public void comments() {
+        final String[] code = {"/** Doc */", "int a; // line", "/* block */"};
+        assertEquals(Arrays.asList("/** Doc", "int", "a", ";", "// line", "/* block"),
+                normalize(ComparisonMode.IGNORE_WHITESPACE, code));
+        assertEquals(Arrays.asList("/** Doc", "int", "a", ";"), normalize(ComparisonMode.IGNORE_COMMENTS, code));
+        assertEquals(Arrays.asList("int", "a", ";"), normalize(ComparisonMode.IGNORE_JAVADOC, code));
+    }
+
+    @Test
+    public void emptyComment() {
+        assertEquals(Collections.singletonList("/*"), normalize(ComparisonMode.IGNORE_WHITESPACE, "/**/"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void exactMode() {
+        normalize(ComparisonMode.EXACT, "int a;");
+    }
+
+    private static List<String> normalize(ComparisonMode mode, String... lines) {
+        return TokenNormalizer.normalize(Arrays.asList(lines), mode);
+    }
+}
@@ -0,0 +1,206 @@
+package com.dpforge.tellon.core.parser;
+
+import org.junit.Test;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class WatcherConstantGraphTest {
+    private final Map<String, SourceCode> classes = new HashMap<>();
+    private final List<String> loaded = new ArrayList<>();
+    private final WatcherConstantGraph graph = new WatcherConstantGraph(qualifiedName -> {
+        loaded.add(qualifiedName);
+        final SourceCode sourceCode = classes.get(qualifiedName);
+        if (sourceCode == null) {
+            throw new FileNotFoundException(qualifiedName);
+        }
+        return new WatcherConstantParser().parseDeclarations(sourceCode);
+    });
+
+    @Test
+    public void chainedReferences() throws Exception {
+        addClass("com.test.Contacts",
+                "package com.test;",
+                "import com.team.Leads;",
+                "public class Contacts {",
+                "    public static final String DEV = Team.ALL;",
+                "    public static final String LEAD = Leads.MAIN;",
+                "}");
+        addClass("com.test.Team",
+                "package com.test;",
+                "class Team {",
+                "    static final String ALL = ROOT;",
+                "    static final String ROOT = \"team@example.com\";",
+                "}");
+        addClass("com.team.Leads",
+                "package com.team;",
+                "interface Leads {",
+                "    String MAIN = com.test.Team.ROOT;",
+                "}");
+        assertEquals("team@example.com", graph.resolve("com.test.Contacts", "DEV"));
+        assertEquals("team@example.com", graph.resolve("com.test.Contacts", "LEAD"));
+        assertNull(graph.resolve("com.test.Contacts", "UNKNOWN"));
+    }
+
+    @Test
+    public void eachClassLoadedOnce() throws Exception {
+        addClass("com.test.Contacts",
+                "package com.test;",
+                "class Contacts {",
+                "    static final String A = Team.A;",
+                "    static final String B = Team.B;",
+                "}");
+        addClass("com.test.Team",
+                "package com.test;",
+                "class Team {",
+                "    static final String A = \"a\";",
+                "    static final String B = \"b\";",
+                "}");
+        assertEquals("a", graph.resolve("com.test.Contacts", "A"));
+        assertEquals("b", graph.resolve("com.test.Contacts", "B"));
+        assertEquals("a", graph.resolve("com.test.Team", "A"));
+        assertEquals(2, loaded.size());
+
+        graph.invalidate("com.test.Team");
+        assertEquals("b", graph.resolve("com.test.Contacts", "B"));
+        assertEquals(3, loaded.size());
+    }
+
+    @Test
+    public void nestedClasses() throws Exception {
+        addClass("com.test.Contacts",
+                "package com.test;",
+                "class Contacts {",
+                "    static final String ROOT = \"root\";",
+                "    static class Team {",
+                "        static final String LEAD = ROOT;",
+                "        static final String DEV = Backend.DEV;",
+                "        static class Backend {",
+                "            static final String DEV = \"backend\";",
+                "        }",
+                "    }",
+                "    static final String DEV = Team.Backend.DEV;",
+                "}");
+        assertEquals("root", graph.resolve("com.test.Contacts.Team", "LEAD"));
+        assertEquals("backend", graph.resolve("com.test.Contacts.Team", "DEV"));
+        assertEquals("backend", graph.resolve("com.test.Contacts", "DEV"));
+        assertEquals(1, loaded.size());
+    }
+
+    @Test
+    public void staticImports() throws Exception {
+        addClass("com.test.Contacts",
+                "package com.test;",
+                "import static com.team.Leads.MAIN;",
+                "import static java.lang.Math.*;",
+                "import static com.team.Devs.*;",
+                "class Contacts {",
+                "    static final String LEAD = MAIN;",
+                "    static final String DEV = BACKEND;",
+                "}");
+        addClass("com.team.Leads",
+                "package com.team;",
+                "class Leads {",
+                "    static final String MAIN = \"lead\";",
+                "}");
+        addClass("com.team.Devs",
+                "package com.team;",
+                "class Devs {",
+                "    static final String BACKEND = \"backend\";",
+                "}");
+        assertEquals("lead", graph.resolve("com.test.Contacts", "LEAD"));
+        assertEquals("backend", graph.resolve("com.test.Contacts", "DEV"));
+    }
+
+    @Test
+    public void importsOnDemand() throws Exception {
+        addClass("com.test.Contacts",
+                "package com.test;",
+                "import java.util.*;",
+                "import com.team.*;",
+                "class Contacts {",
+                "    static final String DEV = Devs.BACKEND;",
+                "}");
+        addClass("com.team.Devs",
+                "package com.team;",
+                "class Devs {",
+                "    static final String BACKEND = \"backend\";",
+                "}");
+        assertEquals("backend", graph.resolve("com.test.Contacts", "DEV"));
+        assertEquals("backend", graph.resolve(Arrays.asList("com.test.Devs", "java.util.Devs", "com.team.Devs"),
+                "BACKEND"));
+        assertNull(graph.resolve(Arrays.asList("com.test.Devs", "java.util.Devs"), "BACKEND"));
+    }
+
+    @Test
+    public void cyclicReference() throws Exception {
+        addClass("com.test.Contacts",
+                "package com.test;",
+                "class Contacts {",
+                "    static final String A = Team.B;",
+                "}");
+        addClass("com.test.Team",
+                "package com.test;",
+                "class Team {",
+                "    static final String B = Contacts.A;",
+                "}");
+        try {
+            graph.resolve("com.test.Contacts", "A");
+            fail("No exception thrown");
+        } catch (RuntimeException e) {
+            assertEquals("Cyclic reference of watcher constants: com.test.Contacts.A -> com.test.Team.B"
+                    + " -> com.test.Contacts.A", e.getMessage());
+        }
+    }
+
+    @Test
+    public void referenceToNotDeclaredField() throws Exception {
+        addClass("com.test.Contacts",
+                "package com.test;",
+                "class Contacts {",
+                "    static final String A = Team.B;",
+                "}");
+        addClass("com.test.Team",
+                "package com.test;",
+                "class Team {",
+                "}");
+        try {
+            graph.resolve("com.test.Contacts", "A");
+            fail("No exception thrown");
+        } catch (RuntimeException e) {
+            assertEquals("Field 'B' is not declared in 'com.test.Team'", e.getMessage());
+        }
+    }
+
+    @Test
+    public void invalidFieldFailsOnlyWhenReferenced() throws Exception {
+        addClass("com.test.Contacts",
+                "package com.test;",
+                "class Contacts {",
+                "    static final String A = \"a\";",
+                "    static String B = \"b\";",
+                "}");
+        assertEquals("a", graph.resolve("com.test.Contacts", "A"));
+        try {
+            graph.resolve("com.test.Contacts", "B");
+            fail("No exception thrown");
+        } catch (RuntimeException e) {
+            assertEquals("Field not final", e.getMessage());
+        }
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void unknownClass() throws Exception {
+        graph.resolve("com.test.Contacts", "A");
+    }
+
+    private void addClass(String qualifiedName, String... code) {
+        classes.put(qualifiedName, SourceCode.createFromContent(code));
+    }
+}
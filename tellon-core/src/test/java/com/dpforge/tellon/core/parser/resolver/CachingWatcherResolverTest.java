@@ -0,0 +1,77 @@
+package com.dpforge.tellon.core.parser.resolver;
+
+import com.dpforge.tellon.core.parser.SourceCode;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class CachingWatcherResolverTest {
+
+    @Test
+    public void classParsedOnce() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final CachingWatcherResolver resolver = new CachingWatcherResolver(qualifiedName -> {
+            calls.incrementAndGet();
+            return createContacts();
+        });
+        assertEquals("developer@example.com", resolver.resolveReferenceSingle("com.test.Contacts", "DEVELOPER"));
+        assertEquals("manager@example.com", resolver.resolveReferenceSingle("com.test.Contacts", "MANAGER"));
+        assertEquals("developer@example.com", resolver.resolveReferenceSingle("com.test.Contacts", "DEVELOPER"));
+        assertEquals(1, calls.get());
+
+        resolver.resolveReferenceSingle("com.test.OtherContacts", "DEVELOPER");
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void invalidate() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final CachingWatcherResolver resolver = new CachingWatcherResolver(qualifiedName -> {
+            calls.incrementAndGet();
+            return createContacts();
+        });
+        resolver.resolveReferenceSingle("com.test.Contacts", "DEVELOPER");
+        resolver.resolveReferenceSingle("com.test.OtherContacts", "DEVELOPER");
+
+        resolver.invalidate("com.test.Contacts");
+        resolver.resolveReferenceSingle("com.test.Contacts", "DEVELOPER");
+        resolver.resolveReferenceSingle("com.test.OtherContacts", "DEVELOPER");
+        assertEquals(3, calls.get());
+
+        resolver.invalidateAll();
+        resolver.resolveReferenceSingle("com.test.Contacts", "DEVELOPER");
+        resolver.resolveReferenceSingle("com.test.OtherContacts", "DEVELOPER");
+        assertEquals(5, calls.get());
+    }
+
+    @Test
+    public void failureNotCached() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final CachingWatcherResolver resolver = new CachingWatcherResolver(qualifiedName -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IOException("Fail to read");
+            }
+            return createContacts();
+        });
+        try {
+            resolver.resolveReferenceSingle("com.test.Contacts", "DEVELOPER");
+            fail("No exception thrown");
+        } catch (IOException e) {
+            assertEquals("Fail to read", e.getMessage());
+        }
+        assertEquals("developer@example.com", resolver.resolveReferenceSingle("com.test.Contacts", "DEVELOPER"));
+    }
+
+    private static SourceCode createContacts() {
+        return SourceCode.createFromContent(
+                "class Contacts {",
+                "    public static final String DEVELOPER = \"developer@example.com\";",
+                "    public static final String MANAGER = \"manager@example.com\";",
+                "}"
+        );
+    }
+}
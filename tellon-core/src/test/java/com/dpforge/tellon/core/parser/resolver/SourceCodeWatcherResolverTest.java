@@ -46,6 +46,26 @@ public class SourceCodeWatcherResolverTest {
         }
     }
 
+    @Test
+    public void chainedReference() throws Exception {
+        final SourceCodeWatcherResolver resolver = new SourceCodeWatcherResolver(qualifiedName -> {
+            if ("com.test.Contacts".equals(qualifiedName)) {
+                return SourceCode.createFromContent(
+                        "package com.test;",
+                        "class Contacts {",
+                        "    public static final String DEVELOPER = Team.LEAD;",
+                        "}");
+            }
+            assertEquals("com.test.Team", qualifiedName);
+            return SourceCode.createFromContent(
+                    "package com.test;",
+                    "interface Team {",
+                    "    String LEAD = \"lead@example.com\";",
+                    "}");
+        });
+        assertEquals("lead@example.com", resolver.resolveReferenceSingle("com.test.Contacts", "DEVELOPER"));
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void nullSourceCodeProvider() {
         //noinspection ConstantConditions
@@ -0,0 +1,86 @@
+/*
+ * License header belongs to compilation unit
+ */
+package com.test;
+
+import com.dpforge.tellon.annotations.NotifyChanges; // trailing comment of import
+
+/**
+ * Type javadoc
+ */
+@NotifyChanges("type")
+class Comments {
+    /** a */ @NotifyChanges("a") int a; // same line comment replaces javadoc
+    @NotifyChanges("b") int b;
+
+    /** c */ @NotifyChanges("c1") int c1; @NotifyChanges("c2") int c2; // goes to both
+    @NotifyChanges("c3") int c3;
+
+    /** d */
+    /* last comment wins */
+    @NotifyChanges("d") int d;
+
+    /** e1 */ /** e2 */ @NotifyChanges("e") int e;
+
+    @NotifyChanges("f") int f; /** g */
+    @NotifyChanges("g") int g;
+
+    @NotifyChanges("h")
+    void h() {
+        h(); } // claimed by statement
+    /** i */
+    @NotifyChanges("i") int i;
+
+    @NotifyChanges("j")
+    void j() {
+    } // nobody takes it
+    @NotifyChanges("k") int k;
+
+    /**/ @NotifyChanges("l") int l;
+    /***/ @NotifyChanges("m") int m;
+
+    /** empty line breaks attribution */
+
+    @NotifyChanges("n") int n;
+
+    /** between annotation and declaration */
+    @NotifyChanges("o")
+    /** inner */
+    int o;
+
+    /**
+     * Multiline javadoc
+     */ @NotifyChanges("p")
+    void p() {
+    }
+
+    interface Defaults {
+        /** default */
+        @NotifyChanges("q") default void q() {
+        }
+
+        /** default after line */ default
+        void r() {
+        }
+    }
+
+    void local() {
+        /** local class never has javadoc */
+        @NotifyChanges("local")
+        class Local {
+            /** local member */
+            @NotifyChanges("local member") int value;
+        }
+    }
+
+    Object anonymous = new Object() { /** anonymous member */ @NotifyChanges("anonymous") int value; };
+
+    /** after empty member */ ;
+    @NotifyChanges("s") int s;
+
+    String strings = "/** not a comment */" + "// nor this" + '"';
+
+    /** t */
+    // line comment wins
+    @NotifyChanges("t") int t;
+}
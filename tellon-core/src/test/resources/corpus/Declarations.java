@@ -0,0 +1,180 @@
+package com.test;
+
+import com.dpforge.tellon.annotations.NotifyChanges;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@NotifyChanges("type")
+public class Declarations<T extends Comparable<T>> extends ArrayList<T> implements Runnable {
+    @NotifyChanges("field")
+    private static final Map<String, List<Integer>> MAP = new HashMap<String, List<Integer>>(), OTHER = null;
+
+    @NotifyChanges("array")
+    int[] values = {1, 2}, matrix[] = {{3}};
+
+    @NotifyChanges("generic call")
+    Map<String, Integer> empty = Collections.<String, Integer>emptyMap(), second;
+
+    @NotifyChanges("conditions")
+    boolean less = 1 < 2, greater = 3 > 4;
+
+    @NotifyChanges("anonymous")
+    Object anonymous = new Object() {
+        @NotifyChanges("anonymous member")
+        @Override
+        public String toString() {
+            return "}";
+        }
+    }, next = '}';
+
+    @NotifyChanges("lambda")
+    Runnable lambda = () -> {
+        @NotifyChanges("lambda local class")
+        class InLambda {
+            @NotifyChanges("lambda local member") int value;
+        }
+    };
+
+    @NotifyChanges("conditional")
+    Object conditional = true ? null : new Object() {
+        @NotifyChanges("conditional member") int value;
+    };
+
+    @NotifyChanges("reference")
+    java.util.function.Supplier<Object> reference = Object::new;
+
+    public @NotifyChanges("modifiers first") static final int MODIFIERS = 0;
+
+    @NotifyChanges("constructor")
+    Declarations() {
+        this(null);
+    }
+
+    @NotifyChanges("generic constructor")
+    <S> Declarations(S value) {
+        final @NotifyChanges("local class") class Local {
+            @NotifyChanges("local member") void run() {}
+        }
+        new Thread() {
+            @NotifyChanges("anonymous in constructor") public void run() {}
+        }.start();
+    }
+
+    @NotifyChanges("method")
+    @Override
+    public void run() {
+        if (values.length > 0) {
+            switch (values[0]) {
+                case 1: break;
+                default: break;
+            }
+        }
+    }
+
+    @NotifyChanges("old array syntax")
+    int legacy()[] {
+        return null;
+    }
+
+    @NotifyChanges("throws")
+    <E extends Exception> void fail(E e) throws E, RuntimeException {
+        throw e;
+    }
+
+    static {
+        @NotifyChanges("initializer local") int ignored = 0;
+    }
+
+    {
+        new Object() {
+            @NotifyChanges("anonymous in initializer") int value;
+        };
+    }
+
+    ;
+
+    @NotifyChanges("inner class")
+    class Inner extends java.util.AbstractList<String> implements java.io.Serializable {
+        @NotifyChanges("inner method")
+        public String get(int index) {
+            return null;
+        }
+
+        public int size() {
+            return 0;
+        }
+    }
+
+    @NotifyChanges("inner interface")
+    interface Callback {
+        @NotifyChanges("abstract method")
+        void call();
+
+        @NotifyChanges("default method")
+        default void callTwice() {
+            call();
+            call();
+        }
+
+        default @NotifyChanges("annotation after default is ignored") void callThrice() {
+        }
+
+        @NotifyChanges("static method")
+        static void nothing() {
+        }
+    }
+
+    @NotifyChanges("inner annotation")
+    @interface Marker {
+        @NotifyChanges("annotation member")
+        String value() default "}";
+
+        @NotifyChanges("array member")
+        int[] numbers() default {1, 2};
+
+        @NotifyChanges("annotation constant")
+        String CONSTANT = "constant";
+
+        @NotifyChanges("class in annotation")
+        class Nested {
+        }
+    }
+
+    enum Kind {
+        @NotifyChanges("enum constant is not a block")
+        FIRST {
+            @NotifyChanges("enum constant body")
+            void apply() {
+            }
+        },
+        SECOND(new Object() {
+            @NotifyChanges("enum constant argument") int value;
+        }),
+        ;
+
+        @NotifyChanges("enum constructor")
+        Kind() {
+        }
+
+        Kind(Object argument) {
+        }
+
+        @NotifyChanges("enum method")
+        void apply() {
+        }
+    }
+}
+
+@NotifyChanges("second type")
+interface Second {
+}
+
+;
+
+@NotifyChanges("top annotation")
+@interface Top {
+}
@@ -0,0 +1,43 @@
+package com.test;
+
+import com.dpforge.tellon.annotations.*;
+import com.watcher.Contacts;
+import static com.watcher.Teams.BACKEND;
+
+class Watchers {
+    @NotifyChanges("plain")
+    int plain;
+
+    @NotifyChanges("escaped \"quote\" and \\ backslash")
+    int escaped;
+
+    @NotifyChanges({"first", "second",})
+    int trailingComma;
+
+    @NotifyChanges({})
+    int empty;
+
+    @NotifyChanges(Contacts.JOHNY)
+    int reference;
+
+    @NotifyChanges({Contacts.JOHNY, "literal", BACKEND.LEAD})
+    int mixed;
+
+    @NotifyChanges( { Contacts . BOB /* comment */ , "spaced" } )
+    int spaced;
+
+    @com.dpforge.tellon.annotations.NotifyChanges("qualified")
+    int qualified;
+
+    @Deprecated
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    @NotifyChanges("after other annotations")
+    int afterOthers;
+
+    @NotifyChanges("first one")
+    @NotifyChanges("second one is ignored")
+    int repeated;
+
+    @other.NotifyChanges("not ours")
+    int foreign;
+}